@@ -72,14 +72,36 @@ public abstract class MagikCheck extends MagikVisitor {
   }
 
   /**
-   * Scan the file from the context for issues.
+   * Scan the file from the context for issues. Issues of earlier scans are discarded, so a check
+   * can be reused for several files, from a single thread.
    *
    * @param magikFile File to use.
    * @return List issues.
    */
   public List<MagikIssue> scanFileForIssues(final MagikFile magikFile) {
+    this.issues.clear();
     this.scanFile(magikFile);
-    return Collections.unmodifiableList(this.issues);
+    return List.copyOf(this.issues);
+  }
+
+  /**
+   * Scan the file for issues with several checks, walking the tree only once.
+   *
+   * @param magikFile File to use.
+   * @param checks Checks to run.
+   * @return List issues, of all checks.
+   */
+  public static List<MagikIssue> scanFileForIssues(
+      final MagikFile magikFile, final List<? extends MagikCheck> checks) {
+    for (final MagikCheck check : checks) {
+      check.issues.clear();
+    }
+    MagikVisitor.scanFile(magikFile, checks);
+    final List<MagikIssue> issues = new ArrayList<>();
+    for (final MagikCheck check : checks) {
+      issues.addAll(check.issues);
+    }
+    return Collections.unmodifiableList(issues);
   }
 
   /**
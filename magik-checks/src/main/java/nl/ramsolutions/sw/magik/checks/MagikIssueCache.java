@@ -0,0 +1,350 @@
+package nl.ramsolutions.sw.magik.checks;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionWriter;
+import nl.ramsolutions.sw.magik.checks.checks.FileNotInLoadListCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of {@link MagikIssue}s per file.
+ *
+ * <p>Each entry is keyed by a hash over the tool fingerprint (e.g., the tool version), the
+ * effective properties for the file, the contents of the file and the contents of the files next to
+ * it which are read by checks, i.e., the {@code load_list.txt} (see {@link
+ * FileNotInLoadListCheck}). When the key of a file is unchanged, the cached issues are used and the
+ * file does not need to be parsed and checked again.
+ *
+ * <p>The cache is stored as a JSON-line file, one entry per file. Entries of files which still
+ * exist, but are not linted in this run, are kept when saving.
+ */
+public final class MagikIssueCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MagikIssueCache.class);
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final Gson GSON =
+      new GsonBuilder()
+          .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+          .disableHtmlEscaping()
+          .create();
+
+  /**
+   * Cached issue.
+   *
+   * @param check Kebab-case key of the check.
+   * @param message Message of the issue.
+   * @param range Range of the issue, as start line, start column, end line, end column.
+   */
+  private record CachedIssue(String check, String message, @Nullable int[] range) {}
+
+  /**
+   * Cache entry for a file.
+   *
+   * @param uri URI of the file.
+   * @param key Key of the entry.
+   * @param issues Issues of the file.
+   */
+  private record Entry(String uri, String key, List<CachedIssue> issues) {}
+
+  /**
+   * {@link Writer} digesting each line, combining the line digests independent of the order of the
+   * lines.
+   */
+  private static final class LineDigestWriter extends Writer {
+
+    private final MessageDigest digest = MagikIssueCache.createDigest();
+    private final StringBuilder line = new StringBuilder();
+    private long sum1;
+    private long sum2;
+    private long lineCount;
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+      for (int i = off; i < off + len; ++i) {
+        if (cbuf[i] == '\n') {
+          this.digestLine();
+        } else {
+          this.line.append(cbuf[i]);
+        }
+      }
+    }
+
+    private void digestLine() {
+      final byte[] lineDigest =
+          this.digest.digest(this.line.toString().getBytes(StandardCharsets.UTF_8));
+      final ByteBuffer buffer = ByteBuffer.wrap(lineDigest);
+      this.sum1 += buffer.getLong();
+      this.sum2 += buffer.getLong();
+      this.lineCount += 1;
+      this.line.setLength(0);
+    }
+
+    @Override
+    public void flush() {
+      // Nothing to flush.
+    }
+
+    @Override
+    public void close() {
+      if (!this.line.isEmpty()) {
+        this.digestLine();
+      }
+    }
+
+    String getFingerprint() {
+      return HexFormat.of().toHexDigits(this.sum1)
+          + HexFormat.of().toHexDigits(this.sum2)
+          + HexFormat.of().toHexDigits(this.lineCount);
+    }
+  }
+
+  private final Path path;
+  private final String toolFingerprint;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor, reads the cache from {@code path} if it exists.
+   *
+   * @param path Path to the cache file.
+   * @param toolFingerprint Fingerprint of the tool, e.g., the version of the tool.
+   */
+  public MagikIssueCache(final Path path, final String toolFingerprint) {
+    this.path = path;
+    this.toolFingerprint = toolFingerprint;
+    this.previousEntries = MagikIssueCache.readEntries(path);
+  }
+
+  /**
+   * Create the key for a file.
+   *
+   * @param properties Effective properties for the file.
+   * @param path Path to the file.
+   * @param contents Contents of the file.
+   * @return Key for the file.
+   * @throws IOException -
+   */
+  public String createKey(
+      final MagikToolsProperties properties, final Path path, final byte[] contents)
+      throws IOException {
+    final MessageDigest digest = MagikIssueCache.createDigest();
+    digest.update(this.toolFingerprint.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    properties
+        .toMap()
+        .forEach(
+            (key, value) -> {
+              digest.update(key.getBytes(StandardCharsets.UTF_8));
+              digest.update((byte) '=');
+              digest.update(value.getBytes(StandardCharsets.UTF_8));
+              digest.update((byte) '\n');
+            });
+    digest.update((byte) 0);
+    digest.update(contents);
+    digest.update((byte) 0);
+    final Path loadListPath = path.resolveSibling(FileNotInLoadListCheck.LOAD_LIST_FILENAME);
+    if (Files.exists(loadListPath)) {
+      digest.update(Files.readAllBytes(loadListPath));
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Get the cached issues for a file.
+   *
+   * @param uri URI of the file.
+   * @param key Key of the file, see {@link #createKey(MagikToolsProperties, Path, byte[])}.
+   * @param checksConfig Checks configuration for the file, used to create the checks.
+   * @return Cached issues, or {@code null} if not cached.
+   */
+  @CheckForNull
+  public List<MagikIssue> get(
+      final URI uri, final String key, final MagikChecksConfiguration checksConfig) {
+    final Entry entry = this.previousEntries.get(uri.toString());
+    if (entry == null || !entry.key().equals(key)) {
+      return null;
+    }
+
+    final Map<String, MagikCheck> checks = new HashMap<>();
+    final List<MagikIssue> issues = new ArrayList<>();
+    for (final CachedIssue cachedIssue : entry.issues()) {
+      final MagikCheck check =
+          checks.computeIfAbsent(
+              cachedIssue.check(), checkKey -> MagikIssueCache.createCheck(checksConfig, checkKey));
+      if (check == null) {
+        return null;
+      }
+
+      final Location location = new Location(uri, MagikIssueCache.toRange(cachedIssue.range()));
+      issues.add(new MagikIssue(location, cachedIssue.message(), check));
+    }
+
+    this.entries.put(entry.uri(), entry);
+    return issues;
+  }
+
+  /**
+   * Store the issues for a file.
+   *
+   * @param uri URI of the file.
+   * @param key Key of the file, see {@link #createKey(MagikToolsProperties, Path, byte[])}.
+   * @param issues Issues of the file.
+   */
+  public void put(final URI uri, final String key, final List<MagikIssue> issues) {
+    final List<CachedIssue> cachedIssues =
+        issues.stream()
+            .map(
+                issue ->
+                    new CachedIssue(
+                        issue.check().getHolder().getCheckKeyKebabCase(),
+                        issue.message(),
+                        MagikIssueCache.fromRange(issue.location().getRange())))
+            .toList();
+    final Entry entry = new Entry(uri.toString(), key, cachedIssues);
+    this.entries.put(entry.uri(), entry);
+  }
+
+  /**
+   * Save the cache to disk.
+   *
+   * @throws IOException -
+   */
+  public void save() throws IOException {
+    final Map<String, Entry> savedEntries = new HashMap<>(this.entries);
+    this.previousEntries.values().stream()
+        .filter(entry -> !savedEntries.containsKey(entry.uri()))
+        .filter(entry -> Files.exists(Path.of(URI.create(entry.uri()))))
+        .forEach(entry -> savedEntries.put(entry.uri(), entry));
+
+    final Path parentPath = this.path.toAbsolutePath().getParent();
+    Files.createDirectories(parentPath);
+    final Path tempPath = Files.createTempFile(parentPath, "magik-issue-cache", ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+      for (final Entry entry : savedEntries.values()) {
+        writer.write(MagikIssueCache.GSON.toJson(entry));
+        writer.write("\n");
+      }
+    }
+
+    Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING);
+    LOGGER.debug("Saved {} entries to cache: {}", savedEntries.size(), this.path);
+  }
+
+  /**
+   * Get a fingerprint of the types in an {@link IDefinitionKeeper}. Locations and timestamps of the
+   * definitions are not part of the fingerprint, see {@link JsonDefinitionWriter#writeTypes}.
+   *
+   * @param definitionKeeper {@link IDefinitionKeeper} to fingerprint.
+   * @return Fingerprint of the definitions.
+   * @throws IOException -
+   */
+  public static String fingerprint(final IDefinitionKeeper definitionKeeper) throws IOException {
+    final LineDigestWriter writer = new LineDigestWriter();
+    JsonDefinitionWriter.writeTypes(writer, definitionKeeper);
+    writer.close();
+    return writer.getFingerprint();
+  }
+
+  private static Map<String, Entry> readEntries(final Path path) {
+    final Map<String, Entry> readEntries = new HashMap<>();
+    if (!Files.exists(path)) {
+      return readEntries;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line = reader.readLine();
+      while (line != null) {
+        final Entry entry = MagikIssueCache.GSON.fromJson(line, Entry.class);
+        readEntries.put(entry.uri(), entry);
+        line = reader.readLine();
+      }
+    } catch (final IOException | JsonParseException exception) {
+      LOGGER.warn("Unable to read cache: {}, ignoring cache", path, exception);
+      readEntries.clear();
+    }
+
+    LOGGER.debug("Read {} entries from cache: {}", readEntries.size(), path);
+    return readEntries;
+  }
+
+  @CheckForNull
+  private static MagikCheck createCheck(
+      final MagikChecksConfiguration checksConfig, final String checkKey) {
+    final MagikCheckHolder holder =
+        checksConfig.getAllChecks().stream()
+            .filter(checkHolder -> checkHolder.getCheckKeyKebabCase().equals(checkKey))
+            .findAny()
+            .orElse(null);
+    if (holder == null) {
+      return null;
+    }
+
+    try {
+      return holder.createCheck();
+    } catch (final ReflectiveOperationException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      return null;
+    }
+  }
+
+  @CheckForNull
+  private static int[] fromRange(final @Nullable Range range) {
+    if (range == null) {
+      return null;
+    }
+
+    final Position startPosition = range.getStartPosition();
+    final Position endPosition = range.getEndPosition();
+    return new int[] {
+      startPosition.getLine(),
+      startPosition.getColumn(),
+      endPosition.getLine(),
+      endPosition.getColumn()
+    };
+  }
+
+  @CheckForNull
+  private static Range toRange(final @Nullable int[] range) {
+    if (range == null) {
+      return null;
+    }
+
+    return new Range(new Position(range[0], range[1]), new Position(range[2], range[3]));
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+}
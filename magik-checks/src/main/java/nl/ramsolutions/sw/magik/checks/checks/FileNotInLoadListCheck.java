@@ -17,6 +17,9 @@ public class FileNotInLoadListCheck extends MagikCheck {
   @SuppressWarnings("checkstyle:JavadocVariable")
   public static final String CHECK_KEY = "FileNotInLoadList";
 
+  /** Name of the load list file, next to the checked file. */
+  public static final String LOAD_LIST_FILENAME = "load_list.txt";
+
   private static final String MESSAGE = "File is not included in load_list.";
 
   @Override
@@ -27,7 +30,7 @@ public class FileNotInLoadListCheck extends MagikCheck {
       return;
     }
 
-    final Path loadListPath = path.resolveSibling("load_list.txt");
+    final Path loadListPath = path.resolveSibling(LOAD_LIST_FILENAME);
     final File loadListFile = loadListPath.toFile();
     if (!loadListFile.exists()) {
       return;
@@ -0,0 +1,79 @@
+package nl.ramsolutions.sw.magik.checks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import nl.ramsolutions.sw.magik.MagikFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link MagikCheck}. */
+class MagikCheckTest {
+
+  private static final String SOURCE =
+      """
+      _package sw
+      $
+
+      _method a.b(p1, _optional p2)
+      \t## Method b.
+      \t_local x << 1
+      \t_if p1 _is _unset
+      \t_then
+      \t\tshow(p1)
+      \t_endif
+      \t_return p1+x.CAPS
+      _endmethod
+      $
+
+      _block
+      \t_local y << 10 , z
+      \twrite("a very long line which is definitely longer than allowed by the line length check")
+      _endblock
+      $
+      """;
+
+  private static List<MagikCheck> createChecks() throws ReflectiveOperationException {
+    final List<MagikCheck> checks = new ArrayList<>();
+    for (final Class<? extends MagikCheck> checkClass : CheckList.getChecks()) {
+      final MagikCheckHolder holder =
+          new MagikCheckHolder(checkClass, Collections.emptySet(), true);
+      checks.add(holder.createCheck());
+    }
+    return checks;
+  }
+
+  private static String describe(final MagikIssue issue) {
+    return issue.check().getClass().getSimpleName()
+        + " "
+        + issue.location().getRange()
+        + " "
+        + issue.message();
+  }
+
+  @Test
+  void testScanFileForIssuesFusedSameAsSeparate(@TempDir final Path tempDir)
+      throws ReflectiveOperationException {
+    final URI uri = tempDir.resolve("source.magik").toUri();
+    final List<String> separateIssues = new ArrayList<>();
+    for (final MagikCheck check : MagikCheckTest.createChecks()) {
+      final MagikFile magikFile = new MagikFile(uri, SOURCE);
+      check.scanFileForIssues(magikFile).stream()
+          .map(MagikCheckTest::describe)
+          .forEach(separateIssues::add);
+    }
+
+    final MagikFile magikFile = new MagikFile(uri, SOURCE);
+    final List<String> fusedIssues =
+        MagikCheck.scanFileForIssues(magikFile, MagikCheckTest.createChecks()).stream()
+            .map(MagikCheckTest::describe)
+            .toList();
+
+    assertThat(separateIssues).isNotEmpty();
+    assertThat(fusedIssues).isEqualTo(separateIssues);
+  }
+}
@@ -0,0 +1,193 @@
+package nl.ramsolutions.sw.magik.checks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link MagikIssueCache}. */
+class MagikIssueCacheTest {
+
+  private static final String SOURCE =
+      """
+      _block
+      \t_local y << 10 , z
+      \twrite("a very long line which is definitely longer than allowed by the line length check")
+      _endblock
+      $
+      """;
+
+  private static List<MagikIssue> runChecks(
+      final MagikChecksConfiguration checksConfig, final MagikFile magikFile)
+      throws ReflectiveOperationException {
+    final List<MagikCheck> checks = new ArrayList<>();
+    for (final MagikCheckHolder holder : checksConfig.getAllChecks()) {
+      if (holder.isEnabled()) {
+        checks.add(holder.createCheck());
+      }
+    }
+    return MagikCheck.scanFileForIssues(magikFile, checks);
+  }
+
+  private static String describe(final MagikIssue issue) {
+    return issue.check().getHolder().getCheckKeyKebabCase()
+        + " "
+        + issue.location().getRange()
+        + " "
+        + issue.message();
+  }
+
+  @Test
+  void testSaveAndGet(@TempDir final Path tempDir)
+      throws IOException, ReflectiveOperationException {
+    final Path sourcePath = tempDir.resolve("source.magik");
+    Files.writeString(sourcePath, SOURCE);
+    final URI uri = sourcePath.toUri();
+    final byte[] contents = SOURCE.getBytes(StandardCharsets.ISO_8859_1);
+    final MagikToolsProperties properties = MagikToolsProperties.DEFAULT_PROPERTIES;
+    final MagikChecksConfiguration checksConfig =
+        new MagikChecksConfiguration(CheckList.getChecks(), properties);
+    final List<MagikIssue> issues =
+        MagikIssueCacheTest.runChecks(checksConfig, new MagikFile(uri, SOURCE));
+
+    final Path cachePath = tempDir.resolve("cache").resolve("issues.jsonl");
+    final MagikIssueCache cache = new MagikIssueCache(cachePath, "1.0");
+    final String key = cache.createKey(properties, sourcePath, contents);
+    assertThat(cache.get(uri, key, checksConfig)).isNull();
+    cache.put(uri, key, issues);
+    cache.save();
+
+    final MagikIssueCache readCache = new MagikIssueCache(cachePath, "1.0");
+    final List<MagikIssue> cachedIssues = readCache.get(uri, key, checksConfig);
+    assertThat(cachedIssues).isNotNull();
+    assertThat(cachedIssues.stream().map(MagikIssueCacheTest::describe).toList())
+        .isNotEmpty()
+        .isEqualTo(issues.stream().map(MagikIssueCacheTest::describe).toList());
+    assertThat(cachedIssues)
+        .extracting(MagikIssue::location)
+        .extracting(Location::getUri)
+        .containsOnly(uri);
+  }
+
+  @Test
+  void testKeyChanges(@TempDir final Path tempDir) throws IOException {
+    final Path sourcePath = tempDir.resolve("source.magik");
+    final byte[] contents = SOURCE.getBytes(StandardCharsets.ISO_8859_1);
+    final MagikToolsProperties properties = MagikToolsProperties.DEFAULT_PROPERTIES;
+    final MagikToolsProperties otherProperties =
+        new MagikToolsProperties(Map.of("line-length.line-length", "200"));
+    final MagikIssueCache cache = new MagikIssueCache(tempDir.resolve("issues.jsonl"), "1.0");
+    final MagikIssueCache otherCache = new MagikIssueCache(tempDir.resolve("issues.jsonl"), "2.0");
+
+    final String key = cache.createKey(properties, sourcePath, contents);
+    assertThat(cache.createKey(properties, sourcePath, contents)).isEqualTo(key);
+    assertThat(cache.createKey(properties, sourcePath, new byte[] {'$'})).isNotEqualTo(key);
+    assertThat(cache.createKey(otherProperties, sourcePath, contents)).isNotEqualTo(key);
+    assertThat(otherCache.createKey(properties, sourcePath, contents)).isNotEqualTo(key);
+  }
+
+  @Test
+  void testLoadListChanged(@TempDir final Path tempDir)
+      throws IOException, ReflectiveOperationException {
+    final Path sourcePath = tempDir.resolve("source.magik");
+    Files.writeString(sourcePath, SOURCE);
+    final Path loadListPath = tempDir.resolve("load_list.txt");
+    Files.writeString(loadListPath, "source\n");
+    final URI uri = sourcePath.toUri();
+    final byte[] contents = SOURCE.getBytes(StandardCharsets.ISO_8859_1);
+    final MagikToolsProperties properties = MagikToolsProperties.DEFAULT_PROPERTIES;
+    final MagikChecksConfiguration checksConfig =
+        new MagikChecksConfiguration(CheckList.getChecks(), properties);
+    final Path cachePath = tempDir.resolve("issues.jsonl");
+
+    // First run.
+    final MagikIssueCache cache = new MagikIssueCache(cachePath, "1.0");
+    final String key = cache.createKey(properties, sourcePath, contents);
+    cache.put(uri, key, MagikIssueCacheTest.runChecks(checksConfig, new MagikFile(uri, SOURCE)));
+    cache.save();
+
+    // Second run, after the file is removed from the load list.
+    Files.writeString(loadListPath, "other\n");
+    final MagikIssueCache readCache = new MagikIssueCache(cachePath, "1.0");
+    final String newKey = readCache.createKey(properties, sourcePath, contents);
+    assertThat(newKey).isNotEqualTo(key);
+    assertThat(readCache.get(uri, newKey, checksConfig)).isNull();
+    assertThat(MagikIssueCacheTest.runChecks(checksConfig, new MagikFile(uri, SOURCE)))
+        .map(issue -> issue.check().getHolder().getCheckKeyKebabCase())
+        .contains("file-not-in-load-list");
+  }
+
+  private static ExemplarDefinition createExemplarDefinition(
+      final String uri, final Instant timestamp, final String name) {
+    return new ExemplarDefinition(
+        new Location(URI.create(uri)),
+        timestamp,
+        null,
+        null,
+        null,
+        ExemplarDefinition.Sort.SLOTTED,
+        TypeString.ofIdentifier(name, "user"),
+        List.of(),
+        List.of(),
+        Set.of());
+  }
+
+  @Test
+  void testFingerprint() throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final String emptyFingerprint = MagikIssueCache.fingerprint(definitionKeeper);
+
+    final ExemplarDefinition definition =
+        MagikIssueCacheTest.createExemplarDefinition("file:///a.magik", Instant.EPOCH, "a");
+    definitionKeeper.add(definition);
+    final String fingerprint = MagikIssueCache.fingerprint(definitionKeeper);
+
+    assertThat(fingerprint)
+        .isNotEqualTo(emptyFingerprint)
+        .isEqualTo(MagikIssueCache.fingerprint(definitionKeeper));
+  }
+
+  @Test
+  void testFingerprintIgnoresLocationsAndTimestamps() throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final ExemplarDefinition definition =
+        MagikIssueCacheTest.createExemplarDefinition("file:///a.magik", Instant.EPOCH, "a");
+    definitionKeeper.add(definition);
+    final String fingerprint = MagikIssueCache.fingerprint(definitionKeeper);
+
+    definitionKeeper.remove(definition);
+    definitionKeeper.add(
+        MagikIssueCacheTest.createExemplarDefinition("file:///b.magik", Instant.now(), "a"));
+    definitionKeeper.add(
+        new ProductDefinition(
+            new Location(URI.create("file:///product.def")),
+            Instant.EPOCH,
+            "test_product",
+            null,
+            "1",
+            "p1",
+            "Test product",
+            "Test product for testing",
+            List.of()));
+
+    assertThat(MagikIssueCache.fingerprint(definitionKeeper)).isEqualTo(fingerprint);
+  }
+}
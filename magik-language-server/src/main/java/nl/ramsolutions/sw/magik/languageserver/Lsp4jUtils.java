@@ -7,6 +7,8 @@ import nl.ramsolutions.sw.magik.MagikTypedFile;
 import org.eclipse.lsp4j.CodeAction;
 import org.eclipse.lsp4j.CodeActionKind;
 import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentEdit;
 import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
@@ -35,6 +37,50 @@ public final class Lsp4jUtils {
     }
   }
 
+  /**
+   * Apply a {@link TextDocumentContentChangeEvent} to a text. A change without a range replaces the
+   * whole text.
+   *
+   * @param text Text to apply change to.
+   * @param contentChangeEvent Change to apply.
+   * @return Changed text.
+   */
+  public static String applyContentChange(
+      final String text, final TextDocumentContentChangeEvent contentChangeEvent) {
+    final Range range = contentChangeEvent.getRange();
+    if (range == null) {
+      return contentChangeEvent.getText();
+    }
+
+    final int startOffset = Lsp4jUtils.offsetOf(text, range.getStart());
+    final int endOffset = Math.max(Lsp4jUtils.offsetOf(text, range.getEnd()), startOffset);
+    return text.substring(0, startOffset)
+        + contentChangeEvent.getText()
+        + text.substring(endOffset);
+  }
+
+  /**
+   * Get the offset of a {@link Position} in a text. The character of the position is in UTF-16 code
+   * units, like a Java {@link String}. Positions past the end of a line are clamped to the end of
+   * the line.
+   */
+  private static int offsetOf(final String text, final Position position) {
+    final int length = text.length();
+    int offset = 0;
+    for (int line = 0; line < position.getLine() && offset < length; ++offset) {
+      final char chr = text.charAt(offset);
+      if (chr == '\n' || chr == '\r' && (offset + 1 == length || text.charAt(offset + 1) != '\n')) {
+        line += 1;
+      }
+    }
+
+    int lineEnd = offset;
+    while (lineEnd < length && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+      lineEnd += 1;
+    }
+    return Math.min(offset + position.getCharacter(), lineEnd);
+  }
+
   /**
    * Create a {@link CodeAction}.
    *
@@ -6,8 +6,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import nl.ramsolutions.sw.MagikToolsProperties;
-import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.VersionedDefinitionKeeper;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.InitializeResult;
 import org.eclipse.lsp4j.InitializedParams;
@@ -18,7 +18,6 @@ import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageClientAware;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.lsp4j.services.NotebookDocumentService;
-import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4j.services.WorkspaceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +43,8 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
   public MagikLanguageServer() throws IOException {
     this.languageServerProperties = new MagikToolsProperties();
     // We assume the DefinitionKeeper gets its types from a types database (.jsonl file).
-    this.definitionKeeper = new DefinitionKeeper(false);
+    // Files are re-indexed while requests are handled, so readers need consistent versions.
+    this.definitionKeeper = new VersionedDefinitionKeeper(false);
     this.magikTextDocumentService =
         new MagikTextDocumentService(this, this.languageServerProperties, this.definitionKeeper);
     this.magikWorkspaceService =
@@ -116,6 +116,7 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
 
     return CompletableFuture.supplyAsync(
         () -> {
+          this.magikTextDocumentService.shutdown();
           this.magikWorkspaceService.shutdown();
 
           return null;
@@ -130,7 +131,7 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
   }
 
   @Override
-  public TextDocumentService getTextDocumentService() {
+  public MagikTextDocumentService getTextDocumentService() {
     return this.magikTextDocumentService;
   }
 
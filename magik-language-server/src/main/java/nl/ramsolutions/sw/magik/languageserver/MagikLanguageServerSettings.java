@@ -14,6 +14,9 @@ public final class MagikLanguageServerSettings {
   private static final String SHOW_TYPING_INLAY_HINTS = "magik.typing.showTypingInlayHints";
   private static final String SHOW_ARGUMENT_INLAY_HINTS = "magik.typing.showArgumentInlayHints";
   private static final String ENABLE_TYPING_CHECKS = "magik.typing.enableChecks";
+  private static final String DIAGNOSTICS_DELAY = "magik.diagnostics.delay";
+  private static final String DIAGNOSTICS_THREAD_COUNT = "magik.diagnostics.threadCount";
+  private static final int DEFAULT_DIAGNOSTICS_DELAY = 250;
 
   private final MagikToolsProperties properties;
 
@@ -68,6 +71,33 @@ public final class MagikLanguageServerSettings {
     return this.properties.getPropertyBoolean(ENABLE_TYPING_CHECKS) == Boolean.TRUE;
   }
 
+  /**
+   * Get magik.diagnostics.delay, the delay in milliseconds after a change before diagnostics are
+   * run. Defaults to 250.
+   *
+   * @return magik.diagnostics.delay.
+   */
+  public int getDiagnosticsDelay() {
+    final int delay =
+        this.properties.getPropertyInteger(DIAGNOSTICS_DELAY, DEFAULT_DIAGNOSTICS_DELAY);
+    return Math.max(delay, 0);
+  }
+
+  /**
+   * Get magik.diagnostics.threadCount, the number of threads to run diagnostics. Defaults to half
+   * the number of available processors.
+   *
+   * @return magik.diagnostics.threadCount.
+   */
+  public int getDiagnosticsThreadCount() {
+    final int threadCount = this.properties.getPropertyInteger(DIAGNOSTICS_THREAD_COUNT, 0);
+    if (threadCount <= 0) {
+      return Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+    }
+
+    return threadCount;
+  }
+
   /**
    * Get magik.lint.overrideConfigFile.
    *
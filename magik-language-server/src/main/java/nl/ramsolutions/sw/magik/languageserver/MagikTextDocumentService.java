@@ -1,5 +1,7 @@
 package nl.ramsolutions.sw.magik.languageserver;
 
+import com.sonar.sslr.api.AstNode;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collections;
@@ -17,6 +19,7 @@ import nl.ramsolutions.sw.magik.languageserver.codeactions.CodeActionProvider;
 import nl.ramsolutions.sw.magik.languageserver.completion.CompletionProvider;
 import nl.ramsolutions.sw.magik.languageserver.definitions.DefinitionsProvider;
 import nl.ramsolutions.sw.magik.languageserver.diagnostics.DiagnosticsProvider;
+import nl.ramsolutions.sw.magik.languageserver.diagnostics.DiagnosticsScheduler;
 import nl.ramsolutions.sw.magik.languageserver.documentsymbols.DocumentSymbolProvider;
 import nl.ramsolutions.sw.magik.languageserver.folding.FoldingRangeProvider;
 import nl.ramsolutions.sw.magik.languageserver.formatting.FormattingProvider;
@@ -29,6 +32,7 @@ import nl.ramsolutions.sw.magik.languageserver.selectionrange.SelectionRangeProv
 import nl.ramsolutions.sw.magik.languageserver.semantictokens.SemanticTokenProvider;
 import nl.ramsolutions.sw.magik.languageserver.signaturehelp.SignatureHelpProvider;
 import nl.ramsolutions.sw.magik.languageserver.typehierarchy.TypeHierarchyProvider;
+import nl.ramsolutions.sw.magik.parser.IncrementalMagikParser;
 import nl.ramsolutions.sw.moduledef.ModuleDefFile;
 import nl.ramsolutions.sw.productdef.ProductDefFile;
 import org.eclipse.lsp4j.CallHierarchyIncomingCall;
@@ -110,6 +114,7 @@ public class MagikTextDocumentService implements TextDocumentService {
   private final MagikToolsProperties properties;
   private final IDefinitionKeeper definitionKeeper;
   private final DiagnosticsProvider diagnosticsProvider;
+  private final DiagnosticsScheduler diagnosticsScheduler;
   private final HoverProvider hoverProvider;
   private final ImplementationProvider implementationProvider;
   private final SignatureHelpProvider signatureHelpProvider;
@@ -127,6 +132,7 @@ public class MagikTextDocumentService implements TextDocumentService {
   private final SelectionRangeProvider selectionRangeProvider;
   private final CallHierarchyProvider callHierarchyProvider;
   private final Map<TextDocumentIdentifier, OpenedFile> openedFiles = new HashMap<>();
+  private final Map<URI, IncrementalMagikParser> magikParsers = new HashMap<>();
 
   /**
    * Constructor.
@@ -143,6 +149,14 @@ public class MagikTextDocumentService implements TextDocumentService {
     this.definitionKeeper = definitionKeeper;
 
     this.diagnosticsProvider = new DiagnosticsProvider(this.properties);
+    final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
+    this.diagnosticsScheduler =
+        new DiagnosticsScheduler(
+            this.diagnosticsProvider,
+            publishParams ->
+                this.languageServer.getLanguageClient().publishDiagnostics(publishParams),
+            settings.getDiagnosticsDelay(),
+            settings.getDiagnosticsThreadCount());
     this.hoverProvider = new HoverProvider();
     this.implementationProvider = new ImplementationProvider();
     this.signatureHelpProvider = new SignatureHelpProvider();
@@ -167,7 +181,7 @@ public class MagikTextDocumentService implements TextDocumentService {
    * @param capabilities Server capabilities to set.
    */
   public void setCapabilities(final ServerCapabilities capabilities) {
-    capabilities.setTextDocumentSync(TextDocumentSyncKind.Full);
+    capabilities.setTextDocumentSync(TextDocumentSyncKind.Incremental);
 
     this.diagnosticsProvider.setCapabilities(capabilities);
     this.hoverProvider.setCapabilities(capabilities);
@@ -224,12 +238,16 @@ public class MagikTextDocumentService implements TextDocumentService {
 
       case "magik":
         {
+          final IncrementalMagikParser magikParser = new IncrementalMagikParser(uri);
+          this.magikParsers.put(uri, magikParser);
+          final AstNode topNode = magikParser.parse(text);
           final MagikTypedFile magikFile =
-              new MagikTypedFile(fileProperties, uri, text, this.definitionKeeper);
+              new MagikTypedFile(
+                  fileProperties, uri, text, this.definitionKeeper.getSnapshot(), topNode);
           openedFile = magikFile;
 
-          // Publish diagnostics to client.
-          this.publishDiagnostics(magikFile);
+          // Publish diagnostics to client, in the background.
+          this.diagnosticsScheduler.schedule(magikFile, textDocument.getVersion());
           break;
         }
 
@@ -263,11 +281,6 @@ public class MagikTextDocumentService implements TextDocumentService {
       throw new IllegalStateException(exception);
     }
 
-    // Update file contents.
-    final List<TextDocumentContentChangeEvent> contentChangeEvents = params.getContentChanges();
-    final TextDocumentContentChangeEvent contentChangeEvent = contentChangeEvents.get(0);
-    final String text = contentChangeEvent.getText();
-
     // Find original TextDocumentIdentifier.
     final TextDocumentIdentifier realTextDocumentIdentifier = new TextDocumentIdentifier(uriStr);
     final OpenedFile existingOpenedFile = this.openedFiles.get(realTextDocumentIdentifier);
@@ -276,6 +289,12 @@ public class MagikTextDocumentService implements TextDocumentService {
       return;
     }
 
+    // Update file contents, changes are applied in order.
+    String text = existingOpenedFile.getSource();
+    for (final TextDocumentContentChangeEvent contentChangeEvent : params.getContentChanges()) {
+      text = Lsp4jUtils.applyContentChange(text, contentChangeEvent);
+    }
+
     final String languageId = existingOpenedFile.getLanguageId();
     final OpenedFile openedFile;
     switch (languageId) {
@@ -293,12 +312,17 @@ public class MagikTextDocumentService implements TextDocumentService {
 
       case "magik":
         {
+          // Only re-parse the changed sections.
+          final IncrementalMagikParser magikParser =
+              this.magikParsers.computeIfAbsent(uri, IncrementalMagikParser::new);
+          final AstNode topNode = magikParser.parse(text);
           final MagikTypedFile magikFile =
-              new MagikTypedFile(fileProperties, uri, text, this.definitionKeeper);
+              new MagikTypedFile(
+                  fileProperties, uri, text, this.definitionKeeper.getSnapshot(), topNode);
           openedFile = magikFile;
 
-          // Publish diagnostics to client.
-          this.publishDiagnostics(magikFile);
+          // Publish diagnostics to client, in the background.
+          this.diagnosticsScheduler.schedule(magikFile, params.getTextDocument().getVersion());
           break;
         }
 
@@ -328,6 +352,8 @@ public class MagikTextDocumentService implements TextDocumentService {
     // Clear published diagnostics.
     final List<Diagnostic> diagnostics = Collections.emptyList();
     final String uriStr = textDocumentIdentifier.getUri();
+    this.magikParsers.remove(URI.create(uriStr));
+    this.diagnosticsScheduler.cancel(URI.create(uriStr));
     final PublishDiagnosticsParams publishParams =
         new PublishDiagnosticsParams(uriStr, diagnostics);
     final LanguageClient languageClient = this.languageServer.getLanguageClient();
@@ -355,14 +381,47 @@ public class MagikTextDocumentService implements TextDocumentService {
     }
   }
 
-  private void publishDiagnostics(final MagikTypedFile magikFile) {
-    final List<Diagnostic> diagnostics = this.diagnosticsProvider.provideDiagnostics(magikFile);
+  /**
+   * Get the opened file for {@code textDocument}. A {@link MagikTypedFile} is bound to a snapshot
+   * of the definitions, so a single request reasons over a single version. When the definitions
+   * have changed since, the file is re-bound to the current snapshot.
+   *
+   * @param textDocument Text document to get opened file for.
+   * @return Opened file, or {@code null} if not opened.
+   */
+  @CheckForNull
+  private OpenedFile getOpenedFile(final TextDocumentIdentifier textDocument) {
+    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    if (!(openedFile instanceof final MagikTypedFile magikFile)) {
+      return openedFile;
+    }
 
-    // Publish to client.
-    final String uri = magikFile.getUri().toString();
-    final PublishDiagnosticsParams publishParams = new PublishDiagnosticsParams(uri, diagnostics);
-    final LanguageClient languageClient = this.languageServer.getLanguageClient();
-    languageClient.publishDiagnostics(publishParams);
+    final IDefinitionKeeper snapshot = this.definitionKeeper.getSnapshot();
+    if (magikFile.getDefinitionKeeper() == snapshot) {
+      return magikFile;
+    }
+
+    final MagikTypedFile reboundMagikFile =
+        new MagikTypedFile(
+            magikFile.getProperties(),
+            magikFile.getUri(),
+            magikFile.getSource(),
+            snapshot,
+            magikFile.getTopNode());
+    this.openedFiles.put(textDocument, reboundMagikFile);
+    return reboundMagikFile;
+  }
+
+  /** Handle a changed configuration. */
+  public void configurationChanged() {
+    final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
+    this.diagnosticsScheduler.configure(
+        settings.getDiagnosticsDelay(), settings.getDiagnosticsThreadCount());
+  }
+
+  /** Handle shutdown. */
+  public void shutdown() {
+    this.diagnosticsScheduler.shutdown();
   }
 
   @Override
@@ -377,7 +436,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getCharacter());
 
     final Position position = params.getPosition();
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
 
     return CompletableFuture.supplyAsync(
         () -> {
@@ -418,7 +477,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(() -> Either.forLeft(Collections.emptyList()));
     }
@@ -456,7 +515,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(SignatureHelp::new);
     }
@@ -487,7 +546,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("foldingRange, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     return CompletableFuture.supplyAsync(
         () -> {
           final List<FoldingRange> foldingRanges;
@@ -524,7 +583,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final Position lsp4jPosition = params.getPosition();
     final nl.ramsolutions.sw.magik.Position position =
         Lsp4jConversion.positionFromLsp4j(lsp4jPosition);
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     return CompletableFuture.supplyAsync(
         () -> {
           final List<nl.ramsolutions.sw.magik.Location> locations;
@@ -562,7 +621,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final Position lsp4jPosition = params.getPosition();
     final nl.ramsolutions.sw.magik.Position position =
         Lsp4jConversion.positionFromLsp4j(lsp4jPosition);
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     return CompletableFuture.supplyAsync(
         () -> {
           final List<Location> references;
@@ -609,7 +668,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(() -> Either.forLeft(Collections.emptyList()));
     }
@@ -640,7 +699,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("formatting, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -674,7 +733,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("rangeFormatting, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -709,7 +768,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("semanticTokensFull, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     return CompletableFuture.supplyAsync(
         () -> {
           final SemanticTokens semanticTokens;
@@ -747,7 +806,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(() -> null);
     }
@@ -781,7 +840,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(() -> null);
     }
@@ -813,7 +872,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("documentSymbol, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -840,7 +899,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final TextDocumentIdentifier textDocument = params.getTextDocument();
     LOGGER.debug("selectionRange, uri: {}", textDocument.getUri());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -874,7 +933,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         params.getPosition().getLine(),
         params.getPosition().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(() -> null);
     }
@@ -956,7 +1015,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         range.getEnd().getLine(),
         range.getEnd().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -994,7 +1053,7 @@ public class MagikTextDocumentService implements TextDocumentService {
         range.getEnd().getLine(),
         range.getEnd().getCharacter());
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     if (!(openedFile instanceof MagikTypedFile)) {
       return CompletableFuture.supplyAsync(Collections::emptyList);
     }
@@ -1044,7 +1103,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final nl.ramsolutions.sw.magik.Position magikPosition =
         Lsp4jConversion.positionFromLsp4j(position);
 
-    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    final OpenedFile openedFile = this.getOpenedFile(textDocument);
     return CompletableFuture.supplyAsync(
         () -> {
           final List<CallHierarchyItem> items =
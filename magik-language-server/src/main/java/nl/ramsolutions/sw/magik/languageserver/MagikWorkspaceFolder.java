@@ -1,12 +1,16 @@
 package nl.ramsolutions.sw.magik.languageserver;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -16,21 +20,22 @@ import java.util.stream.Stream;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.WorkspaceFileScanner;
+import nl.ramsolutions.sw.WorkspaceFileScanner.ScannedFile;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
-import nl.ramsolutions.sw.magik.MagikFileScanner;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisSettings;
 import nl.ramsolutions.sw.magik.analysis.definitions.FilterableDefinitionKeeperAdapter;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.BinaryDefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionReader;
-import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionWriter;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.SegmentedDefinitionStore;
+import nl.ramsolutions.sw.magik.analysis.indexer.IIndexerListener;
 import nl.ramsolutions.sw.magik.analysis.indexer.MagikIndexer;
 import nl.ramsolutions.sw.magik.analysis.indexer.ModuleIndexer;
 import nl.ramsolutions.sw.magik.analysis.indexer.ProductIndexer;
-import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
-import nl.ramsolutions.sw.productdef.ProductDefFileScanner;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.slf4j.Logger;
@@ -40,15 +45,20 @@ import org.slf4j.LoggerFactory;
  * Magik definition workspace handler.
  *
  * <p>Handles things like: - updating definitions on file events - loading of existing type database
- * with definitions (on start up) - dumping type database with definitions (on shut down) - re-index
- * of existing definitions, in case of timestamp differences
+ * with definitions (on start up) - storing the definitions of each (re-)indexed file, in the
+ * background - re-index of existing definitions, in case of timestamp differences
+ *
+ * <p>The definitions are stored in a {@link SegmentedDefinitionStore}, a snapshot from earlier
+ * versions is migrated on start up.
  *
  * <p>One handler is to be instantiated per workspace.
  */
-public class MagikWorkspaceFolder {
+public class MagikWorkspaceFolder implements IIndexerListener {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikWorkspaceFolder.class);
-  private static final String TYPES_DB_FILENAME = "types.jsonl";
+  private static final String TYPES_DB_DIRNAME = "types.db";
+  private static final String SNAPSHOT_TYPES_DB_FILENAME = "types.bin";
+  private static final String LEGACY_TYPES_DB_FILENAME = "types.jsonl";
 
   private final WorkspaceFolder workspaceFolder;
   private final IDefinitionKeeper definitionKeeper;
@@ -57,6 +67,7 @@ public class MagikWorkspaceFolder {
   private final ProductIndexer productIndexer;
   private final ModuleIndexer moduleIndexer;
   private final MagikIndexer magikIndexer;
+  private volatile @Nullable SegmentedDefinitionStore definitionStore;
 
   /**
    * Constructor.
@@ -78,6 +89,9 @@ public class MagikWorkspaceFolder {
     this.moduleIndexer = new ModuleIndexer(this.definitionKeeper, this.ignoreHandler);
     this.magikIndexer =
         new MagikIndexer(this.definitionKeeper, this.languageServerProperties, this.ignoreHandler);
+    this.productIndexer.addListener(this);
+    this.moduleIndexer.addListener(this);
+    this.magikIndexer.addListener(this);
   }
 
   /**
@@ -93,107 +107,162 @@ public class MagikWorkspaceFolder {
       this.readExistingTypesDatabase();
     }
 
-    this.runProductIndexer();
-    this.runModuleIndexer();
-    this.runMagikIndexer();
+    // Scan the workspace once, for all indexers.
+    final WorkspaceFileScanner scanner =
+        new WorkspaceFileScanner(this.ignoreHandler, settings.getTypingIndexerThreadCount());
+    final WorkspaceFileScanner.ScanResult scanResult = scanner.scan(this.getWorkspacePath());
+    this.runProductIndexer(scanResult.productDefFiles());
+    this.runModuleIndexer(scanResult.moduleDefFiles());
+    this.runMagikIndexer(scanResult.magikFiles());
 
     LOGGER.debug("Done on init: {}", this);
   }
 
   /**
-   * Shutdown handler.
+   * Shutdown handler. Waits for the definitions to be stored.
    *
    * @throws IOException If an error occurs.
    */
   public void onShutdown() throws IOException {
     LOGGER.debug("On shutdown: {}", this);
 
-    final MagikAnalysisSettings settings = new MagikAnalysisSettings(this.languageServerProperties);
-    if (settings.getTypingCacheIndexedDefinitions()) {
-      this.writeTypesDatabase();
+    final SegmentedDefinitionStore store = this.definitionStore;
+    if (store != null) {
+      this.definitionStore = null;
+      store.close();
     }
 
     LOGGER.debug("Done on shutdown: {}", this);
   }
 
+  /**
+   * Store the definitions of a changed file, if it is part of this workspace.
+   *
+   * @param uri URI of file.
+   * @param definitions All current definitions of the file.
+   */
+  @Override
+  public void onDefinitionsChanged(final URI uri, final Collection<IDefinition> definitions) {
+    final SegmentedDefinitionStore store = this.definitionStore;
+    if (store != null && uri.toString().startsWith(this.getWorkspaceUri().toString())) {
+      store.put(uri, definitions);
+    }
+  }
+
   private void readExistingTypesDatabase() throws IOException {
     final Path workspacePath = this.getWorkspacePath();
-    final Path typesDbPath = workspacePath.resolve(TYPES_DB_FILENAME);
-    if (Files.exists(typesDbPath)) {
-      LOGGER.debug("Reading types database for workspace: {}, path: {}", this, typesDbPath);
-      JsonDefinitionReader.readTypes(typesDbPath, this.definitionKeeper);
+    SegmentedDefinitionStore store = this.definitionStore;
+    if (store == null) {
+      final Path typesDbPath = workspacePath.resolve(TYPES_DB_DIRNAME);
+      LOGGER.debug("Opening types database for workspace: {}, path: {}", this, typesDbPath);
+      store = SegmentedDefinitionStore.open(typesDbPath);
+      this.definitionStore = store;
     }
+
+    if (!store.isEmpty()) {
+      store.readTypes(this.definitionKeeper);
+      return;
+    }
+
+    // Migrate the snapshot of earlier versions.
+    final Path snapshotTypesDbPath = workspacePath.resolve(SNAPSHOT_TYPES_DB_FILENAME);
+    final Path legacyTypesDbPath = workspacePath.resolve(LEGACY_TYPES_DB_FILENAME);
+    if (Files.exists(snapshotTypesDbPath)) {
+      LOGGER.debug(
+          "Migrating types database for workspace: {}, path: {}", this, snapshotTypesDbPath);
+      // Read instead of memory-map, a mapped file cannot be deleted on Windows.
+      final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotTypesDbPath));
+      BinaryDefinitionReader.readTypes(buffer, this.definitionKeeper);
+    } else if (Files.exists(legacyTypesDbPath)) {
+      LOGGER.debug("Migrating types database for workspace: {}, path: {}", this, legacyTypesDbPath);
+      JsonDefinitionReader.readTypes(legacyTypesDbPath, this.definitionKeeper);
+    } else {
+      return;
+    }
+
+    this.storeWorkspaceDefinitions(store);
+    MagikWorkspaceFolder.deleteMigratedTypesDatabase(snapshotTypesDbPath);
+    MagikWorkspaceFolder.deleteMigratedTypesDatabase(legacyTypesDbPath);
   }
 
-  private void runProductIndexer() throws IOException {
+  /**
+   * Delete a migrated types database. Failing to delete it is not fatal, it is migrated again only
+   * if the types database is empty.
+   *
+   * @param path Path to migrated types database.
+   */
+  private static void deleteMigratedTypesDatabase(final Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (final IOException exception) {
+      LOGGER.warn("Unable to delete migrated types database: {}", path, exception);
+    }
+  }
+
+  private void runProductIndexer(final List<ScannedFile> productDefFiles) throws IOException {
     LOGGER.debug("Running ProductIndexer for: {}", this);
 
-    final ProductDefFileScanner scanner = new ProductDefFileScanner(this.ignoreHandler);
-    final Path workspacePath = this.getWorkspacePath();
-    final Stream<Path> indexableFiles =
-        scanner.getProductTrees(workspacePath).stream()
-            .flatMap(ProductDefFileScanner.Tree::stream)
-            .map(ProductDefFileScanner.Tree::getPath);
     final FilterableDefinitionKeeperAdapter filteredDefinitionKeeper =
         this.getWorkspaceFilteredDefinitionKeeper();
     final Collection<ProductDefinition> indexedProductDefinitions =
         filteredDefinitionKeeper.getProductDefinitions();
     final Collection<FileEvent> fileEvents =
-        this.buildFileEventsForDifferences(indexableFiles, indexedProductDefinitions);
+        this.buildFileEventsForDifferences(productDefFiles, indexedProductDefinitions);
     LOGGER.debug("Product file event count: {}", fileEvents.size());
     for (final FileEvent fileEvent : fileEvents) {
       this.productIndexer.handleFileEvent(fileEvent);
     }
   }
 
-  private void runModuleIndexer() throws IOException {
+  private void runModuleIndexer(final List<ScannedFile> moduleDefFiles) throws IOException {
     LOGGER.debug("Running ModuleIndexer for: {}", this);
 
-    final ModuleDefFileScanner scanner = new ModuleDefFileScanner(this.ignoreHandler);
-    final Path workspacePath = this.getWorkspacePath();
-    final Stream<Path> indexableFiles = scanner.getModuleDefFiles(workspacePath).stream();
     final FilterableDefinitionKeeperAdapter filteredDefinitionKeeper =
         this.getWorkspaceFilteredDefinitionKeeper();
     final Collection<ModuleDefinition> indexedModuleDefinitions =
         filteredDefinitionKeeper.getModuleDefinitions();
     final Collection<FileEvent> fileEvents =
-        this.buildFileEventsForDifferences(indexableFiles, indexedModuleDefinitions);
+        this.buildFileEventsForDifferences(moduleDefFiles, indexedModuleDefinitions);
     LOGGER.debug("Module file event count: {}", fileEvents.size());
     for (final FileEvent fileEvent : fileEvents) {
       this.moduleIndexer.handleFileEvent(fileEvent);
     }
   }
 
-  private void runMagikIndexer() throws IOException {
+  private void runMagikIndexer(final List<ScannedFile> magikFiles) throws IOException {
     LOGGER.debug("Running MagikIndexer for: {}", this);
 
-    final Path workspaceFolderPath = this.getWorkspacePath();
-    final MagikFileScanner magikFileScanner = new MagikFileScanner(this.ignoreHandler);
-    final Stream<Path> indexableFiles = magikFileScanner.getFiles(workspaceFolderPath);
     final FilterableDefinitionKeeperAdapter filteredDefinitionKeeper =
         this.getWorkspaceFilteredDefinitionKeeper();
     final Collection<MagikFileDefinition> indexedMagikFileDefinitions =
         filteredDefinitionKeeper.getMagikFileDefinitions();
     final Collection<FileEvent> fileEvents =
-        this.buildFileEventsForDifferences(indexableFiles, indexedMagikFileDefinitions);
+        this.buildFileEventsForDifferences(magikFiles, indexedMagikFileDefinitions);
 
     LOGGER.debug("Magik file event count: {}", fileEvents.size());
-    for (final FileEvent fileEvent : fileEvents) {
-      this.magikIndexer.handleFileEvent(fileEvent);
-    }
+    this.magikIndexer.handleFileEvents(fileEvents);
   }
 
-  private void writeTypesDatabase() throws IOException {
-    final Path workspacePath = this.getWorkspacePath();
-    final Path typesDbPath = workspacePath.resolve(TYPES_DB_FILENAME);
-    if (Files.exists(typesDbPath)) {
-      Files.delete(typesDbPath);
-    }
-
-    LOGGER.debug("Writing types database for workspace: {}, path: {}", this, typesDbPath);
+  private void storeWorkspaceDefinitions(final SegmentedDefinitionStore store) throws IOException {
     final FilterableDefinitionKeeperAdapter filteredDefinitionKeeper =
         this.getWorkspaceFilteredDefinitionKeeper();
-    JsonDefinitionWriter.write(typesDbPath, filteredDefinitionKeeper);
+    final Map<URI, List<IDefinition>> uriDefinitions =
+        Stream.of(
+                filteredDefinitionKeeper.getProductDefinitions(),
+                filteredDefinitionKeeper.getModuleDefinitions(),
+                filteredDefinitionKeeper.getMagikFileDefinitions(),
+                filteredDefinitionKeeper.getPackageDefinitions(),
+                filteredDefinitionKeeper.getExemplarDefinitions(),
+                filteredDefinitionKeeper.getGlobalDefinitions(),
+                filteredDefinitionKeeper.getMethodDefinitions(),
+                filteredDefinitionKeeper.getProcedureDefinitions(),
+                filteredDefinitionKeeper.getConditionDefinitions(),
+                filteredDefinitionKeeper.getBinaryOperatorDefinitions())
+            .flatMap(Collection::stream)
+            .map(IDefinition.class::cast)
+            .collect(Collectors.groupingBy(def -> def.getLocation().getUri()));
+    uriDefinitions.forEach(store::put);
+    store.flush();
   }
 
   private FilterableDefinitionKeeperAdapter getWorkspaceFilteredDefinitionKeeper() {
@@ -202,8 +271,9 @@ public class MagikWorkspaceFolder {
         def ->
             def.getLocation() != null
                 && def.getLocation().getUri().toString().startsWith(workspaceUriStr);
+    // Work on a snapshot, to get a consistent view while files are being indexed.
     return new FilterableDefinitionKeeperAdapter(
-        this.definitionKeeper,
+        this.definitionKeeper.getSnapshot(),
         locationPred::test,
         locationPred::test,
         locationPred::test,
@@ -216,15 +286,28 @@ public class MagikWorkspaceFolder {
         locationPred::test);
   }
 
+  /**
+   * Build the {@link FileEvent}s for the differences between the scanned files and the indexed
+   * definitions. The last modified times of the scanned files are used, only files of definitions
+   * which were not scanned are queried.
+   */
   @SafeVarargs
   private Collection<FileEvent> buildFileEventsForDifferences(
-      final Stream<Path> filePaths, final Collection<? extends IDefinition>... definitions) {
+      final List<ScannedFile> scannedFiles,
+      final Collection<? extends IDefinition>... definitions) {
     final Map<URI, Instant> definitionUris =
         Stream.of(definitions)
             .flatMap(Collection::stream)
             .map(def -> Map.entry(def.getLocation().getUri(), def.getTimestamp()))
             .collect(
                 Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (val0, val1) -> val0));
+    final Map<URI, Instant> scannedUris =
+        scannedFiles.stream()
+            .collect(
+                Collectors.toMap(
+                    scannedFile -> scannedFile.path().toUri(),
+                    ScannedFile::lastModified,
+                    (val0, val1) -> val0));
 
     // Get updates/deletes.
     final Set<FileEvent> updateDeleteFileEvents =
@@ -232,21 +315,12 @@ public class MagikWorkspaceFolder {
             .map(
                 entry -> {
                   final URI uri = entry.getKey();
-                  final Path path = Path.of(uri);
                   final Instant defTime = entry.getValue();
-                  try {
-                    if (!Files.exists(path)) {
-                      return new FileEvent(uri, FileChangeType.DELETED);
-                    }
-
-                    final FileTime fileTime = Files.getLastModifiedTime(path);
-                    final Instant fileTimeInstant = fileTime.toInstant();
-                    if (!fileTimeInstant.equals(defTime)) {
-                      return new FileEvent(uri, FileChangeType.CHANGED);
-                    }
-                  } catch (final IOException exception) {
-                    LOGGER.debug("Error checking file: " + uri, exception);
-                    exception.printStackTrace(); // NOSONAR: Debug tooling only.
+                  final Instant scannedTime = scannedUris.get(uri);
+                  if (scannedTime == null) {
+                    return MagikWorkspaceFolder.buildFileEventForDifference(uri, defTime);
+                  } else if (!scannedTime.equals(defTime)) {
+                    return new FileEvent(uri, FileChangeType.CHANGED);
                   }
 
                   return null;
@@ -255,17 +329,44 @@ public class MagikWorkspaceFolder {
             .collect(Collectors.toSet());
 
     // Get new files.
-    final Set<URI> indexedFiles = definitionUris.keySet();
     final Set<FileEvent> newFileEvents =
-        filePaths
-            .filter(indexablePath -> !indexedFiles.contains(indexablePath.toUri()))
-            .map(indexablePath -> new FileEvent(indexablePath.toUri(), FileChangeType.CREATED))
+        scannedUris.keySet().stream()
+            .filter(uri -> !definitionUris.containsKey(uri))
+            .map(uri -> new FileEvent(uri, FileChangeType.CREATED))
             .collect(Collectors.toSet());
 
     return Stream.concat(updateDeleteFileEvents.stream(), newFileEvents.stream())
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Build the {@link FileEvent} for a file which was not scanned, by querying the file.
+   *
+   * @param uri URI of file.
+   * @param defTime Timestamp of the definitions of the file.
+   * @return {@link FileEvent}, or {@code null} if the file is unchanged.
+   */
+  @CheckForNull
+  private static FileEvent buildFileEventForDifference(final URI uri, final Instant defTime) {
+    final Path path = Path.of(uri);
+    try {
+      if (!Files.exists(path)) {
+        return new FileEvent(uri, FileChangeType.DELETED);
+      }
+
+      final FileTime fileTime = Files.getLastModifiedTime(path);
+      final Instant fileTimeInstant = fileTime.toInstant();
+      if (!fileTimeInstant.equals(defTime)) {
+        return new FileEvent(uri, FileChangeType.CHANGED);
+      }
+    } catch (final IOException exception) {
+      LOGGER.debug("Error checking file: " + uri, exception);
+      exception.printStackTrace(); // NOSONAR: Debug tooling only.
+    }
+
+    return null;
+  }
+
   private URI getWorkspaceUri() {
     final String uriStr = this.workspaceFolder.getUri();
     return URI.create(uriStr);
@@ -10,10 +10,12 @@ import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import nl.ramsolutions.sw.ConfigurationReader;
+import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
-import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionReader;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.DefinitionConverter;
 import nl.ramsolutions.sw.magik.analysis.indexer.MagikIndexer;
 import nl.ramsolutions.sw.magik.analysis.indexer.ModuleIndexer;
 import nl.ramsolutions.sw.magik.analysis.indexer.ProductIndexer;
@@ -32,6 +34,7 @@ import org.eclipse.lsp4j.WorkDoneProgressCreateParams;
 import org.eclipse.lsp4j.WorkDoneProgressEnd;
 import org.eclipse.lsp4j.WorkspaceSymbol;
 import org.eclipse.lsp4j.WorkspaceSymbolParams;
+import org.eclipse.lsp4j.jsonrpc.CompletableFutures;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
 import org.eclipse.lsp4j.services.LanguageClient;
@@ -74,6 +77,9 @@ public class MagikWorkspaceService implements WorkspaceService {
     this.moduleIndexer = new ModuleIndexer(this.definitionKeeper, this.ignoreHandler);
     this.magikIndexer =
         new MagikIndexer(this.definitionKeeper, this.languageServerProperties, this.ignoreHandler);
+    this.productIndexer.addListener(this::onDefinitionsChanged);
+    this.moduleIndexer.addListener(this::onDefinitionsChanged);
+    this.magikIndexer.addListener(this::onDefinitionsChanged);
     this.symbolProvider = new SymbolProvider(this.definitionKeeper);
     this.testItemProvider = new MUnitTestItemProvider(this.definitionKeeper);
   }
@@ -97,6 +103,8 @@ public class MagikWorkspaceService implements WorkspaceService {
     LOGGER.debug("New properties: {}", props);
     this.languageServerProperties.reset();
     this.languageServerProperties.putAll(props);
+    ConfigurationReader.resetCache();
+    this.languageServer.getTextDocumentService().configurationChanged();
 
     this.runIndexersInBackground();
   }
@@ -137,7 +145,7 @@ public class MagikWorkspaceService implements WorkspaceService {
           }
 
           try {
-            JsonDefinitionReader.readTypes(path, this.definitionKeeper);
+            DefinitionConverter.readTypes(path, this.definitionKeeper);
           } catch (final IOException exception) {
             LOGGER.error(exception.getMessage(), exception);
           }
@@ -165,6 +173,8 @@ public class MagikWorkspaceService implements WorkspaceService {
                   Lsp4jConversion.fileChangeTypeFromLsp4j(fileChangeType);
               final nl.ramsolutions.sw.magik.FileEvent magikFileEvent =
                   new nl.ramsolutions.sw.magik.FileEvent(uri, magikFileChangeType);
+              ConfigurationReader.handleFileEvent(magikFileEvent);
+              this.ignoreHandler.handleFileEvent(magikFileEvent);
               try {
                 this.productIndexer.handleFileEvent(magikFileEvent);
                 this.moduleIndexer.handleFileEvent(magikFileEvent);
@@ -175,6 +185,13 @@ public class MagikWorkspaceService implements WorkspaceService {
             });
   }
 
+  private void onDefinitionsChanged(final URI uri, final Collection<IDefinition> definitions) {
+    // Let the workspace folders store the definitions.
+    for (final MagikWorkspaceFolder workspaceFolder : this.languageServer.getWorkspaceFolders()) {
+      workspaceFolder.onDefinitionsChanged(uri, definitions);
+    }
+  }
+
   @Override
   public CompletableFuture<
           Either<List<? extends SymbolInformation>, List<? extends WorkspaceSymbol>>>
@@ -182,9 +199,10 @@ public class MagikWorkspaceService implements WorkspaceService {
     final String query = params.getQuery();
     LOGGER.trace("symbol, query: {}", query);
 
-    return CompletableFuture.supplyAsync(
-        () -> {
-          final List<WorkspaceSymbol> queryResults = this.symbolProvider.getSymbols(query);
+    return CompletableFutures.computeAsync(
+        cancelChecker -> {
+          final List<WorkspaceSymbol> queryResults =
+              this.symbolProvider.getSymbols(query, cancelChecker);
           LOGGER.debug("Symbols found for: '{}', count: {}", query, queryResults.size());
           return Either.forRight(queryResults);
         });
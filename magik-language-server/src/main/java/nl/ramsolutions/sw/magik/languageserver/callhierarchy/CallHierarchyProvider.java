@@ -25,6 +25,7 @@ import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodInvocationNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.helpers.ProcedureDefinitionNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.MagikTypedFileCache;
 import nl.ramsolutions.sw.magik.analysis.typing.MethodUsageLocator;
 import nl.ramsolutions.sw.magik.analysis.typing.SelfHelper;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
@@ -51,6 +52,7 @@ public class CallHierarchyProvider {
   private static final Logger LOGGER = LoggerFactory.getLogger(CallHierarchyProvider.class);
 
   private final IDefinitionKeeper definitionKeeper;
+  private final MagikTypedFileCache fileCache = new MagikTypedFileCache();
 
   public CallHierarchyProvider(final IDefinitionKeeper definitionKeeper) {
     this.definitionKeeper = definitionKeeper;
@@ -123,7 +125,8 @@ public class CallHierarchyProvider {
     final String typeStringStr = object.getAsJsonPrimitive(DATA_TYPE_STRING).getAsString();
     final TypeString typeString = TypeStringParser.parseTypeString(typeStringStr);
 
-    final MethodUsageLocator methodUsageLocator = new MethodUsageLocator(this.definitionKeeper);
+    final MethodUsageLocator methodUsageLocator =
+        new MethodUsageLocator(this.definitionKeeper.getSnapshot(), this.fileCache);
     final MethodUsage searchedMethodUsage = new MethodUsage(typeString, methodName);
     return methodUsageLocator.getMethodUsages(searchedMethodUsage).stream()
         .map(
@@ -223,7 +226,8 @@ public class CallHierarchyProvider {
       throw new IllegalStateException(exception);
     }
 
-    final MagikTypedFile magikFile = new MagikTypedFile(uri, text, this.definitionKeeper);
+    final MagikTypedFile magikFile =
+        new MagikTypedFile(uri, text, this.definitionKeeper.getSnapshot());
     final String itemName = item.getName();
     final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
     return magikFile.getMagikDefinitions().stream()
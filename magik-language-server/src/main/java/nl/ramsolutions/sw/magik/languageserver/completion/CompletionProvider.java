@@ -99,8 +99,8 @@ public class CompletionProvider {
     final AstNode node = newMagikFile.getTopNode();
     final nl.ramsolutions.sw.magik.Position newPosition =
         Lsp4jConversion.positionFromLsp4j(newPositionLsp4j);
-    final AstNode tokenNodeAt = AstQuery.nodeAt(node, newPosition);
-    final AstNode tokenNodeBefore = AstQuery.nodeBefore(node, newPosition);
+    final AstNode tokenNodeAt = AstQuery.nodeAt(newMagikFile, newPosition);
+    final AstNode tokenNodeBefore = AstQuery.nodeBefore(newMagikFile, newPosition);
     final Token tokenBefore = tokenNodeBefore != null ? tokenNodeBefore.getToken() : null;
     final nl.ramsolutions.sw.magik.Position tokenBeforePosition =
         tokenBefore != null ? nl.ramsolutions.sw.magik.Position.fromTokenStart(tokenBefore) : null;
@@ -407,8 +407,8 @@ public class CompletionProvider {
       final MagikTypedFile magikFile, final Position position) {
     MagikTypedFile newMagikFile = magikFile;
 
-    final AstNode node = magikFile.getTopNode();
-    final AstNode tokenNode = AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+    final AstNode tokenNode =
+        AstQuery.nodeAt(magikFile, Lsp4jConversion.positionFromLsp4j(position));
     String cleanedToken = "";
     if (tokenNode != null
         && tokenNode.getParent() != null
@@ -106,8 +106,7 @@ public class DefinitionsProvider {
   public List<Location> provideDefinitions(
       final MagikTypedFile magikFile, final Position position) {
     // Should always be on an identifier.
-    final AstNode node = magikFile.getTopNode();
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode = AstQuery.nodeAt(magikFile, position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
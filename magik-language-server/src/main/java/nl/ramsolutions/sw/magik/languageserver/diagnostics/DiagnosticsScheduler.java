@@ -0,0 +1,159 @@
+package nl.ramsolutions.sw.magik.languageserver.diagnostics;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules diagnostics for documents in the background.
+ *
+ * <p>Diagnostics for a document are run after a delay, on a bounded pool. A newer version of the
+ * document cancels the pending run of an older version. A run which was already started for an
+ * older version, or for a document which was closed since, is not published.
+ */
+public class DiagnosticsScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiagnosticsScheduler.class);
+
+  /** A (scheduled) run of the diagnostics for a version of a document. */
+  private record Run(MagikTypedFile magikFile, @Nullable Integer version) {}
+
+  private final DiagnosticsProvider diagnosticsProvider;
+  private final Consumer<PublishDiagnosticsParams> publisher;
+  private final ScheduledThreadPoolExecutor executor;
+  private volatile long delay;
+  private final Map<URI, Run> latestRuns = new ConcurrentHashMap<>();
+  private final Map<URI, ScheduledFuture<?>> pendingRuns = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param diagnosticsProvider {@link DiagnosticsProvider} to provide diagnostics.
+   * @param publisher Publisher of the diagnostics, e.g., to the client.
+   * @param delay Delay in milliseconds before diagnostics are run.
+   * @param threadCount Maximum number of threads to run diagnostics.
+   */
+  public DiagnosticsScheduler(
+      final DiagnosticsProvider diagnosticsProvider,
+      final Consumer<PublishDiagnosticsParams> publisher,
+      final long delay,
+      final int threadCount) {
+    this.diagnosticsProvider = diagnosticsProvider;
+    this.publisher = publisher;
+    this.delay = delay;
+    this.executor =
+        new ScheduledThreadPoolExecutor(threadCount, DiagnosticsScheduler.createThreadFactory());
+  }
+
+  /**
+   * Reconfigure the scheduler, e.g., after the configuration has changed. Runs which are already
+   * scheduled keep their delay.
+   *
+   * @param newDelay Delay in milliseconds before diagnostics are run.
+   * @param threadCount Maximum number of threads to run diagnostics.
+   */
+  public void configure(final long newDelay, final int threadCount) {
+    this.delay = newDelay;
+    this.executor.setCorePoolSize(threadCount);
+  }
+
+  /**
+   * Schedule diagnostics for a version of a document, superseding any earlier version.
+   *
+   * @param magikFile Document to run diagnostics for.
+   * @param version Version of the document.
+   */
+  public void schedule(final MagikTypedFile magikFile, @Nullable final Integer version) {
+    final URI uri = magikFile.getUri();
+    final Run run = new Run(magikFile, version);
+    this.latestRuns.put(uri, run);
+    this.pendingRuns.compute(
+        uri,
+        (key, pendingRun) -> {
+          if (pendingRun != null) {
+            pendingRun.cancel(false);
+          }
+
+          return this.executor.schedule(() -> this.execute(run), this.delay, TimeUnit.MILLISECONDS);
+        });
+  }
+
+  /**
+   * Cancel any scheduled or running diagnostics for a document.
+   *
+   * @param uri URI of document.
+   */
+  public void cancel(final URI uri) {
+    this.latestRuns.remove(uri);
+    final ScheduledFuture<?> pendingRun = this.pendingRuns.remove(uri);
+    if (pendingRun != null) {
+      pendingRun.cancel(false);
+    }
+  }
+
+  /** Stop running diagnostics. */
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  private void execute(final Run run) {
+    final URI uri = run.magikFile().getUri();
+    // This run is started, forget its future, unless it was superseded already.
+    this.pendingRuns.computeIfPresent(
+        uri, (key, pendingRun) -> this.isLatest(run) ? null : pendingRun);
+    if (!this.isLatest(run)) {
+      return;
+    }
+
+    final List<Diagnostic> diagnostics;
+    try {
+      diagnostics = this.diagnosticsProvider.provideDiagnostics(run.magikFile());
+    } catch (final RuntimeException exception) {
+      LOGGER.error("Error providing diagnostics for: " + uri, exception);
+      return;
+    }
+
+    // Publish while holding the entry, so a concurrent cancel cannot be overtaken by this run.
+    final PublishDiagnosticsParams publishParams =
+        new PublishDiagnosticsParams(uri.toString(), diagnostics, run.version());
+    this.latestRuns.computeIfPresent(
+        uri,
+        (key, latestRun) -> {
+          if (latestRun != run) {
+            LOGGER.debug("Dropping diagnostics for superseded version, uri: {}", uri);
+            return latestRun;
+          }
+
+          this.publisher.accept(publishParams);
+          return null;
+        });
+  }
+
+  private boolean isLatest(final Run run) {
+    return this.latestRuns.get(run.magikFile().getUri()) == run;
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    final AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable);
+      thread.setName("magik-diagnostics-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
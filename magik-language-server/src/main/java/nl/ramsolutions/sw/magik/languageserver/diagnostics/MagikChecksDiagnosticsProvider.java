@@ -1,12 +1,9 @@
 package nl.ramsolutions.sw.magik.languageserver.diagnostics;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
-import nl.ramsolutions.sw.ConfigurationLocator;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.checks.CheckList;
@@ -55,11 +52,8 @@ public class MagikChecksDiagnosticsProvider {
    * @throws IOException -
    */
   public List<Diagnostic> getDiagnostics(final MagikFile magikFile) throws IOException {
-    // Empty cache, as the configuration may have changed without us knowing it.
-    ConfigurationLocator.resetCache();
-
-    return this.createChecks(magikFile).stream()
-        .flatMap(check -> this.runChecks(check, magikFile).stream())
+    final List<MagikCheck> checks = this.createChecks(magikFile);
+    return this.runChecks(checks, magikFile).stream()
         .filter(magikIssue -> !MagikIssueDisabledChecker.issueDisabled(magikFile, magikIssue))
         .map(
             issue -> {
@@ -75,23 +69,24 @@ public class MagikChecksDiagnosticsProvider {
         .toList();
   }
 
-  private List<MagikIssue> runChecks(final MagikCheck check, final MagikFile magikFile) {
+  private List<MagikIssue> runChecks(final List<MagikCheck> checks, final MagikFile magikFile) {
     final long start = System.nanoTime();
 
-    final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
+    // Run all checks in a single walk over the tree.
+    final List<MagikIssue> issues = MagikCheck.scanFileForIssues(magikFile, checks);
 
     if (LOGGER_DURATION.isTraceEnabled()) {
       LOGGER_DURATION.trace(
-          "Duration: {} check: {}, uri: {}",
+          "Duration: {} checks: {}, uri: {}",
           String.format("%.3f", (System.nanoTime() - start) / 1000000000.0),
-          check.getClass().getSimpleName(),
+          checks.size(),
           magikFile.getUri());
     }
 
     return issues;
   }
 
-  private Collection<MagikCheck> createChecks(final MagikFile magikFile) throws IOException {
+  private List<MagikCheck> createChecks(final MagikFile magikFile) throws IOException {
     final MagikToolsProperties fileProperties = magikFile.getProperties();
     final MagikToolsProperties actualProperties =
         MagikToolsProperties.merge(this.properties, fileProperties);
@@ -111,7 +106,7 @@ public class MagikChecksDiagnosticsProvider {
               return null;
             })
         .filter(Objects::nonNull)
-        .collect(Collectors.toSet());
+        .toList();
   }
 
   private DiagnosticSeverity getCheckSeverity(final MagikCheckHolder holder) {
@@ -1,14 +1,12 @@
 package nl.ramsolutions.sw.magik.languageserver.diagnostics;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
-import nl.ramsolutions.sw.ConfigurationLocator;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import nl.ramsolutions.sw.magik.checks.MagikCheckHolder;
 import nl.ramsolutions.sw.magik.checks.MagikCheckMetadata;
 import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
@@ -55,12 +53,9 @@ public class MagikTypedChecksDiagnosticsProvider {
    * @throws IOException -
    */
   public List<Diagnostic> getDiagnostics(final MagikTypedFile magikFile) throws IOException {
-    // Empty cache, as the configuration may have changed without us knowing it.
-    ConfigurationLocator.resetCache();
-
     // Parse the file, determine types, and get issues.
-    return this.createChecks(magikFile).stream()
-        .flatMap(check -> this.runChecks(check, magikFile).stream())
+    final List<MagikTypedCheck> checks = this.createChecks(magikFile);
+    return this.runChecks(checks, magikFile).stream()
         .filter(magikIssue -> !MagikIssueDisabledChecker.issueDisabled(magikFile, magikIssue))
         .map(
             issue -> {
@@ -76,24 +71,25 @@ public class MagikTypedChecksDiagnosticsProvider {
         .toList();
   }
 
-  private List<MagikIssue> runChecks(final MagikTypedCheck check, final MagikTypedFile magikFile) {
+  private List<MagikIssue> runChecks(
+      final List<MagikTypedCheck> checks, final MagikTypedFile magikFile) {
     final long start = System.nanoTime();
 
-    final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
+    // Run all checks in a single walk over the tree.
+    final List<MagikIssue> issues = MagikCheck.scanFileForIssues(magikFile, checks);
 
     if (LOGGER_DURATION.isTraceEnabled()) {
       LOGGER_DURATION.trace(
-          "Duration: {} check: {}, uri: {}",
+          "Duration: {} checks: {}, uri: {}",
           String.format("%.3f", (System.nanoTime() - start) / 1000000000.0),
-          check.getClass().getSimpleName(),
+          checks.size(),
           magikFile.getUri());
     }
 
     return issues;
   }
 
-  private Collection<MagikTypedCheck> createChecks(final MagikTypedFile magikFile)
-      throws IOException {
+  private List<MagikTypedCheck> createChecks(final MagikTypedFile magikFile) throws IOException {
     final MagikToolsProperties fileProperties = magikFile.getProperties();
     final MagikToolsProperties actualProperties =
         MagikToolsProperties.merge(this.properties, fileProperties);
@@ -113,7 +109,7 @@ public class MagikTypedChecksDiagnosticsProvider {
               return null;
             })
         .filter(Objects::nonNull)
-        .collect(Collectors.toSet());
+        .toList();
   }
 
   private DiagnosticSeverity getCheckSeverity(final MagikCheckHolder holder) {
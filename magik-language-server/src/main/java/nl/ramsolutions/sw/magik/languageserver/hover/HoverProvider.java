@@ -142,10 +142,8 @@ public class HoverProvider {
    */
   @SuppressWarnings("java:S3776")
   public Hover provideHover(final MagikTypedFile magikFile, final Position position) {
-    // Parse and reason magik.
-    final AstNode node = magikFile.getTopNode();
     final AstNode hoveredTokenNode =
-        AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+        AstQuery.nodeAt(magikFile, Lsp4jConversion.positionFromLsp4j(position));
     if (hoveredTokenNode == null) {
       return null;
     }
@@ -36,8 +36,7 @@ public class ImplementationProvider {
    */
   public List<Location> provideImplementations(
       final MagikTypedFile magikFile, final Position position) {
-    final AstNode node = magikFile.getTopNode();
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode = AstQuery.nodeAt(magikFile, position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
@@ -10,7 +10,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Position;
@@ -124,7 +123,7 @@ public class ReferencesProvider {
     final IDefinitionKeeper definitionKeeper = magikFile.getDefinitionKeeper();
 
     // Should always be on an identifier.
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode = AstQuery.nodeAt(magikFile, position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
@@ -210,8 +209,7 @@ public class ReferencesProvider {
     final Predicate<MethodUsage> filterPredicate = searchedMethodUsages::contains;
 
     // Find references.
-    return definitionKeeper.getMethodDefinitions().stream()
-        .flatMap(def -> def.getUsedMethods().stream())
+    return definitionKeeper.getMethodUsages(methodName).stream()
         .filter(filterPredicate::test)
         .map(MethodUsage::getLocation)
         .map(Location::validLocation)
@@ -233,23 +231,11 @@ public class ReferencesProvider {
     // usedGlobal might have a different package? This is because the ref might be stored with the
     // current package.
     final TypeString exemplarTypeString = exemplarDefinition.getTypeString();
-    final Set<TypeString> searchedTypes = Set.of(exemplarTypeString);
-    final Collection<GlobalUsage> wantedGlobalUsages =
-        searchedTypes.stream()
-            .map(wantedTypeRef -> new GlobalUsage(wantedTypeRef, null, null))
-            .collect(Collectors.toSet());
-    final Predicate<GlobalUsage> filterPredicate = wantedGlobalUsages::contains;
 
     // Find references.
     // TODO: Also parameters, return types of methods/procedures.
     // TODO: Also slots of methods.
-    return Stream.of(
-            definitionKeeper.getMethodDefinitions().stream()
-                .flatMap(def -> def.getUsedGlobals().stream()),
-            definitionKeeper.getProcedureDefinitions().stream()
-                .flatMap(def -> def.getUsedGlobals().stream()))
-        .flatMap(stream -> stream)
-        .filter(filterPredicate::test)
+    return definitionKeeper.getGlobalUsages(exemplarTypeString).stream()
         .map(GlobalUsage::getLocation)
         .map(Location::validLocation)
         .toList();
@@ -258,9 +244,7 @@ public class ReferencesProvider {
   private List<Location> referencesToCondition(
       final IDefinitionKeeper definitionKeeper, final String conditionName) {
     LOGGER.debug("Finding references to condition: {}", conditionName);
-    return definitionKeeper.getMethodDefinitions().stream()
-        .flatMap(def -> def.getUsedConditions().stream())
-        .filter(conditionUsage -> conditionUsage.getConditionName().equals(conditionName))
+    return definitionKeeper.getConditionUsages(conditionName).stream()
         .map(ConditionUsage::getLocation)
         .map(Location::validLocation)
         .toList();
@@ -18,6 +18,7 @@ import nl.ramsolutions.sw.magik.analysis.definitions.MethodUsage;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodInvocationNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.MagikTypedFileCache;
 import nl.ramsolutions.sw.magik.analysis.typing.MethodUsageLocator;
 import nl.ramsolutions.sw.magik.analysis.typing.SelfHelper;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
@@ -29,8 +30,12 @@ import org.eclipse.lsp4j.PrepareRenameResult;
 /** Magik method renamer. */
 class MethodRenamer extends Renamer {
 
-  MethodRenamer(final MagikTypedFile magikFile, final AstNode node) {
+  private final MagikTypedFileCache fileCache;
+
+  MethodRenamer(
+      final MagikTypedFile magikFile, final AstNode node, final MagikTypedFileCache fileCache) {
     super(magikFile, node);
+    this.fileCache = fileCache;
   }
 
   @Override
@@ -83,7 +88,8 @@ class MethodRenamer extends Renamer {
                     (a, b) -> Stream.concat(a.stream(), b.stream()).toList()));
 
     // Get method usages to rename.
-    final MethodUsageLocator methodUsageLocator = new MethodUsageLocator(definitionKeeper);
+    final MethodUsageLocator methodUsageLocator =
+        new MethodUsageLocator(definitionKeeper, this.fileCache);
     final MethodUsage searchedMethodUsage = new MethodUsage(typeString, methodName);
     final Map<URI, List<TextEdit>> usageRenames =
         methodUsageLocator.getMethodUsages(searchedMethodUsage).stream()
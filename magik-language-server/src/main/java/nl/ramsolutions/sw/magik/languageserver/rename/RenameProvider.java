@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
+import nl.ramsolutions.sw.magik.analysis.typing.MagikTypedFileCache;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.languageserver.Lsp4jConversion;
 import org.eclipse.lsp4j.Position;
@@ -22,6 +23,8 @@ import org.eclipse.lsp4j.jsonrpc.messages.Either3;
 /** Rename provider. */
 public class RenameProvider {
 
+  private final MagikTypedFileCache fileCache = new MagikTypedFileCache();
+
   /**
    * Set server capabilities.
    *
@@ -42,13 +45,10 @@ public class RenameProvider {
    */
   public Either3<org.eclipse.lsp4j.Range, PrepareRenameResult, PrepareRenameDefaultBehavior>
       providePrepareRename(final MagikTypedFile magikFile, final Position position) {
-    // Parse magik.
-    final AstNode topNode = magikFile.getTopNode();
-
     // Should always be on an identifier.
     final AstNode node =
         AstQuery.nodeAt(
-            topNode, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
+            magikFile, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
     if (node == null) {
       return null;
     }
@@ -76,13 +76,10 @@ public class RenameProvider {
    */
   public WorkspaceEdit provideRename(
       final MagikTypedFile magikFile, final Position position, final String newName) {
-    // Parse magik.
-    final AstNode topNode = magikFile.getTopNode();
-
     // Should always be on an identifier.
     final AstNode node =
         AstQuery.nodeAt(
-            topNode, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
+            magikFile, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
     if (node == null) {
       return null;
     }
@@ -112,7 +109,7 @@ public class RenameProvider {
     if (VariableRenamer.canHandleRename(magikFile, node)) {
       return new VariableRenamer(magikFile, node);
     } else if (MethodRenamer.canHandleRename(magikFile, node)) {
-      return new MethodRenamer(magikFile, node);
+      return new MethodRenamer(magikFile, node, this.fileCache);
     }
 
     return null;
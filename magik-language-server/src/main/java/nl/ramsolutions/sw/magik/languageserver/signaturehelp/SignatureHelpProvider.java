@@ -47,8 +47,7 @@ public class SignatureHelpProvider {
   public SignatureHelp provideSignatureHelp(
       final MagikTypedFile magikFile, final Position position) {
     // Get intended method and called type.
-    final AstNode node = magikFile.getTopNode();
-    AstNode currentNode = AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+    AstNode currentNode = AstQuery.nodeAt(magikFile, Lsp4jConversion.positionFromLsp4j(position));
     if (currentNode != null && currentNode.isNot(MagikGrammar.METHOD_INVOCATION)) {
       currentNode = currentNode.getFirstAncestor(MagikGrammar.METHOD_INVOCATION);
     }
@@ -60,13 +60,10 @@ public class TypeHierarchyProvider {
   public List<TypeHierarchyItem> prepareTypeHierarchy(
       final MagikTypedFile magikFile, final Position position) {
     LOGGER.info("prepareTypeHierarchy: {}", magikFile);
-    // Parse magik.
-    final AstNode topNode = magikFile.getTopNode();
-
     // Should always be on an identifier.
     final AstNode tokenNode =
         AstQuery.nodeAt(
-            topNode, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
+            magikFile, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
     if (tokenNode == null) {
       return null; // NOSONAR: LSP requires null.
     }
@@ -0,0 +1,70 @@
+package nl.ramsolutions.sw.magik.languageserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link Lsp4jUtils}. */
+class Lsp4jUtilsTest {
+
+  private static final String TEXT = "_block\r\n\twrite(1)\n_endblock\n$\n";
+
+  private static TextDocumentContentChangeEvent change(
+      final int startLine,
+      final int startCharacter,
+      final int endLine,
+      final int endCharacter,
+      final String text) {
+    final Range range =
+        new Range(new Position(startLine, startCharacter), new Position(endLine, endCharacter));
+    return new TextDocumentContentChangeEvent(range, text);
+  }
+
+  @Test
+  void testApplyContentChangeFull() {
+    final TextDocumentContentChangeEvent contentChangeEvent =
+        new TextDocumentContentChangeEvent("write(2)");
+    final String text = Lsp4jUtils.applyContentChange(TEXT, contentChangeEvent);
+
+    assertThat(text).isEqualTo("write(2)");
+  }
+
+  @Test
+  void testApplyContentChangeInsert() {
+    final TextDocumentContentChangeEvent contentChangeEvent =
+        Lsp4jUtilsTest.change(1, 8, 1, 8, ", 2");
+    final String text = Lsp4jUtils.applyContentChange(TEXT, contentChangeEvent);
+
+    assertThat(text).isEqualTo("_block\r\n\twrite(1, 2)\n_endblock\n$\n");
+  }
+
+  @Test
+  void testApplyContentChangeReplaceLines() {
+    final TextDocumentContentChangeEvent contentChangeEvent =
+        Lsp4jUtilsTest.change(0, 6, 2, 0, "\n");
+    final String text = Lsp4jUtils.applyContentChange(TEXT, contentChangeEvent);
+
+    assertThat(text).isEqualTo("_block\n_endblock\n$\n");
+  }
+
+  @Test
+  void testApplyContentChangeEnd() {
+    final TextDocumentContentChangeEvent contentChangeEvent =
+        Lsp4jUtilsTest.change(4, 0, 4, 0, "write(2)");
+    final String text = Lsp4jUtils.applyContentChange(TEXT, contentChangeEvent);
+
+    assertThat(text).isEqualTo(TEXT + "write(2)");
+  }
+
+  @Test
+  void testApplyContentChangePastEndOfLine() {
+    final TextDocumentContentChangeEvent contentChangeEvent =
+        Lsp4jUtilsTest.change(0, 100, 0, 100, " # Comment.");
+    final String text = Lsp4jUtils.applyContentChange(TEXT, contentChangeEvent);
+
+    assertThat(text).isEqualTo("_block # Comment.\r\n\twrite(1)\n_endblock\n$\n");
+  }
+}
@@ -0,0 +1,94 @@
+package nl.ramsolutions.sw.magik.languageserver.diagnostics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test DiagnosticsScheduler. */
+class DiagnosticsSchedulerTest {
+
+  private static final long DELAY = 100;
+  private static final long TIMEOUT = 10;
+
+  @TempDir private Path tempDir;
+
+  private final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+  private final BlockingQueue<PublishDiagnosticsParams> published = new LinkedBlockingQueue<>();
+  private DiagnosticsScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    final DiagnosticsProvider provider =
+        new DiagnosticsProvider(MagikToolsProperties.DEFAULT_PROPERTIES);
+    this.scheduler = new DiagnosticsScheduler(provider, this.published::add, DELAY, 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.scheduler.shutdown();
+  }
+
+  private URI getUri() {
+    return this.tempDir.resolve("source.magik").toUri();
+  }
+
+  private MagikTypedFile createMagikFile(final String code) {
+    return new MagikTypedFile(this.getUri(), code, this.definitionKeeper);
+  }
+
+  @Test
+  void testScheduleLatestVersionPublished() throws InterruptedException {
+    this.scheduler.schedule(this.createMagikFile("_block _endblock"), 1);
+    this.scheduler.schedule(this.createMagikFile("_block _endblock\n"), 2);
+    this.scheduler.schedule(this.createMagikFile("_block\n_endblock\n"), 3);
+
+    final PublishDiagnosticsParams params = this.published.poll(TIMEOUT, TimeUnit.SECONDS);
+    assertThat(params).isNotNull();
+    assertThat(params.getUri()).isEqualTo(this.getUri().toString());
+    assertThat(params.getVersion()).isEqualTo(3);
+
+    // Superseded versions are never published.
+    assertThat(this.published.poll(DELAY * 3, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void testCancel() throws InterruptedException {
+    this.scheduler.schedule(this.createMagikFile("_block _endblock"), 1);
+    this.scheduler.cancel(this.getUri());
+
+    assertThat(this.published.poll(DELAY * 3, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void testConfigure() throws InterruptedException {
+    this.scheduler.configure(TimeUnit.SECONDS.toMillis(TIMEOUT * 2), 2);
+    this.scheduler.schedule(this.createMagikFile("_block _endblock"), 1);
+
+    assertThat(this.published.poll(DELAY * 3, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void testPublishedDiagnostics() throws InterruptedException {
+    this.scheduler.schedule(this.createMagikFile("_method a.b\n  _return 1\n_endmethod"), 1);
+
+    final PublishDiagnosticsParams params = this.published.poll(TIMEOUT, TimeUnit.SECONDS);
+    assertThat(params).isNotNull();
+    final List<Diagnostic> diagnostics = params.getDiagnostics();
+    assertThat(diagnostics).isNotEmpty();
+  }
+}
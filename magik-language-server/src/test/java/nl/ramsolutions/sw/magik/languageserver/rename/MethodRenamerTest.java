@@ -14,6 +14,7 @@ import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.SmallworldProjectExtension;
 import nl.ramsolutions.sw.magik.TextEdit;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
+import nl.ramsolutions.sw.magik.analysis.typing.MagikTypedFileCache;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.languageserver.Lsp4jConversion;
 import org.eclipse.lsp4j.PrepareRenameResult;
@@ -39,7 +40,7 @@ class MethodRenamerTest {
     final AstNode topNode = magikFile.getTopNode();
     final AstNode node = AstQuery.nodeAt(topNode, position, MagikGrammar.IDENTIFIER);
 
-    final MethodRenamer renamer = new MethodRenamer(magikFile, node);
+    final MethodRenamer renamer = new MethodRenamer(magikFile, node, new MagikTypedFileCache());
     final PrepareRenameResult prepareRename = renamer.prepareRename();
     assertThat(prepareRename)
         .isEqualTo(
@@ -63,7 +64,7 @@ class MethodRenamerTest {
     final AstNode topNode = magikFile.getTopNode();
     final AstNode node = AstQuery.nodeAt(topNode, position, MagikGrammar.IDENTIFIER);
 
-    final MethodRenamer renamer = new MethodRenamer(magikFile, node);
+    final MethodRenamer renamer = new MethodRenamer(magikFile, node, new MagikTypedFileCache());
     final PrepareRenameResult prepareRename = renamer.prepareRename();
     assertThat(prepareRename)
         .isEqualTo(
@@ -89,7 +90,7 @@ class MethodRenamerTest {
     final AstNode topNode = magikFile.getTopNode();
     final AstNode node = AstQuery.nodeAt(topNode, position, MagikGrammar.IDENTIFIER);
 
-    final MethodRenamer renamer = new MethodRenamer(magikFile, node);
+    final MethodRenamer renamer = new MethodRenamer(magikFile, node, new MagikTypedFileCache());
     final Map<URI, List<TextEdit>> renames = renamer.provideRename("new_method_name");
     assertThat(renames)
         .isEqualTo(
@@ -128,7 +129,7 @@ class MethodRenamerTest {
     final AstNode topNode = magikFileA.getTopNode();
     final AstNode node = AstQuery.nodeAt(topNode, position, MagikGrammar.IDENTIFIER);
 
-    final MethodRenamer renamer = new MethodRenamer(magikFileA, node);
+    final MethodRenamer renamer = new MethodRenamer(magikFileA, node, new MagikTypedFileCache());
     final Map<URI, List<TextEdit>> renames = renamer.provideRename("new_method_name");
     assertThat(renames)
         .isEqualTo(
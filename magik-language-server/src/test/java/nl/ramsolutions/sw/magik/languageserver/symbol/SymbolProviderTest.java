@@ -0,0 +1,96 @@
+package nl.ramsolutions.sw.magik.languageserver.symbol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.Collections;
+import java.util.List;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.lsp4j.WorkspaceSymbol;
+import org.junit.jupiter.api.Test;
+
+/** Test SymbolProvider. */
+class SymbolProviderTest {
+
+  private static final Location EMPTY_LOCATION =
+      new Location(MagikTypedFile.DEFAULT_URI, new Range(new Position(0, 0), new Position(0, 0)));
+
+  private static IDefinitionKeeper createDefinitionKeeper() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    final TypeString ropeRef = TypeString.ofIdentifier("test_rope", "user");
+    definitionKeeper.add(
+        new ExemplarDefinition(
+            EMPTY_LOCATION,
+            null,
+            null,
+            null,
+            null,
+            ExemplarDefinition.Sort.SLOTTED,
+            ropeRef,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptySet()));
+    definitionKeeper.add(
+        new MethodDefinition(
+            EMPTY_LOCATION,
+            null,
+            null,
+            null,
+            null,
+            ropeRef,
+            "test_add()",
+            Collections.emptySet(),
+            Collections.emptyList(),
+            null,
+            Collections.emptySet(),
+            ExpressionResultString.UNDEFINED,
+            ExpressionResultString.EMPTY));
+    return definitionKeeper;
+  }
+
+  @Test
+  void testGetSymbols() {
+    final IDefinitionKeeper definitionKeeper = SymbolProviderTest.createDefinitionKeeper();
+    final SymbolProvider provider = new SymbolProvider(definitionKeeper);
+
+    final List<WorkspaceSymbol> symbols = provider.getSymbols("test_");
+
+    assertThat(symbols)
+        .extracting(WorkspaceSymbol::getName, WorkspaceSymbol::getKind)
+        .containsExactly(
+            tuple("Method: user:test_rope.test_add()", SymbolKind.Method),
+            tuple("Exemplar: user:test_rope", SymbolKind.Class));
+  }
+
+  @Test
+  void testGetSymbolsTypeAndMethod() {
+    final IDefinitionKeeper definitionKeeper = SymbolProviderTest.createDefinitionKeeper();
+    final SymbolProvider provider = new SymbolProvider(definitionKeeper);
+
+    final List<WorkspaceSymbol> symbols = provider.getSymbols("rope.add");
+
+    assertThat(symbols)
+        .extracting(WorkspaceSymbol::getName)
+        .containsExactly("Method: user:test_rope.test_add()");
+  }
+
+  @Test
+  void testGetSymbolsEmptyQuery() {
+    final IDefinitionKeeper definitionKeeper = SymbolProviderTest.createDefinitionKeeper();
+    final SymbolProvider provider = new SymbolProvider(definitionKeeper);
+
+    final List<WorkspaceSymbol> symbols = provider.getSymbols(" ");
+
+    assertThat(symbols).isEmpty();
+  }
+}
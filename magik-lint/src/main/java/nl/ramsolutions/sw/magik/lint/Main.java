@@ -64,6 +64,13 @@ public final class Main {
           .hasArg()
           .type(PatternOptionBuilder.NUMBER_VALUE)
           .build();
+  private static final Option OPTION_CACHE_FILE =
+      Option.builder()
+          .longOpt("cache-file")
+          .desc("Cache file to store issues of unchanged files")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
   private static final Option OPTION_DEBUG =
       Option.builder().longOpt("debug").desc("Enable showing of debug information").build();
   private static final Option OPTION_VERSION =
@@ -81,6 +88,7 @@ public final class Main {
     OPTIONS.addOption(OPTION_SHOW_CHECKS);
     OPTIONS.addOption(OPTION_COLUMN_OFFSET);
     OPTIONS.addOption(OPTION_MAX_INFRACTIONS);
+    OPTIONS.addOption(OPTION_CACHE_FILE);
     OPTIONS.addOption(OPTION_DEBUG);
     OPTIONS.addOption(OPTION_VERSION);
     OPTIONS.addOption(OPTION_APPLY_FIXES);
@@ -269,5 +277,10 @@ public final class Main {
       final String value = commandLine.getOptionValue(OPTION_RCFILE);
       properties.setProperty(MagikLint.KEY_OVERRIDE_CONFIG, value);
     }
+
+    if (commandLine.hasOption(OPTION_CACHE_FILE)) {
+      final String value = commandLine.getOptionValue(OPTION_CACHE_FILE);
+      properties.setProperty(MagikLint.KEY_CACHE_FILE, value);
+    }
   }
 }
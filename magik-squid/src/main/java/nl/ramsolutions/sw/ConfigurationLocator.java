@@ -3,11 +3,9 @@ package nl.ramsolutions.sw;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +23,8 @@ public final class ConfigurationLocator {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationLocator.class);
   private static final Map<Path, Path> CACHE = new ConcurrentHashMap<>();
+  private static final Map<Path, Path> PRODUCT_DIR_CACHE = new ConcurrentHashMap<>();
+  private static final AtomicReference<Path> FALLBACK_CACHE = new AtomicReference<>();
   private static final Path DOES_NOT_EXIST = Path.of("DOES_NOT_EXIST");
 
   private ConfigurationLocator() {}
@@ -32,6 +32,19 @@ public final class ConfigurationLocator {
   /** Reset the directory-cache. */
   public static void resetCache() {
     ConfigurationLocator.CACHE.clear();
+    ConfigurationLocator.PRODUCT_DIR_CACHE.clear();
+    ConfigurationLocator.FALLBACK_CACHE.set(null);
+  }
+
+  /**
+   * Test if {@code path} is the located fallback configuration, i.e., located via the environment
+   * variable, the home directory or {@code /etc}.
+   *
+   * @param path Path to test.
+   * @return True if fallback configuration, false otherwise.
+   */
+  static boolean isFallback(final Path path) {
+    return path.equals(ConfigurationLocator.FALLBACK_CACHE.get());
   }
 
   /**
@@ -40,6 +53,9 @@ public final class ConfigurationLocator {
    * environment variable MAGIKLINTRC 4. .magik-lint.properties in your home directory 5.
    * .magik-lint.properties in the System property `user.home` 6. /etc/magik-lint.properties
    *
+   * <p>Results are cached, including the results of the lookups in the parent directories and
+   * negative results. Use {@link #resetCache()} when configuration files are changed.
+   *
    * @param searchPath Path to start looking from, a directory.
    * @return Return the path to the configuration to use.
    */
@@ -47,93 +63,74 @@ public final class ConfigurationLocator {
   public static Path locateConfiguration(final Path searchPath) {
     LOGGER.trace("Search path: {}", searchPath.toAbsolutePath());
 
-    if (ConfigurationLocator.CACHE.containsKey(searchPath)) {
-      final Path configurationPath = ConfigurationLocator.CACHE.get(searchPath);
-      LOGGER.trace("Found in cache: {}", configurationPath);
-
-      if (configurationPath == DOES_NOT_EXIST) {
-        return null;
-      }
-
-      return configurationPath;
+    final Path cachedPath = ConfigurationLocator.CACHE.get(searchPath);
+    if (cachedPath != null) {
+      LOGGER.trace("Found in cache: {}", cachedPath);
+      return cachedPath != DOES_NOT_EXIST ? cachedPath : null;
     }
 
+    final Path configurationPath = ConfigurationLocator.locateConfigurationUncached(searchPath);
+    ConfigurationLocator.CACHE.put(
+        searchPath, configurationPath != null ? configurationPath : DOES_NOT_EXIST);
+    return configurationPath;
+  }
+
+  @CheckForNull
+  private static Path locateConfigurationUncached(final Path searchPath) {
     // 1. rc file in current dir.
     final Path currentDirPath = ConfigurationLocator.inCurrentDir(searchPath);
     if (currentDirPath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, currentDirPath);
       return currentDirPath;
     }
 
     // 3. In any upper Smallworld product.
-    final Path productDirPath = ConfigurationLocator.inProductDir(searchPath);
+    final Path productDirPath = ConfigurationLocator.inProductDir(searchPath.toAbsolutePath());
     if (productDirPath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, productDirPath);
       return productDirPath;
     }
 
+    // 4. - 7. Independent of the search path.
+    final Path fallbackPath = ConfigurationLocator.FALLBACK_CACHE.get();
+    if (fallbackPath != null) {
+      return fallbackPath != DOES_NOT_EXIST ? fallbackPath : null;
+    }
+
+    final Path locatedFallbackPath = ConfigurationLocator.locateFallback();
+    ConfigurationLocator.FALLBACK_CACHE.set(
+        locatedFallbackPath != null ? locatedFallbackPath : DOES_NOT_EXIST);
+    return locatedFallbackPath;
+  }
+
+  @CheckForNull
+  private static Path locateFallback() {
     // 4. In env var MAGIKLINTRC.
     final Path rcEnvVarPath = ConfigurationLocator.rcEnvVar();
     if (rcEnvVarPath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, rcEnvVarPath);
       return rcEnvVarPath;
     }
 
     // 5. In home directory.
     final Path homeDirPath = ConfigurationLocator.inHomeDir();
     if (homeDirPath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, homeDirPath);
       return homeDirPath;
     }
 
     // 6. In your home directory, Java style.
     final Path userHomePath = ConfigurationLocator.inUserHomeDir();
     if (userHomePath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, userHomePath);
       return userHomePath;
     }
 
     // 7. /etc/magik-lint.properties.
     final Path etcPath = ConfigurationLocator.inEtcDir();
     if (etcPath != null) {
-      ConfigurationLocator.CACHE.put(searchPath, etcPath);
       return etcPath;
     }
 
     LOGGER.trace("No configuration found");
-    ConfigurationLocator.CACHE.put(searchPath, DOES_NOT_EXIST);
     return null;
   }
 
-  private static Collection<Path> locateProductOrModuleDirs(final Path searchPath) {
-    final List<Path> dirs = new ArrayList<>();
-
-    Path path = searchPath.toAbsolutePath();
-    LOGGER.trace("Locating product.def/module.def in path (3): {}", path);
-
-    while (path != null && Files.exists(path)) {
-      // Test if product.def exists.
-      final Path productDefPath = path.resolve("product.def");
-      LOGGER.trace("Product.def path (3): {}", productDefPath);
-      if (Files.exists(productDefPath)) {
-        LOGGER.trace("Found product.def, adding path: {}", path);
-        dirs.add(path);
-      }
-
-      // Test if module.def exists.
-      final Path moduleDefPath = path.resolve("module.def");
-      LOGGER.trace("Module.def path (3): {}", moduleDefPath);
-      if (Files.exists(moduleDefPath)) {
-        LOGGER.trace("Found module.def, adding path: {}", path);
-        dirs.add(path);
-      }
-
-      path = path.getParent();
-    }
-
-    return dirs;
-  }
-
   @CheckForNull
   private static Path inCurrentDir(final Path searchPath) {
     final Path magikLintRcPath = searchPath.resolve(MAGIK_LINT_RC_FILENAME);
@@ -145,17 +142,41 @@ public final class ConfigurationLocator {
     return null;
   }
 
+  /**
+   * Get the configuration in the nearest product or module directory, from {@code path} upwards.
+   * The result for each directory is cached.
+   *
+   * @param path Absolute path to start looking from.
+   * @return Path to the configuration, or {@code null} if none found.
+   */
   @CheckForNull
-  private static Path inProductDir(final Path searchPath) {
-    for (final Path defPath : ConfigurationLocator.locateProductOrModuleDirs(searchPath)) {
-      final Path path = defPath.resolve(MAGIK_LINT_RC_FILENAME);
-      LOGGER.trace("Trying to get config at (3): {}", path.toAbsolutePath());
-      if (Files.exists(path)) {
-        return path;
-      }
+  private static Path inProductDir(final Path path) {
+    final Path cachedPath = ConfigurationLocator.PRODUCT_DIR_CACHE.get(path);
+    if (cachedPath != null) {
+      return cachedPath != DOES_NOT_EXIST ? cachedPath : null;
     }
 
-    return null;
+    final Path configurationPath;
+    final Path parentPath = path.getParent();
+    if (!Files.exists(path)) {
+      configurationPath = null;
+    } else if (ConfigurationLocator.isProductOrModuleDir(path)
+        && Files.exists(path.resolve(MAGIK_LINT_RC_FILENAME))) {
+      configurationPath = path.resolve(MAGIK_LINT_RC_FILENAME);
+      LOGGER.trace("Found config at (3): {}", configurationPath);
+    } else if (parentPath != null) {
+      configurationPath = ConfigurationLocator.inProductDir(parentPath);
+    } else {
+      configurationPath = null;
+    }
+
+    ConfigurationLocator.PRODUCT_DIR_CACHE.put(
+        path, configurationPath != null ? configurationPath : DOES_NOT_EXIST);
+    return configurationPath;
+  }
+
+  private static boolean isProductOrModuleDir(final Path path) {
+    return Files.exists(path.resolve("product.def")) || Files.exists(path.resolve("module.def"));
   }
 
   @CheckForNull
@@ -3,17 +3,94 @@ package nl.ramsolutions.sw;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.FileEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Class to determine the location of the properties file to read. */
+/**
+ * Class to determine the location of the properties file to read.
+ *
+ * <p>Read properties files are cached, together with the located properties files (see {@link
+ * ConfigurationLocator}). The caches are invalidated via {@link #handleFileEvent(FileEvent)}. No
+ * file events are received for the fallback configuration (e.g., {@code ~/.magik-lint.properties})
+ * and an overriding configuration file, as these are outside of the workspace. These are re-read
+ * when their modification time changes.
+ */
 public final class ConfigurationReader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationReader.class);
+  private static final Set<String> CONFIGURATION_FILENAMES =
+      Set.of(
+          ConfigurationLocator.MAGIK_LINT_RC_FILENAME,
+          ConfigurationLocator.HIDDEN_MAGIK_LINT_RC_FILENAME,
+          "product.def",
+          "module.def");
+  private static final Map<Path, CachedProperties> CACHE = new ConcurrentHashMap<>();
+
+  /**
+   * Cached properties file.
+   *
+   * @param properties Read properties.
+   * @param lastModifiedTime Modification time of the file when read, if checked.
+   */
+  private record CachedProperties(
+      MagikToolsProperties properties, @Nullable FileTime lastModifiedTime) {}
 
   private ConfigurationReader() {}
 
+  /** Reset the caches, including the cache of the {@link ConfigurationLocator}. */
+  public static void resetCache() {
+    ConfigurationReader.CACHE.clear();
+    ConfigurationLocator.resetCache();
+  }
+
+  /**
+   * Handle a file event. Resets the caches when a file is changed which influences the
+   * configuration, such as a {@code magik-lint.properties} or {@code product.def} file.
+   *
+   * @param fileEvent File event to handle.
+   */
+  public static void handleFileEvent(final FileEvent fileEvent) {
+    final Path path = fileEvent.getPath().toAbsolutePath();
+    final Path fileName = path.getFileName();
+    if (fileName != null && CONFIGURATION_FILENAMES.contains(fileName.toString())
+        || ConfigurationReader.CACHE.containsKey(path)) {
+      LOGGER.debug("Configuration changed, resetting caches, path: {}", path);
+      ConfigurationReader.resetCache();
+    }
+  }
+
+  /**
+   * Read a properties file, or get it from the cache.
+   *
+   * @param propertiesPath Path to properties file.
+   * @param checkModified Re-read the file when its modification time has changed.
+   * @return Read properties, must not be modified.
+   * @throws IOException -
+   */
+  private static MagikToolsProperties readPropertiesFile(
+      final Path propertiesPath, final boolean checkModified) throws IOException {
+    final Path absolutePath = propertiesPath.toAbsolutePath();
+    final FileTime lastModifiedTime =
+        checkModified ? Files.getLastModifiedTime(absolutePath) : null;
+    final CachedProperties cachedProperties = ConfigurationReader.CACHE.get(absolutePath);
+    if (cachedProperties != null
+        && Objects.equals(cachedProperties.lastModifiedTime(), lastModifiedTime)) {
+      return cachedProperties.properties();
+    }
+
+    final MagikToolsProperties properties = new MagikToolsProperties(absolutePath);
+    ConfigurationReader.CACHE.put(absolutePath, new CachedProperties(properties, lastModifiedTime));
+    return properties;
+  }
+
   /**
    * Determine the path of the `magik-lint.properties` file to read.
    *
@@ -51,9 +128,13 @@ public final class ConfigurationReader {
     }
 
     // Copy properties, but override all from propertiesPath.
+    final boolean checkModified =
+        propertiesPath != null
+            && (overrideConfigFile != null && !overrideConfigFile.isBlank()
+                || ConfigurationLocator.isFallback(propertiesPath));
     final MagikToolsProperties fileProperties =
         propertiesPath != null
-            ? new MagikToolsProperties(propertiesPath)
+            ? ConfigurationReader.readPropertiesFile(propertiesPath, checkModified)
             : MagikToolsProperties.DEFAULT_PROPERTIES;
 
     return MagikToolsProperties.merge(properties, fileProperties);
@@ -0,0 +1,126 @@
+package nl.ramsolutions.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Fast, non-cryptographic hash of file contents, using the XXH64 algorithm (seed 0).
+ *
+ * <p>Used to detect whether the contents of a file are unchanged, when only its last modified time
+ * differs.
+ */
+public final class ContentHasher {
+
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+  private static final int STRIPE_SIZE = 32;
+  private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+  private static final int UNSIGNED_BYTE_MASK = 0xFF;
+
+  private ContentHasher() {}
+
+  /**
+   * Hash the contents of the file at {@code path}. The file is read completely, it is not
+   * memory-mapped, as a mapped file stays locked on some platforms until the mapping is garbage
+   * collected. Files to hash are small, see {@link nl.ramsolutions.sw.magik.MagikFileScanner}.
+   *
+   * @param path Path to file.
+   * @return Hash of contents.
+   * @throws IOException -
+   */
+  public static long hash(final Path path) throws IOException {
+    return ContentHasher.hash(Files.readAllBytes(path));
+  }
+
+  /**
+   * Hash {@code contents}.
+   *
+   * @param contents Contents to hash.
+   * @return Hash of contents.
+   */
+  public static long hash(final byte[] contents) {
+    return ContentHasher.hash(ByteBuffer.wrap(contents));
+  }
+
+  /**
+   * Hash the remaining bytes of {@code contents}. The position of {@code contents} is not changed.
+   *
+   * @param contents Contents to hash.
+   * @return Hash of contents.
+   */
+  public static long hash(final ByteBuffer contents) {
+    final ByteBuffer buffer = contents.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    final long length = buffer.remaining();
+    long hash;
+    if (length >= STRIPE_SIZE) {
+      hash = ContentHasher.hashStripes(buffer);
+    } else {
+      hash = PRIME5;
+    }
+
+    hash += length;
+    while (buffer.remaining() >= Long.BYTES) {
+      hash ^= ContentHasher.round(0, buffer.getLong());
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+
+    if (buffer.remaining() >= Integer.BYTES) {
+      hash ^= (buffer.getInt() & UNSIGNED_INT_MASK) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+    }
+
+    while (buffer.hasRemaining()) {
+      hash ^= (buffer.get() & UNSIGNED_BYTE_MASK) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+    }
+
+    return ContentHasher.avalanche(hash);
+  }
+
+  private static long hashStripes(final ByteBuffer buffer) {
+    long acc1 = PRIME1 + PRIME2;
+    long acc2 = PRIME2;
+    long acc3 = 0;
+    long acc4 = -PRIME1;
+    while (buffer.remaining() >= STRIPE_SIZE) {
+      acc1 = ContentHasher.round(acc1, buffer.getLong());
+      acc2 = ContentHasher.round(acc2, buffer.getLong());
+      acc3 = ContentHasher.round(acc3, buffer.getLong());
+      acc4 = ContentHasher.round(acc4, buffer.getLong());
+    }
+
+    long hash =
+        Long.rotateLeft(acc1, 1)
+            + Long.rotateLeft(acc2, 7)
+            + Long.rotateLeft(acc3, 12)
+            + Long.rotateLeft(acc4, 18);
+    hash = ContentHasher.mergeRound(hash, acc1);
+    hash = ContentHasher.mergeRound(hash, acc2);
+    hash = ContentHasher.mergeRound(hash, acc3);
+    return ContentHasher.mergeRound(hash, acc4);
+  }
+
+  private static long round(final long acc, final long input) {
+    return Long.rotateLeft(acc + input * PRIME2, 31) * PRIME1;
+  }
+
+  private static long mergeRound(final long hash, final long acc) {
+    return (hash ^ ContentHasher.round(0, acc)) * PRIME1 + PRIME4;
+  }
+
+  private static long avalanche(final long hash) {
+    long result = hash;
+    result ^= result >>> 33;
+    result *= PRIME2;
+    result ^= result >>> 29;
+    result *= PRIME3;
+    result ^= result >>> 32;
+    return result;
+  }
+}
@@ -6,11 +6,12 @@ import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.FileEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,19 +19,32 @@ import org.slf4j.LoggerFactory;
  * .magik-tools-ignore file handler.
  *
  * <p>Keeps track of added {@literal .magik-tools-ignore} files and determines whether a file should
- * be ignored.
+ * be ignored. The nearest ignore file is cached per directory, and is thread-safe.
  */
 public final class IgnoreHandler {
 
   private static final String IGNORE_FILENAME = ".magik-tools-ignore";
   private static final Logger LOGGER = LoggerFactory.getLogger(IgnoreHandler.class);
 
-  private final Map<Path, Set<PathMatcher>> cache = new HashMap<>();
+  private final Map<Path, Set<PathMatcher>> cache = new ConcurrentHashMap<>();
 
   public void reset() {
     this.cache.clear();
   }
 
+  /**
+   * Handle a file event. Resets the cache when a {@literal .magik-tools-ignore} file is changed.
+   *
+   * @param fileEvent File event to handle.
+   */
+  public void handleFileEvent(final FileEvent fileEvent) {
+    final Path fileName = fileEvent.getPath().getFileName();
+    if (fileName != null && fileName.toString().equals(IGNORE_FILENAME)) {
+      LOGGER.debug("Ignore file changed, resetting cache: {}", fileEvent.getPath());
+      this.reset();
+    }
+  }
+
   /**
    * Add a found .magik-tools-ignore file. Reads entries and stores these.
    *
@@ -67,27 +81,34 @@ public final class IgnoreHandler {
     }
   }
 
+  /**
+   * Get the matchers of the nearest {@literal .magik-tools-ignore} file, from {@code path} upwards.
+   * The result for each directory is cached, including directories without an ignore file.
+   *
+   * @param path Directory to start from.
+   * @return Matchers.
+   */
   private Set<PathMatcher> getMatchers(final Path path) {
     // In cache, return it.
-    if (this.cache.containsKey(path)) {
-      return this.cache.get(path);
+    final Set<PathMatcher> cachedMatchers = this.cache.get(path);
+    if (cachedMatchers != null) {
+      return cachedMatchers;
     }
 
-    // Find ignore file.
+    // Find ignore file, or iterate upwards to find ignore file.
     final Path ignorePath = path.resolve(IGNORE_FILENAME);
-    if (Files.exists(ignorePath)) {
-      final Set<PathMatcher> matchers = this.readIgnoreFile(ignorePath);
-      this.cache.put(path, matchers);
-      return matchers;
-    }
-
-    // Iterate upwards to find ignore file.
     final Path parentPath = path.getParent();
-    if (parentPath == null) {
-      return Set.of();
+    final Set<PathMatcher> matchers;
+    if (Files.exists(ignorePath)) {
+      matchers = this.readIgnoreFile(ignorePath);
+    } else if (parentPath != null) {
+      matchers = this.getMatchers(parentPath);
+    } else {
+      matchers = Set.of();
     }
 
-    return this.getMatchers(parentPath);
+    this.cache.put(path, matchers);
+    return matchers;
   }
 
   /**
@@ -97,7 +118,27 @@ public final class IgnoreHandler {
    * @return true if ignored, false otherwise.
    */
   public boolean isIgnored(final Path path) {
-    final Set<PathMatcher> matchers = this.getMatchers(path);
+    // Files cannot contain an ignore file, start at the directory to prevent caching files.
+    final Path parentPath = path.getParent();
+    final Path dirPath = parentPath != null && Files.isRegularFile(path) ? parentPath : path;
+    return this.isIgnored(dirPath, path);
+  }
+
+  /**
+   * Test if the file at {@code path} is ignored via a {@literal .magik-tools-ignore} file. Unlike
+   * {@link #isIgnored(Path)}, the file system is not queried whether {@code path} is a file.
+   *
+   * @param path Path to file to check.
+   * @return true if ignored, false otherwise.
+   */
+  public boolean isFileIgnored(final Path path) {
+    final Path parentPath = path.getParent();
+    final Path dirPath = parentPath != null ? parentPath : path;
+    return this.isIgnored(dirPath, path);
+  }
+
+  private boolean isIgnored(final Path dirPath, final Path path) {
+    final Set<PathMatcher> matchers = this.getMatchers(dirPath);
     return matchers.stream().anyMatch(pathMatcher -> pathMatcher.matches(path));
   }
 }
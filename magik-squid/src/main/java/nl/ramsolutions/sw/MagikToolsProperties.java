@@ -10,6 +10,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -289,6 +291,17 @@ public class MagikToolsProperties {
     return Arrays.stream(values).map(String::trim).toList();
   }
 
+  /**
+   * Get all properties as a {@link Map}, sorted by key.
+   *
+   * @return Sorted map of all properties.
+   */
+  public SortedMap<String, String> toMap() {
+    final SortedMap<String, String> map = new TreeMap<>();
+    this.properties.forEach((key, value) -> map.put(key.toString(), value.toString()));
+    return Collections.unmodifiableSortedMap(map);
+  }
+
   /**
    * Merge two sets of properties.
    *
@@ -0,0 +1,97 @@
+package nl.ramsolutions.sw;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Processes items in parallel, while consuming the results in the order of the items.
+ *
+ * <p>At most a fixed window of items is processed ahead of the item being consumed. Completed
+ * results wait in the window until all results before them are consumed. This keeps memory usage
+ * bounded, regardless of the number of items, and the output deterministic. The consumer can stop
+ * the processing, items which are not yet processed are then skipped.
+ */
+public final class OrderedParallelProcessor {
+
+  private static final int WINDOW_PER_THREAD = 4;
+
+  private OrderedParallelProcessor() {}
+
+  /**
+   * Process {@code items} in parallel, consuming the results in order.
+   *
+   * @param <T> Type of items.
+   * @param <R> Type of results.
+   * @param items Items to process.
+   * @param processor Function processing an item.
+   * @param consumer Consumer of the results, in order of the items. Returns {@code false} to stop
+   *     processing.
+   * @param threadCount Number of threads to process with.
+   */
+  public static <T, R> void process(
+      final List<T> items,
+      final Function<T, R> processor,
+      final Predicate<R> consumer,
+      final int threadCount) {
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(threadCount, OrderedParallelProcessor.createThreadFactory());
+    final int windowSize = threadCount * WINDOW_PER_THREAD;
+    final Deque<Future<R>> window = new ArrayDeque<>(windowSize);
+    try {
+      int nextIndex = 0;
+      while (nextIndex < items.size() || !window.isEmpty()) {
+        // Fill window.
+        while (nextIndex < items.size() && window.size() < windowSize) {
+          final T item = items.get(nextIndex);
+          window.addLast(executor.submit(() -> processor.apply(item)));
+          nextIndex += 1;
+        }
+
+        // Consume the oldest result.
+        final R result = OrderedParallelProcessor.await(window.removeFirst());
+        if (!consumer.test(result)) {
+          break;
+        }
+      }
+    } finally {
+      window.forEach(future -> future.cancel(true));
+      executor.shutdownNow();
+    }
+  }
+
+  private static <R> R await(final Future<R> future) {
+    try {
+      return future.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exception);
+    } catch (final ExecutionException exception) {
+      final Throwable cause = exception.getCause();
+      if (cause instanceof final RuntimeException runtimeException) {
+        throw runtimeException;
+      } else if (cause instanceof final Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    final AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable);
+      thread.setName("magik-processor-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
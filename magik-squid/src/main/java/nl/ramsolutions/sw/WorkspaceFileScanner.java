@@ -0,0 +1,224 @@
+package nl.ramsolutions.sw;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import nl.ramsolutions.sw.magik.MagikFileScanner;
+import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
+import nl.ramsolutions.sw.productdef.ProductDefFileScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Workspace file scanner, finds the `product.def`, `module.def` and magik files in a single walk.
+ *
+ * <p>Directories are walked in parallel. The {@link BasicFileAttributes} of each entry are read
+ * once, while walking, and the last modified time is kept with each found file. Files ignored via
+ * the {@link IgnoreHandler} and magik files which are too large are skipped. Like {@link
+ * ProductDefFileScanner}, no `product.def` files are found in a directory of which the
+ * `product.def` is ignored, nor in its subdirectories.
+ */
+public final class WorkspaceFileScanner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceFileScanner.class);
+
+  /**
+   * Found file.
+   *
+   * @param path Path to file.
+   * @param lastModified Last modified time of file.
+   */
+  public record ScannedFile(Path path, Instant lastModified) {}
+
+  /**
+   * Result of a scan. Files are sorted by path.
+   *
+   * @param productDefFiles Found `product.def` files.
+   * @param moduleDefFiles Found `module.def` files.
+   * @param magikFiles Found magik files.
+   */
+  public record ScanResult(
+      List<ScannedFile> productDefFiles,
+      List<ScannedFile> moduleDefFiles,
+      List<ScannedFile> magikFiles) {}
+
+  /** State of a single scan. */
+  private static final class Scan {
+
+    private final IgnoreHandler ignoreHandler;
+    private final Queue<ScannedFile> productDefFiles = new ConcurrentLinkedQueue<>();
+    private final Queue<ScannedFile> moduleDefFiles = new ConcurrentLinkedQueue<>();
+    private final Queue<ScannedFile> magikFiles = new ConcurrentLinkedQueue<>();
+
+    private Scan(final IgnoreHandler ignoreHandler) {
+      this.ignoreHandler = ignoreHandler;
+    }
+
+    private boolean isProductDefIgnored(final Path dir) {
+      return this.ignoreHandler.isFileIgnored(dir.resolve(ProductDefFileScanner.SW_PRODUCT_DEF));
+    }
+
+    /**
+     * Scan the entries of a directory, files are added to the result.
+     *
+     * @param dir Directory to scan.
+     * @param productDefsIgnored Whether `product.def` files are ignored in this directory.
+     * @return Subdirectories of the directory.
+     */
+    private List<Path> scanDirectory(final Path dir, final boolean productDefsIgnored) {
+      final List<Path> subDirs = new ArrayList<>();
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+        for (final Path entry : entries) {
+          final BasicFileAttributes attrs = this.readAttributes(entry);
+          if (attrs == null) {
+            continue;
+          }
+
+          if (attrs.isDirectory()) {
+            subDirs.add(entry);
+          } else if (attrs.isRegularFile()) {
+            this.visitFile(entry, attrs, productDefsIgnored);
+          }
+        }
+      } catch (final IOException | DirectoryIteratorException exception) {
+        LOGGER.warn("Unable to scan directory: {}", dir, exception);
+      }
+
+      return subDirs;
+    }
+
+    /**
+     * Read the attributes of an entry. Symbolic links are followed for files, but not for
+     * directories, as to not walk into link cycles.
+     */
+    @CheckForNull
+    private BasicFileAttributes readAttributes(final Path entry) {
+      try {
+        final BasicFileAttributes attrs =
+            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isSymbolicLink()) {
+          return attrs;
+        }
+
+        final BasicFileAttributes targetAttrs =
+            Files.readAttributes(entry, BasicFileAttributes.class);
+        return targetAttrs.isRegularFile() ? targetAttrs : null;
+      } catch (final IOException exception) {
+        LOGGER.debug("Unable to read attributes of: {}", entry, exception);
+        return null;
+      }
+    }
+
+    private void visitFile(
+        final Path path, final BasicFileAttributes attrs, final boolean productDefsIgnored) {
+      final String fileName = path.getFileName().toString();
+      final ScannedFile scannedFile = new ScannedFile(path, attrs.lastModifiedTime().toInstant());
+      if (fileName.equals(ProductDefFileScanner.SW_PRODUCT_DEF)) {
+        if (!productDefsIgnored) {
+          this.productDefFiles.add(scannedFile);
+        }
+      } else if (ModuleDefFileScanner.isModuleDefFile(path)) {
+        if (!this.ignoreHandler.isFileIgnored(path)) {
+          this.moduleDefFiles.add(scannedFile);
+        }
+      } else if (MagikFileScanner.isMagikFile(path)
+          && MagikFileScanner.isSizeOk(path, attrs.size())
+          && !this.ignoreHandler.isFileIgnored(path)) {
+        this.magikFiles.add(scannedFile);
+      }
+    }
+
+    private ScanResult toResult() {
+      return new ScanResult(
+          Scan.sorted(this.productDefFiles),
+          Scan.sorted(this.moduleDefFiles),
+          Scan.sorted(this.magikFiles));
+    }
+
+    private static List<ScannedFile> sorted(final Collection<ScannedFile> files) {
+      return files.stream().sorted(Comparator.comparing(ScannedFile::path)).toList();
+    }
+  }
+
+  /** Task scanning a directory, forking a task for each subdirectory. */
+  private static final class DirectoryTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Scan scan;
+    private final transient Path dir;
+    private final boolean productDefsIgnored;
+
+    private DirectoryTask(final Scan scan, final Path dir, final boolean productDefsIgnored) {
+      this.scan = scan;
+      this.dir = dir;
+      this.productDefsIgnored = productDefsIgnored;
+    }
+
+    @Override
+    protected void compute() {
+      final List<DirectoryTask> subTasks =
+          this.scan.scanDirectory(this.dir, this.productDefsIgnored).stream()
+              .map(
+                  subDir ->
+                      new DirectoryTask(
+                          this.scan,
+                          subDir,
+                          this.productDefsIgnored || this.scan.isProductDefIgnored(subDir)))
+              .toList();
+      RecursiveAction.invokeAll(subTasks);
+    }
+  }
+
+  private final IgnoreHandler ignoreHandler;
+  private final int threadCount;
+
+  /**
+   * Constructor.
+   *
+   * @param ignoreHandler {@link IgnoreHandler} to use.
+   * @param threadCount Number of threads to walk directories with.
+   */
+  public WorkspaceFileScanner(final IgnoreHandler ignoreHandler, final int threadCount) {
+    this.ignoreHandler = ignoreHandler;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Scan for `product.def`, `module.def` and magik files from the given path.
+   *
+   * @param fromPath Path to walk from, most likely a directory.
+   * @return Found files.
+   * @throws IOException If {@code fromPath} cannot be read.
+   */
+  public ScanResult scan(final Path fromPath) throws IOException {
+    final BasicFileAttributes attrs = Files.readAttributes(fromPath, BasicFileAttributes.class);
+    final Scan scan = new Scan(this.ignoreHandler);
+    if (attrs.isDirectory()) {
+      final ForkJoinPool pool = new ForkJoinPool(this.threadCount);
+      try {
+        pool.invoke(new DirectoryTask(scan, fromPath, scan.isProductDefIgnored(fromPath)));
+      } finally {
+        pool.shutdown();
+      }
+    } else if (attrs.isRegularFile()) {
+      scan.visitFile(fromPath, attrs, false);
+    }
+
+    return scan.toResult();
+  }
+}
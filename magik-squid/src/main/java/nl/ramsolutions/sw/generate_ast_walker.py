@@ -31,14 +31,55 @@ import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
+import java.util.Arrays;
+import java.util.List;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
 /**
  * A {@link AstNode} tree walker with pre- and post-methods to iterate a parse tree.
  * Note that this is generated by the {@code generate_ast_walker.py} script,
  * do not edit this file manually!
+ *
+ * <p>The tree is walked iteratively using an explicit stack, so deeply nested trees do not
+ * overflow the call stack. Subclasses overriding {@link #walkAst(AstNode)} or
+ * {@link #walkChildren(AstNode)} are walked recursively, as these methods are then expected to be
+ * called for each node.
  */
-public abstract class AstWalker {
+public abstract class MagikAstWalker {
+
+    private static final int INITIAL_STACK_SIZE = 64;
+
+    /**
+     * Pre- or post-method for a node type.
+     */
+    @FunctionalInterface
+    private interface WalkMethod {
+
+        void walk(MagikAstWalker walker, AstNode node);
+
+    }
+
+    private static final WalkMethod[] PRE_METHODS = new WalkMethod[MagikGrammar.values().length];
+    private static final WalkMethod[] POST_METHODS = new WalkMethod[MagikGrammar.values().length];
+    private static final ClassValue<Boolean> RECURSIVE =
+        new ClassValue<>() {
+            @Override
+            protected Boolean computeValue(final Class<?> type) {
+                return MagikAstWalker.isOverridden(type, "walkAst")
+                    || MagikAstWalker.isOverridden(type, "walkChildren");
+            }
+        };
+
+    static {
+        Arrays.fill(PRE_METHODS, (WalkMethod) MagikAstWalker::walkPreDefault);
+        Arrays.fill(POST_METHODS, (WalkMethod) MagikAstWalker::walkPostDefault);""")
+
+for element in elements:
+  java_name = to_java_name(element)
+  print(f"""        PRE_METHODS[MagikGrammar.{element}.ordinal()] = MagikAstWalker::walkPre{java_name};
+        POST_METHODS[MagikGrammar.{element}.ordinal()] = MagikAstWalker::walkPost{java_name};""")
+
+print("""    }
 
     /**
      * Walk children of node.
@@ -63,7 +104,6 @@ public abstract class AstWalker {
      * Start walking the node. The pre- and post-methods are called upon tree traversal.
      * @param node Node to start walking.
      */
-    @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
     public void walkAst(final AstNode node) {
         final AstNodeType nodeType = node.getType();
         if (!(nodeType instanceof MagikGrammar)) {
@@ -71,26 +111,90 @@ public abstract class AstWalker {
             return;
         }
 
-        final MagikGrammar value = (MagikGrammar) nodeType;
-        switch (value) {""")
+        if (RECURSIVE.get(this.getClass())) {
+            this.walkPre(node);
+            this.walkChildren(node);
+            this.walkPost(node);
+            return;
+        }
 
-# generate cases
-for element in elements:
-  java_name = to_java_name(element)
-  print(f"""
-            case {element}:
-                this.walkPre{java_name}(node);
-                this.walkChildren(node);
-                this.walkPost{java_name}(node);
-                break;""")
+        this.walkIteratively(node);
+    }
 
-print("""
-            default:
-                this.walkPreDefault(node);
-                this.walkChildren(node);
-                this.walkPostDefault(node);
-                break;
+    /**
+     * Walk the {@link MagikGrammar} node and its descendants, using an explicit stack.
+     * @param node Node to start walking.
+     */
+    private void walkIteratively(final AstNode node) {
+        AstNode[] nodes = new AstNode[INITIAL_STACK_SIZE];
+        int[] childIndices = new int[INITIAL_STACK_SIZE];
+        int depth = 0;
+
+        this.walkPre(node);
+        nodes[depth] = node;
+        childIndices[depth] = 0;
+        depth += 1;
+        while (depth > 0) {
+            final AstNode currentNode = nodes[depth - 1];
+            final List<AstNode> children = currentNode.getChildren();
+            final int childIndex = childIndices[depth - 1];
+            if (childIndex == children.size()) {
+                depth -= 1;
+                nodes[depth] = null;
+                this.walkPost(currentNode);
+                continue;
+            }
+
+            childIndices[depth - 1] = childIndex + 1;
+            final AstNode childNode = children.get(childIndex);
+            if (!(childNode.getType() instanceof MagikGrammar)) {
+                this.walkTokens(childNode);
+                continue;
+            }
+
+            this.walkPre(childNode);
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                childIndices = Arrays.copyOf(childIndices, depth * 2);
+            }
+            nodes[depth] = childNode;
+            childIndices[depth] = 0;
+            depth += 1;
         }
+    }
+
+    /**
+     * Call the pre-method for the node.
+     * @param node Node to call the pre-method for, must be a {@link MagikGrammar} node.
+     */
+    protected void walkPre(final AstNode node) {
+        final MagikGrammar value = (MagikGrammar) node.getType();
+        PRE_METHODS[value.ordinal()].walk(this, node);
+    }
+
+    /**
+     * Call the post-method for the node.
+     * @param node Node to call the post-method for, must be a {@link MagikGrammar} node.
+     */
+    protected void walkPost(final AstNode node) {
+        final MagikGrammar value = (MagikGrammar) node.getType();
+        POST_METHODS[value.ordinal()].walk(this, node);
+    }
+
+    /** Test if a method of {@link MagikAstWalker} is overridden by {@code type}. */
+    private static boolean isOverridden(final Class<?> type, final String methodName) {
+        for (Class<?> clazz = type;
+            clazz != null && clazz != MagikAstWalker.class;
+            clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod(methodName, AstNode.class);
+                return true;
+            } catch (final NoSuchMethodException exception) {
+                // Try super class.
+            }
+        }
+
+        return false;
     }""")
 
 # generate pre- and post-walk-methods
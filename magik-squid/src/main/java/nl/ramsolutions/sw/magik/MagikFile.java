@@ -5,6 +5,10 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
@@ -18,10 +22,12 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import nl.ramsolutions.sw.ContentHasher;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.magik.analysis.AstTokenIndex;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
@@ -39,8 +45,11 @@ public class MagikFile extends OpenedFile {
   public static final Location DEFAULT_LOCATION = new Location(DEFAULT_URI, Range.DEFAULT_RANGE);
 
   private final @Nullable Instant timestamp;
+  private final @Nullable Long size;
+  private final @Nullable Long contentHash;
   private final MagikToolsProperties properties;
   private AstNode astNode;
+  private AstTokenIndex astTokenIndex;
   private GlobalScope globalScope;
   private List<MagikDefinition> definitions;
   private final Map<CommentInstructionReader.Instruction, Map<Integer, Map<String, String>>>
@@ -68,9 +77,28 @@ public class MagikFile extends OpenedFile {
   public MagikFile(final MagikToolsProperties properties, final URI uri, final String source) {
     super(uri, source);
     this.timestamp = null;
+    this.size = null;
+    this.contentHash = null;
     this.properties = properties;
   }
 
+  /**
+   * Constructor, with an already parsed source.
+   *
+   * @param properties Properties.
+   * @param uri URI.
+   * @param source Source.
+   * @param topNode Top level {@link AstNode} of the parsed source.
+   */
+  public MagikFile(
+      final MagikToolsProperties properties,
+      final URI uri,
+      final String source,
+      final AstNode topNode) {
+    this(properties, uri, source);
+    this.astNode = topNode;
+  }
+
   /**
    * Constructor. Read file at path.
    *
@@ -79,11 +107,36 @@ public class MagikFile extends OpenedFile {
    * @throws IOException -
    */
   public MagikFile(final MagikToolsProperties properties, final Path path) throws IOException {
-    super(path.toUri(), Files.readString(path, FileCharsetDeterminer.determineCharset(path)));
+    this(properties, path, Files.readAllBytes(path));
+  }
+
+  private MagikFile(final MagikToolsProperties properties, final Path path, final byte[] contents)
+      throws IOException {
+    super(path.toUri(), MagikFile.decode(contents));
     this.timestamp = Files.getLastModifiedTime(path).toInstant();
+    this.size = (long) contents.length;
+    this.contentHash = ContentHasher.hash(contents);
     this.properties = properties;
   }
 
+  /**
+   * Decode the contents of a file, using the charset determined from its first line.
+   *
+   * @param contents Contents of file.
+   * @return Decoded contents.
+   * @throws CharacterCodingException If the contents cannot be decoded.
+   */
+  private static String decode(final byte[] contents) throws CharacterCodingException {
+    int firstLineLength = 0;
+    while (firstLineLength < contents.length && contents[firstLineLength] != '\n') {
+      firstLineLength += 1;
+    }
+
+    final String firstLine = new String(contents, 0, firstLineLength, StandardCharsets.ISO_8859_1);
+    final Charset charset = FileCharsetDeterminer.determineCharset(firstLine);
+    return charset.newDecoder().decode(ByteBuffer.wrap(contents)).toString();
+  }
+
   @Override
   public String getLanguageId() {
     return "magik";
@@ -124,6 +177,20 @@ public class MagikFile extends OpenedFile {
     return this.astNode;
   }
 
+  /**
+   * Get the {@link AstTokenIndex} for this file, to find token nodes by position.
+   *
+   * @return {@link AstTokenIndex} for this file.
+   */
+  public synchronized AstTokenIndex getAstTokenIndex() {
+    if (this.astTokenIndex == null) {
+      final AstNode topNode = this.getTopNode();
+      this.astTokenIndex = new AstTokenIndex(topNode);
+    }
+
+    return this.astTokenIndex;
+  }
+
   /**
    * Get the {@link GlobalScope} for this file.
    *
@@ -153,7 +220,7 @@ public class MagikFile extends OpenedFile {
     }
 
     final Location location = new Location(uri);
-    return new MagikFileDefinition(location, this.timestamp);
+    return new MagikFileDefinition(location, this.timestamp, this.size, this.contentHash);
   }
 
   /**
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.magik;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.IgnoreHandler;
 import org.slf4j.Logger;
@@ -27,37 +28,63 @@ public final class MagikFileScanner {
    * @throws IOException -
    */
   public Stream<Path> getFiles(final Path fromPath) throws IOException {
-    return Files.walk(fromPath)
-        .filter(Files::isRegularFile)
-        .filter(this::isMagikFile)
-        .filter(this::notIgnored)
-        .filter(this::sizeOk);
+    // Use the attributes read while walking, instead of querying each file again.
+    return Files.find(
+        fromPath,
+        Integer.MAX_VALUE,
+        (path, attrs) ->
+            MagikFileScanner.isMagikFile(path)
+                && this.isRegularFileWithSizeOk(path, attrs)
+                && !this.ignoreHandler.isFileIgnored(path));
   }
 
-  private boolean notIgnored(final Path path) {
-    return !this.ignoreHandler.isIgnored(path);
-  }
-
-  private boolean sizeOk(final Path path) {
-    try {
-      final long size = Files.size(path);
-      if (size > MagikFileScanner.MAX_SIZE) {
-        LOGGER.warn(
-            "Ignoring file: {}, due to size: {}, max size: {}",
-            path,
-            size,
-            MagikFileScanner.MAX_SIZE);
+  private boolean isRegularFileWithSizeOk(final Path path, final BasicFileAttributes attrs) {
+    BasicFileAttributes fileAttrs = attrs;
+    if (attrs.isSymbolicLink()) {
+      try {
+        fileAttrs = Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (final IOException exception) {
+        LOGGER.debug("Unable to read attributes of: {}", path, exception);
         return false;
       }
-    } catch (final IOException exception) {
-      throw new IllegalStateException(exception);
+    }
+
+    return fileAttrs.isRegularFile() && MagikFileScanner.isSizeOk(path, fileAttrs.size());
+  }
+
+  /**
+   * Test if the size of a magik file is acceptable, logs a warning if not.
+   *
+   * @param path Path to magik file.
+   * @param size Size of magik file.
+   * @return true if size is acceptable, false otherwise.
+   */
+  public static boolean isSizeOk(final Path path, final long size) {
+    if (size > MagikFileScanner.MAX_SIZE) {
+      LOGGER.warn(
+          "Ignoring file: {}, due to size: {}, max size: {}",
+          path,
+          size,
+          MagikFileScanner.MAX_SIZE);
+      return false;
     }
 
     return true;
   }
 
-  private boolean isMagikFile(final Path path) {
-    final String fileName = path.getFileName().toString().toLowerCase();
+  /**
+   * Test if {@code path} is a magik file, by its name.
+   *
+   * @param path Path to test.
+   * @return true if magik file, false otherwise.
+   */
+  public static boolean isMagikFile(final Path path) {
+    final Path fileNamePath = path.getFileName();
+    if (fileNamePath == null) {
+      return false;
+    }
+
+    final String fileName = fileNamePath.toString().toLowerCase();
     return !fileName.startsWith(".") && !fileName.startsWith("#") && fileName.endsWith(".magik");
   }
 }
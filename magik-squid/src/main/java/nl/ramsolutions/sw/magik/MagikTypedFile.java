@@ -1,5 +1,6 @@
 package nl.ramsolutions.sw.magik;
 
+import com.sonar.sslr.api.AstNode;
 import java.net.URI;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
@@ -32,6 +33,26 @@ public class MagikTypedFile extends MagikFile {
     this.typeStringResolver = new TypeStringResolver(definitionKeeper);
   }
 
+  /**
+   * Constructor, with an already parsed text.
+   *
+   * @param settings Magik analysis configuration.
+   * @param uri URI.
+   * @param text Text.
+   * @param definitionKeeper {@link IDefinitionKeeper}.
+   * @param topNode Top level {@link AstNode} of the parsed text.
+   */
+  public MagikTypedFile(
+      final MagikToolsProperties settings,
+      final URI uri,
+      final String text,
+      final IDefinitionKeeper definitionKeeper,
+      final AstNode topNode) {
+    super(settings, uri, text, topNode);
+    this.definitionKeeper = definitionKeeper;
+    this.typeStringResolver = new TypeStringResolver(definitionKeeper);
+  }
+
   /**
    * Constructor.
    *
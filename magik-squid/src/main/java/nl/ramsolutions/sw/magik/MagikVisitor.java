@@ -1,7 +1,9 @@
 package nl.ramsolutions.sw.magik;
 
 import com.sonar.sslr.api.AstNode;
+import java.util.List;
 import nl.ramsolutions.sw.magik.analysis.MagikAstWalker;
+import nl.ramsolutions.sw.magik.analysis.MultiplexingMagikAstWalker;
 
 /** Magik visitor. */
 public abstract class MagikVisitor extends MagikAstWalker {
@@ -23,4 +25,21 @@ public abstract class MagikVisitor extends MagikAstWalker {
     final AstNode topNode = this.magikFile.getTopNode();
     this.walkAst(topNode);
   }
+
+  /**
+   * Scan the file with several visitors, walking the tree only once.
+   *
+   * @param scannedMagikFile Context to use.
+   * @param visitors Visitors to scan the file with.
+   */
+  public static void scanFile(
+      final MagikFile scannedMagikFile, final List<? extends MagikVisitor> visitors) {
+    for (final MagikVisitor visitor : visitors) {
+      visitor.magikFile = scannedMagikFile;
+    }
+
+    final AstNode topNode = scannedMagikFile.getTopNode();
+    final MultiplexingMagikAstWalker walker = new MultiplexingMagikAstWalker(visitors);
+    walker.walkAst(topNode);
+  }
 }
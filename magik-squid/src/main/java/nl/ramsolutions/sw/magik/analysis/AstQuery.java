@@ -4,13 +4,15 @@ import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
-import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.moduledef.api.SwModuleDefinitionGrammar;
 import nl.ramsolutions.sw.productdef.api.SwProductDefinitionGrammar;
@@ -116,21 +118,22 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeBefore(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Position endPosition = Position.fromTokenEnd(token);
-                  return endPosition.isBefore(position) || endPosition.equals(position);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
+    final AstTokenIndex tokenIndex = new AstTokenIndex(topNode);
+    return tokenIndex.nodeBefore(position);
+  }
 
-    return nodes.get(nodes.size() - 1);
+  /**
+   * Get the node in {@code magikFile} before {@code position}. Uses the (cached) {@link
+   * AstTokenIndex} of the file.
+   *
+   * @param magikFile Magik file.
+   * @param position Position for node.
+   * @return Token-Node before position.
+   */
+  @CheckForNull
+  public static AstNode nodeBefore(final MagikFile magikFile, final Position position) {
+    final AstTokenIndex tokenIndex = magikFile.getAstTokenIndex();
+    return tokenIndex.nodeBefore(position);
   }
 
   /**
@@ -142,24 +145,22 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeAt(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Range range = new Range(token);
-                  final Position rangeEndPosition = range.getEndPosition();
-                  return !range.positionIsBeforeSelf(position)
-                      && !range.positionIsAfterSelf(position)
-                      && !position.equals(rangeEndPosition);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
+    final AstTokenIndex tokenIndex = new AstTokenIndex(topNode);
+    return tokenIndex.nodeAt(position);
+  }
 
-    return nodes.get(0);
+  /**
+   * Get the token node in {@code magikFile} at {@code position}. Uses the (cached) {@link
+   * AstTokenIndex} of the file.
+   *
+   * @param magikFile Magik file.
+   * @param position Position for node.
+   * @return Token node at position.
+   */
+  @CheckForNull
+  public static AstNode nodeAt(final MagikFile magikFile, final Position position) {
+    final AstTokenIndex tokenIndex = magikFile.getAstTokenIndex();
+    return tokenIndex.nodeAt(position);
   }
 
   /**
@@ -174,6 +175,28 @@ public final class AstQuery {
   public static AstNode nodeAt(
       final AstNode topNode, final Position position, final AstNodeType... nodeTypes) {
     final AstNode node = AstQuery.nodeAt(topNode, position);
+    return AstQuery.withParentOfType(node, nodeTypes);
+  }
+
+  /**
+   * Get the (token) node in {@code magikFile} at {@code position} of a specific type. Uses the
+   * (cached) {@link AstTokenIndex} of the file.
+   *
+   * @param magikFile Magik file.
+   * @param position Position for node.
+   * @param nodeTypes Node type to look for.
+   * @return Token-Node at position.
+   */
+  @CheckForNull
+  public static AstNode nodeAt(
+      final MagikFile magikFile, final Position position, final AstNodeType... nodeTypes) {
+    final AstNode node = AstQuery.nodeAt(magikFile, position);
+    return AstQuery.withParentOfType(node, nodeTypes);
+  }
+
+  @CheckForNull
+  private static AstNode withParentOfType(
+      final @Nullable AstNode node, final AstNodeType... nodeTypes) {
     if (node == null) {
       return null;
     }
@@ -195,22 +218,22 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeAfter(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Position startPosition = Position.fromTokenStart(token);
-                  final Position endPosition = Position.fromTokenEnd(token);
-                  return position.equals(startPosition) || position.isBefore(endPosition);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
+    final AstTokenIndex tokenIndex = new AstTokenIndex(topNode);
+    return tokenIndex.nodeAfter(position);
+  }
 
-    return nodes.get(0);
+  /**
+   * Get the node in {@code magikFile} after {@code position}. Uses the (cached) {@link
+   * AstTokenIndex} of the file.
+   *
+   * @param magikFile Magik file.
+   * @param position Position for node.
+   * @return Node after position.
+   */
+  @CheckForNull
+  public static AstNode nodeAfter(final MagikFile magikFile, final Position position) {
+    final AstTokenIndex tokenIndex = magikFile.getAstTokenIndex();
+    return tokenIndex.nodeAfter(position);
   }
 
   /**
@@ -222,36 +245,19 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeSurrounding(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
-            .collect(Collectors.toList());
-    if (nodes.isEmpty()) {
-      return null;
+    // Skip the MAGIK node, unless it is the only node surrounding the position.
+    final AstNode node =
+        AstQuery.firstSurrounding(
+            topNode,
+            position,
+            surroundingNode ->
+                AstQuery.isGrammarNode(surroundingNode)
+                    && surroundingNode.isNot(MagikGrammar.MAGIK));
+    if (node != null) {
+      return node;
     }
 
-    if (nodes.size() > 1 && nodes.get(0).is(MagikGrammar.MAGIK)) {
-      nodes.remove(0);
-    }
-
-    return nodes.get(0);
+    return AstQuery.firstSurrounding(topNode, position, AstQuery::isGrammarNode);
   }
 
   /**
@@ -265,34 +271,56 @@ public final class AstQuery {
   @CheckForNull
   public static AstNode nodeSurrounding(
       final AstNode topNode, final Position position, final AstNodeType... nodeTypes) {
-    final List<AstNodeType> nodeTypesList = List.of(nodeTypes);
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
-            .filter(node -> nodeTypesList.contains(node.getType()))
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
+    return AstQuery.firstSurrounding(
+        topNode,
+        position,
+        surroundingNode ->
+            AstQuery.isGrammarNode(surroundingNode) && surroundingNode.is(nodeTypes));
+  }
+
+  /**
+   * Get the first node, depth first, surrounding {@code position} and matching {@code predicate}.
+   * Subtrees which do not surround {@code position} are skipped, as none of their nodes can.
+   */
+  @CheckForNull
+  private static AstNode firstSurrounding(
+      final AstNode topNode, final Position position, final Predicate<AstNode> predicate) {
+    final Deque<AstNode> stack = new ArrayDeque<>();
+    stack.push(topNode);
+    while (!stack.isEmpty()) {
+      final AstNode node = stack.pop();
+      if (!AstQuery.surrounds(node, position)) {
+        continue;
+      }
+
+      if (predicate.test(node)) {
+        return node;
+      }
+
+      final List<AstNode> children = node.getChildren();
+      for (int i = children.size() - 1; i >= 0; --i) {
+        stack.push(children.get(i));
+      }
+    }
+
+    return null;
+  }
+
+  private static boolean surrounds(final AstNode node, final Position position) {
+    final Token firstToken = node.getToken();
+    final Token lastToken = node.getLastToken();
+    if (firstToken == null || lastToken == null) {
+      return false;
     }
 
-    return nodes.get(0);
+    final int firstLine = firstToken.getLine();
+    final int firstColumn = firstToken.getColumn();
+    final int lastLine = lastToken.getLine();
+    final int lastColumn = lastToken.getColumn() + lastToken.getOriginalValue().length();
+    return (position.getLine() > firstLine
+            || position.getLine() == firstLine && position.getColumn() >= firstColumn)
+        && (position.getLine() < lastLine
+            || position.getLine() == lastLine && position.getColumn() <= lastColumn);
   }
 
   /**
@@ -327,7 +355,7 @@ public final class AstQuery {
         || node.is(MagikGrammar.values());
   }
 
-  private static boolean isTokenNode(final AstNode node) {
+  static boolean isTokenNode(final AstNode node) {
     return node.isNot(SwProductDefinitionGrammar.values())
         && node.isNot(SwModuleDefinitionGrammar.values())
         && node.isNot(MagikGrammar.values());
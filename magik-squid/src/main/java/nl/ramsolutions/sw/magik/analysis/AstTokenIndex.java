@@ -0,0 +1,147 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import nl.ramsolutions.sw.magik.Position;
+
+/**
+ * Index of the token nodes in a tree, in source order. Used to find token nodes by {@link Position}
+ * using a binary search, instead of walking the whole tree.
+ *
+ * <p>Token nodes do not overlap, so both the start and end positions of the token nodes are
+ * ordered.
+ */
+public final class AstTokenIndex {
+
+  private static final int COLUMN_BITS = 32;
+  private static final long COLUMN_MASK = 0xffffffffL;
+
+  private final AstNode[] tokenNodes;
+  private final long[] startKeys;
+  private final long[] endKeys;
+
+  /**
+   * Constructor.
+   *
+   * @param topNode Top node to index.
+   */
+  public AstTokenIndex(final AstNode topNode) {
+    final List<AstNode> nodes = new ArrayList<>();
+    final Deque<AstNode> stack = new ArrayDeque<>();
+    stack.push(topNode);
+    while (!stack.isEmpty()) {
+      final AstNode node = stack.pop();
+      if (AstQuery.isTokenNode(node)) {
+        nodes.add(node);
+      }
+
+      final List<AstNode> children = node.getChildren();
+      for (int i = children.size() - 1; i >= 0; --i) {
+        stack.push(children.get(i));
+      }
+    }
+
+    final int count = nodes.size();
+    this.tokenNodes = nodes.toArray(AstNode[]::new);
+    this.startKeys = new long[count];
+    this.endKeys = new long[count];
+    for (int i = 0; i < count; ++i) {
+      final Token token = this.tokenNodes[i].getToken();
+      this.startKeys[i] = AstTokenIndex.keyOf(Position.fromTokenStart(token));
+      this.endKeys[i] = AstTokenIndex.keyOf(Position.fromTokenEnd(token));
+    }
+  }
+
+  /**
+   * Get the token node at {@code position}.
+   *
+   * @param position Position for node.
+   * @return Token node at position.
+   */
+  @CheckForNull
+  public AstNode nodeAt(final Position position) {
+    final long key = AstTokenIndex.keyOf(position);
+    // Walk back from the last token starting at/before position, skipping empty tokens.
+    for (int i = AstTokenIndex.upperBound(this.startKeys, key) - 1; i >= 0; --i) {
+      if (key < this.endKeys[i]) {
+        return this.tokenNodes[i];
+      } else if (this.startKeys[i] < this.endKeys[i]) {
+        break;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Get the token node before {@code position}, i.e., the last token node ending at/before {@code
+   * position}.
+   *
+   * @param position Position for node.
+   * @return Token node before position.
+   */
+  @CheckForNull
+  public AstNode nodeBefore(final Position position) {
+    final long key = AstTokenIndex.keyOf(position);
+    final int index = AstTokenIndex.upperBound(this.endKeys, key) - 1;
+    return index >= 0 ? this.tokenNodes[index] : null;
+  }
+
+  /**
+   * Get the token node after {@code position}, i.e., the first token node starting at {@code
+   * position} or ending after {@code position}.
+   *
+   * @param position Position for node.
+   * @return Token node after position.
+   */
+  @CheckForNull
+  public AstNode nodeAfter(final Position position) {
+    final long key = AstTokenIndex.keyOf(position);
+    int index = AstTokenIndex.upperBound(this.endKeys, key);
+    final int startIndex = AstTokenIndex.lowerBound(this.startKeys, key);
+    if (startIndex < this.startKeys.length && this.startKeys[startIndex] == key) {
+      index = Math.min(index, startIndex);
+    }
+
+    return index < this.tokenNodes.length ? this.tokenNodes[index] : null;
+  }
+
+  private static long keyOf(final Position position) {
+    return ((long) position.getLine() << COLUMN_BITS) | (position.getColumn() & COLUMN_MASK);
+  }
+
+  /** Get the index of the first element greater than {@code key}. */
+  private static int upperBound(final long[] keys, final long key) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (keys[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** Get the index of the first element greater than or equal to {@code key}. */
+  private static int lowerBound(final long[] keys, final long key) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (keys[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
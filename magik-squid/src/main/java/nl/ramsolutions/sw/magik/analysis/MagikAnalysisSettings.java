@@ -15,6 +15,7 @@ public class MagikAnalysisSettings {
   private static final String INDEX_SLOT_USAGES = "magik.typing.indexSlotUsages";
   private static final String INDEX_CONDITION_USAGES = "magik.typing.indexConditionUsages";
   private static final String CACHE_INDEXED_DEFINITIONS = "magik.typing.cacheIndexedDefinitions";
+  private static final String INDEXER_THREAD_COUNT = "magik.typing.indexerThreadCount";
 
   private final MagikToolsProperties properties;
 
@@ -42,4 +43,19 @@ public class MagikAnalysisSettings {
   public boolean getTypingCacheIndexedDefinitions() {
     return this.properties.getPropertyBoolean(CACHE_INDEXED_DEFINITIONS) != Boolean.FALSE;
   }
+
+  /**
+   * Get the number of threads used to index magik files. Defaults to the number of available
+   * processors, also when set to 0 or lower.
+   *
+   * @return Number of indexer threads.
+   */
+  public int getTypingIndexerThreadCount() {
+    final int threadCount = this.properties.getPropertyInteger(INDEXER_THREAD_COUNT, 0);
+    if (threadCount <= 0) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+
+    return threadCount;
+  }
 }
@@ -4,14 +4,379 @@ import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
+import java.util.Arrays;
+import java.util.List;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
 /**
  * A {@link AstNode} tree walker with pre- and post-methods to iterate a parse tree. Note that this
  * is generated by the {@code generate_ast_walker.py} script, do not edit this file manually!
+ *
+ * <p>The tree is walked iteratively using an explicit stack, so deeply nested trees do not overflow
+ * the call stack. Subclasses overriding {@link #walkAst(AstNode)} or {@link #walkChildren(AstNode)}
+ * are walked recursively, as these methods are then expected to be called for each node.
  */
 public abstract class MagikAstWalker {
 
+  private static final int INITIAL_STACK_SIZE = 64;
+
+  /** Pre- or post-method for a node type. */
+  @FunctionalInterface
+  private interface WalkMethod {
+
+    void walk(MagikAstWalker walker, AstNode node);
+  }
+
+  private static final WalkMethod[] PRE_METHODS = new WalkMethod[MagikGrammar.values().length];
+  private static final WalkMethod[] POST_METHODS = new WalkMethod[MagikGrammar.values().length];
+  private static final ClassValue<Boolean> RECURSIVE =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+          return MagikAstWalker.isOverridden(type, "walkAst")
+              || MagikAstWalker.isOverridden(type, "walkChildren");
+        }
+      };
+
+  static {
+    Arrays.fill(PRE_METHODS, (WalkMethod) MagikAstWalker::walkPreDefault);
+    Arrays.fill(POST_METHODS, (WalkMethod) MagikAstWalker::walkPostDefault);
+    PRE_METHODS[MagikGrammar.NEWLINE.ordinal()] = MagikAstWalker::walkPreNewline;
+    POST_METHODS[MagikGrammar.NEWLINE.ordinal()] = MagikAstWalker::walkPostNewline;
+    PRE_METHODS[MagikGrammar.COMMENT.ordinal()] = MagikAstWalker::walkPreComment;
+    POST_METHODS[MagikGrammar.COMMENT.ordinal()] = MagikAstWalker::walkPostComment;
+    PRE_METHODS[MagikGrammar.SPACING_NO_LB_2.ordinal()] = MagikAstWalker::walkPreSpacingNoLb2;
+    POST_METHODS[MagikGrammar.SPACING_NO_LB_2.ordinal()] = MagikAstWalker::walkPostSpacingNoLb2;
+    PRE_METHODS[MagikGrammar.NEXT_NOT_COMMENT.ordinal()] = MagikAstWalker::walkPreNextNotComment;
+    POST_METHODS[MagikGrammar.NEXT_NOT_COMMENT.ordinal()] = MagikAstWalker::walkPostNextNotComment;
+    PRE_METHODS[MagikGrammar.SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPreSyntaxError;
+    POST_METHODS[MagikGrammar.SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPostSyntaxError;
+    PRE_METHODS[MagikGrammar.MAGIK.ordinal()] = MagikAstWalker::walkPreMagik;
+    POST_METHODS[MagikGrammar.MAGIK.ordinal()] = MagikAstWalker::walkPostMagik;
+    PRE_METHODS[MagikGrammar.PACKAGE_SPECIFICATION.ordinal()] =
+        MagikAstWalker::walkPrePackageSpecification;
+    POST_METHODS[MagikGrammar.PACKAGE_SPECIFICATION.ordinal()] =
+        MagikAstWalker::walkPostPackageSpecification;
+    PRE_METHODS[MagikGrammar.PACKAGE_IDENTIFIER.ordinal()] =
+        MagikAstWalker::walkPrePackageIdentifier;
+    POST_METHODS[MagikGrammar.PACKAGE_IDENTIFIER.ordinal()] =
+        MagikAstWalker::walkPostPackageIdentifier;
+    PRE_METHODS[MagikGrammar.METHOD_DEFINITION.ordinal()] = MagikAstWalker::walkPreMethodDefinition;
+    POST_METHODS[MagikGrammar.METHOD_DEFINITION.ordinal()] =
+        MagikAstWalker::walkPostMethodDefinition;
+    PRE_METHODS[MagikGrammar.EXEMPLAR_NAME.ordinal()] = MagikAstWalker::walkPreExemplarName;
+    POST_METHODS[MagikGrammar.EXEMPLAR_NAME.ordinal()] = MagikAstWalker::walkPostExemplarName;
+    PRE_METHODS[MagikGrammar.METHOD_NAME.ordinal()] = MagikAstWalker::walkPreMethodName;
+    POST_METHODS[MagikGrammar.METHOD_NAME.ordinal()] = MagikAstWalker::walkPostMethodName;
+    PRE_METHODS[MagikGrammar.CONDITION_NAME.ordinal()] = MagikAstWalker::walkPreConditionName;
+    POST_METHODS[MagikGrammar.CONDITION_NAME.ordinal()] = MagikAstWalker::walkPostConditionName;
+    PRE_METHODS[MagikGrammar.METHOD_DEFINITION_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreMethodDefinitionSyntaxError;
+    POST_METHODS[MagikGrammar.METHOD_DEFINITION_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostMethodDefinitionSyntaxError;
+    PRE_METHODS[MagikGrammar.TRANSMIT.ordinal()] = MagikAstWalker::walkPreTransmit;
+    POST_METHODS[MagikGrammar.TRANSMIT.ordinal()] = MagikAstWalker::walkPostTransmit;
+    PRE_METHODS[MagikGrammar.PRAGMA.ordinal()] = MagikAstWalker::walkPrePragma;
+    POST_METHODS[MagikGrammar.PRAGMA.ordinal()] = MagikAstWalker::walkPostPragma;
+    PRE_METHODS[MagikGrammar.PRAGMA_PARAMS.ordinal()] = MagikAstWalker::walkPrePragmaParams;
+    POST_METHODS[MagikGrammar.PRAGMA_PARAMS.ordinal()] = MagikAstWalker::walkPostPragmaParams;
+    PRE_METHODS[MagikGrammar.PRAGMA_PARAM.ordinal()] = MagikAstWalker::walkPrePragmaParam;
+    POST_METHODS[MagikGrammar.PRAGMA_PARAM.ordinal()] = MagikAstWalker::walkPostPragmaParam;
+    PRE_METHODS[MagikGrammar.PRAGMA_VALUE.ordinal()] = MagikAstWalker::walkPrePragmaValue;
+    POST_METHODS[MagikGrammar.PRAGMA_VALUE.ordinal()] = MagikAstWalker::walkPostPragmaValue;
+    PRE_METHODS[MagikGrammar.PARAMETERS.ordinal()] = MagikAstWalker::walkPreParameters;
+    POST_METHODS[MagikGrammar.PARAMETERS.ordinal()] = MagikAstWalker::walkPostParameters;
+    PRE_METHODS[MagikGrammar.PARAMETERS_PAREN.ordinal()] = MagikAstWalker::walkPreParametersParen;
+    POST_METHODS[MagikGrammar.PARAMETERS_PAREN.ordinal()] = MagikAstWalker::walkPostParametersParen;
+    PRE_METHODS[MagikGrammar.PARAMETERS_PAREN_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreParametersParenSyntaxError;
+    POST_METHODS[MagikGrammar.PARAMETERS_PAREN_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostParametersParenSyntaxError;
+    PRE_METHODS[MagikGrammar.PARAMETERS_SQUARE.ordinal()] = MagikAstWalker::walkPreParametersSquare;
+    POST_METHODS[MagikGrammar.PARAMETERS_SQUARE.ordinal()] =
+        MagikAstWalker::walkPostParametersSquare;
+    PRE_METHODS[MagikGrammar.PARAMETERS_SQUARE_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreParametersSquareSyntaxError;
+    POST_METHODS[MagikGrammar.PARAMETERS_SQUARE_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostParametersSquareSyntaxError;
+    PRE_METHODS[MagikGrammar.PARAMETER.ordinal()] = MagikAstWalker::walkPreParameter;
+    POST_METHODS[MagikGrammar.PARAMETER.ordinal()] = MagikAstWalker::walkPostParameter;
+    PRE_METHODS[MagikGrammar.ASSIGNMENT_PARAMETER.ordinal()] =
+        MagikAstWalker::walkPreAssignmentParameter;
+    POST_METHODS[MagikGrammar.ASSIGNMENT_PARAMETER.ordinal()] =
+        MagikAstWalker::walkPostAssignmentParameter;
+    PRE_METHODS[MagikGrammar.ARGUMENTS.ordinal()] = MagikAstWalker::walkPreArguments;
+    POST_METHODS[MagikGrammar.ARGUMENTS.ordinal()] = MagikAstWalker::walkPostArguments;
+    PRE_METHODS[MagikGrammar.ARGUMENTS_PAREN.ordinal()] = MagikAstWalker::walkPreArgumentsParen;
+    POST_METHODS[MagikGrammar.ARGUMENTS_PAREN.ordinal()] = MagikAstWalker::walkPostArgumentsParen;
+    PRE_METHODS[MagikGrammar.ARGUMENTS_PAREN_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreArgumentsParenSyntaxError;
+    POST_METHODS[MagikGrammar.ARGUMENTS_PAREN_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostArgumentsParenSyntaxError;
+    PRE_METHODS[MagikGrammar.ARGUMENTS_SQUARE.ordinal()] = MagikAstWalker::walkPreArgumentsSquare;
+    POST_METHODS[MagikGrammar.ARGUMENTS_SQUARE.ordinal()] = MagikAstWalker::walkPostArgumentsSquare;
+    PRE_METHODS[MagikGrammar.ARGUMENTS_SQUARE_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreArgumentsSquareSyntaxError;
+    POST_METHODS[MagikGrammar.ARGUMENTS_SQUARE_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostArgumentsSquareSyntaxError;
+    PRE_METHODS[MagikGrammar.ARGUMENT.ordinal()] = MagikAstWalker::walkPreArgument;
+    POST_METHODS[MagikGrammar.ARGUMENT.ordinal()] = MagikAstWalker::walkPostArgument;
+    PRE_METHODS[MagikGrammar.ASSIGNMENT_ARGUMENT.ordinal()] =
+        MagikAstWalker::walkPreAssignmentArgument;
+    POST_METHODS[MagikGrammar.ASSIGNMENT_ARGUMENT.ordinal()] =
+        MagikAstWalker::walkPostAssignmentArgument;
+    PRE_METHODS[MagikGrammar.BODY.ordinal()] = MagikAstWalker::walkPreBody;
+    POST_METHODS[MagikGrammar.BODY.ordinal()] = MagikAstWalker::walkPostBody;
+    PRE_METHODS[MagikGrammar.OPERATOR.ordinal()] = MagikAstWalker::walkPreOperator;
+    POST_METHODS[MagikGrammar.OPERATOR.ordinal()] = MagikAstWalker::walkPostOperator;
+    PRE_METHODS[MagikGrammar.TUPLE.ordinal()] = MagikAstWalker::walkPreTuple;
+    POST_METHODS[MagikGrammar.TUPLE.ordinal()] = MagikAstWalker::walkPostTuple;
+    PRE_METHODS[MagikGrammar.IDENTIFIERS.ordinal()] = MagikAstWalker::walkPreIdentifiers;
+    POST_METHODS[MagikGrammar.IDENTIFIERS.ordinal()] = MagikAstWalker::walkPostIdentifiers;
+    PRE_METHODS[MagikGrammar.IDENTIFIERS_WITH_GATHER.ordinal()] =
+        MagikAstWalker::walkPreIdentifiersWithGather;
+    POST_METHODS[MagikGrammar.IDENTIFIERS_WITH_GATHER.ordinal()] =
+        MagikAstWalker::walkPostIdentifiersWithGather;
+    PRE_METHODS[MagikGrammar.METHOD_INVOCATION.ordinal()] = MagikAstWalker::walkPreMethodInvocation;
+    POST_METHODS[MagikGrammar.METHOD_INVOCATION.ordinal()] =
+        MagikAstWalker::walkPostMethodInvocation;
+    PRE_METHODS[MagikGrammar.PROCEDURE_INVOCATION.ordinal()] =
+        MagikAstWalker::walkPreProcedureInvocation;
+    POST_METHODS[MagikGrammar.PROCEDURE_INVOCATION.ordinal()] =
+        MagikAstWalker::walkPostProcedureInvocation;
+    PRE_METHODS[MagikGrammar.PROCEDURE_MODIFIERS.ordinal()] =
+        MagikAstWalker::walkPreProcedureModifiers;
+    POST_METHODS[MagikGrammar.PROCEDURE_MODIFIERS.ordinal()] =
+        MagikAstWalker::walkPostProcedureModifiers;
+    PRE_METHODS[MagikGrammar.METHOD_MODIFIERS.ordinal()] = MagikAstWalker::walkPreMethodModifiers;
+    POST_METHODS[MagikGrammar.METHOD_MODIFIERS.ordinal()] = MagikAstWalker::walkPostMethodModifiers;
+    PRE_METHODS[MagikGrammar.PARAMETER_MODIFIER.ordinal()] =
+        MagikAstWalker::walkPreParameterModifier;
+    POST_METHODS[MagikGrammar.PARAMETER_MODIFIER.ordinal()] =
+        MagikAstWalker::walkPostParameterModifier;
+    PRE_METHODS[MagikGrammar.VARIABLE_DEFINITION_MODIFIER.ordinal()] =
+        MagikAstWalker::walkPreVariableDefinitionModifier;
+    POST_METHODS[MagikGrammar.VARIABLE_DEFINITION_MODIFIER.ordinal()] =
+        MagikAstWalker::walkPostVariableDefinitionModifier;
+    PRE_METHODS[MagikGrammar.VARIABLE_DEFINITION_MULTI.ordinal()] =
+        MagikAstWalker::walkPreVariableDefinitionMulti;
+    POST_METHODS[MagikGrammar.VARIABLE_DEFINITION_MULTI.ordinal()] =
+        MagikAstWalker::walkPostVariableDefinitionMulti;
+    PRE_METHODS[MagikGrammar.VARIABLE_DEFINITION.ordinal()] =
+        MagikAstWalker::walkPreVariableDefinition;
+    POST_METHODS[MagikGrammar.VARIABLE_DEFINITION.ordinal()] =
+        MagikAstWalker::walkPostVariableDefinition;
+    PRE_METHODS[MagikGrammar.MULTIPLE_ASSIGNMENT_ASSIGNABLES.ordinal()] =
+        MagikAstWalker::walkPreMultipleAssignmentAssignables;
+    POST_METHODS[MagikGrammar.MULTIPLE_ASSIGNMENT_ASSIGNABLES.ordinal()] =
+        MagikAstWalker::walkPostMultipleAssignmentAssignables;
+    PRE_METHODS[MagikGrammar.TRY_VARIABLE.ordinal()] = MagikAstWalker::walkPreTryVariable;
+    POST_METHODS[MagikGrammar.TRY_VARIABLE.ordinal()] = MagikAstWalker::walkPostTryVariable;
+    PRE_METHODS[MagikGrammar.FOR_VARIABLES.ordinal()] = MagikAstWalker::walkPreForVariables;
+    POST_METHODS[MagikGrammar.FOR_VARIABLES.ordinal()] = MagikAstWalker::walkPostForVariables;
+    PRE_METHODS[MagikGrammar.CONDITIONAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreConditionalExpression;
+    POST_METHODS[MagikGrammar.CONDITIONAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostConditionalExpression;
+    PRE_METHODS[MagikGrammar.ITERABLE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreIterableExpression;
+    POST_METHODS[MagikGrammar.ITERABLE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostIterableExpression;
+    PRE_METHODS[MagikGrammar.STATEMENT.ordinal()] = MagikAstWalker::walkPreStatement;
+    POST_METHODS[MagikGrammar.STATEMENT.ordinal()] = MagikAstWalker::walkPostStatement;
+    PRE_METHODS[MagikGrammar.STATEMENT_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreStatementSyntaxError;
+    POST_METHODS[MagikGrammar.STATEMENT_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostStatementSyntaxError;
+    PRE_METHODS[MagikGrammar.STATEMENT_SEPARATOR.ordinal()] =
+        MagikAstWalker::walkPreStatementSeparator;
+    POST_METHODS[MagikGrammar.STATEMENT_SEPARATOR.ordinal()] =
+        MagikAstWalker::walkPostStatementSeparator;
+    PRE_METHODS[MagikGrammar.VARIABLE_DEFINITION_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPreVariableDefinitionStatement;
+    POST_METHODS[MagikGrammar.VARIABLE_DEFINITION_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPostVariableDefinitionStatement;
+    PRE_METHODS[MagikGrammar.MULTIPLE_ASSIGNMENT_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPreMultipleAssignmentStatement;
+    POST_METHODS[MagikGrammar.MULTIPLE_ASSIGNMENT_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPostMultipleAssignmentStatement;
+    PRE_METHODS[MagikGrammar.RETURN_STATEMENT.ordinal()] = MagikAstWalker::walkPreReturnStatement;
+    POST_METHODS[MagikGrammar.RETURN_STATEMENT.ordinal()] = MagikAstWalker::walkPostReturnStatement;
+    PRE_METHODS[MagikGrammar.EMIT_STATEMENT.ordinal()] = MagikAstWalker::walkPreEmitStatement;
+    POST_METHODS[MagikGrammar.EMIT_STATEMENT.ordinal()] = MagikAstWalker::walkPostEmitStatement;
+    PRE_METHODS[MagikGrammar.EXPRESSION_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPreExpressionStatement;
+    POST_METHODS[MagikGrammar.EXPRESSION_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPostExpressionStatement;
+    PRE_METHODS[MagikGrammar.PRIMITIVE_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPrePrimitiveStatement;
+    POST_METHODS[MagikGrammar.PRIMITIVE_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPostPrimitiveStatement;
+    PRE_METHODS[MagikGrammar.LEAVE_STATEMENT.ordinal()] = MagikAstWalker::walkPreLeaveStatement;
+    POST_METHODS[MagikGrammar.LEAVE_STATEMENT.ordinal()] = MagikAstWalker::walkPostLeaveStatement;
+    PRE_METHODS[MagikGrammar.CONTINUE_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPreContinueStatement;
+    POST_METHODS[MagikGrammar.CONTINUE_STATEMENT.ordinal()] =
+        MagikAstWalker::walkPostContinueStatement;
+    PRE_METHODS[MagikGrammar.THROW_STATEMENT.ordinal()] = MagikAstWalker::walkPreThrowStatement;
+    POST_METHODS[MagikGrammar.THROW_STATEMENT.ordinal()] = MagikAstWalker::walkPostThrowStatement;
+    PRE_METHODS[MagikGrammar.HANDLING.ordinal()] = MagikAstWalker::walkPreHandling;
+    POST_METHODS[MagikGrammar.HANDLING.ordinal()] = MagikAstWalker::walkPostHandling;
+    PRE_METHODS[MagikGrammar.BLOCK.ordinal()] = MagikAstWalker::walkPreBlock;
+    POST_METHODS[MagikGrammar.BLOCK.ordinal()] = MagikAstWalker::walkPostBlock;
+    PRE_METHODS[MagikGrammar.BLOCK_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreBlockSyntaxError;
+    POST_METHODS[MagikGrammar.BLOCK_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostBlockSyntaxError;
+    PRE_METHODS[MagikGrammar.PROTECT.ordinal()] = MagikAstWalker::walkPreProtect;
+    POST_METHODS[MagikGrammar.PROTECT.ordinal()] = MagikAstWalker::walkPostProtect;
+    PRE_METHODS[MagikGrammar.PROTECT_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreProtectSyntaxError;
+    POST_METHODS[MagikGrammar.PROTECT_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostProtectSyntaxError;
+    PRE_METHODS[MagikGrammar.PROTECTION.ordinal()] = MagikAstWalker::walkPreProtection;
+    POST_METHODS[MagikGrammar.PROTECTION.ordinal()] = MagikAstWalker::walkPostProtection;
+    PRE_METHODS[MagikGrammar.TRY.ordinal()] = MagikAstWalker::walkPreTry;
+    POST_METHODS[MagikGrammar.TRY.ordinal()] = MagikAstWalker::walkPostTry;
+    PRE_METHODS[MagikGrammar.TRY_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPreTrySyntaxError;
+    POST_METHODS[MagikGrammar.TRY_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPostTrySyntaxError;
+    PRE_METHODS[MagikGrammar.WHEN.ordinal()] = MagikAstWalker::walkPreWhen;
+    POST_METHODS[MagikGrammar.WHEN.ordinal()] = MagikAstWalker::walkPostWhen;
+    PRE_METHODS[MagikGrammar.CATCH.ordinal()] = MagikAstWalker::walkPreCatch;
+    POST_METHODS[MagikGrammar.CATCH.ordinal()] = MagikAstWalker::walkPostCatch;
+    PRE_METHODS[MagikGrammar.CATCH_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreCatchSyntaxError;
+    POST_METHODS[MagikGrammar.CATCH_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostCatchSyntaxError;
+    PRE_METHODS[MagikGrammar.LOCK.ordinal()] = MagikAstWalker::walkPreLock;
+    POST_METHODS[MagikGrammar.LOCK.ordinal()] = MagikAstWalker::walkPostLock;
+    PRE_METHODS[MagikGrammar.LOCK_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPreLockSyntaxError;
+    POST_METHODS[MagikGrammar.LOCK_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostLockSyntaxError;
+    PRE_METHODS[MagikGrammar.IF.ordinal()] = MagikAstWalker::walkPreIf;
+    POST_METHODS[MagikGrammar.IF.ordinal()] = MagikAstWalker::walkPostIf;
+    PRE_METHODS[MagikGrammar.IF_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPreIfSyntaxError;
+    POST_METHODS[MagikGrammar.IF_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPostIfSyntaxError;
+    PRE_METHODS[MagikGrammar.ELIF.ordinal()] = MagikAstWalker::walkPreElif;
+    POST_METHODS[MagikGrammar.ELIF.ordinal()] = MagikAstWalker::walkPostElif;
+    PRE_METHODS[MagikGrammar.ELSE.ordinal()] = MagikAstWalker::walkPreElse;
+    POST_METHODS[MagikGrammar.ELSE.ordinal()] = MagikAstWalker::walkPostElse;
+    PRE_METHODS[MagikGrammar.FOR.ordinal()] = MagikAstWalker::walkPreFor;
+    POST_METHODS[MagikGrammar.FOR.ordinal()] = MagikAstWalker::walkPostFor;
+    PRE_METHODS[MagikGrammar.WHILE.ordinal()] = MagikAstWalker::walkPreWhile;
+    POST_METHODS[MagikGrammar.WHILE.ordinal()] = MagikAstWalker::walkPostWhile;
+    PRE_METHODS[MagikGrammar.OVER.ordinal()] = MagikAstWalker::walkPreOver;
+    POST_METHODS[MagikGrammar.OVER.ordinal()] = MagikAstWalker::walkPostOver;
+    PRE_METHODS[MagikGrammar.LOOP.ordinal()] = MagikAstWalker::walkPreLoop;
+    POST_METHODS[MagikGrammar.LOOP.ordinal()] = MagikAstWalker::walkPostLoop;
+    PRE_METHODS[MagikGrammar.LOOP_SYNTAX_ERROR.ordinal()] = MagikAstWalker::walkPreLoopSyntaxError;
+    POST_METHODS[MagikGrammar.LOOP_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostLoopSyntaxError;
+    PRE_METHODS[MagikGrammar.FINALLY.ordinal()] = MagikAstWalker::walkPreFinally;
+    POST_METHODS[MagikGrammar.FINALLY.ordinal()] = MagikAstWalker::walkPostFinally;
+    PRE_METHODS[MagikGrammar.EXPRESSION.ordinal()] = MagikAstWalker::walkPreExpression;
+    POST_METHODS[MagikGrammar.EXPRESSION.ordinal()] = MagikAstWalker::walkPostExpression;
+    PRE_METHODS[MagikGrammar.ASSIGNMENT_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreAssignmentExpression;
+    POST_METHODS[MagikGrammar.ASSIGNMENT_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostAssignmentExpression;
+    PRE_METHODS[MagikGrammar.AUGMENTED_ASSIGNMENT_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreAugmentedAssignmentExpression;
+    POST_METHODS[MagikGrammar.AUGMENTED_ASSIGNMENT_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostAugmentedAssignmentExpression;
+    PRE_METHODS[MagikGrammar.OR_EXPRESSION.ordinal()] = MagikAstWalker::walkPreOrExpression;
+    POST_METHODS[MagikGrammar.OR_EXPRESSION.ordinal()] = MagikAstWalker::walkPostOrExpression;
+    PRE_METHODS[MagikGrammar.XOR_EXPRESSION.ordinal()] = MagikAstWalker::walkPreXorExpression;
+    POST_METHODS[MagikGrammar.XOR_EXPRESSION.ordinal()] = MagikAstWalker::walkPostXorExpression;
+    PRE_METHODS[MagikGrammar.AND_EXPRESSION.ordinal()] = MagikAstWalker::walkPreAndExpression;
+    POST_METHODS[MagikGrammar.AND_EXPRESSION.ordinal()] = MagikAstWalker::walkPostAndExpression;
+    PRE_METHODS[MagikGrammar.EQUALITY_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreEqualityExpression;
+    POST_METHODS[MagikGrammar.EQUALITY_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostEqualityExpression;
+    PRE_METHODS[MagikGrammar.RELATIONAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreRelationalExpression;
+    POST_METHODS[MagikGrammar.RELATIONAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostRelationalExpression;
+    PRE_METHODS[MagikGrammar.ADDITIVE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreAdditiveExpression;
+    POST_METHODS[MagikGrammar.ADDITIVE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostAdditiveExpression;
+    PRE_METHODS[MagikGrammar.MULTIPLICATIVE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreMultiplicativeExpression;
+    POST_METHODS[MagikGrammar.MULTIPLICATIVE_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostMultiplicativeExpression;
+    PRE_METHODS[MagikGrammar.EXPONENTIAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPreExponentialExpression;
+    POST_METHODS[MagikGrammar.EXPONENTIAL_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostExponentialExpression;
+    PRE_METHODS[MagikGrammar.UNARY_EXPRESSION.ordinal()] = MagikAstWalker::walkPreUnaryExpression;
+    POST_METHODS[MagikGrammar.UNARY_EXPRESSION.ordinal()] = MagikAstWalker::walkPostUnaryExpression;
+    PRE_METHODS[MagikGrammar.POSTFIX_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPrePostfixExpression;
+    POST_METHODS[MagikGrammar.POSTFIX_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostPostfixExpression;
+    PRE_METHODS[MagikGrammar.ATOM.ordinal()] = MagikAstWalker::walkPreAtom;
+    POST_METHODS[MagikGrammar.ATOM.ordinal()] = MagikAstWalker::walkPostAtom;
+    PRE_METHODS[MagikGrammar.STRING.ordinal()] = MagikAstWalker::walkPreString;
+    POST_METHODS[MagikGrammar.STRING.ordinal()] = MagikAstWalker::walkPostString;
+    PRE_METHODS[MagikGrammar.NUMBER.ordinal()] = MagikAstWalker::walkPreNumber;
+    POST_METHODS[MagikGrammar.NUMBER.ordinal()] = MagikAstWalker::walkPostNumber;
+    PRE_METHODS[MagikGrammar.CHARACTER.ordinal()] = MagikAstWalker::walkPreCharacter;
+    POST_METHODS[MagikGrammar.CHARACTER.ordinal()] = MagikAstWalker::walkPostCharacter;
+    PRE_METHODS[MagikGrammar.SYMBOL.ordinal()] = MagikAstWalker::walkPreSymbol;
+    POST_METHODS[MagikGrammar.SYMBOL.ordinal()] = MagikAstWalker::walkPostSymbol;
+    PRE_METHODS[MagikGrammar.REGEXP.ordinal()] = MagikAstWalker::walkPreRegexp;
+    POST_METHODS[MagikGrammar.REGEXP.ordinal()] = MagikAstWalker::walkPostRegexp;
+    PRE_METHODS[MagikGrammar.IDENTIFIER.ordinal()] = MagikAstWalker::walkPreIdentifier;
+    POST_METHODS[MagikGrammar.IDENTIFIER.ordinal()] = MagikAstWalker::walkPostIdentifier;
+    PRE_METHODS[MagikGrammar.LABEL.ordinal()] = MagikAstWalker::walkPreLabel;
+    POST_METHODS[MagikGrammar.LABEL.ordinal()] = MagikAstWalker::walkPostLabel;
+    PRE_METHODS[MagikGrammar.SLOT.ordinal()] = MagikAstWalker::walkPreSlot;
+    POST_METHODS[MagikGrammar.SLOT.ordinal()] = MagikAstWalker::walkPostSlot;
+    PRE_METHODS[MagikGrammar.GLOBAL_REF.ordinal()] = MagikAstWalker::walkPreGlobalRef;
+    POST_METHODS[MagikGrammar.GLOBAL_REF.ordinal()] = MagikAstWalker::walkPostGlobalRef;
+    PRE_METHODS[MagikGrammar.SIMPLE_VECTOR.ordinal()] = MagikAstWalker::walkPreSimpleVector;
+    POST_METHODS[MagikGrammar.SIMPLE_VECTOR.ordinal()] = MagikAstWalker::walkPostSimpleVector;
+    PRE_METHODS[MagikGrammar.SIMPLE_VECTOR_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreSimpleVectorSyntaxError;
+    POST_METHODS[MagikGrammar.SIMPLE_VECTOR_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostSimpleVectorSyntaxError;
+    PRE_METHODS[MagikGrammar.GATHER_EXPRESSION.ordinal()] = MagikAstWalker::walkPreGatherExpression;
+    POST_METHODS[MagikGrammar.GATHER_EXPRESSION.ordinal()] =
+        MagikAstWalker::walkPostGatherExpression;
+    PRE_METHODS[MagikGrammar.CLASS.ordinal()] = MagikAstWalker::walkPreClass;
+    POST_METHODS[MagikGrammar.CLASS.ordinal()] = MagikAstWalker::walkPostClass;
+    PRE_METHODS[MagikGrammar.LOOPBODY.ordinal()] = MagikAstWalker::walkPreLoopbody;
+    POST_METHODS[MagikGrammar.LOOPBODY.ordinal()] = MagikAstWalker::walkPostLoopbody;
+    PRE_METHODS[MagikGrammar.PROCEDURE_DEFINITION.ordinal()] =
+        MagikAstWalker::walkPreProcedureDefinition;
+    POST_METHODS[MagikGrammar.PROCEDURE_DEFINITION.ordinal()] =
+        MagikAstWalker::walkPostProcedureDefinition;
+    PRE_METHODS[MagikGrammar.PROCEDURE_NAME.ordinal()] = MagikAstWalker::walkPreProcedureName;
+    POST_METHODS[MagikGrammar.PROCEDURE_NAME.ordinal()] = MagikAstWalker::walkPostProcedureName;
+    PRE_METHODS[MagikGrammar.PROCEDURE_DEFINITION_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPreProcedureDefinitionSyntaxError;
+    POST_METHODS[MagikGrammar.PROCEDURE_DEFINITION_SYNTAX_ERROR.ordinal()] =
+        MagikAstWalker::walkPostProcedureDefinitionSyntaxError;
+    PRE_METHODS[MagikGrammar.SELF.ordinal()] = MagikAstWalker::walkPreSelf;
+    POST_METHODS[MagikGrammar.SELF.ordinal()] = MagikAstWalker::walkPostSelf;
+    PRE_METHODS[MagikGrammar.CLONE.ordinal()] = MagikAstWalker::walkPreClone;
+    POST_METHODS[MagikGrammar.CLONE.ordinal()] = MagikAstWalker::walkPostClone;
+    PRE_METHODS[MagikGrammar.UNSET.ordinal()] = MagikAstWalker::walkPreUnset;
+    POST_METHODS[MagikGrammar.UNSET.ordinal()] = MagikAstWalker::walkPostUnset;
+    PRE_METHODS[MagikGrammar.TRUE.ordinal()] = MagikAstWalker::walkPreTrue;
+    POST_METHODS[MagikGrammar.TRUE.ordinal()] = MagikAstWalker::walkPostTrue;
+    PRE_METHODS[MagikGrammar.FALSE.ordinal()] = MagikAstWalker::walkPreFalse;
+    POST_METHODS[MagikGrammar.FALSE.ordinal()] = MagikAstWalker::walkPostFalse;
+    PRE_METHODS[MagikGrammar.MAYBE.ordinal()] = MagikAstWalker::walkPreMaybe;
+    POST_METHODS[MagikGrammar.MAYBE.ordinal()] = MagikAstWalker::walkPostMaybe;
+    PRE_METHODS[MagikGrammar.THISTHREAD.ordinal()] = MagikAstWalker::walkPreThisthread;
+    POST_METHODS[MagikGrammar.THISTHREAD.ordinal()] = MagikAstWalker::walkPostThisthread;
+    PRE_METHODS[MagikGrammar.SUPER.ordinal()] = MagikAstWalker::walkPreSuper;
+    POST_METHODS[MagikGrammar.SUPER.ordinal()] = MagikAstWalker::walkPostSuper;
+  }
+
   /** Walk children of node. */
   protected void walkChildren(final AstNode node) {
     for (final AstNode childNode : node.getChildren()) {
@@ -32,7 +397,6 @@ public abstract class MagikAstWalker {
    *
    * @param node Node to start walking.
    */
-  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
   public void walkAst(final AstNode node) {
     final AstNodeType nodeType = node.getType();
     if (!(nodeType instanceof MagikGrammar)) {
@@ -40,760 +404,95 @@ public abstract class MagikAstWalker {
       return;
     }
 
-    final MagikGrammar value = (MagikGrammar) nodeType;
-    switch (value) {
-      case NEWLINE:
-        this.walkPreNewline(node);
-        this.walkChildren(node);
-        this.walkPostNewline(node);
-        break;
-
-      case COMMENT:
-        this.walkPreComment(node);
-        this.walkChildren(node);
-        this.walkPostComment(node);
-        break;
-
-      case SPACING_NO_LB_2:
-        this.walkPreSpacingNoLb2(node);
-        this.walkChildren(node);
-        this.walkPostSpacingNoLb2(node);
-        break;
-
-      case NEXT_NOT_COMMENT:
-        this.walkPreNextNotComment(node);
-        this.walkChildren(node);
-        this.walkPostNextNotComment(node);
-        break;
-
-      case SYNTAX_ERROR:
-        this.walkPreSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostSyntaxError(node);
-        break;
-
-      case MAGIK:
-        this.walkPreMagik(node);
-        this.walkChildren(node);
-        this.walkPostMagik(node);
-        break;
-
-      case PACKAGE_SPECIFICATION:
-        this.walkPrePackageSpecification(node);
-        this.walkChildren(node);
-        this.walkPostPackageSpecification(node);
-        break;
-
-      case PACKAGE_IDENTIFIER:
-        this.walkPrePackageIdentifier(node);
-        this.walkChildren(node);
-        this.walkPostPackageIdentifier(node);
-        break;
-
-      case METHOD_DEFINITION:
-        this.walkPreMethodDefinition(node);
-        this.walkChildren(node);
-        this.walkPostMethodDefinition(node);
-        break;
-
-      case EXEMPLAR_NAME:
-        this.walkPreExemplarName(node);
-        this.walkChildren(node);
-        this.walkPostExemplarName(node);
-        break;
-
-      case METHOD_NAME:
-        this.walkPreMethodName(node);
-        this.walkChildren(node);
-        this.walkPostMethodName(node);
-        break;
-
-      case CONDITION_NAME:
-        this.walkPreConditionName(node);
-        this.walkChildren(node);
-        this.walkPostConditionName(node);
-        break;
-
-      case METHOD_DEFINITION_SYNTAX_ERROR:
-        this.walkPreMethodDefinitionSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostMethodDefinitionSyntaxError(node);
-        break;
-
-      case TRANSMIT:
-        this.walkPreTransmit(node);
-        this.walkChildren(node);
-        this.walkPostTransmit(node);
-        break;
-
-      case PRAGMA:
-        this.walkPrePragma(node);
-        this.walkChildren(node);
-        this.walkPostPragma(node);
-        break;
-
-      case PRAGMA_PARAMS:
-        this.walkPrePragmaParams(node);
-        this.walkChildren(node);
-        this.walkPostPragmaParams(node);
-        break;
-
-      case PRAGMA_PARAM:
-        this.walkPrePragmaParam(node);
-        this.walkChildren(node);
-        this.walkPostPragmaParam(node);
-        break;
-
-      case PRAGMA_VALUE:
-        this.walkPrePragmaValue(node);
-        this.walkChildren(node);
-        this.walkPostPragmaValue(node);
-        break;
-
-      case PARAMETERS:
-        this.walkPreParameters(node);
-        this.walkChildren(node);
-        this.walkPostParameters(node);
-        break;
-
-      case PARAMETERS_PAREN:
-        this.walkPreParametersParen(node);
-        this.walkChildren(node);
-        this.walkPostParametersParen(node);
-        break;
-
-      case PARAMETERS_PAREN_SYNTAX_ERROR:
-        this.walkPreParametersParenSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostParametersParenSyntaxError(node);
-        break;
-
-      case PARAMETERS_SQUARE:
-        this.walkPreParametersSquare(node);
-        this.walkChildren(node);
-        this.walkPostParametersSquare(node);
-        break;
-
-      case PARAMETERS_SQUARE_SYNTAX_ERROR:
-        this.walkPreParametersSquareSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostParametersSquareSyntaxError(node);
-        break;
-
-      case PARAMETER:
-        this.walkPreParameter(node);
-        this.walkChildren(node);
-        this.walkPostParameter(node);
-        break;
-
-      case ASSIGNMENT_PARAMETER:
-        this.walkPreAssignmentParameter(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentParameter(node);
-        break;
-
-      case ARGUMENTS:
-        this.walkPreArguments(node);
-        this.walkChildren(node);
-        this.walkPostArguments(node);
-        break;
-
-      case ARGUMENTS_PAREN:
-        this.walkPreArgumentsParen(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsParen(node);
-        break;
-
-      case ARGUMENTS_PAREN_SYNTAX_ERROR:
-        this.walkPreArgumentsParenSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsParenSyntaxError(node);
-        break;
-
-      case ARGUMENTS_SQUARE:
-        this.walkPreArgumentsSquare(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsSquare(node);
-        break;
-
-      case ARGUMENTS_SQUARE_SYNTAX_ERROR:
-        this.walkPreArgumentsSquareSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsSquareSyntaxError(node);
-        break;
-
-      case ARGUMENT:
-        this.walkPreArgument(node);
-        this.walkChildren(node);
-        this.walkPostArgument(node);
-        break;
-
-      case ASSIGNMENT_ARGUMENT:
-        this.walkPreAssignmentArgument(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentArgument(node);
-        break;
-
-      case BODY:
-        this.walkPreBody(node);
-        this.walkChildren(node);
-        this.walkPostBody(node);
-        break;
-
-      case OPERATOR:
-        this.walkPreOperator(node);
-        this.walkChildren(node);
-        this.walkPostOperator(node);
-        break;
-
-      case TUPLE:
-        this.walkPreTuple(node);
-        this.walkChildren(node);
-        this.walkPostTuple(node);
-        break;
-
-      case IDENTIFIERS:
-        this.walkPreIdentifiers(node);
-        this.walkChildren(node);
-        this.walkPostIdentifiers(node);
-        break;
-
-      case IDENTIFIERS_WITH_GATHER:
-        this.walkPreIdentifiersWithGather(node);
-        this.walkChildren(node);
-        this.walkPostIdentifiersWithGather(node);
-        break;
-
-      case METHOD_INVOCATION:
-        this.walkPreMethodInvocation(node);
-        this.walkChildren(node);
-        this.walkPostMethodInvocation(node);
-        break;
-
-      case PROCEDURE_INVOCATION:
-        this.walkPreProcedureInvocation(node);
-        this.walkChildren(node);
-        this.walkPostProcedureInvocation(node);
-        break;
-
-      case PROCEDURE_MODIFIERS:
-        this.walkPreProcedureModifiers(node);
-        this.walkChildren(node);
-        this.walkPostProcedureModifiers(node);
-        break;
-
-      case METHOD_MODIFIERS:
-        this.walkPreMethodModifiers(node);
-        this.walkChildren(node);
-        this.walkPostMethodModifiers(node);
-        break;
-
-      case PARAMETER_MODIFIER:
-        this.walkPreParameterModifier(node);
-        this.walkChildren(node);
-        this.walkPostParameterModifier(node);
-        break;
-
-      case VARIABLE_DEFINITION_MODIFIER:
-        this.walkPreVariableDefinitionModifier(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionModifier(node);
-        break;
-
-      case VARIABLE_DEFINITION_MULTI:
-        this.walkPreVariableDefinitionMulti(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionMulti(node);
-        break;
-
-      case VARIABLE_DEFINITION:
-        this.walkPreVariableDefinition(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinition(node);
-        break;
-
-      case MULTIPLE_ASSIGNMENT_ASSIGNABLES:
-        this.walkPreMultipleAssignmentAssignables(node);
-        this.walkChildren(node);
-        this.walkPostMultipleAssignmentAssignables(node);
-        break;
-
-      case TRY_VARIABLE:
-        this.walkPreTryVariable(node);
-        this.walkChildren(node);
-        this.walkPostTryVariable(node);
-        break;
-
-      case FOR_VARIABLES:
-        this.walkPreForVariables(node);
-        this.walkChildren(node);
-        this.walkPostForVariables(node);
-        break;
-
-      case CONDITIONAL_EXPRESSION:
-        this.walkPreConditionalExpression(node);
-        this.walkChildren(node);
-        this.walkPostConditionalExpression(node);
-        break;
-
-      case ITERABLE_EXPRESSION:
-        this.walkPreIterableExpression(node);
-        this.walkChildren(node);
-        this.walkPostIterableExpression(node);
-        break;
-
-      case STATEMENT:
-        this.walkPreStatement(node);
-        this.walkChildren(node);
-        this.walkPostStatement(node);
-        break;
-
-      case STATEMENT_SYNTAX_ERROR:
-        this.walkPreStatementSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostStatementSyntaxError(node);
-        break;
-
-      case STATEMENT_SEPARATOR:
-        this.walkPreStatementSeparator(node);
-        this.walkChildren(node);
-        this.walkPostStatementSeparator(node);
-        break;
-
-      case VARIABLE_DEFINITION_STATEMENT:
-        this.walkPreVariableDefinitionStatement(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionStatement(node);
-        break;
-
-      case MULTIPLE_ASSIGNMENT_STATEMENT:
-        this.walkPreMultipleAssignmentStatement(node);
-        this.walkChildren(node);
-        this.walkPostMultipleAssignmentStatement(node);
-        break;
-
-      case RETURN_STATEMENT:
-        this.walkPreReturnStatement(node);
-        this.walkChildren(node);
-        this.walkPostReturnStatement(node);
-        break;
-
-      case EMIT_STATEMENT:
-        this.walkPreEmitStatement(node);
-        this.walkChildren(node);
-        this.walkPostEmitStatement(node);
-        break;
-
-      case EXPRESSION_STATEMENT:
-        this.walkPreExpressionStatement(node);
-        this.walkChildren(node);
-        this.walkPostExpressionStatement(node);
-        break;
-
-      case PRIMITIVE_STATEMENT:
-        this.walkPrePrimitiveStatement(node);
-        this.walkChildren(node);
-        this.walkPostPrimitiveStatement(node);
-        break;
-
-      case LEAVE_STATEMENT:
-        this.walkPreLeaveStatement(node);
-        this.walkChildren(node);
-        this.walkPostLeaveStatement(node);
-        break;
-
-      case CONTINUE_STATEMENT:
-        this.walkPreContinueStatement(node);
-        this.walkChildren(node);
-        this.walkPostContinueStatement(node);
-        break;
-
-      case THROW_STATEMENT:
-        this.walkPreThrowStatement(node);
-        this.walkChildren(node);
-        this.walkPostThrowStatement(node);
-        break;
-
-      case HANDLING:
-        this.walkPreHandling(node);
-        this.walkChildren(node);
-        this.walkPostHandling(node);
-        break;
-
-      case BLOCK:
-        this.walkPreBlock(node);
-        this.walkChildren(node);
-        this.walkPostBlock(node);
-        break;
-
-      case BLOCK_SYNTAX_ERROR:
-        this.walkPreBlockSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostBlockSyntaxError(node);
-        break;
-
-      case PROTECT:
-        this.walkPreProtect(node);
-        this.walkChildren(node);
-        this.walkPostProtect(node);
-        break;
-
-      case PROTECT_SYNTAX_ERROR:
-        this.walkPreProtectSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostProtectSyntaxError(node);
-        break;
-
-      case PROTECTION:
-        this.walkPreProtection(node);
-        this.walkChildren(node);
-        this.walkPostProtection(node);
-        break;
-
-      case TRY:
-        this.walkPreTry(node);
-        this.walkChildren(node);
-        this.walkPostTry(node);
-        break;
-
-      case TRY_SYNTAX_ERROR:
-        this.walkPreTrySyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostTrySyntaxError(node);
-        break;
-
-      case WHEN:
-        this.walkPreWhen(node);
-        this.walkChildren(node);
-        this.walkPostWhen(node);
-        break;
-
-      case CATCH:
-        this.walkPreCatch(node);
-        this.walkChildren(node);
-        this.walkPostCatch(node);
-        break;
-
-      case CATCH_SYNTAX_ERROR:
-        this.walkPreCatchSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostCatchSyntaxError(node);
-        break;
-
-      case LOCK:
-        this.walkPreLock(node);
-        this.walkChildren(node);
-        this.walkPostLock(node);
-        break;
-
-      case LOCK_SYNTAX_ERROR:
-        this.walkPreLockSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostLockSyntaxError(node);
-        break;
-
-      case IF:
-        this.walkPreIf(node);
-        this.walkChildren(node);
-        this.walkPostIf(node);
-        break;
-
-      case IF_SYNTAX_ERROR:
-        this.walkPreIfSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostIfSyntaxError(node);
-        break;
-
-      case ELIF:
-        this.walkPreElif(node);
-        this.walkChildren(node);
-        this.walkPostElif(node);
-        break;
-
-      case ELSE:
-        this.walkPreElse(node);
-        this.walkChildren(node);
-        this.walkPostElse(node);
-        break;
-
-      case FOR:
-        this.walkPreFor(node);
-        this.walkChildren(node);
-        this.walkPostFor(node);
-        break;
-
-      case WHILE:
-        this.walkPreWhile(node);
-        this.walkChildren(node);
-        this.walkPostWhile(node);
-        break;
-
-      case OVER:
-        this.walkPreOver(node);
-        this.walkChildren(node);
-        this.walkPostOver(node);
-        break;
-
-      case LOOP:
-        this.walkPreLoop(node);
-        this.walkChildren(node);
-        this.walkPostLoop(node);
-        break;
-
-      case LOOP_SYNTAX_ERROR:
-        this.walkPreLoopSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostLoopSyntaxError(node);
-        break;
-
-      case FINALLY:
-        this.walkPreFinally(node);
-        this.walkChildren(node);
-        this.walkPostFinally(node);
-        break;
-
-      case EXPRESSION:
-        this.walkPreExpression(node);
-        this.walkChildren(node);
-        this.walkPostExpression(node);
-        break;
-
-      case ASSIGNMENT_EXPRESSION:
-        this.walkPreAssignmentExpression(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentExpression(node);
-        break;
-
-      case AUGMENTED_ASSIGNMENT_EXPRESSION:
-        this.walkPreAugmentedAssignmentExpression(node);
-        this.walkChildren(node);
-        this.walkPostAugmentedAssignmentExpression(node);
-        break;
-
-      case OR_EXPRESSION:
-        this.walkPreOrExpression(node);
-        this.walkChildren(node);
-        this.walkPostOrExpression(node);
-        break;
-
-      case XOR_EXPRESSION:
-        this.walkPreXorExpression(node);
-        this.walkChildren(node);
-        this.walkPostXorExpression(node);
-        break;
-
-      case AND_EXPRESSION:
-        this.walkPreAndExpression(node);
-        this.walkChildren(node);
-        this.walkPostAndExpression(node);
-        break;
-
-      case EQUALITY_EXPRESSION:
-        this.walkPreEqualityExpression(node);
-        this.walkChildren(node);
-        this.walkPostEqualityExpression(node);
-        break;
-
-      case RELATIONAL_EXPRESSION:
-        this.walkPreRelationalExpression(node);
-        this.walkChildren(node);
-        this.walkPostRelationalExpression(node);
-        break;
-
-      case ADDITIVE_EXPRESSION:
-        this.walkPreAdditiveExpression(node);
-        this.walkChildren(node);
-        this.walkPostAdditiveExpression(node);
-        break;
-
-      case MULTIPLICATIVE_EXPRESSION:
-        this.walkPreMultiplicativeExpression(node);
-        this.walkChildren(node);
-        this.walkPostMultiplicativeExpression(node);
-        break;
-
-      case EXPONENTIAL_EXPRESSION:
-        this.walkPreExponentialExpression(node);
-        this.walkChildren(node);
-        this.walkPostExponentialExpression(node);
-        break;
-
-      case UNARY_EXPRESSION:
-        this.walkPreUnaryExpression(node);
-        this.walkChildren(node);
-        this.walkPostUnaryExpression(node);
-        break;
-
-      case POSTFIX_EXPRESSION:
-        this.walkPrePostfixExpression(node);
-        this.walkChildren(node);
-        this.walkPostPostfixExpression(node);
-        break;
-
-      case ATOM:
-        this.walkPreAtom(node);
-        this.walkChildren(node);
-        this.walkPostAtom(node);
-        break;
-
-      case STRING:
-        this.walkPreString(node);
-        this.walkChildren(node);
-        this.walkPostString(node);
-        break;
-
-      case NUMBER:
-        this.walkPreNumber(node);
-        this.walkChildren(node);
-        this.walkPostNumber(node);
-        break;
-
-      case CHARACTER:
-        this.walkPreCharacter(node);
-        this.walkChildren(node);
-        this.walkPostCharacter(node);
-        break;
-
-      case SYMBOL:
-        this.walkPreSymbol(node);
-        this.walkChildren(node);
-        this.walkPostSymbol(node);
-        break;
-
-      case REGEXP:
-        this.walkPreRegexp(node);
-        this.walkChildren(node);
-        this.walkPostRegexp(node);
-        break;
-
-      case IDENTIFIER:
-        this.walkPreIdentifier(node);
-        this.walkChildren(node);
-        this.walkPostIdentifier(node);
-        break;
-
-      case LABEL:
-        this.walkPreLabel(node);
-        this.walkChildren(node);
-        this.walkPostLabel(node);
-        break;
-
-      case SLOT:
-        this.walkPreSlot(node);
-        this.walkChildren(node);
-        this.walkPostSlot(node);
-        break;
-
-      case GLOBAL_REF:
-        this.walkPreGlobalRef(node);
-        this.walkChildren(node);
-        this.walkPostGlobalRef(node);
-        break;
-
-      case SIMPLE_VECTOR:
-        this.walkPreSimpleVector(node);
-        this.walkChildren(node);
-        this.walkPostSimpleVector(node);
-        break;
-
-      case SIMPLE_VECTOR_SYNTAX_ERROR:
-        this.walkPreSimpleVectorSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostSimpleVectorSyntaxError(node);
-        break;
-
-      case GATHER_EXPRESSION:
-        this.walkPreGatherExpression(node);
-        this.walkChildren(node);
-        this.walkPostGatherExpression(node);
-        break;
-
-      case CLASS:
-        this.walkPreClass(node);
-        this.walkChildren(node);
-        this.walkPostClass(node);
-        break;
-
-      case LOOPBODY:
-        this.walkPreLoopbody(node);
-        this.walkChildren(node);
-        this.walkPostLoopbody(node);
-        break;
-
-      case PROCEDURE_DEFINITION:
-        this.walkPreProcedureDefinition(node);
-        this.walkChildren(node);
-        this.walkPostProcedureDefinition(node);
-        break;
-
-      case PROCEDURE_NAME:
-        this.walkPreProcedureName(node);
-        this.walkChildren(node);
-        this.walkPostProcedureName(node);
-        break;
-
-      case PROCEDURE_DEFINITION_SYNTAX_ERROR:
-        this.walkPreProcedureDefinitionSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostProcedureDefinitionSyntaxError(node);
-        break;
-
-      case SELF:
-        this.walkPreSelf(node);
-        this.walkChildren(node);
-        this.walkPostSelf(node);
-        break;
-
-      case CLONE:
-        this.walkPreClone(node);
-        this.walkChildren(node);
-        this.walkPostClone(node);
-        break;
-
-      case UNSET:
-        this.walkPreUnset(node);
-        this.walkChildren(node);
-        this.walkPostUnset(node);
-        break;
-
-      case TRUE:
-        this.walkPreTrue(node);
-        this.walkChildren(node);
-        this.walkPostTrue(node);
-        break;
-
-      case FALSE:
-        this.walkPreFalse(node);
-        this.walkChildren(node);
-        this.walkPostFalse(node);
-        break;
-
-      case MAYBE:
-        this.walkPreMaybe(node);
-        this.walkChildren(node);
-        this.walkPostMaybe(node);
-        break;
-
-      case THISTHREAD:
-        this.walkPreThisthread(node);
-        this.walkChildren(node);
-        this.walkPostThisthread(node);
-        break;
-
-      case SUPER:
-        this.walkPreSuper(node);
-        this.walkChildren(node);
-        this.walkPostSuper(node);
-        break;
-
-      default:
-        this.walkPreDefault(node);
-        this.walkChildren(node);
-        this.walkPostDefault(node);
-        break;
+    if (RECURSIVE.get(this.getClass())) {
+      this.walkPre(node);
+      this.walkChildren(node);
+      this.walkPost(node);
+      return;
+    }
+
+    this.walkIteratively(node);
+  }
+
+  /**
+   * Walk the {@link MagikGrammar} node and its descendants, using an explicit stack.
+   *
+   * @param node Node to start walking.
+   */
+  private void walkIteratively(final AstNode node) {
+    AstNode[] nodes = new AstNode[INITIAL_STACK_SIZE];
+    int[] childIndices = new int[INITIAL_STACK_SIZE];
+    int depth = 0;
+
+    this.walkPre(node);
+    nodes[depth] = node;
+    childIndices[depth] = 0;
+    depth += 1;
+    while (depth > 0) {
+      final AstNode currentNode = nodes[depth - 1];
+      final List<AstNode> children = currentNode.getChildren();
+      final int childIndex = childIndices[depth - 1];
+      if (childIndex == children.size()) {
+        depth -= 1;
+        nodes[depth] = null;
+        this.walkPost(currentNode);
+        continue;
+      }
+
+      childIndices[depth - 1] = childIndex + 1;
+      final AstNode childNode = children.get(childIndex);
+      if (!(childNode.getType() instanceof MagikGrammar)) {
+        this.walkTokens(childNode);
+        continue;
+      }
+
+      this.walkPre(childNode);
+      if (depth == nodes.length) {
+        nodes = Arrays.copyOf(nodes, depth * 2);
+        childIndices = Arrays.copyOf(childIndices, depth * 2);
+      }
+      nodes[depth] = childNode;
+      childIndices[depth] = 0;
+      depth += 1;
     }
   }
 
+  /**
+   * Call the pre-method for the node.
+   *
+   * @param node Node to call the pre-method for, must be a {@link MagikGrammar} node.
+   */
+  protected void walkPre(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
+    PRE_METHODS[value.ordinal()].walk(this, node);
+  }
+
+  /**
+   * Call the post-method for the node.
+   *
+   * @param node Node to call the post-method for, must be a {@link MagikGrammar} node.
+   */
+  protected void walkPost(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
+    POST_METHODS[value.ordinal()].walk(this, node);
+  }
+
+  /** Test if a method of {@link MagikAstWalker} is overridden by {@code type}. */
+  private static boolean isOverridden(final Class<?> type, final String methodName) {
+    for (Class<?> clazz = type;
+        clazz != null && clazz != MagikAstWalker.class;
+        clazz = clazz.getSuperclass()) {
+      try {
+        clazz.getDeclaredMethod(methodName, AstNode.class);
+        return true;
+      } catch (final NoSuchMethodException exception) {
+        // Try super class.
+      }
+    }
+
+    return false;
+  }
+
   protected void walkPreNewline(final AstNode node) {
     this.walkPreDefault(node);
   }
@@ -0,0 +1,166 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+
+/**
+ * {@link MagikAstWalker} which walks the tree once for several {@link MagikAstWalker}s, dispatching
+ * each pre- and post-event to the walkers.
+ *
+ * <p>A walker declares the node types it is interested in by overriding the pre- and post-methods
+ * of these node types. Events are only dispatched to the walkers which override the method for the
+ * event. A walker overriding {@link #walkPreDefault(AstNode)} or {@link #walkPostDefault(AstNode)}
+ * gets all the pre- or post-events.
+ */
+public final class MultiplexingMagikAstWalker extends MagikAstWalker {
+
+  private static final MagikGrammar[] NODE_TYPES = MagikGrammar.values();
+
+  /**
+   * Events a walker is interested in.
+   *
+   * @param preTypes Node types for pre-events.
+   * @param postTypes Node types for post-events.
+   * @param tokens Interested in tokens.
+   * @param trivia Interested in trivia.
+   */
+  private record Interest(
+      Set<MagikGrammar> preTypes, Set<MagikGrammar> postTypes, boolean tokens, boolean trivia) {}
+
+  private static final ClassValue<Interest> INTERESTS =
+      new ClassValue<>() {
+        @Override
+        protected Interest computeValue(final Class<?> type) {
+          return MultiplexingMagikAstWalker.determineInterest(type);
+        }
+      };
+
+  private final MagikAstWalker[][] preWalkers = new MagikAstWalker[NODE_TYPES.length][];
+  private final MagikAstWalker[][] postWalkers = new MagikAstWalker[NODE_TYPES.length][];
+  private final MagikAstWalker[] tokenWalkers;
+  private final MagikAstWalker[] triviaWalkers;
+
+  /**
+   * Constructor.
+   *
+   * @param walkers Walkers to dispatch to, in order.
+   */
+  public MultiplexingMagikAstWalker(final List<? extends MagikAstWalker> walkers) {
+    final List<Interest> interests =
+        walkers.stream().map(walker -> INTERESTS.get(walker.getClass())).toList();
+    for (final MagikGrammar nodeType : NODE_TYPES) {
+      this.preWalkers[nodeType.ordinal()] =
+          MultiplexingMagikAstWalker.select(
+              walkers, interests, interest -> interest.preTypes().contains(nodeType));
+      this.postWalkers[nodeType.ordinal()] =
+          MultiplexingMagikAstWalker.select(
+              walkers, interests, interest -> interest.postTypes().contains(nodeType));
+    }
+    this.tokenWalkers = MultiplexingMagikAstWalker.select(walkers, interests, Interest::tokens);
+    this.triviaWalkers = MultiplexingMagikAstWalker.select(walkers, interests, Interest::trivia);
+  }
+
+  @Override
+  protected void walkPre(final AstNode node) {
+    final MagikGrammar nodeType = (MagikGrammar) node.getType();
+    for (final MagikAstWalker walker : this.preWalkers[nodeType.ordinal()]) {
+      walker.walkPre(node);
+    }
+  }
+
+  @Override
+  protected void walkPost(final AstNode node) {
+    final MagikGrammar nodeType = (MagikGrammar) node.getType();
+    for (final MagikAstWalker walker : this.postWalkers[nodeType.ordinal()]) {
+      walker.walkPost(node);
+    }
+  }
+
+  @Override
+  protected void walkToken(final Token token) {
+    for (final MagikAstWalker walker : this.tokenWalkers) {
+      walker.walkToken(token);
+    }
+  }
+
+  @Override
+  protected void walkTrivia(final Trivia trivia) {
+    for (final MagikAstWalker walker : this.triviaWalkers) {
+      walker.walkTrivia(trivia);
+    }
+  }
+
+  private static MagikAstWalker[] select(
+      final List<? extends MagikAstWalker> walkers,
+      final List<Interest> interests,
+      final Predicate<Interest> predicate) {
+    final List<MagikAstWalker> selected = new ArrayList<>();
+    for (int i = 0; i < walkers.size(); ++i) {
+      if (predicate.test(interests.get(i))) {
+        selected.add(walkers.get(i));
+      }
+    }
+    return selected.toArray(MagikAstWalker[]::new);
+  }
+
+  private static Interest determineInterest(final Class<?> type) {
+    final boolean allPre =
+        MultiplexingMagikAstWalker.isOverridden(type, "walkPreDefault", AstNode.class);
+    final boolean allPost =
+        MultiplexingMagikAstWalker.isOverridden(type, "walkPostDefault", AstNode.class);
+    final Set<MagikGrammar> preTypes = EnumSet.noneOf(MagikGrammar.class);
+    final Set<MagikGrammar> postTypes = EnumSet.noneOf(MagikGrammar.class);
+    for (final MagikGrammar nodeType : NODE_TYPES) {
+      final String javaName = MultiplexingMagikAstWalker.toJavaName(nodeType);
+      if (allPre
+          || MultiplexingMagikAstWalker.isOverridden(type, "walkPre" + javaName, AstNode.class)) {
+        preTypes.add(nodeType);
+      }
+      if (allPost
+          || MultiplexingMagikAstWalker.isOverridden(type, "walkPost" + javaName, AstNode.class)) {
+        postTypes.add(nodeType);
+      }
+    }
+
+    return new Interest(
+        preTypes,
+        postTypes,
+        MultiplexingMagikAstWalker.isOverridden(type, "walkToken", Token.class),
+        MultiplexingMagikAstWalker.isOverridden(type, "walkTrivia", Trivia.class));
+  }
+
+  /** Test if a method of {@link MagikAstWalker} is overridden by {@code type}. */
+  private static boolean isOverridden(
+      final Class<?> type, final String methodName, final Class<?> parameterType) {
+    for (Class<?> clazz = type;
+        clazz != null && clazz != MagikAstWalker.class;
+        clazz = clazz.getSuperclass()) {
+      try {
+        clazz.getDeclaredMethod(methodName, parameterType);
+        return true;
+      } catch (final NoSuchMethodException exception) {
+        // Try super class.
+      }
+    }
+
+    return false;
+  }
+
+  /** Get the name of a node type as used in the pre- and post-methods, e.g. {@code MethodName}. */
+  private static String toJavaName(final MagikGrammar nodeType) {
+    final StringBuilder builder = new StringBuilder();
+    for (final String part : nodeType.name().split("_")) {
+      builder.append(part.substring(0, 1));
+      builder.append(part.substring(1).toLowerCase(Locale.ENGLISH));
+    }
+    return builder.toString();
+  }
+}
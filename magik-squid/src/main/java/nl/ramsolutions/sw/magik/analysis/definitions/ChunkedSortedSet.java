@@ -0,0 +1,141 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable sorted set, stored as a list of sorted chunks.
+ *
+ * <p>Changes return a new set, which copies only the changed chunk and the list of chunks. Chunks
+ * are split when they grow too large, and dropped when they become empty.
+ *
+ * @param <E> Type of element.
+ */
+final class ChunkedSortedSet<E extends Comparable<? super E>> {
+
+  private static final int MAX_CHUNK_SIZE = 512;
+
+  private static final ChunkedSortedSet<?> EMPTY = new ChunkedSortedSet<>(List.of());
+
+  private final List<List<E>> chunks;
+
+  private ChunkedSortedSet(final List<List<E>> chunks) {
+    this.chunks = chunks;
+  }
+
+  /**
+   * Get the empty set.
+   *
+   * @param <E> Type of element.
+   * @return Empty set.
+   */
+  @SuppressWarnings("unchecked")
+  static <E extends Comparable<? super E>> ChunkedSortedSet<E> empty() {
+    return (ChunkedSortedSet<E>) EMPTY;
+  }
+
+  /**
+   * Get a set with {@code element} added.
+   *
+   * @param element Element to add.
+   * @return New set, or this set if the element was already present.
+   */
+  ChunkedSortedSet<E> with(final E element) {
+    if (this.chunks.isEmpty()) {
+      return new ChunkedSortedSet<>(List.of(List.of(element)));
+    }
+
+    final int chunkIndex = Math.min(this.findChunk(element), this.chunks.size() - 1);
+    final List<E> chunk = this.chunks.get(chunkIndex);
+    final int index = Collections.binarySearch(chunk, element);
+    if (index >= 0) {
+      return this;
+    }
+
+    final List<E> newChunk = new ArrayList<>(chunk);
+    newChunk.add(-index - 1, element);
+    final List<List<E>> newChunks = new ArrayList<>(this.chunks);
+    if (newChunk.size() > MAX_CHUNK_SIZE) {
+      final int half = newChunk.size() / 2;
+      newChunks.set(chunkIndex, List.copyOf(newChunk.subList(0, half)));
+      newChunks.add(chunkIndex + 1, List.copyOf(newChunk.subList(half, newChunk.size())));
+    } else {
+      newChunks.set(chunkIndex, List.copyOf(newChunk));
+    }
+    return new ChunkedSortedSet<>(Collections.unmodifiableList(newChunks));
+  }
+
+  /**
+   * Get a set with {@code element} removed.
+   *
+   * @param element Element to remove.
+   * @return New set, or this set if the element was not present.
+   */
+  ChunkedSortedSet<E> without(final E element) {
+    final int chunkIndex = this.findChunk(element);
+    if (chunkIndex == this.chunks.size()) {
+      return this;
+    }
+
+    final List<E> chunk = this.chunks.get(chunkIndex);
+    final int index = Collections.binarySearch(chunk, element);
+    if (index < 0) {
+      return this;
+    }
+
+    final List<List<E>> newChunks = new ArrayList<>(this.chunks);
+    if (chunk.size() == 1) {
+      newChunks.remove(chunkIndex);
+    } else {
+      final List<E> newChunk = new ArrayList<>(chunk);
+      newChunk.remove(index);
+      newChunks.set(chunkIndex, List.copyOf(newChunk));
+    }
+    return new ChunkedSortedSet<>(Collections.unmodifiableList(newChunks));
+  }
+
+  /**
+   * Stream the elements greater than or equal to {@code from}, in order.
+   *
+   * @param from Lowest element.
+   * @return Stream of elements.
+   */
+  Stream<E> tailStream(final E from) {
+    final int chunkIndex = this.findChunk(from);
+    if (chunkIndex == this.chunks.size()) {
+      return Stream.empty();
+    }
+
+    final List<E> chunk = this.chunks.get(chunkIndex);
+    final int index = Collections.binarySearch(chunk, from);
+    final List<E> head = chunk.subList(index >= 0 ? index : -index - 1, chunk.size());
+    return Stream.concat(
+        head.stream(),
+        IntStream.range(chunkIndex + 1, this.chunks.size())
+            .mapToObj(this.chunks::get)
+            .flatMap(List::stream));
+  }
+
+  /**
+   * Find the first chunk of which the last element is greater than or equal to {@code element}.
+   *
+   * @return Index of chunk, or the number of chunks if there is no such chunk.
+   */
+  private int findChunk(final E element) {
+    int low = 0;
+    int high = this.chunks.size();
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      final List<E> chunk = this.chunks.get(middle);
+      if (chunk.get(chunk.size() - 1).compareTo(element) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
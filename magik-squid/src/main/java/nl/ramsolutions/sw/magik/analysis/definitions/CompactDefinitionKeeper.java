@@ -0,0 +1,1011 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.DefinitionCodec;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.StringDictionary;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolverCache;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+
+/**
+ * Compact, in memory, definition keeper, for large sets of definitions.
+ *
+ * <p>Unlike {@link DefinitionKeeper}, definitions are not kept as objects. Names and types are
+ * dictionary encoded to {@code int} ids, see {@link StringDictionary}. Each definition is stored in
+ * a slot: its kind and location are stored in columns, the rest of the definition is stored as a
+ * compact record, see {@link DefinitionCodec}. Slots are indexed by kind and key (e.g., the bare
+ * type of an exemplar), by path and by used method, global and condition.
+ *
+ * <p>Definitions are decoded when read. Getters return lazy, unmodifiable views: getters for a key
+ * take a snapshot of the matching slots, getters for all definitions of a kind iterate the slots
+ * without copying, and reflect concurrent changes. Each iteration decodes the definitions again.
+ * Decoded definitions are equal to the added definitions, but are not the same instances and do not
+ * have a node.
+ *
+ * <p>Strings are never removed from the dictionary, not even when all definitions using them are
+ * removed.
+ */
+public class CompactDefinitionKeeper implements IDefinitionKeeper {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int BATCH_SIZE = 64;
+  private static final int LOCATION_INTS = 5;
+  private static final int NO_SLOT = -1;
+  private static final int NO_URI = -1;
+  private static final int NO_RANGE = Integer.MIN_VALUE;
+  private static final byte FREE = -1;
+  private static final long KEY_ID_MASK = 0xFFFFFFFFL;
+
+  /** Kind of definition in a slot. */
+  @SuppressWarnings("checkstyle:JavadocVariable")
+  private enum Kind {
+    PRODUCT,
+    MODULE,
+    MAGIK_FILE,
+    PACKAGE,
+    EXEMPLAR,
+    METHOD,
+    GLOBAL,
+    BINARY_OPERATOR,
+    CONDITION,
+    PROCEDURE;
+  }
+
+  /** Growable list of slots. */
+  private static final class IntList {
+
+    private int[] values = new int[2];
+    private int size;
+
+    void add(final int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    void remove(final int value) {
+      for (int i = 0; i < this.size; ++i) {
+        if (this.values[i] == value) {
+          // Order is irrelevant, move the last value in its place.
+          this.values[i] = this.values[--this.size];
+          return;
+        }
+      }
+    }
+
+    boolean isEmpty() {
+      return this.size == 0;
+    }
+  }
+
+  /** Encoded definitions, captured from slots, to be decoded outside of the lock. */
+  private static final class Batch {
+
+    private final byte[][] records;
+    private final int[] locations;
+    private int size;
+
+    Batch(final int capacity) {
+      this.records = new byte[capacity][];
+      this.locations = new int[capacity * LOCATION_INTS];
+    }
+  }
+
+  /**
+   * Unmodifiable view on a snapshot of slots.
+   *
+   * @param <T> Type of definition.
+   */
+  private final class SnapshotView<T extends IDefinition> extends AbstractCollection<T> {
+
+    private final Class<T> type;
+    private final Batch batch;
+
+    SnapshotView(final Class<T> type, final Batch batch) {
+      this.type = type;
+      this.batch = batch;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<>() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return this.index < SnapshotView.this.batch.size;
+        }
+
+        @Override
+        public T next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+
+          return CompactDefinitionKeeper.this.decode(
+              SnapshotView.this.batch, this.index++, SnapshotView.this.type);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return this.batch.size;
+    }
+  }
+
+  /**
+   * Unmodifiable view on all slots of a kind.
+   *
+   * @param <T> Type of definition.
+   */
+  private final class KindView<T extends IDefinition> extends AbstractCollection<T> {
+
+    private final Kind kind;
+    private final Class<T> type;
+
+    KindView(final Kind kind, final Class<T> type) {
+      this.kind = kind;
+      this.type = type;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new KindIterator<>(this.kind, this.type);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+      // The size might change while iterating.
+      return Spliterators.spliteratorUnknownSize(this.iterator(), Spliterator.NONNULL);
+    }
+
+    @Override
+    public int size() {
+      CompactDefinitionKeeper.this.lock.readLock().lock();
+      try {
+        return CompactDefinitionKeeper.this.kindCounts[this.kind.ordinal()];
+      } finally {
+        CompactDefinitionKeeper.this.lock.readLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Iterator over all slots of a kind, capturing slots in batches.
+   *
+   * @param <T> Type of definition.
+   */
+  private final class KindIterator<T extends IDefinition> implements Iterator<T> {
+
+    private final byte kind;
+    private final Class<T> type;
+    private final Batch batch = new Batch(BATCH_SIZE);
+    private int nextSlot;
+    private int index;
+
+    KindIterator(final Kind kind, final Class<T> type) {
+      this.kind = (byte) kind.ordinal();
+      this.type = type;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.index < this.batch.size) {
+        return true;
+      }
+
+      this.fillBatch();
+      return this.batch.size > 0;
+    }
+
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return CompactDefinitionKeeper.this.decode(this.batch, this.index++, this.type);
+    }
+
+    private void fillBatch() {
+      final CompactDefinitionKeeper keeper = CompactDefinitionKeeper.this;
+      this.batch.size = 0;
+      this.index = 0;
+      keeper.lock.readLock().lock();
+      try {
+        while (this.nextSlot < keeper.slotCount && this.batch.size < BATCH_SIZE) {
+          if (keeper.kinds[this.nextSlot] == this.kind) {
+            keeper.capture(this.nextSlot, this.batch);
+          }
+          this.nextSlot++;
+        }
+      } finally {
+        keeper.lock.readLock().unlock();
+      }
+    }
+  }
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final StringDictionary stringDictionary = new StringDictionary();
+  private final DefinitionCodec codec = new DefinitionCodec(this.stringDictionary);
+  private final Map<Long, IntList> keySlots = new HashMap<>();
+  private final NavigableMap<String, IntList> uriSlots = new TreeMap<>();
+  private final Map<Integer, IntList> methodUsers = new HashMap<>();
+  private final Map<Integer, IntList> globalUsers = new HashMap<>();
+  private final Map<Integer, IntList> conditionUsers = new HashMap<>();
+  private final int[] kindCounts = new int[Kind.values().length];
+  private final SymbolIndex<Integer> symbolIndex = new SymbolIndex<>();
+  private final TypeStringResolverCache typeStringResolverCache = new TypeStringResolverCache();
+
+  // Slot columns.
+  private byte[] kinds;
+  private int[] uriIds;
+  private int[] startLines;
+  private int[] startColumns;
+  private int[] endLines;
+  private int[] endColumns;
+  private byte[][] records;
+  private int slotCount;
+  private IntList freeSlots;
+
+  /** Constructor. */
+  public CompactDefinitionKeeper() {
+    this(true);
+  }
+
+  /**
+   * Constructor to allow adding default types or not.
+   *
+   * @param addDefaultTypes Do add default types?
+   */
+  public CompactDefinitionKeeper(final boolean addDefaultTypes) {
+    this.clear();
+
+    DefaultDefinitionsAdder.addBaseDefinitions(this);
+    if (addDefaultTypes) {
+      DefaultDefinitionsAdder.addDefaultDefinitions(this);
+    }
+  }
+
+  @Override
+  public void add(final ProductDefinition definition) {
+    this.addDefinition(Kind.PRODUCT, definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final ModuleDefinition definition) {
+    this.addDefinition(Kind.MODULE, definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final MagikFileDefinition definition) {
+    this.addDefinition(Kind.MAGIK_FILE, definition.getUri().toString(), definition);
+  }
+
+  @Override
+  public void add(final PackageDefinition definition) {
+    this.addDefinition(Kind.PACKAGE, definition.getName(), definition);
+    this.typeStringResolverCache.clear();
+  }
+
+  @Override
+  public void add(final ExemplarDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.addDefinition(Kind.EXEMPLAR, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void add(final MethodDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeName().getWithoutGenerics();
+    this.addDefinition(Kind.METHOD, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void add(final GlobalDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.addDefinition(Kind.GLOBAL, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void add(final BinaryOperatorDefinition definition) {
+    final String key =
+        this.getKey(
+            definition.getOperator(), definition.getLhsTypeName(), definition.getRhsTypeName());
+    this.addDefinition(Kind.BINARY_OPERATOR, key, definition);
+  }
+
+  @Override
+  public void add(final ConditionDefinition definition) {
+    this.addDefinition(Kind.CONDITION, definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final ProcedureDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.addDefinition(Kind.PROCEDURE, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void add(final IDefinition definition) {
+    if (definition instanceof final ProductDefinition productDefinition) {
+      this.add(productDefinition);
+    } else if (definition instanceof final ModuleDefinition moduleDefinition) {
+      this.add(moduleDefinition);
+    } else if (definition instanceof final MagikFileDefinition magikFileDefinition) {
+      this.add(magikFileDefinition);
+    } else if (definition instanceof final PackageDefinition packageDefinition) {
+      this.add(packageDefinition);
+    } else if (definition instanceof final ExemplarDefinition exemplarDefinition) {
+      this.add(exemplarDefinition);
+    } else if (definition instanceof final MethodDefinition methodDefinition) {
+      this.add(methodDefinition);
+    } else if (definition instanceof final GlobalDefinition globalDefinition) {
+      this.add(globalDefinition);
+    } else if (definition instanceof final BinaryOperatorDefinition binaryOperatorDefinition) {
+      this.add(binaryOperatorDefinition);
+    } else if (definition instanceof final ConditionDefinition conditionDefinition) {
+      this.add(conditionDefinition);
+    } else if (definition instanceof final ProcedureDefinition procedureDefinition) {
+      this.add(procedureDefinition);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public void remove(final ProductDefinition definition) {
+    this.removeDefinition(Kind.PRODUCT, definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final ModuleDefinition definition) {
+    this.removeDefinition(Kind.MODULE, definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final MagikFileDefinition definition) {
+    this.removeDefinition(Kind.MAGIK_FILE, definition.getUri().toString(), definition);
+  }
+
+  @Override
+  public void remove(final PackageDefinition definition) {
+    this.removeDefinition(Kind.PACKAGE, definition.getName(), definition);
+    this.typeStringResolverCache.clear();
+  }
+
+  @Override
+  public void remove(final ExemplarDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.removeDefinition(Kind.EXEMPLAR, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void remove(final MethodDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeName().getWithoutGenerics();
+    this.removeDefinition(Kind.METHOD, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void remove(final GlobalDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.removeDefinition(Kind.GLOBAL, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void remove(final BinaryOperatorDefinition definition) {
+    final String key =
+        this.getKey(
+            definition.getOperator(), definition.getLhsTypeName(), definition.getRhsTypeName());
+    this.removeDefinition(Kind.BINARY_OPERATOR, key, definition);
+  }
+
+  @Override
+  public void remove(final ConditionDefinition definition) {
+    this.removeDefinition(Kind.CONDITION, definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final ProcedureDefinition definition) {
+    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
+    this.removeDefinition(Kind.PROCEDURE, bareTypeString.getFullString(), definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
+  }
+
+  @Override
+  public void remove(final IDefinition definition) {
+    if (definition instanceof final ProductDefinition productDefinition) {
+      this.remove(productDefinition);
+    } else if (definition instanceof final ModuleDefinition moduleDefinition) {
+      this.remove(moduleDefinition);
+    } else if (definition instanceof final MagikFileDefinition magikFileDefinition) {
+      this.remove(magikFileDefinition);
+    } else if (definition instanceof final PackageDefinition packageDefinition) {
+      this.remove(packageDefinition);
+    } else if (definition instanceof final ExemplarDefinition exemplarDefinition) {
+      this.remove(exemplarDefinition);
+    } else if (definition instanceof final MethodDefinition methodDefinition) {
+      this.remove(methodDefinition);
+    } else if (definition instanceof final GlobalDefinition globalDefinition) {
+      this.remove(globalDefinition);
+    } else if (definition instanceof final BinaryOperatorDefinition binaryOperatorDefinition) {
+      this.remove(binaryOperatorDefinition);
+    } else if (definition instanceof final ConditionDefinition conditionDefinition) {
+      this.remove(conditionDefinition);
+    } else if (definition instanceof final ProcedureDefinition procedureDefinition) {
+      this.remove(procedureDefinition);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions(final String name) {
+    return this.getDefinitions(Kind.PRODUCT, name, ProductDefinition.class);
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions() {
+    return new KindView<>(Kind.PRODUCT, ProductDefinition.class);
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions(final String name) {
+    return this.getDefinitions(Kind.MODULE, name, ModuleDefinition.class);
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions() {
+    return new KindView<>(Kind.MODULE, ModuleDefinition.class);
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions(final URI uri) {
+    return this.getDefinitions(Kind.MAGIK_FILE, uri.toString(), MagikFileDefinition.class);
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions() {
+    return new KindView<>(Kind.MAGIK_FILE, MagikFileDefinition.class);
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions(final String name) {
+    return this.getDefinitions(Kind.PACKAGE, name, PackageDefinition.class);
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions() {
+    return new KindView<>(Kind.PACKAGE, PackageDefinition.class);
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions(final TypeString typeString) {
+    final String key = typeString.getWithoutGenerics().getFullString();
+    return this.getDefinitions(Kind.EXEMPLAR, key, ExemplarDefinition.class);
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions() {
+    return new KindView<>(Kind.EXEMPLAR, ExemplarDefinition.class);
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeString) {
+    final String key = typeString.getWithoutGenerics().getFullString();
+    return this.getDefinitions(Kind.METHOD, key, MethodDefinition.class);
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions() {
+    return new KindView<>(Kind.METHOD, MethodDefinition.class);
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions(final TypeString typeString) {
+    return this.getDefinitions(Kind.GLOBAL, typeString.getFullString(), GlobalDefinition.class);
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions() {
+    return new KindView<>(Kind.GLOBAL, GlobalDefinition.class);
+  }
+
+  private String getKey(final String operator, final TypeString lhs, final TypeString rhs) {
+    return operator
+        + "_"
+        + lhs.getWithoutGenerics().getFullString()
+        + "_"
+        + rhs.getWithoutGenerics().getFullString();
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
+      final String operator, final TypeString lhs, final TypeString rhs) {
+    final String key = this.getKey(operator, lhs, rhs);
+    return this.getDefinitions(Kind.BINARY_OPERATOR, key, BinaryOperatorDefinition.class);
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions() {
+    return new KindView<>(Kind.BINARY_OPERATOR, BinaryOperatorDefinition.class);
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions(final String name) {
+    return this.getDefinitions(Kind.CONDITION, name, ConditionDefinition.class);
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions() {
+    return new KindView<>(Kind.CONDITION, ConditionDefinition.class);
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions(final TypeString typeString) {
+    final String key = typeString.getWithoutGenerics().getFullString();
+    return this.getDefinitions(Kind.PROCEDURE, key, ProcedureDefinition.class);
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions() {
+    return new KindView<>(Kind.PROCEDURE, ProcedureDefinition.class);
+  }
+
+  @Override
+  public Collection<MethodUsage> getMethodUsages(final String methodName) {
+    return this.getUsers(this.methodUsers, methodName).stream()
+        .flatMap(
+            definition ->
+                CompactDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedMethods,
+                    ProcedureDefinition::getUsedMethods))
+        .filter(usage -> usage.getMethodName().equals(methodName))
+        .toList();
+  }
+
+  @Override
+  public Collection<GlobalUsage> getGlobalUsages(final TypeString typeName) {
+    return this.getUsers(this.globalUsers, typeName.getFullString()).stream()
+        .flatMap(
+            definition ->
+                CompactDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedGlobals,
+                    ProcedureDefinition::getUsedGlobals))
+        .filter(usage -> usage.getTypeName().equals(typeName))
+        .toList();
+  }
+
+  @Override
+  public Collection<ConditionUsage> getConditionUsages(final String conditionName) {
+    return this.getUsers(this.conditionUsers, conditionName).stream()
+        .flatMap(
+            definition ->
+                CompactDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedConditions,
+                    ProcedureDefinition::getUsedConditions))
+        .filter(usage -> usage.getConditionName().equals(conditionName))
+        .toList();
+  }
+
+  @Override
+  public List<IDefinition> searchSymbols(
+      final String query, final int limit, final Runnable cancelChecker) {
+    final List<Integer> slots = this.symbolIndex.search(query, limit, cancelChecker);
+    final Batch batch = new Batch(slots.size());
+    this.lock.readLock().lock();
+    try {
+      // Slots might have been freed after searching.
+      slots.stream()
+          .filter(slot -> slot < this.slotCount && this.kinds[slot] != FREE)
+          .forEach(slot -> this.capture(slot, batch));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return List.copyOf(new SnapshotView<>(IDefinition.class, batch));
+  }
+
+  @Override
+  public Collection<IDefinition> getDefinitionsByPath(final Path path) {
+    final String uriStr = path.toUri().toString();
+    this.lock.readLock().lock();
+    try {
+      final List<IntList> pathSlots = new ArrayList<>();
+      for (final Map.Entry<String, IntList> entry : this.uriSlots.tailMap(uriStr).entrySet()) {
+        if (!entry.getKey().startsWith(uriStr)) {
+          break;
+        }
+
+        pathSlots.add(entry.getValue());
+      }
+      return new SnapshotView<>(IDefinition.class, this.capture(pathSlots));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public TypeStringResolverCache getTypeStringResolverCache() {
+    return this.typeStringResolverCache;
+  }
+
+  /** Clear any contained {@link MagikDefinition}s. */
+  @Override
+  public void clear() {
+    this.lock.writeLock().lock();
+    try {
+      this.kinds = new byte[INITIAL_CAPACITY];
+      this.uriIds = new int[INITIAL_CAPACITY];
+      this.startLines = new int[INITIAL_CAPACITY];
+      this.startColumns = new int[INITIAL_CAPACITY];
+      this.endLines = new int[INITIAL_CAPACITY];
+      this.endColumns = new int[INITIAL_CAPACITY];
+      this.records = new byte[INITIAL_CAPACITY][];
+      this.slotCount = 0;
+      this.freeSlots = new IntList();
+      Arrays.fill(this.kindCounts, 0);
+      this.keySlots.clear();
+      this.uriSlots.clear();
+      this.methodUsers.clear();
+      this.globalUsers.clear();
+      this.conditionUsers.clear();
+      this.symbolIndex.clear();
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    this.typeStringResolverCache.clear();
+  }
+
+  private Collection<? extends IDefinition> getUsers(
+      final Map<Integer, IntList> users, final String key) {
+    final int keyId = this.stringDictionary.findId(key);
+    this.lock.readLock().lock();
+    try {
+      final IntList slots = users.get(keyId);
+      if (slots == null) {
+        return Collections.emptyList();
+      }
+
+      return new SnapshotView<>(IDefinition.class, this.capture(List.of(slots)));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  private static <U> Stream<U> getUsages(
+      final IDefinition definition,
+      final Function<MethodDefinition, Collection<U>> methodUsagesGetter,
+      final Function<ProcedureDefinition, Collection<U>> procedureUsagesGetter) {
+    if (definition instanceof final MethodDefinition methodDefinition) {
+      return methodUsagesGetter.apply(methodDefinition).stream();
+    } else if (definition instanceof final ProcedureDefinition procedureDefinition) {
+      return procedureUsagesGetter.apply(procedureDefinition).stream();
+    }
+
+    return Stream.empty();
+  }
+
+  private <T extends IDefinition> Collection<T> getDefinitions(
+      final Kind kind, final String key, final Class<T> type) {
+    final int keyId = this.stringDictionary.findId(key);
+    if (keyId == -1) {
+      return Collections.emptyList();
+    }
+
+    this.lock.readLock().lock();
+    try {
+      final IntList slots = this.keySlots.get(CompactDefinitionKeeper.getSlotKey(kind, keyId));
+      if (slots == null) {
+        return Collections.emptyList();
+      }
+
+      return new SnapshotView<>(type, this.capture(List.of(slots)));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  private void addDefinition(final Kind kind, final String key, final IDefinition definition) {
+    // Encode outside of the lock, the dictionary is thread safe.
+    final byte[] record = this.codec.encode(definition);
+    final int[] location = this.toColumns(definition.getLocation(), true);
+    final long slotKey = CompactDefinitionKeeper.getSlotKey(kind, this.stringDictionary.getId(key));
+
+    this.lock.writeLock().lock();
+    try {
+      if (this.findSlot(slotKey, record, location, definition) != NO_SLOT) {
+        // Already have an equal definition.
+        return;
+      }
+
+      final int slot = this.allocateSlot();
+      this.kinds[slot] = (byte) kind.ordinal();
+      this.records[slot] = record;
+      this.uriIds[slot] = location[0];
+      this.startLines[slot] = location[1];
+      this.startColumns[slot] = location[2];
+      this.endLines[slot] = location[3];
+      this.endColumns[slot] = location[4];
+      this.kindCounts[kind.ordinal()]++;
+
+      this.keySlots.computeIfAbsent(slotKey, k -> new IntList()).add(slot);
+      if (location[0] != NO_URI) {
+        final String uriStr = this.stringDictionary.getString(location[0]);
+        this.uriSlots.computeIfAbsent(uriStr, k -> new IntList()).add(slot);
+      }
+      this.symbolIndex.add(slot, definition);
+      this.updateUsers(slot, definition, true);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private void removeDefinition(final Kind kind, final String key, final IDefinition definition) {
+    final int keyId = this.stringDictionary.findId(key);
+    final int[] location = this.toColumns(definition.getLocation(), false);
+    if (keyId == -1 || location == null) {
+      // Never added.
+      return;
+    }
+
+    final long slotKey = CompactDefinitionKeeper.getSlotKey(kind, keyId);
+    this.lock.writeLock().lock();
+    try {
+      final int slot = this.findSlot(slotKey, null, location, definition);
+      if (slot == NO_SLOT) {
+        return;
+      }
+
+      // Usages are not part of equality, use the usages of the stored definition.
+      final IDefinition storedDefinition = this.codec.decode(this.records[slot], null);
+      this.updateUsers(slot, storedDefinition, false);
+      this.symbolIndex.remove(slot);
+      CompactDefinitionKeeper.removeSlot(this.keySlots, slotKey, slot);
+      if (location[0] != NO_URI) {
+        final String uriStr = this.stringDictionary.getString(location[0]);
+        CompactDefinitionKeeper.removeSlot(this.uriSlots, uriStr, slot);
+      }
+
+      this.kindCounts[kind.ordinal()]--;
+      this.kinds[slot] = FREE;
+      this.records[slot] = null;
+      this.freeSlots.add(slot);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the slot of a definition equal to {@code definition}. Must hold the lock.
+   *
+   * @param slotKey Key of slot.
+   * @param record Record of definition, if known.
+   * @param location Location of definition, as columns.
+   * @param definition Definition to find.
+   * @return Slot, or {@link #NO_SLOT} if not found.
+   */
+  private int findSlot(
+      final long slotKey,
+      @Nullable final byte[] record,
+      final int[] location,
+      final IDefinition definition) {
+    final IntList slots = this.keySlots.get(slotKey);
+    if (slots == null) {
+      return NO_SLOT;
+    }
+
+    for (int i = 0; i < slots.size; ++i) {
+      final int slot = slots.values[i];
+      if (!this.isAtLocation(slot, location)) {
+        continue;
+      }
+
+      // Equal records are equal definitions, otherwise fields not part of equality might differ.
+      if ((record != null && Arrays.equals(record, this.records[slot]))
+          || definition.equals(
+              this.codec.decode(this.records[slot], this.toLocation(location, 0)))) {
+        return slot;
+      }
+    }
+    return NO_SLOT;
+  }
+
+  private boolean isAtLocation(final int slot, final int[] location) {
+    return this.uriIds[slot] == location[0]
+        && this.startLines[slot] == location[1]
+        && this.startColumns[slot] == location[2]
+        && this.endLines[slot] == location[3]
+        && this.endColumns[slot] == location[4];
+  }
+
+  private int allocateSlot() {
+    final IntList free = this.freeSlots;
+    if (!free.isEmpty()) {
+      return free.values[--free.size];
+    }
+
+    if (this.slotCount == this.kinds.length) {
+      final int capacity = this.kinds.length * 2;
+      this.kinds = Arrays.copyOf(this.kinds, capacity);
+      this.uriIds = Arrays.copyOf(this.uriIds, capacity);
+      this.startLines = Arrays.copyOf(this.startLines, capacity);
+      this.startColumns = Arrays.copyOf(this.startColumns, capacity);
+      this.endLines = Arrays.copyOf(this.endLines, capacity);
+      this.endColumns = Arrays.copyOf(this.endColumns, capacity);
+      this.records = Arrays.copyOf(this.records, capacity);
+    }
+    return this.slotCount++;
+  }
+
+  private void updateUsers(final int slot, final IDefinition definition, final boolean add) {
+    final Stream<String> usedMethods =
+        CompactDefinitionKeeper.getUsages(
+                definition, MethodDefinition::getUsedMethods, ProcedureDefinition::getUsedMethods)
+            .map(MethodUsage::getMethodName);
+    final Stream<String> usedGlobals =
+        CompactDefinitionKeeper.getUsages(
+                definition, MethodDefinition::getUsedGlobals, ProcedureDefinition::getUsedGlobals)
+            .map(usage -> usage.getTypeName().getFullString());
+    final Stream<String> usedConditions =
+        CompactDefinitionKeeper.getUsages(
+                definition,
+                MethodDefinition::getUsedConditions,
+                ProcedureDefinition::getUsedConditions)
+            .map(ConditionUsage::getConditionName);
+    this.updateUsers(this.methodUsers, usedMethods, slot, add);
+    this.updateUsers(this.globalUsers, usedGlobals, slot, add);
+    this.updateUsers(this.conditionUsers, usedConditions, slot, add);
+  }
+
+  private void updateUsers(
+      final Map<Integer, IntList> users,
+      final Stream<String> keys,
+      final int slot,
+      final boolean add) {
+    keys.distinct()
+        .map(this.stringDictionary::getId)
+        .forEach(
+            keyId -> {
+              if (add) {
+                users.computeIfAbsent(keyId, k -> new IntList()).add(slot);
+              } else {
+                CompactDefinitionKeeper.removeSlot(users, keyId, slot);
+              }
+            });
+  }
+
+  private static <K> void removeSlot(final Map<K, IntList> index, final K key, final int slot) {
+    final IntList slots = index.get(key);
+    if (slots == null) {
+      return;
+    }
+
+    slots.remove(slot);
+    if (slots.isEmpty()) {
+      index.remove(key);
+    }
+  }
+
+  /**
+   * Capture the given slots. Must hold the lock.
+   *
+   * @param slotLists Slots to capture.
+   * @return Captured slots.
+   */
+  private Batch capture(final List<IntList> slotLists) {
+    final int size = slotLists.stream().mapToInt(slots -> slots.size).sum();
+    final Batch batch = new Batch(size);
+    for (final IntList slots : slotLists) {
+      for (int i = 0; i < slots.size; ++i) {
+        this.capture(slots.values[i], batch);
+      }
+    }
+    return batch;
+  }
+
+  private void capture(final int slot, final Batch batch) {
+    final int index = batch.size++;
+    batch.records[index] = this.records[slot];
+    final int offset = index * LOCATION_INTS;
+    batch.locations[offset] = this.uriIds[slot];
+    batch.locations[offset + 1] = this.startLines[slot];
+    batch.locations[offset + 2] = this.startColumns[slot];
+    batch.locations[offset + 3] = this.endLines[slot];
+    batch.locations[offset + 4] = this.endColumns[slot];
+  }
+
+  private <T extends IDefinition> T decode(
+      final Batch batch, final int index, final Class<T> type) {
+    final Location location = this.toLocation(batch.locations, index * LOCATION_INTS);
+    return type.cast(this.codec.decode(batch.records[index], location));
+  }
+
+  /**
+   * Convert a location to columns: uri id, start line/column, end line/column.
+   *
+   * @param location Location to convert.
+   * @param addUri Add the URI to the dictionary if it is not known.
+   * @return Columns, or {@code null} if the URI is not known.
+   */
+  @CheckForNull
+  private int[] toColumns(@Nullable final Location location, final boolean addUri) {
+    final int[] columns = new int[] {NO_URI, NO_RANGE, 0, 0, 0};
+    if (location == null) {
+      return columns;
+    }
+
+    final String uriStr = location.getUri().toString();
+    columns[0] =
+        addUri ? this.stringDictionary.getId(uriStr) : this.stringDictionary.findId(uriStr);
+    if (columns[0] == NO_URI) {
+      return null;
+    }
+
+    final Range range = location.getRange();
+    if (range != null) {
+      columns[1] = range.getStartPosition().getLine();
+      columns[2] = range.getStartPosition().getColumn();
+      columns[3] = range.getEndPosition().getLine();
+      columns[4] = range.getEndPosition().getColumn();
+    }
+    return columns;
+  }
+
+  @CheckForNull
+  private Location toLocation(final int[] columns, final int offset) {
+    final int uriId = columns[offset];
+    if (uriId == NO_URI) {
+      return null;
+    }
+
+    final URI uri = this.stringDictionary.getUri(uriId);
+    if (columns[offset + 1] == NO_RANGE) {
+      return new Location(uri);
+    }
+
+    final Position startPosition = new Position(columns[offset + 1], columns[offset + 2]);
+    final Position endPosition = new Position(columns[offset + 3], columns[offset + 4]);
+    return new Location(uri, new Range(startPosition, endPosition));
+  }
+
+  private static long getSlotKey(final Kind kind, final int keyId) {
+    return (long) kind.ordinal() << Integer.SIZE | keyId & KEY_ID_MASK;
+  }
+}
@@ -4,16 +4,14 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.IDefinition;
-import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolverCache;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
@@ -36,8 +34,16 @@ public class DefinitionKeeper implements IDefinitionKeeper {
       new ConcurrentHashMap<>();
   private final Map<TypeString, Set<ProcedureDefinition>> procedureDefinitions =
       new ConcurrentHashMap<>();
-  private final SortedMap<URI, Set<IDefinition>> uriDefinitions =
-      Collections.synchronizedSortedMap(new TreeMap<>());
+  private final PathIndex pathIndex = new PathIndex();
+
+  private final UsageIndex<String, MethodUsage> methodUsages =
+      new UsageIndex<>(MethodUsage::getMethodName);
+  private final UsageIndex<TypeString, GlobalUsage> globalUsages =
+      new UsageIndex<>(GlobalUsage::getTypeName);
+  private final UsageIndex<String, ConditionUsage> conditionUsages =
+      new UsageIndex<>(ConditionUsage::getConditionName);
+  private final SymbolIndex<IDefinition> symbolIndex = new SymbolIndex<>();
+  private final TypeStringResolverCache typeStringResolverCache = new TypeStringResolverCache();
 
   /** Constructor. */
   public DefinitionKeeper() {
@@ -65,7 +71,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.productDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.symbolIndex.add(definition, definition);
   }
 
   @Override
@@ -75,7 +82,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.moduleDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.symbolIndex.add(definition, definition);
   }
 
   @Override
@@ -85,7 +93,7 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.magikFileDefinitions.computeIfAbsent(uri, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
   }
 
   @Override
@@ -95,7 +103,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.packageDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.typeStringResolverCache.clear();
   }
 
   @Override
@@ -107,7 +116,9 @@ public class DefinitionKeeper implements IDefinitionKeeper {
             bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.symbolIndex.add(definition, definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -117,7 +128,12 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.methodDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.symbolIndex.add(definition, definition);
+    this.methodUsages.add(definition, definition.getUsedMethods());
+    this.globalUsages.add(definition, definition.getUsedGlobals());
+    this.conditionUsages.add(definition, definition.getUsedConditions());
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -127,7 +143,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.globalDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -139,7 +156,7 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.binaryOperatorDefinitions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
   }
 
   @Override
@@ -149,7 +166,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.conditionDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.symbolIndex.add(definition, definition);
   }
 
   @Override
@@ -161,7 +179,11 @@ public class DefinitionKeeper implements IDefinitionKeeper {
             bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.add(definition);
 
-    this.addToPathIndex(definition);
+    this.pathIndex.add(definition);
+    this.methodUsages.add(definition, definition.getUsedMethods());
+    this.globalUsages.add(definition, definition.getUsedGlobals());
+    this.conditionUsages.add(definition, definition.getUsedConditions());
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -198,7 +220,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.productDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.symbolIndex.remove(definition);
   }
 
   @Override
@@ -208,7 +231,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.moduleDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.symbolIndex.remove(definition);
   }
 
   @Override
@@ -218,7 +242,7 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.magikFileDefinitions.computeIfAbsent(uri, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
   }
 
   @Override
@@ -228,7 +252,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.packageDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.typeStringResolverCache.clear();
   }
 
   @Override
@@ -239,7 +264,9 @@ public class DefinitionKeeper implements IDefinitionKeeper {
             bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.symbolIndex.remove(definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -249,7 +276,12 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.methodDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.symbolIndex.remove(definition);
+    this.methodUsages.remove(definition, definition.getUsedMethods());
+    this.globalUsages.remove(definition, definition.getUsedGlobals());
+    this.conditionUsages.remove(definition, definition.getUsedConditions());
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -259,7 +291,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.globalDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -271,7 +304,7 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.binaryOperatorDefinitions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
   }
 
   @Override
@@ -281,7 +314,8 @@ public class DefinitionKeeper implements IDefinitionKeeper {
         this.conditionDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.symbolIndex.remove(definition);
   }
 
   @Override
@@ -292,7 +326,11 @@ public class DefinitionKeeper implements IDefinitionKeeper {
             bareTypeString, k -> ConcurrentHashMap.newKeySet());
     definitions.remove(definition);
 
-    this.removeFromPathIndex(definition);
+    this.pathIndex.remove(definition);
+    this.methodUsages.remove(definition, definition.getUsedMethods());
+    this.globalUsages.remove(definition, definition.getUsedGlobals());
+    this.conditionUsages.remove(definition, definition.getUsedConditions());
+    this.typeStringResolverCache.invalidate(bareTypeString);
   }
 
   @Override
@@ -477,52 +515,34 @@ public class DefinitionKeeper implements IDefinitionKeeper {
   }
 
   @Override
-  public Collection<IDefinition> getDefinitionsByPath(final Path path) {
-    final URI uri = path.toUri();
-    final String uriStr = uri.toString();
-    final Set<IDefinition> allDefinitions = new HashSet<>();
-    for (final Map.Entry<URI, Set<IDefinition>> entry :
-        this.uriDefinitions.tailMap(uri).entrySet()) {
-      final URI entryUri = entry.getKey();
-      if (!entryUri.toString().startsWith(uriStr)) {
-        break;
-      }
-
-      final Set<IDefinition> entryDefinitions = entry.getValue();
-      allDefinitions.addAll(entryDefinitions);
-    }
-    return Collections.unmodifiableCollection(allDefinitions);
+  public Collection<MethodUsage> getMethodUsages(final String methodName) {
+    return this.methodUsages.get(methodName);
   }
 
-  private void addToPathIndex(final IDefinition definition) {
-    final Location location = definition.getLocation();
-    if (location == null) {
-      return;
-    }
-
-    final URI uri = location.getUri();
-    final Set<IDefinition> definitions =
-        this.uriDefinitions.computeIfAbsent(uri, k -> new HashSet<>());
-    definitions.add(definition);
+  @Override
+  public Collection<GlobalUsage> getGlobalUsages(final TypeString typeName) {
+    return this.globalUsages.get(typeName);
   }
 
-  private void removeFromPathIndex(final IDefinition definition) {
-    final Location location = definition.getLocation();
-    if (location == null) {
-      return;
-    }
+  @Override
+  public Collection<ConditionUsage> getConditionUsages(final String conditionName) {
+    return this.conditionUsages.get(conditionName);
+  }
 
-    final URI uri = location.getUri();
-    if (!this.uriDefinitions.containsKey(uri)) {
-      return;
-    }
+  @Override
+  public List<IDefinition> searchSymbols(
+      final String query, final int limit, final Runnable cancelChecker) {
+    return this.symbolIndex.search(query, limit, cancelChecker);
+  }
 
-    final Set<IDefinition> definitions = this.uriDefinitions.get(uri);
-    definitions.remove(definition);
+  @Override
+  public Collection<IDefinition> getDefinitionsByPath(final Path path) {
+    return this.pathIndex.get(path);
+  }
 
-    if (definitions.isEmpty()) {
-      this.uriDefinitions.remove(uri);
-    }
+  @Override
+  public TypeStringResolverCache getTypeStringResolverCache() {
+    return this.typeStringResolverCache;
   }
 
   /** Clear any contained {@link MagikDefinition}s. */
@@ -537,5 +557,11 @@ public class DefinitionKeeper implements IDefinitionKeeper {
     this.methodDefinitions.clear();
     this.globalDefinitions.clear();
     this.procedureDefinitions.clear();
+    this.pathIndex.clear();
+    this.methodUsages.clear();
+    this.globalUsages.clear();
+    this.conditionUsages.clear();
+    this.symbolIndex.clear();
+    this.typeStringResolverCache.clear();
   }
 }
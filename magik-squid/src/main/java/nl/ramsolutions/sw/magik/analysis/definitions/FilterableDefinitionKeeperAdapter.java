@@ -3,10 +3,13 @@ package nl.ramsolutions.sw.magik.analysis.definitions;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolverCache;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
@@ -322,11 +325,90 @@ public class FilterableDefinitionKeeperAdapter implements IDefinitionKeeper {
         .collect(Collectors.toSet());
   }
 
+  @Override
+  public Collection<MethodUsage> getMethodUsages(final String methodName) {
+    return Stream.concat(
+            this.getMethodDefinitions().stream().flatMap(def -> def.getUsedMethods().stream()),
+            this.getProcedureDefinitions().stream().flatMap(def -> def.getUsedMethods().stream()))
+        .filter(usage -> usage.getMethodName().equals(methodName))
+        .toList();
+  }
+
+  @Override
+  public Collection<GlobalUsage> getGlobalUsages(final TypeString typeName) {
+    return Stream.concat(
+            this.getMethodDefinitions().stream().flatMap(def -> def.getUsedGlobals().stream()),
+            this.getProcedureDefinitions().stream().flatMap(def -> def.getUsedGlobals().stream()))
+        .filter(usage -> usage.getTypeName().equals(typeName))
+        .toList();
+  }
+
+  @Override
+  public Collection<ConditionUsage> getConditionUsages(final String conditionName) {
+    return Stream.concat(
+            this.getMethodDefinitions().stream().flatMap(def -> def.getUsedConditions().stream()),
+            this.getProcedureDefinitions().stream()
+                .flatMap(def -> def.getUsedConditions().stream()))
+        .filter(usage -> usage.getConditionName().equals(conditionName))
+        .toList();
+  }
+
+  @Override
+  public List<IDefinition> searchSymbols(
+      final String query, final int limit, final Runnable cancelChecker) {
+    // Search for more results while filtered results are missing, and more results might exist.
+    int searchLimit = limit;
+    while (true) {
+      final List<IDefinition> definitions =
+          this.definitionKeeper.searchSymbols(query, searchLimit, cancelChecker);
+      final List<IDefinition> filteredDefinitions =
+          definitions.stream().filter(this::isSymbolIncluded).limit(limit).toList();
+      if (filteredDefinitions.size() >= limit
+          || definitions.size() < searchLimit
+          || searchLimit > Integer.MAX_VALUE / 2) {
+        return filteredDefinitions;
+      }
+
+      searchLimit *= 2;
+    }
+  }
+
+  /**
+   * Test if a definition found by {@link #searchSymbols(String, int, Runnable)} passes the
+   * predicates. Only products, modules, exemplars, methods and conditions are searchable.
+   */
+  private boolean isSymbolIncluded(final IDefinition definition) {
+    if (definition instanceof final ProductDefinition productDefinition) {
+      return this.productDefinitionPredicate.test(productDefinition);
+    } else if (definition instanceof final ModuleDefinition moduleDefinition) {
+      return this.moduleDefinitionPredicate.test(moduleDefinition);
+    } else if (definition instanceof final ExemplarDefinition exemplarDefinition) {
+      return this.exemplarDefinitionPredicate.test(exemplarDefinition);
+    } else if (definition instanceof final MethodDefinition methodDefinition) {
+      return this.methodDefinitionPredicate.test(methodDefinition);
+    } else if (definition instanceof final ConditionDefinition conditionDefinition) {
+      return this.conditionDefinitionPredicate.test(conditionDefinition);
+    }
+
+    return false;
+  }
+
   @Override
   public Collection<IDefinition> getDefinitionsByPath(final Path path) {
     return this.definitionKeeper.getDefinitionsByPath(path);
   }
 
+  /**
+   * Get a new {@link TypeStringResolverCache}. The cache of the wrapped keeper cannot be shared, as
+   * the filtered definitions differ.
+   *
+   * @return New cache.
+   */
+  @Override
+  public TypeStringResolverCache getTypeStringResolverCache() {
+    return new TypeStringResolverCache();
+  }
+
   @Override
   public void clear() {
     throw new UnsupportedOperationException();
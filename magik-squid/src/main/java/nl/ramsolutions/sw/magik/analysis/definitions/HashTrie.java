@@ -0,0 +1,276 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Immutable hash map, as a hash array mapped trie.
+ *
+ * <p>Each level of the trie uses 5 bits of the hash of the key, a node only stores its present
+ * children. Keys of which all hash bits are equal are stored in a collision node. Changes return a
+ * new trie which shares all unchanged nodes with the original trie, only the nodes on the path to
+ * the changed key are copied. Changing a single key costs {@code O(log n)}.
+ *
+ * @param <K> Type of key.
+ * @param <V> Type of value.
+ */
+final class HashTrie<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int MAX_SHIFT = Integer.SIZE;
+
+  /** Key/value entry. */
+  private record Entry<K, V>(int hash, K key, V value) {}
+
+  /** Entries with equal hashes. */
+  private record Collision(int hash, Entry<?, ?>[] entries) {}
+
+  /**
+   * Trie node. Slots hold an {@link Entry}, a {@link Collision} or a child {@link Node}, for each
+   * bit set in {@code bitmap}.
+   */
+  private record Node(int bitmap, Object[] slots) {}
+
+  private static final HashTrie<?, ?> EMPTY = new HashTrie<>(new Node(0, new Object[0]), 0);
+
+  private final Node root;
+  private final int size;
+
+  private HashTrie(final Node root, final int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Get the empty trie.
+   *
+   * @param <K> Type of key.
+   * @param <V> Type of value.
+   * @return Empty trie.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> HashTrie<K, V> empty() {
+    return (HashTrie<K, V>) EMPTY;
+  }
+
+  /**
+   * Get the number of entries.
+   *
+   * @return Number of entries.
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Get the value of {@code key}.
+   *
+   * @param key Key.
+   * @return Value, or {@code null} if not present.
+   */
+  @CheckForNull
+  @SuppressWarnings("unchecked")
+  V get(final Object key) {
+    final int hash = key.hashCode();
+    Object slot = this.root;
+    for (int shift = 0; slot instanceof final Node node; shift += BITS) {
+      final int bit = HashTrie.getBit(hash, shift);
+      if ((node.bitmap() & bit) == 0) {
+        return null;
+      }
+
+      slot = node.slots()[HashTrie.getIndex(node.bitmap(), bit)];
+    }
+
+    if (slot instanceof final Entry<?, ?> entry) {
+      return entry.hash() == hash && entry.key().equals(key) ? (V) entry.value() : null;
+    }
+
+    final Collision collision = (Collision) slot;
+    for (final Entry<?, ?> entry : collision.entries()) {
+      if (entry.key().equals(key)) {
+        return (V) entry.value();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get a trie with {@code key} mapped to {@code value}.
+   *
+   * @param key Key.
+   * @param value Value.
+   * @return New trie, or this trie if the key was already mapped to an equal value.
+   */
+  HashTrie<K, V> with(final K key, final V value) {
+    final Entry<K, V> entry = new Entry<>(key.hashCode(), key, value);
+    final Node newRoot = (Node) HashTrie.with(this.root, 0, entry);
+    if (newRoot == this.root) {
+      return this;
+    }
+
+    final int newSize = this.get(key) == null ? this.size + 1 : this.size;
+    return new HashTrie<>(newRoot, newSize);
+  }
+
+  /**
+   * Get a trie without {@code key}.
+   *
+   * @param key Key.
+   * @return New trie, or this trie if the key is not present.
+   */
+  HashTrie<K, V> without(final K key) {
+    if (this.get(key) == null) {
+      return this;
+    }
+
+    final Node newRoot = (Node) HashTrie.without(this.root, 0, key.hashCode(), key);
+    return new HashTrie<>(newRoot != null ? newRoot : new Node(0, new Object[0]), this.size - 1);
+  }
+
+  /**
+   * Stream all keys.
+   *
+   * @return Stream of keys.
+   */
+  Stream<K> keys() {
+    return HashTrie.<K, V>entries(this.root).map(Entry::key);
+  }
+
+  /**
+   * Stream all values.
+   *
+   * @return Stream of values.
+   */
+  Stream<V> values() {
+    return HashTrie.<K, V>entries(this.root).map(Entry::value);
+  }
+
+  private static Object with(final Object slot, final int shift, final Entry<?, ?> entry) {
+    if (slot instanceof final Node node) {
+      return HashTrie.with(node, shift, entry);
+    } else if (slot instanceof final Collision collision) {
+      return HashTrie.with(collision, entry);
+    }
+
+    final Entry<?, ?> existing = (Entry<?, ?>) slot;
+    if (existing.hash() == entry.hash() && existing.key().equals(entry.key())) {
+      return Objects.equals(existing.value(), entry.value()) ? existing : entry;
+    }
+
+    return HashTrie.merge(existing, entry, shift);
+  }
+
+  private static Node with(final Node node, final int shift, final Entry<?, ?> entry) {
+    final int bit = HashTrie.getBit(entry.hash(), shift);
+    final int index = HashTrie.getIndex(node.bitmap(), bit);
+    if ((node.bitmap() & bit) == 0) {
+      final Object[] slots = new Object[node.slots().length + 1];
+      System.arraycopy(node.slots(), 0, slots, 0, index);
+      slots[index] = entry;
+      System.arraycopy(node.slots(), index, slots, index + 1, node.slots().length - index);
+      return new Node(node.bitmap() | bit, slots);
+    }
+
+    final Object slot = node.slots()[index];
+    final Object newSlot = HashTrie.with(slot, shift + BITS, entry);
+    if (newSlot == slot) {
+      return node;
+    }
+
+    final Object[] slots = node.slots().clone();
+    slots[index] = newSlot;
+    return new Node(node.bitmap(), slots);
+  }
+
+  private static Collision with(final Collision collision, final Entry<?, ?> entry) {
+    final Entry<?, ?>[] entries = collision.entries();
+    for (int i = 0; i < entries.length; ++i) {
+      if (entries[i].key().equals(entry.key())) {
+        if (Objects.equals(entries[i].value(), entry.value())) {
+          return collision;
+        }
+
+        final Entry<?, ?>[] newEntries = entries.clone();
+        newEntries[i] = entry;
+        return new Collision(collision.hash(), newEntries);
+      }
+    }
+
+    final Entry<?, ?>[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+    newEntries[entries.length] = entry;
+    return new Collision(collision.hash(), newEntries);
+  }
+
+  private static Object merge(final Entry<?, ?> entry1, final Entry<?, ?> entry2, final int shift) {
+    if (shift >= MAX_SHIFT) {
+      return new Collision(entry1.hash(), new Entry<?, ?>[] {entry1, entry2});
+    }
+
+    final int bit1 = HashTrie.getBit(entry1.hash(), shift);
+    final int bit2 = HashTrie.getBit(entry2.hash(), shift);
+    if (bit1 == bit2) {
+      return new Node(bit1, new Object[] {HashTrie.merge(entry1, entry2, shift + BITS)});
+    }
+
+    final Object[] slots =
+        Integer.compareUnsigned(bit1, bit2) < 0
+            ? new Object[] {entry1, entry2}
+            : new Object[] {entry2, entry1};
+    return new Node(bit1 | bit2, slots);
+  }
+
+  /** Remove {@code key}, which must be present. Returns {@code null} if the slot becomes empty. */
+  @CheckForNull
+  private static Object without(
+      final Object slot, final int shift, final int hash, final Object key) {
+    if (slot instanceof final Node node) {
+      final int bit = HashTrie.getBit(hash, shift);
+      final int index = HashTrie.getIndex(node.bitmap(), bit);
+      final Object newSlot = HashTrie.without(node.slots()[index], shift + BITS, hash, key);
+      if (newSlot != null) {
+        final Object[] slots = node.slots().clone();
+        slots[index] = newSlot;
+        return new Node(node.bitmap(), slots);
+      } else if (node.slots().length == 1) {
+        return null;
+      }
+
+      final Object[] slots = new Object[node.slots().length - 1];
+      System.arraycopy(node.slots(), 0, slots, 0, index);
+      System.arraycopy(node.slots(), index + 1, slots, index, slots.length - index);
+      return new Node(node.bitmap() & ~bit, slots);
+    } else if (slot instanceof final Collision collision) {
+      final Entry<?, ?>[] entries =
+          Arrays.stream(collision.entries())
+              .filter(entry -> !entry.key().equals(key))
+              .toArray(Entry<?, ?>[]::new);
+      return entries.length == 1 ? entries[0] : new Collision(collision.hash(), entries);
+    }
+
+    // The entry itself.
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Stream<Entry<K, V>> entries(final Object slot) {
+    if (slot instanceof final Node node) {
+      return Arrays.stream(node.slots()).flatMap(child -> HashTrie.<K, V>entries(child));
+    } else if (slot instanceof final Collision collision) {
+      return Arrays.stream((Entry<K, V>[]) collision.entries());
+    }
+
+    return Stream.of((Entry<K, V>) slot);
+  }
+
+  private static int getBit(final int hash, final int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static int getIndex(final int bitmap, final int bit) {
+    return Integer.bitCount(bitmap & (bit - 1));
+  }
+}
@@ -0,0 +1,159 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Immutable map of keys to sets of values, built on {@link HashTrie}s. Changes return a new map,
+ * sharing all unchanged parts with the original map.
+ *
+ * @param <K> Type of key.
+ * @param <V> Type of value.
+ */
+final class HashTrieSetMap<K, V> {
+
+  /**
+   * Unmodifiable view on the keys of a {@link HashTrie}, as a set.
+   *
+   * @param <V> Type of value.
+   */
+  private static final class TrieSet<V> extends AbstractSet<V> {
+
+    private final HashTrie<V, V> trie;
+
+    TrieSet(final HashTrie<V, V> trie) {
+      this.trie = trie;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return this.trie.keys().iterator();
+    }
+
+    @Override
+    public int size() {
+      return this.trie.size();
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+      return object != null && this.trie.get(object) != null;
+    }
+  }
+
+  private static final HashTrieSetMap<?, ?> EMPTY = new HashTrieSetMap<>(HashTrie.empty(), 0);
+
+  private final HashTrie<K, HashTrie<V, V>> trie;
+  private final int valueCount;
+
+  private HashTrieSetMap(final HashTrie<K, HashTrie<V, V>> trie, final int valueCount) {
+    this.trie = trie;
+    this.valueCount = valueCount;
+  }
+
+  /**
+   * Get the empty map.
+   *
+   * @param <K> Type of key.
+   * @param <V> Type of value.
+   * @return Empty map.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> HashTrieSetMap<K, V> empty() {
+    return (HashTrieSetMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Get the values of {@code key}.
+   *
+   * @param key Key.
+   * @return Unmodifiable set of values, empty if the key is not present.
+   */
+  Set<V> get(final Object key) {
+    final HashTrie<V, V> values = this.trie.get(key);
+    return values != null ? new TrieSet<>(values) : Collections.emptySet();
+  }
+
+  /**
+   * Test if {@code key} is present.
+   *
+   * @param key Key.
+   * @return True if present, false otherwise.
+   */
+  boolean containsKey(final Object key) {
+    return this.trie.get(key) != null;
+  }
+
+  /**
+   * Test if the set of {@code key} contains {@code value}.
+   *
+   * @param key Key.
+   * @param value Value.
+   * @return True if contained, false otherwise.
+   */
+  boolean contains(final Object key, final Object value) {
+    final HashTrie<V, V> values = this.trie.get(key);
+    return values != null && values.get(value) != null;
+  }
+
+  /**
+   * Get a map with {@code value} added to the set of {@code key}.
+   *
+   * @param key Key.
+   * @param value Value to add.
+   * @return New map, or this map if the set already contained the value.
+   */
+  HashTrieSetMap<K, V> with(final K key, final V value) {
+    final HashTrie<V, V> values = this.trie.get(key);
+    final HashTrie<V, V> oldValues = values != null ? values : HashTrie.empty();
+    final HashTrie<V, V> newValues = oldValues.with(value, value);
+    if (newValues == oldValues) {
+      return this;
+    }
+
+    return new HashTrieSetMap<>(this.trie.with(key, newValues), this.valueCount + 1);
+  }
+
+  /**
+   * Get a map with {@code value} removed from the set of {@code key}. Keys with an empty set are
+   * removed.
+   *
+   * @param key Key.
+   * @param value Value to remove.
+   * @return New map, or this map if the set did not contain the value.
+   */
+  HashTrieSetMap<K, V> without(final K key, final V value) {
+    final HashTrie<V, V> values = this.trie.get(key);
+    if (values == null || values.get(value) == null) {
+      return this;
+    }
+
+    final HashTrie<V, V> newValues = values.without(value);
+    final HashTrie<K, HashTrie<V, V>> newTrie =
+        newValues.size() == 0 ? this.trie.without(key) : this.trie.with(key, newValues);
+    return new HashTrieSetMap<>(newTrie, this.valueCount - 1);
+  }
+
+  /**
+   * Get all values of all keys.
+   *
+   * @return Unmodifiable collection of all values.
+   */
+  Collection<V> values() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<V> iterator() {
+        return HashTrieSetMap.this.trie.values().flatMap(HashTrie::keys).iterator();
+      }
+
+      @Override
+      public int size() {
+        return HashTrieSetMap.this.valueCount;
+      }
+    };
+  }
+}
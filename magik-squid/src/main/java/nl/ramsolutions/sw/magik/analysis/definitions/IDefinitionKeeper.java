@@ -3,8 +3,10 @@ package nl.ramsolutions.sw.magik.analysis.definitions;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolverCache;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
@@ -55,6 +57,35 @@ public interface IDefinitionKeeper {
 
   void remove(IDefinition definition);
 
+  /**
+   * Remove {@code removedDefinitions} and add {@code addedDefinitions}, e.g., the old and new
+   * definitions of a changed file.
+   *
+   * <p>Keepers supporting it apply the change atomically: readers see either none or all of the
+   * change. By default, the definitions are removed and added one by one.
+   *
+   * @param removedDefinitions Definitions to remove.
+   * @param addedDefinitions Definitions to add.
+   */
+  default void update(
+      final Collection<? extends IDefinition> removedDefinitions,
+      final Collection<? extends IDefinition> addedDefinitions) {
+    removedDefinitions.forEach(this::remove);
+    addedDefinitions.forEach(this::add);
+  }
+
+  /**
+   * Get a read only view on the current definitions, which is not affected by later changes, to get
+   * consistent results over multiple reads.
+   *
+   * <p>By default, snapshots are not supported and this keeper itself is returned.
+   *
+   * @return Snapshot, or this keeper.
+   */
+  default IDefinitionKeeper getSnapshot() {
+    return this;
+  }
+
   Collection<ProductDefinition> getProductDefinitions(String name);
 
   Collection<ProductDefinition> getProductDefinitions();
@@ -96,6 +127,47 @@ public interface IDefinitionKeeper {
 
   Collection<ProcedureDefinition> getProcedureDefinitions();
 
+  /**
+   * Get all {@link MethodUsage}s of methods named {@code methodName}, used from methods and
+   * procedures.
+   *
+   * @param methodName Name of method.
+   * @return Method usages.
+   */
+  Collection<MethodUsage> getMethodUsages(String methodName);
+
+  /**
+   * Get all {@link GlobalUsage}s of global {@code typeName}, used from methods and procedures.
+   *
+   * @param typeName Type name of global.
+   * @return Global usages.
+   */
+  Collection<GlobalUsage> getGlobalUsages(TypeString typeName);
+
+  /**
+   * Get all {@link ConditionUsage}s of condition {@code conditionName}, used from methods and
+   * procedures.
+   *
+   * @param conditionName Name of condition.
+   * @return Condition usages.
+   */
+  Collection<ConditionUsage> getConditionUsages(String conditionName);
+
+  /**
+   * Search symbols, i.e., products, modules, exemplars, methods and conditions, matching {@code
+   * query}.
+   *
+   * <p>A query containing a {@code .} matches methods on type name and method name, e.g., {@code
+   * rope.add}.
+   *
+   * @param query Query to search for.
+   * @param limit Maximum number of results.
+   * @param cancelChecker Called regularly, throws a {@link
+   *     java.util.concurrent.CancellationException} when the search is cancelled.
+   * @return Definitions of the best matching symbols, best match first.
+   */
+  List<IDefinition> searchSymbols(String query, int limit, Runnable cancelChecker);
+
   /**
    * Get all {@link IDefinitions} from path or lower.
    *
@@ -107,5 +179,13 @@ public interface IDefinitionKeeper {
    */
   Collection<IDefinition> getDefinitionsByPath(Path path);
 
+  /**
+   * Get the {@link TypeStringResolverCache}, shared by all {@link
+   * nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver}s on this keeper.
+   *
+   * @return Cache for type string resolvers.
+   */
+  TypeStringResolverCache getTypeStringResolverCache();
+
   void clear();
 }
@@ -1,20 +1,48 @@
 package nl.ramsolutions.sw.magik.analysis.definitions;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.net.URI;
 import java.time.Instant;
 import java.util.Objects;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.magik.Location;
 
-/** Magik file definition. */
+/**
+ * Magik file definition.
+ *
+ * <p>Besides the timestamp, the size and a hash of the contents of the file can be kept. These are
+ * used to detect files of which only the timestamp changed.
+ */
 public class MagikFileDefinition implements IDefinition {
 
   private final Location location;
   private final Instant timestamp;
+  private final @Nullable Long size;
+  private final @Nullable Long contentHash;
 
   public MagikFileDefinition(final Location location, final Instant timestamp) {
+    this(location, timestamp, null, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param location Location.
+   * @param timestamp Timestamp.
+   * @param size Size of the file, in bytes.
+   * @param contentHash Hash of the contents of the file, see {@link
+   *     nl.ramsolutions.sw.ContentHasher}.
+   */
+  public MagikFileDefinition(
+      final Location location,
+      final Instant timestamp,
+      final @Nullable Long size,
+      final @Nullable Long contentHash) {
     this.location = location;
     this.timestamp = timestamp;
+    this.size = size;
+    this.contentHash = contentHash;
   }
 
   @Override
@@ -36,9 +64,19 @@ public class MagikFileDefinition implements IDefinition {
     return this.location.getUri();
   }
 
+  @CheckForNull
+  public Long getSize() {
+    return this.size;
+  }
+
+  @CheckForNull
+  public Long getContentHash() {
+    return this.contentHash;
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(this.location, this.timestamp);
+    return Objects.hash(this.location, this.timestamp, this.size, this.contentHash);
   }
 
   @Override
@@ -57,6 +95,8 @@ public class MagikFileDefinition implements IDefinition {
 
     final MagikFileDefinition otherMagikFileDef = (MagikFileDefinition) obj;
     return Objects.equals(otherMagikFileDef.getLocation(), this.getLocation())
-        && Objects.equals(otherMagikFileDef.getTimestamp(), this.getTimestamp());
+        && Objects.equals(otherMagikFileDef.getTimestamp(), this.getTimestamp())
+        && Objects.equals(otherMagikFileDef.getSize(), this.getSize())
+        && Objects.equals(otherMagikFileDef.getContentHash(), this.getContentHash());
   }
 }
@@ -0,0 +1,82 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.Location;
+
+/**
+ * Index of definitions by the URI of their location, sorted by URI to find all definitions below a
+ * path.
+ */
+class PathIndex {
+
+  private final TreeMap<URI, Set<IDefinition>> index = new TreeMap<>();
+
+  /**
+   * Add a definition, if it has a location.
+   *
+   * @param definition Definition to add.
+   */
+  synchronized void add(final IDefinition definition) {
+    final Location location = definition.getLocation();
+    if (location == null) {
+      return;
+    }
+
+    final URI uri = location.getUri();
+    final Set<IDefinition> definitions = this.index.computeIfAbsent(uri, k -> new HashSet<>());
+    definitions.add(definition);
+  }
+
+  /**
+   * Remove a definition, if it has a location.
+   *
+   * @param definition Definition to remove.
+   */
+  synchronized void remove(final IDefinition definition) {
+    final Location location = definition.getLocation();
+    if (location == null) {
+      return;
+    }
+
+    this.index.computeIfPresent(
+        location.getUri(),
+        (uri, definitions) -> {
+          definitions.remove(definition);
+          return definitions.isEmpty() ? null : definitions;
+        });
+  }
+
+  /**
+   * Get all definitions located at or below {@code path}.
+   *
+   * @param path Path to get definitions for.
+   * @return Definitions.
+   */
+  synchronized Collection<IDefinition> get(final Path path) {
+    final URI uri = path.toUri();
+    final String uriStr = uri.toString();
+    final Set<IDefinition> allDefinitions = new HashSet<>();
+    for (final Map.Entry<URI, Set<IDefinition>> entry : this.index.tailMap(uri).entrySet()) {
+      final URI entryUri = entry.getKey();
+      if (!entryUri.toString().startsWith(uriStr)) {
+        break;
+      }
+
+      allDefinitions.addAll(entry.getValue());
+    }
+    return Collections.unmodifiableCollection(allDefinitions);
+  }
+
+  /** Clear the index. */
+  synchronized void clear() {
+    this.index.clear();
+  }
+}
@@ -0,0 +1,358 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+
+/**
+ * Trigram index over the names of products, modules, exemplars, methods and conditions, to search
+ * symbols without matching every definition.
+ *
+ * <p>A query without a {@code .} matches the names of products, modules, exemplars and conditions,
+ * and the method name of methods. A query with a {@code .} matches methods only, the part before
+ * the dot against the type name and the part after the dot against the method name. Matching is
+ * case insensitive, on substrings. Results are ranked: exact matches first, then prefix matches,
+ * then matches at the start of a word (after an underscore, colon or a lower/upper case
+ * transition), then any other matches. Shorter names rank higher.
+ *
+ * <p>Removed symbols are only marked as removed, the index is compacted when half of the symbols is
+ * removed.
+ *
+ * @param <H> Type of handle to the definition of a symbol, e.g., the definition itself.
+ */
+final class SymbolIndex<H> {
+
+  private static final int GRAM_LENGTH = 3;
+  private static final int CHAR_BITS = 16;
+  private static final int CANCEL_CHECK_INTERVAL = 1024;
+  private static final int COMPACT_MIN_REMOVED = 1024;
+
+  private static final int SCORE_EXACT = 3000;
+  private static final int SCORE_PREFIX = 2000;
+  private static final int SCORE_WORD_START = 1000;
+  private static final int SCORE_SUBSTRING = 0;
+  private static final int MAX_LENGTH_PENALTY = 999;
+
+  /**
+   * Indexed symbol.
+   *
+   * @param handle Handle to definition of symbol.
+   * @param typeName Type name, for methods only.
+   * @param lowerTypeName Lower case type name, for methods only.
+   * @param name Name of symbol, for methods the method name.
+   * @param lowerName Lower case name of symbol.
+   */
+  private record Symbol<H>(
+      H handle,
+      @CheckForNull String typeName,
+      @CheckForNull String lowerTypeName,
+      String name,
+      String lowerName) {
+
+    Symbol(final H handle, @CheckForNull final String typeName, final String name) {
+      this(
+          handle,
+          typeName,
+          typeName != null ? typeName.toLowerCase(Locale.ENGLISH) : null,
+          name,
+          name.toLowerCase(Locale.ENGLISH));
+    }
+
+    boolean isMethod() {
+      return this.typeName != null;
+    }
+  }
+
+  /** Scored symbol. */
+  private record Match<H>(Symbol<H> symbol, int score) {}
+
+  private static final Comparator<Match<?>> MATCH_COMPARATOR =
+      Comparator.<Match<?>>comparingInt(match -> match.score())
+          .thenComparing(match -> match.symbol().name(), Comparator.reverseOrder())
+          .thenComparing(
+              match -> String.valueOf(match.symbol().typeName()), Comparator.reverseOrder());
+
+  /** Growable list of symbol ids. */
+  private static final class Postings {
+
+    private int[] ids = new int[2];
+    private int size;
+
+    void add(final int id) {
+      if (this.size == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, this.size * 2);
+      }
+      this.ids[this.size++] = id;
+    }
+  }
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final List<Symbol<H>> symbols = new ArrayList<>();
+  private final Map<H, Integer> symbolIds = new HashMap<>();
+  private final Map<Long, Postings> postings = new HashMap<>();
+  private int removedCount;
+
+  /**
+   * Add a definition. Definitions which are not symbols are ignored.
+   *
+   * @param handle Handle to the definition, returned when searching.
+   * @param definition Definition to add.
+   */
+  void add(final H handle, final IDefinition definition) {
+    final Symbol<H> symbol = SymbolIndex.toSymbol(handle, definition);
+    if (symbol == null) {
+      return;
+    }
+
+    this.lock.writeLock().lock();
+    try {
+      this.addSymbol(symbol);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a definition.
+   *
+   * @param handle Handle to the definition to remove.
+   */
+  void remove(final H handle) {
+    this.lock.writeLock().lock();
+    try {
+      final Integer id = this.symbolIds.remove(handle);
+      if (id == null) {
+        return;
+      }
+
+      this.symbols.set(id, null);
+      this.removedCount += 1;
+      if (this.removedCount >= COMPACT_MIN_REMOVED && this.removedCount * 2 > this.symbols.size()) {
+        this.compact();
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /** Clear the index. */
+  void clear() {
+    this.lock.writeLock().lock();
+    try {
+      this.symbols.clear();
+      this.symbolIds.clear();
+      this.postings.clear();
+      this.removedCount = 0;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Search for symbols matching {@code query}.
+   *
+   * @param query Query to search for.
+   * @param limit Maximum number of results.
+   * @param cancelChecker Called regularly, throws a {@link
+   *     java.util.concurrent.CancellationException} when the search is cancelled.
+   * @return Handles to the definitions of the best matching symbols, best match first.
+   */
+  List<H> search(final String query, final int limit, final Runnable cancelChecker) {
+    final String lowerQuery = query.trim().toLowerCase(Locale.ENGLISH);
+    if (lowerQuery.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+
+    final int dotIndex = lowerQuery.indexOf('.');
+    final String typeQuery = dotIndex != -1 ? lowerQuery.substring(0, dotIndex) : null;
+    final String nameQuery = dotIndex != -1 ? lowerQuery.substring(dotIndex + 1) : lowerQuery;
+
+    this.lock.readLock().lock();
+    try {
+      final Postings candidates = this.getCandidates(typeQuery, nameQuery);
+      final PriorityQueue<Match<H>> matches =
+          this.findMatches(candidates, typeQuery, nameQuery, limit, cancelChecker);
+      return matches.stream()
+          .sorted(MATCH_COMPARATOR.reversed())
+          .map(match -> match.symbol().handle())
+          .toList();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the best matching symbols from the candidates.
+   *
+   * @return Best {@code limit} matches, worst match at the head.
+   */
+  private PriorityQueue<Match<H>> findMatches(
+      @CheckForNull final Postings candidates,
+      @CheckForNull final String typeQuery,
+      final String nameQuery,
+      final int limit,
+      final Runnable cancelChecker) {
+    final PriorityQueue<Match<H>> matches = new PriorityQueue<>(MATCH_COMPARATOR);
+    final int candidateCount = candidates != null ? candidates.size : this.symbols.size();
+    for (int i = 0; i < candidateCount; ++i) {
+      if (i % CANCEL_CHECK_INTERVAL == 0) {
+        cancelChecker.run();
+      }
+
+      final int id = candidates != null ? candidates.ids[i] : i;
+      final Symbol<H> symbol = this.symbols.get(id);
+      final int score = symbol != null ? SymbolIndex.score(symbol, typeQuery, nameQuery) : -1;
+      if (score < 0) {
+        continue;
+      }
+
+      matches.add(new Match<>(symbol, score));
+      if (matches.size() > limit) {
+        matches.poll();
+      }
+    }
+    return matches;
+  }
+
+  private void addSymbol(final Symbol<H> symbol) {
+    if (this.symbolIds.containsKey(symbol.handle())) {
+      return;
+    }
+
+    final int id = this.symbols.size();
+    this.symbols.add(symbol);
+    this.symbolIds.put(symbol.handle(), id);
+
+    final Set<Long> grams = new HashSet<>();
+    SymbolIndex.addGrams(grams, symbol.lowerName());
+    if (symbol.lowerTypeName() != null) {
+      SymbolIndex.addGrams(grams, symbol.lowerTypeName());
+    }
+    grams.forEach(gram -> this.postings.computeIfAbsent(gram, key -> new Postings()).add(id));
+  }
+
+  private void compact() {
+    final List<Symbol<H>> liveSymbols = this.symbols.stream().filter(s -> s != null).toList();
+    this.symbols.clear();
+    this.symbolIds.clear();
+    this.postings.clear();
+    this.removedCount = 0;
+    liveSymbols.forEach(this::addSymbol);
+  }
+
+  /**
+   * Get the candidate symbol ids for a query: the smallest posting list of all trigrams of the
+   * query.
+   *
+   * @return Candidates, or {@code null} if the query has no trigrams and all symbols are
+   *     candidates.
+   */
+  @CheckForNull
+  private Postings getCandidates(@CheckForNull final String typeQuery, final String nameQuery) {
+    final Set<Long> grams = new HashSet<>();
+    SymbolIndex.addGrams(grams, nameQuery);
+    if (typeQuery != null) {
+      SymbolIndex.addGrams(grams, typeQuery);
+    }
+
+    Postings candidates = null;
+    for (final long gram : grams) {
+      final Postings gramPostings = this.postings.getOrDefault(gram, new Postings());
+      if (candidates == null || gramPostings.size < candidates.size) {
+        candidates = gramPostings;
+      }
+    }
+    return candidates;
+  }
+
+  private static void addGrams(final Set<Long> grams, final String lowerName) {
+    for (int i = 0; i + GRAM_LENGTH <= lowerName.length(); ++i) {
+      final long gram =
+          (long) lowerName.charAt(i) << (CHAR_BITS * 2)
+              | (long) lowerName.charAt(i + 1) << CHAR_BITS
+              | lowerName.charAt(i + 2);
+      grams.add(gram);
+    }
+  }
+
+  /**
+   * Score a symbol against a query.
+   *
+   * @return Score, higher is better, or {@code -1} if the symbol does not match.
+   */
+  private static int score(
+      final Symbol<?> symbol, @CheckForNull final String typeQuery, final String nameQuery) {
+    if (typeQuery == null) {
+      return SymbolIndex.score(symbol.name(), symbol.lowerName(), nameQuery);
+    } else if (!symbol.isMethod()) {
+      return -1;
+    }
+
+    final int typeScore = SymbolIndex.score(symbol.typeName(), symbol.lowerTypeName(), typeQuery);
+    final int nameScore = SymbolIndex.score(symbol.name(), symbol.lowerName(), nameQuery);
+    return typeScore >= 0 && nameScore >= 0 ? typeScore + nameScore : -1;
+  }
+
+  private static int score(final String name, final String lowerName, final String query) {
+    final int index = lowerName.indexOf(query);
+    if (index == -1) {
+      return -1;
+    }
+
+    final int lengthPenalty = Math.min(name.length() - query.length(), MAX_LENGTH_PENALTY);
+    final int score;
+    if (index == 0 && name.length() == query.length()) {
+      score = SCORE_EXACT;
+    } else if (index == 0) {
+      score = SCORE_PREFIX;
+    } else if (SymbolIndex.isWordStart(name, index)
+        || SymbolIndex.isWordStart(name, lowerName.indexOf(query, index + 1))) {
+      score = SCORE_WORD_START;
+    } else {
+      score = SCORE_SUBSTRING;
+    }
+    return score + MAX_LENGTH_PENALTY - lengthPenalty;
+  }
+
+  private static boolean isWordStart(final String name, final int index) {
+    if (index <= 0) {
+      return index == 0;
+    }
+
+    final char previous = name.charAt(index - 1);
+    final char current = name.charAt(index);
+    return !Character.isLetterOrDigit(previous)
+        || Character.isLowerCase(previous) && Character.isUpperCase(current);
+  }
+
+  @CheckForNull
+  private static <H> Symbol<H> toSymbol(final H handle, final IDefinition definition) {
+    if (definition instanceof final ProductDefinition productDefinition) {
+      return new Symbol<>(handle, null, productDefinition.getName());
+    } else if (definition instanceof final ModuleDefinition moduleDefinition) {
+      return new Symbol<>(handle, null, moduleDefinition.getName());
+    } else if (definition instanceof final ExemplarDefinition exemplarDefinition) {
+      return new Symbol<>(handle, null, exemplarDefinition.getTypeString().getFullString());
+    } else if (definition instanceof final MethodDefinition methodDefinition) {
+      return new Symbol<>(
+          handle, methodDefinition.getTypeName().getFullString(), methodDefinition.getMethodName());
+    } else if (definition instanceof final ConditionDefinition conditionDefinition) {
+      return new Symbol<>(handle, null, conditionDefinition.getName());
+    }
+
+    return null;
+  }
+}
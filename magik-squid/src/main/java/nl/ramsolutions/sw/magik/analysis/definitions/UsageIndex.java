@@ -0,0 +1,96 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import nl.ramsolutions.sw.IDefinition;
+
+/**
+ * Inverted index of usages: used key (e.g., method name) to the definitions using it, and their
+ * usages.
+ *
+ * <p>Usages are kept per using definition, as usages are only equal by their key, not by their
+ * location.
+ *
+ * @param <K> Type of key.
+ * @param <U> Type of usage.
+ */
+class UsageIndex<K, U> {
+
+  private final Map<K, Map<IDefinition, List<U>>> index = new ConcurrentHashMap<>();
+  private final Function<U, K> keyGetter;
+
+  /**
+   * Constructor.
+   *
+   * @param keyGetter Function to get the key from a usage.
+   */
+  UsageIndex(final Function<U, K> keyGetter) {
+    this.keyGetter = keyGetter;
+  }
+
+  /**
+   * Add the usages of a definition.
+   *
+   * @param definition Using definition.
+   * @param usages Usages of definition.
+   */
+  void add(final IDefinition definition, final Collection<U> usages) {
+    final Map<K, List<U>> usagesByKey =
+        usages.stream().collect(Collectors.groupingBy(this.keyGetter));
+    usagesByKey.forEach(
+        (key, keyUsages) ->
+            this.index.compute(
+                key,
+                (k, definitionUsages) -> {
+                  final Map<IDefinition, List<U>> newDefinitionUsages =
+                      definitionUsages != null ? definitionUsages : new ConcurrentHashMap<>();
+                  newDefinitionUsages.put(definition, keyUsages);
+                  return newDefinitionUsages;
+                }));
+  }
+
+  /**
+   * Remove the usages of a definition.
+   *
+   * @param definition Using definition.
+   * @param usages Usages of definition.
+   */
+  void remove(final IDefinition definition, final Collection<U> usages) {
+    usages.stream()
+        .map(this.keyGetter)
+        .distinct()
+        .forEach(
+            key ->
+                this.index.computeIfPresent(
+                    key,
+                    (k, definitionUsages) -> {
+                      definitionUsages.remove(definition);
+                      return definitionUsages.isEmpty() ? null : definitionUsages;
+                    }));
+  }
+
+  /**
+   * Get all usages of {@code key}.
+   *
+   * @param key Key to get usages for.
+   * @return Usages.
+   */
+  Collection<U> get(final K key) {
+    final Map<IDefinition, List<U>> definitionUsages = this.index.get(key);
+    if (definitionUsages == null) {
+      return Collections.emptyList();
+    }
+
+    return definitionUsages.values().stream().flatMap(List::stream).toList();
+  }
+
+  /** Clear the index. */
+  void clear() {
+    this.index.clear();
+  }
+}
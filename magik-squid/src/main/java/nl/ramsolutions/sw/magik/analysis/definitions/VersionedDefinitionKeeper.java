@@ -0,0 +1,670 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolverCache;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+
+/**
+ * In memory definition keeper, publishing changes as immutable versions.
+ *
+ * <p>All definitions, and all indices on them, are held by a single immutable version. Writers are
+ * serialized: each change, e.g., all removed and added definitions of a file given to {@link
+ * #update(Collection, Collection)}, builds a new version from the current version and publishes it
+ * atomically. Building a version only copies the parts of the indices which change, see {@link
+ * HashTrie}.
+ *
+ * <p>Readers do not lock. Each getter reads the current version once, so a getter never sees a
+ * change half applied. Getters return unmodifiable collections which do not change afterwards. A
+ * consistent view over multiple getters is given by {@link #getSnapshot()}.
+ *
+ * <p>The {@link TypeStringResolverCache} is invalidated both before and after a version is
+ * published. Entries being computed from an older version are not stored, and a snapshot of the
+ * older version does not use entries computed from the newer version. Each version has a single
+ * snapshot, which shares the entries of the cache which are still valid for its version, see {@link
+ * TypeStringResolverCache#getSnapshot()}.
+ */
+public class VersionedDefinitionKeeper implements IDefinitionKeeper {
+
+  /** Kind of definition, with the key it is indexed on. */
+  @SuppressWarnings("checkstyle:JavadocVariable")
+  private enum Kind {
+    PRODUCT(ProductDefinition.class, ProductDefinition::getName),
+    MODULE(ModuleDefinition.class, ModuleDefinition::getName),
+    MAGIK_FILE(MagikFileDefinition.class, MagikFileDefinition::getUri),
+    PACKAGE(PackageDefinition.class, PackageDefinition::getName),
+    EXEMPLAR(
+        ExemplarDefinition.class, definition -> definition.getTypeString().getWithoutGenerics()),
+    METHOD(MethodDefinition.class, definition -> definition.getTypeName().getWithoutGenerics()),
+    GLOBAL(GlobalDefinition.class, definition -> definition.getTypeString().getWithoutGenerics()),
+    BINARY_OPERATOR(
+        BinaryOperatorDefinition.class,
+        definition ->
+            VersionedDefinitionKeeper.getKey(
+                definition.getOperator(),
+                definition.getLhsTypeName(),
+                definition.getRhsTypeName())),
+    CONDITION(ConditionDefinition.class, ConditionDefinition::getName),
+    PROCEDURE(
+        ProcedureDefinition.class, definition -> definition.getTypeString().getWithoutGenerics());
+
+    private static final Kind[] VALUES = Kind.values();
+
+    private final Class<? extends IDefinition> type;
+    private final Function<IDefinition, Object> keyGetter;
+
+    <T extends IDefinition> Kind(final Class<T> type, final Function<T, Object> keyGetter) {
+      this.type = type;
+      this.keyGetter = definition -> keyGetter.apply(type.cast(definition));
+    }
+
+    Object getKey(final IDefinition definition) {
+      return this.keyGetter.apply(definition);
+    }
+
+    static Kind of(final IDefinition definition) {
+      for (final Kind kind : VALUES) {
+        if (kind.type.isInstance(definition)) {
+          return kind;
+        }
+      }
+
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Immutable version of all definitions.
+   *
+   * @param definitions Definitions by key, per {@link Kind}.
+   * @param uriDefinitions Definitions by URI.
+   * @param uris Sorted URIs of {@code uriDefinitions}.
+   * @param methodUsers Definitions using a method, by method name.
+   * @param globalUsers Definitions using a global, by type name.
+   * @param conditionUsers Definitions using a condition, by condition name.
+   */
+  private record Version(
+      List<HashTrieSetMap<Object, IDefinition>> definitions,
+      HashTrieSetMap<String, IDefinition> uriDefinitions,
+      ChunkedSortedSet<String> uris,
+      HashTrieSetMap<Object, IDefinition> methodUsers,
+      HashTrieSetMap<Object, IDefinition> globalUsers,
+      HashTrieSetMap<Object, IDefinition> conditionUsers) {
+
+    static Version empty() {
+      return new Version(
+          Stream.of(Kind.VALUES).map(kind -> HashTrieSetMap.<Object, IDefinition>empty()).toList(),
+          HashTrieSetMap.empty(),
+          ChunkedSortedSet.empty(),
+          HashTrieSetMap.empty(),
+          HashTrieSetMap.empty(),
+          HashTrieSetMap.empty());
+    }
+
+    HashTrieSetMap<Object, IDefinition> getDefinitions(final Kind kind) {
+      return this.definitions.get(kind.ordinal());
+    }
+
+    boolean contains(final IDefinition definition) {
+      final Kind kind = Kind.of(definition);
+      return this.getDefinitions(kind).contains(kind.getKey(definition), definition);
+    }
+  }
+
+  /** Change to a {@link Version}, building the next version. */
+  private static final class Change {
+
+    private final List<HashTrieSetMap<Object, IDefinition>> definitions;
+    private HashTrieSetMap<String, IDefinition> uriDefinitions;
+    private ChunkedSortedSet<String> uris;
+    private HashTrieSetMap<Object, IDefinition> methodUsers;
+    private HashTrieSetMap<Object, IDefinition> globalUsers;
+    private HashTrieSetMap<Object, IDefinition> conditionUsers;
+    private final List<IDefinition> addedDefinitions = new ArrayList<>();
+    private final List<IDefinition> removedDefinitions = new ArrayList<>();
+    private final Set<TypeString> changedTypes = new HashSet<>();
+    private boolean packagesChanged;
+
+    Change(final Version base) {
+      this.definitions = new ArrayList<>(base.definitions());
+      this.uriDefinitions = base.uriDefinitions();
+      this.uris = base.uris();
+      this.methodUsers = base.methodUsers();
+      this.globalUsers = base.globalUsers();
+      this.conditionUsers = base.conditionUsers();
+    }
+
+    void add(final IDefinition definition) {
+      final Kind kind = Kind.of(definition);
+      final Object key = kind.getKey(definition);
+      final HashTrieSetMap<Object, IDefinition> kindDefinitions =
+          this.definitions.get(kind.ordinal());
+      final HashTrieSetMap<Object, IDefinition> newKindDefinitions =
+          kindDefinitions.with(key, definition);
+      if (newKindDefinitions != kindDefinitions) {
+        this.definitions.set(kind.ordinal(), newKindDefinitions);
+        this.addedDefinitions.add(definition);
+        this.updateIndices(kind, key, definition, true);
+      }
+    }
+
+    void remove(final IDefinition definition) {
+      final Kind kind = Kind.of(definition);
+      final Object key = kind.getKey(definition);
+      final HashTrieSetMap<Object, IDefinition> kindDefinitions =
+          this.definitions.get(kind.ordinal());
+      final HashTrieSetMap<Object, IDefinition> newKindDefinitions =
+          kindDefinitions.without(key, definition);
+      if (newKindDefinitions != kindDefinitions) {
+        this.definitions.set(kind.ordinal(), newKindDefinitions);
+        this.removedDefinitions.add(definition);
+        this.updateIndices(kind, key, definition, false);
+      }
+    }
+
+    Version build() {
+      return new Version(
+          List.copyOf(this.definitions),
+          this.uriDefinitions,
+          this.uris,
+          this.methodUsers,
+          this.globalUsers,
+          this.conditionUsers);
+    }
+
+    void invalidate(final TypeStringResolverCache cache) {
+      if (this.packagesChanged) {
+        cache.clear();
+      } else {
+        cache.invalidate(this.changedTypes);
+      }
+    }
+
+    void updateSymbolIndex(final SymbolIndex<IDefinition> symbolIndex) {
+      this.removedDefinitions.forEach(symbolIndex::remove);
+      this.addedDefinitions.forEach(definition -> symbolIndex.add(definition, definition));
+    }
+
+    private void updateIndices(
+        final Kind kind, final Object key, final IDefinition definition, final boolean add) {
+      if (key instanceof final TypeString typeString) {
+        this.changedTypes.add(typeString);
+      } else if (kind == Kind.PACKAGE) {
+        this.packagesChanged = true;
+      }
+
+      final Location location = definition.getLocation();
+      if (location != null) {
+        final String uri = location.getUri().toString();
+        this.uriDefinitions = Change.update(this.uriDefinitions, uri, definition, add);
+        if (add) {
+          this.uris = this.uris.with(uri);
+        } else if (!this.uriDefinitions.containsKey(uri)) {
+          this.uris = this.uris.without(uri);
+        }
+      }
+
+      VersionedDefinitionKeeper.getUsages(
+              definition, MethodDefinition::getUsedMethods, ProcedureDefinition::getUsedMethods)
+          .map(MethodUsage::getMethodName)
+          .distinct()
+          .forEach(
+              name -> this.methodUsers = Change.update(this.methodUsers, name, definition, add));
+      VersionedDefinitionKeeper.getUsages(
+              definition, MethodDefinition::getUsedGlobals, ProcedureDefinition::getUsedGlobals)
+          .map(GlobalUsage::getTypeName)
+          .distinct()
+          .forEach(
+              typeName ->
+                  this.globalUsers = Change.update(this.globalUsers, typeName, definition, add));
+      VersionedDefinitionKeeper.getUsages(
+              definition,
+              MethodDefinition::getUsedConditions,
+              ProcedureDefinition::getUsedConditions)
+          .map(ConditionUsage::getConditionName)
+          .distinct()
+          .forEach(
+              name ->
+                  this.conditionUsers = Change.update(this.conditionUsers, name, definition, add));
+    }
+
+    private static <K> HashTrieSetMap<K, IDefinition> update(
+        final HashTrieSetMap<K, IDefinition> map,
+        final K key,
+        final IDefinition definition,
+        final boolean add) {
+      return add ? map.with(key, definition) : map.without(key, definition);
+    }
+  }
+
+  private final Object writeLock;
+  private final SymbolIndex<IDefinition> symbolIndex;
+  private final TypeStringResolverCache typeStringResolverCache;
+  private final boolean readOnly;
+  private volatile Version version;
+  private volatile VersionedDefinitionKeeper snapshot;
+
+  /** Constructor. */
+  public VersionedDefinitionKeeper() {
+    this(true);
+  }
+
+  /**
+   * Constructor to allow adding default types or not.
+   *
+   * @param addDefaultTypes Do add default types?
+   */
+  public VersionedDefinitionKeeper(final boolean addDefaultTypes) {
+    this.writeLock = new Object();
+    this.symbolIndex = new SymbolIndex<>();
+    this.typeStringResolverCache = new TypeStringResolverCache();
+    this.readOnly = false;
+    this.version = Version.empty();
+    this.snapshot = new VersionedDefinitionKeeper(this);
+
+    DefaultDefinitionsAdder.addBaseDefinitions(this);
+    if (addDefaultTypes) {
+      DefaultDefinitionsAdder.addDefaultDefinitions(this);
+    }
+  }
+
+  /**
+   * Constructor for a read only snapshot of the current version of {@code definitionKeeper}. Must
+   * be called while holding the write lock.
+   *
+   * @param definitionKeeper Keeper to take snapshot of.
+   */
+  private VersionedDefinitionKeeper(final VersionedDefinitionKeeper definitionKeeper) {
+    this.writeLock = definitionKeeper.writeLock;
+    this.symbolIndex = definitionKeeper.symbolIndex;
+    this.typeStringResolverCache = definitionKeeper.typeStringResolverCache.getSnapshot();
+    this.readOnly = true;
+    this.version = definitionKeeper.version;
+    this.snapshot = this;
+  }
+
+  /**
+   * Get a read only snapshot of the current version. The snapshot is not affected by later changes.
+   * Taking a snapshot does not copy any definitions. While the version is unchanged, the same
+   * snapshot is returned.
+   *
+   * @return Snapshot.
+   */
+  @Override
+  public IDefinitionKeeper getSnapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Remove {@code removedDefinitions} and add {@code addedDefinitions}, and publish the result as a
+   * single new version.
+   *
+   * @param removedDefinitions Definitions to remove.
+   * @param addedDefinitions Definitions to add.
+   */
+  @Override
+  public void update(
+      final Collection<? extends IDefinition> removedDefinitions,
+      final Collection<? extends IDefinition> addedDefinitions) {
+    this.checkWritable();
+
+    synchronized (this.writeLock) {
+      final Change change = new Change(this.version);
+      removedDefinitions.forEach(change::remove);
+      addedDefinitions.forEach(change::add);
+      final Version newVersion = change.build();
+
+      // Invalidate before publishing, so snapshots of the old version do not use entries computed
+      // from the new version. And after, so entries computed from the old version are not kept.
+      change.invalidate(this.typeStringResolverCache);
+      this.version = newVersion;
+      change.invalidate(this.typeStringResolverCache);
+      change.updateSymbolIndex(this.symbolIndex);
+      this.snapshot = new VersionedDefinitionKeeper(this);
+    }
+  }
+
+  @Override
+  public void add(final ProductDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final ModuleDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final MagikFileDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final PackageDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final ExemplarDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final MethodDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final GlobalDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final BinaryOperatorDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final ConditionDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final ProcedureDefinition definition) {
+    this.add((IDefinition) definition);
+  }
+
+  @Override
+  public void add(final IDefinition definition) {
+    this.update(Collections.emptyList(), List.of(definition));
+  }
+
+  @Override
+  public void remove(final ProductDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final ModuleDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final MagikFileDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final PackageDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final ExemplarDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final MethodDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final GlobalDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final BinaryOperatorDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final ConditionDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final ProcedureDefinition definition) {
+    this.remove((IDefinition) definition);
+  }
+
+  @Override
+  public void remove(final IDefinition definition) {
+    this.update(List.of(definition), Collections.emptyList());
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions(final String name) {
+    return this.getDefinitions(Kind.PRODUCT, name);
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions() {
+    return this.getDefinitions(Kind.PRODUCT);
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions(final String name) {
+    return this.getDefinitions(Kind.MODULE, name);
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions() {
+    return this.getDefinitions(Kind.MODULE);
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions(final URI uri) {
+    return this.getDefinitions(Kind.MAGIK_FILE, uri);
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions() {
+    return this.getDefinitions(Kind.MAGIK_FILE);
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions(final String name) {
+    return this.getDefinitions(Kind.PACKAGE, name);
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions() {
+    return this.getDefinitions(Kind.PACKAGE);
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions(final TypeString typeString) {
+    return this.getDefinitions(Kind.EXEMPLAR, typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions() {
+    return this.getDefinitions(Kind.EXEMPLAR);
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeString) {
+    return this.getDefinitions(Kind.METHOD, typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions() {
+    return this.getDefinitions(Kind.METHOD);
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions(final TypeString typeString) {
+    return this.getDefinitions(Kind.GLOBAL, typeString);
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions() {
+    return this.getDefinitions(Kind.GLOBAL);
+  }
+
+  private static String getKey(final String operator, final TypeString lhs, final TypeString rhs) {
+    return operator
+        + "_"
+        + lhs.getWithoutGenerics().getFullString()
+        + "_"
+        + rhs.getWithoutGenerics().getFullString();
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
+      final String operator, final TypeString lhs, final TypeString rhs) {
+    final String key = VersionedDefinitionKeeper.getKey(operator, lhs, rhs);
+    return this.getDefinitions(Kind.BINARY_OPERATOR, key);
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions() {
+    return this.getDefinitions(Kind.BINARY_OPERATOR);
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions(final String name) {
+    return this.getDefinitions(Kind.CONDITION, name);
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions() {
+    return this.getDefinitions(Kind.CONDITION);
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions(final TypeString typeString) {
+    return this.getDefinitions(Kind.PROCEDURE, typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions() {
+    return this.getDefinitions(Kind.PROCEDURE);
+  }
+
+  @Override
+  public Collection<MethodUsage> getMethodUsages(final String methodName) {
+    return this.version.methodUsers().get(methodName).stream()
+        .flatMap(
+            definition ->
+                VersionedDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedMethods,
+                    ProcedureDefinition::getUsedMethods))
+        .filter(usage -> usage.getMethodName().equals(methodName))
+        .toList();
+  }
+
+  @Override
+  public Collection<GlobalUsage> getGlobalUsages(final TypeString typeName) {
+    return this.version.globalUsers().get(typeName).stream()
+        .flatMap(
+            definition ->
+                VersionedDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedGlobals,
+                    ProcedureDefinition::getUsedGlobals))
+        .filter(usage -> usage.getTypeName().equals(typeName))
+        .toList();
+  }
+
+  @Override
+  public Collection<ConditionUsage> getConditionUsages(final String conditionName) {
+    return this.version.conditionUsers().get(conditionName).stream()
+        .flatMap(
+            definition ->
+                VersionedDefinitionKeeper.getUsages(
+                    definition,
+                    MethodDefinition::getUsedConditions,
+                    ProcedureDefinition::getUsedConditions))
+        .filter(usage -> usage.getConditionName().equals(conditionName))
+        .toList();
+  }
+
+  /**
+   * Search symbols in the current version. The symbol index itself is not versioned, results which
+   * are not (or no longer) part of the version are left out.
+   */
+  @Override
+  public List<IDefinition> searchSymbols(
+      final String query, final int limit, final Runnable cancelChecker) {
+    final Version currentVersion = this.version;
+    return this.symbolIndex.search(query, limit, cancelChecker).stream()
+        .filter(currentVersion::contains)
+        .toList();
+  }
+
+  @Override
+  public Collection<IDefinition> getDefinitionsByPath(final Path path) {
+    final String uriStr = path.toUri().toString();
+    final Version currentVersion = this.version;
+    return currentVersion
+        .uris()
+        .tailStream(uriStr)
+        .takeWhile(uri -> uri.startsWith(uriStr))
+        .flatMap(uri -> currentVersion.uriDefinitions().get(uri).stream())
+        .toList();
+  }
+
+  @Override
+  public TypeStringResolverCache getTypeStringResolverCache() {
+    return this.typeStringResolverCache;
+  }
+
+  /** Clear any contained {@link MagikDefinition}s. */
+  @Override
+  public void clear() {
+    this.checkWritable();
+
+    synchronized (this.writeLock) {
+      this.typeStringResolverCache.clear();
+      this.version = Version.empty();
+      this.typeStringResolverCache.clear();
+      this.symbolIndex.clear();
+      this.snapshot = new VersionedDefinitionKeeper(this);
+    }
+  }
+
+  private void checkWritable() {
+    if (this.readOnly) {
+      throw new UnsupportedOperationException("Snapshot is read only");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends IDefinition> Collection<T> getDefinitions(final Kind kind, final Object key) {
+    return (Collection<T>) (Collection<?>) this.version.getDefinitions(kind).get(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends IDefinition> Collection<T> getDefinitions(final Kind kind) {
+    return (Collection<T>) (Collection<?>) this.version.getDefinitions(kind).values();
+  }
+
+  private static <U> Stream<U> getUsages(
+      final IDefinition definition,
+      final Function<MethodDefinition, Collection<U>> methodUsagesGetter,
+      final Function<ProcedureDefinition, Collection<U>> procedureUsagesGetter) {
+    if (definition instanceof final MethodDefinition methodDefinition) {
+      return methodUsagesGetter.apply(methodDefinition).stream();
+    } else if (definition instanceof final ProcedureDefinition procedureDefinition) {
+      return procedureUsagesGetter.apply(procedureDefinition).stream();
+    }
+
+    return Stream.empty();
+  }
+}
@@ -0,0 +1,139 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Binary definition snapshot format, shared by {@link BinaryDefinitionWriter} and {@link
+ * BinaryDefinitionReader}.
+ *
+ * <p>Layout of a snapshot:
+ *
+ * <ul>
+ *   <li>Header: magic ({@code int}), version ({@code int}), section count ({@code int}).
+ *   <li>Section index: per section its id, record count ({@code int}s), offset and length ({@code
+ *       long}s).
+ *   <li>Sections: the string table, followed by one section per definition kind.
+ * </ul>
+ *
+ * <p>All strings are stored once, in the string table, and referred to by their (varint encoded)
+ * index. Locations, timestamps and counts are varint encoded as well.
+ */
+final class BinaryDefinitionFormat {
+
+  /** Section in a snapshot. The order of the values is the order in which sections are read. */
+  @SuppressWarnings("checkstyle:JavadocVariable")
+  enum Section {
+    STRINGS,
+    PRODUCT,
+    MODULE,
+    MAGIK_FILE,
+    PACKAGE,
+    TYPE,
+    GLOBAL,
+    METHOD,
+    PROCEDURE,
+    CONDITION,
+    BINARY_OPERATOR;
+  }
+
+  static final int MAGIC = 0x4d544442; // "MTDB"
+  static final int VERSION = 2;
+
+  /** Oldest version which can still be read. Version 1 lacks the size and hash of magik files. */
+  static final int MIN_VERSION = 1;
+
+  static final int HEADER_SIZE = Integer.BYTES * 3;
+  static final int SECTION_ENTRY_SIZE = Integer.BYTES * 2 + Long.BYTES * 2;
+
+  /** Reference to a {@code null} string. Other references are string table index + 1. */
+  static final int NULL_REFERENCE = 0;
+
+  private static final int VARINT_PAYLOAD_BITS = 7;
+  private static final int VARINT_PAYLOAD_MASK = 0x7f;
+  private static final int VARINT_CONTINUATION_BIT = 0x80;
+
+  private BinaryDefinitionFormat() {}
+
+  /**
+   * Write an unsigned varint.
+   *
+   * @param output Output to write to.
+   * @param value Value to write.
+   */
+  static void writeVarLong(final ByteArrayOutputStream output, final long value) {
+    long remaining = value;
+    while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+      output.write((int) (remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_BIT);
+      remaining >>>= VARINT_PAYLOAD_BITS;
+    }
+    output.write((int) remaining);
+  }
+
+  /**
+   * Write a signed varint, zigzag encoded.
+   *
+   * @param output Output to write to.
+   * @param value Value to write.
+   */
+  static void writeSignedVarLong(final ByteArrayOutputStream output, final long value) {
+    BinaryDefinitionFormat.writeVarLong(output, (value << 1) ^ (value >> (Long.SIZE - 1)));
+  }
+
+  /**
+   * Read an unsigned varint.
+   *
+   * @param buffer Buffer to read from.
+   * @return Read value.
+   */
+  static long readVarLong(final ByteBuffer buffer) {
+    long result = 0;
+    int shift = 0;
+    byte current;
+    do {
+      current = buffer.get();
+      result |= (long) (current & VARINT_PAYLOAD_MASK) << shift;
+      shift += VARINT_PAYLOAD_BITS;
+    } while ((current & VARINT_CONTINUATION_BIT) != 0);
+    return result;
+  }
+
+  /**
+   * Read an unsigned varint, which fits an {@code int}.
+   *
+   * @param buffer Buffer to read from.
+   * @return Read value.
+   */
+  static int readVarInt(final ByteBuffer buffer) {
+    return Math.toIntExact(BinaryDefinitionFormat.readVarLong(buffer));
+  }
+
+  /**
+   * Read a signed, zigzag encoded, varint.
+   *
+   * @param buffer Buffer to read from.
+   * @return Read value.
+   */
+  static long readSignedVarLong(final ByteBuffer buffer) {
+    final long value = BinaryDefinitionFormat.readVarLong(buffer);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Test if the file at {@code path} is a binary definition snapshot.
+   *
+   * @param path Path to test.
+   * @return True if the file starts with the snapshot magic, false otherwise.
+   * @throws IOException -
+   */
+  static boolean isSnapshot(final Path path) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      final byte[] bytes = inputStream.readNBytes(Integer.BYTES);
+      return bytes.length == Integer.BYTES && ByteBuffer.wrap(bytes).getInt() == MAGIC;
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.BinaryDefinitionFormat.Section;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.parser.TypeStringParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary definition snapshot reader. The snapshot is read through a memory-mapped file. See {@link
+ * BinaryDefinitionFormat} for the layout.
+ */
+public final class BinaryDefinitionReader {
+
+  /** Entry in the section index. */
+  private record SectionEntry(int count, long offset, long length) {}
+
+  /** String table of a snapshot. Type strings and URIs are parsed once, when first used. */
+  private static final class StringTable implements DefinitionDecoder.Strings {
+
+    private final String[] strings;
+    private final TypeString[] typeStrings;
+    private final URI[] uris;
+
+    private StringTable(final String[] strings) {
+      this.strings = strings;
+      this.typeStrings = new TypeString[strings.length];
+      this.uris = new URI[strings.length];
+    }
+
+    @Override
+    public String getString(final int index) {
+      return this.strings[index];
+    }
+
+    @Override
+    public TypeString getTypeString(final int index) {
+      if (this.typeStrings[index] == null) {
+        this.typeStrings[index] = TypeStringParser.parseTypeString(this.strings[index]);
+      }
+      return this.typeStrings[index];
+    }
+
+    @Override
+    public URI getUri(final int index) {
+      if (this.uris[index] == null) {
+        this.uris[index] = URI.create(this.strings[index]);
+      }
+      return this.uris[index];
+    }
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryDefinitionReader.class);
+
+  private final IDefinitionKeeper definitionKeeper;
+  private final Map<Section, SectionEntry> sectionEntries = new EnumMap<>(Section.class);
+  private String[] strings = new String[0];
+  private int version;
+
+  private BinaryDefinitionReader(final IDefinitionKeeper definitionKeeper) {
+    this.definitionKeeper = definitionKeeper;
+  }
+
+  private void run(final Path path) throws IOException {
+    LOGGER.debug("Reading binary type database from path: {}", path);
+
+    try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer =
+          fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+      this.run(buffer, path);
+    }
+  }
+
+  private void run(final ByteBuffer buffer, final Object source) throws IOException {
+    this.readHeader(buffer, source);
+    this.readStringTable(buffer);
+
+    final DefinitionDecoder decoder =
+        new DefinitionDecoder(new StringTable(this.strings), this.version);
+    final IDefinitionKeeper keeper = this.definitionKeeper;
+    this.readSection(buffer, decoder, Section.PRODUCT, decoder::readProduct, keeper::add);
+    this.readSection(buffer, decoder, Section.MODULE, decoder::readModule, keeper::add);
+    this.readSection(buffer, decoder, Section.MAGIK_FILE, decoder::readMagikFile, keeper::add);
+    this.readSection(buffer, decoder, Section.PACKAGE, decoder::readPackage, keeper::add);
+    this.readSection(buffer, decoder, Section.TYPE, decoder::readExemplar, this::addExemplar);
+    this.readSection(buffer, decoder, Section.GLOBAL, decoder::readGlobal, keeper::add);
+    this.readSection(buffer, decoder, Section.METHOD, decoder::readMethod, keeper::add);
+    this.readSection(buffer, decoder, Section.PROCEDURE, decoder::readProcedure, keeper::add);
+    this.readSection(buffer, decoder, Section.CONDITION, decoder::readCondition, keeper::add);
+    this.readSection(
+        buffer, decoder, Section.BINARY_OPERATOR, decoder::readBinaryOperator, keeper::add);
+  }
+
+  private void readHeader(final ByteBuffer buffer, final Object source) throws IOException {
+    final int magic = buffer.getInt();
+    final int version = buffer.getInt();
+    if (magic != BinaryDefinitionFormat.MAGIC
+        || version < BinaryDefinitionFormat.MIN_VERSION
+        || version > BinaryDefinitionFormat.VERSION) {
+      throw new IOException("Not a binary type database, or unsupported version: " + source);
+    }
+    this.version = version;
+
+    final int sectionCount = buffer.getInt();
+    final Section[] sections = Section.values();
+    for (int i = 0; i < sectionCount; ++i) {
+      final int sectionId = buffer.getInt();
+      final int count = buffer.getInt();
+      final long offset = buffer.getLong();
+      final long length = buffer.getLong();
+      if (sectionId < sections.length) {
+        // Skip unknown sections.
+        this.sectionEntries.put(sections[sectionId], new SectionEntry(count, offset, length));
+      }
+    }
+  }
+
+  private void readStringTable(final ByteBuffer buffer) {
+    final SectionEntry entry = this.sectionEntries.get(Section.STRINGS);
+    if (entry == null) {
+      return;
+    }
+
+    final ByteBuffer sectionBuffer = this.sliceSection(buffer, entry);
+    final int count = entry.count();
+    this.strings = new String[count];
+    for (int i = 0; i < count; ++i) {
+      final int length = BinaryDefinitionFormat.readVarInt(sectionBuffer);
+      final byte[] bytes = new byte[length];
+      sectionBuffer.get(bytes);
+      this.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  private <T> void readSection(
+      final ByteBuffer buffer,
+      final DefinitionDecoder decoder,
+      final Section section,
+      final BiFunction<ByteBuffer, Location, T> definitionReader,
+      final Consumer<T> definitionConsumer) {
+    final SectionEntry entry = this.sectionEntries.get(section);
+    if (entry == null) {
+      return;
+    }
+
+    final ByteBuffer sectionBuffer = this.sliceSection(buffer, entry);
+    for (int i = 0; i < entry.count(); ++i) {
+      final Location location = decoder.readLocation(sectionBuffer);
+      final T definition = definitionReader.apply(sectionBuffer, location);
+      definitionConsumer.accept(definition);
+    }
+  }
+
+  private ByteBuffer sliceSection(final ByteBuffer buffer, final SectionEntry entry) {
+    return buffer.slice(Math.toIntExact(entry.offset()), Math.toIntExact(entry.length()));
+  }
+
+  private void addExemplar(final ExemplarDefinition definition) {
+    // We are allowed to overwrite definitions which have no location, as these will most likely
+    // be the default definitions from DefaultDefinitionsAdder.
+    final TypeString typeString = definition.getTypeString();
+    this.definitionKeeper.getExemplarDefinitions(typeString).stream()
+        .filter(def -> def.getLocation() == null)
+        .forEach(this.definitionKeeper::remove);
+
+    this.definitionKeeper.add(definition);
+  }
+
+  /**
+   * Test if the file at {@code path} is a binary type database.
+   *
+   * @param path Path to test.
+   * @return True if the file is a binary type database, false otherwise.
+   * @throws IOException -
+   */
+  public static boolean isBinaryTypeDatabase(final Path path) throws IOException {
+    return BinaryDefinitionFormat.isSnapshot(path);
+  }
+
+  /**
+   * Read types from a binary snapshot.
+   *
+   * @param path Path to snapshot file.
+   * @param definitionKeeper {@link IDefinitionKeeper} to fill.
+   * @throws IOException -
+   */
+  public static void readTypes(final Path path, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    final BinaryDefinitionReader reader = new BinaryDefinitionReader(definitionKeeper);
+    reader.run(path);
+  }
+
+  /**
+   * Read types from a binary snapshot in a buffer, starting at its position.
+   *
+   * @param buffer Buffer containing the snapshot.
+   * @param definitionKeeper {@link IDefinitionKeeper} to fill.
+   * @throws IOException If the buffer does not contain a binary snapshot.
+   */
+  public static void readTypes(final ByteBuffer buffer, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    final BinaryDefinitionReader reader = new BinaryDefinitionReader(definitionKeeper);
+    reader.run(buffer.slice(), "buffer");
+  }
+}
@@ -0,0 +1,252 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.BinaryDefinitionFormat.Section;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Binary definition snapshot writer. See {@link BinaryDefinitionFormat} for the layout. */
+public final class BinaryDefinitionWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryDefinitionWriter.class);
+
+  private final @Nullable IDefinitionKeeper definitionKeeper;
+  private final Collection<? extends IDefinition> definitions;
+  private final Map<String, Integer> stringReferences = new HashMap<>();
+  private final List<String> strings = new ArrayList<>();
+  private final Map<Section, Integer> sectionCounts = new EnumMap<>(Section.class);
+  private final Map<Section, ByteArrayOutputStream> sectionData = new EnumMap<>(Section.class);
+  private final DefinitionEncoder encoder = new DefinitionEncoder(this::getStringReference);
+
+  private BinaryDefinitionWriter(final IDefinitionKeeper definitionKeeper) {
+    this.definitionKeeper = definitionKeeper;
+    this.definitions = Collections.emptyList();
+  }
+
+  private BinaryDefinitionWriter(final Collection<? extends IDefinition> definitions) {
+    this.definitionKeeper = null;
+    this.definitions = definitions;
+  }
+
+  private void run(final Path path) throws IOException {
+    LOGGER.debug("Writing binary type database to path: {}", path);
+
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream)) {
+      this.run(bufferedOutputStream);
+    }
+  }
+
+  private void run(final OutputStream outputStream) throws IOException {
+    this.encodeSections();
+    this.encodeStrings();
+
+    final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+    dataOutputStream.writeInt(BinaryDefinitionFormat.MAGIC);
+    dataOutputStream.writeInt(BinaryDefinitionFormat.VERSION);
+    dataOutputStream.writeInt(this.sectionData.size());
+
+    long offset =
+        BinaryDefinitionFormat.HEADER_SIZE
+            + (long) BinaryDefinitionFormat.SECTION_ENTRY_SIZE * this.sectionData.size();
+    for (final Map.Entry<Section, ByteArrayOutputStream> entry : this.sectionData.entrySet()) {
+      final Section section = entry.getKey();
+      final long length = entry.getValue().size();
+      dataOutputStream.writeInt(section.ordinal());
+      dataOutputStream.writeInt(this.sectionCounts.get(section));
+      dataOutputStream.writeLong(offset);
+      dataOutputStream.writeLong(length);
+      offset += length;
+    }
+
+    for (final ByteArrayOutputStream data : this.sectionData.values()) {
+      data.writeTo(dataOutputStream);
+    }
+    dataOutputStream.flush();
+  }
+
+  private void encodeSections() {
+    this.encodeSection(
+        Section.PRODUCT,
+        this.getDefinitions(ProductDefinition.class, IDefinitionKeeper::getProductDefinitions),
+        Comparator.comparing(ProductDefinition::getName),
+        this.encoder::writeProduct);
+    this.encodeSection(
+        Section.MODULE,
+        this.getDefinitions(ModuleDefinition.class, IDefinitionKeeper::getModuleDefinitions),
+        Comparator.comparing(ModuleDefinition::getName),
+        this.encoder::writeModule);
+    this.encodeSection(
+        Section.MAGIK_FILE,
+        this.getDefinitions(MagikFileDefinition.class, IDefinitionKeeper::getMagikFileDefinitions),
+        Comparator.comparing(MagikFileDefinition::getUri),
+        this.encoder::writeMagikFile);
+    this.encodeSection(
+        Section.PACKAGE,
+        this.getDefinitions(PackageDefinition.class, IDefinitionKeeper::getPackageDefinitions),
+        Comparator.comparing(PackageDefinition::getName),
+        this.encoder::writePackage);
+    this.encodeSection(
+        Section.TYPE,
+        this.getDefinitions(ExemplarDefinition.class, IDefinitionKeeper::getExemplarDefinitions),
+        Comparator.comparing(ExemplarDefinition::getTypeString),
+        this.encoder::writeExemplar);
+    this.encodeSection(
+        Section.GLOBAL,
+        this.getDefinitions(GlobalDefinition.class, IDefinitionKeeper::getGlobalDefinitions),
+        Comparator.comparing(GlobalDefinition::getTypeString),
+        this.encoder::writeGlobal);
+    this.encodeSection(
+        Section.METHOD,
+        this.getDefinitions(MethodDefinition.class, IDefinitionKeeper::getMethodDefinitions),
+        Comparator.comparing(MethodDefinition::getTypeName)
+            .thenComparing(MethodDefinition::getName),
+        this.encoder::writeMethod);
+    this.encodeSection(
+        Section.PROCEDURE,
+        this.getDefinitions(ProcedureDefinition.class, IDefinitionKeeper::getProcedureDefinitions),
+        Comparator.comparing(ProcedureDefinition::getTypeString),
+        this.encoder::writeProcedure);
+    this.encodeSection(
+        Section.CONDITION,
+        this.getDefinitions(ConditionDefinition.class, IDefinitionKeeper::getConditionDefinitions),
+        Comparator.comparing(ConditionDefinition::getName),
+        this.encoder::writeCondition);
+    this.encodeSection(
+        Section.BINARY_OPERATOR,
+        this.getDefinitions(
+            BinaryOperatorDefinition.class, IDefinitionKeeper::getBinaryOperatorDefinitions),
+        Comparator.comparing(BinaryOperatorDefinition::getLhsTypeName)
+            .thenComparing(BinaryOperatorDefinition::getRhsTypeName)
+            .thenComparing(BinaryOperatorDefinition::getResultTypeName),
+        this.encoder::writeBinaryOperator);
+  }
+
+  /**
+   * Get the definitions of {@code definitionClass} to write, from the {@link IDefinitionKeeper} or
+   * from the given definitions.
+   */
+  private <T extends IDefinition> Collection<T> getDefinitions(
+      final Class<T> definitionClass, final Function<IDefinitionKeeper, Collection<T>> getter) {
+    if (this.definitionKeeper != null) {
+      return getter.apply(this.definitionKeeper);
+    }
+
+    return this.definitions.stream()
+        .filter(definitionClass::isInstance)
+        .map(definitionClass::cast)
+        .toList();
+  }
+
+  private <T extends IDefinition> void encodeSection(
+      final Section section,
+      final Collection<T> definitions,
+      final Comparator<T> sorter,
+      final BiConsumer<ByteArrayOutputStream, T> definitionWriter) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    definitions.stream()
+        .sorted(sorter)
+        .forEach(
+            def -> {
+              this.encoder.writeLocation(output, def.getLocation());
+              definitionWriter.accept(output, def);
+            });
+    this.sectionCounts.put(section, definitions.size());
+    this.sectionData.put(section, output);
+  }
+
+  private void encodeStrings() {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (final String string : this.strings) {
+      final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      BinaryDefinitionFormat.writeVarLong(output, bytes.length);
+      output.writeBytes(bytes);
+    }
+    this.sectionCounts.put(Section.STRINGS, this.strings.size());
+    this.sectionData.put(Section.STRINGS, output);
+  }
+
+  private int getStringReference(final String string) {
+    return this.stringReferences.computeIfAbsent(
+        string,
+        key -> {
+          this.strings.add(key);
+          return this.strings.size();
+        });
+  }
+
+  /**
+   * Write types to a binary snapshot.
+   *
+   * @param path Path to snapshot file.
+   * @param definitionKeeper {@link IDefinitionKeeper} to dump.
+   * @throws IOException -
+   */
+  public static void write(final Path path, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    final BinaryDefinitionWriter writer = new BinaryDefinitionWriter(definitionKeeper);
+    writer.run(path);
+  }
+
+  /**
+   * Write types to a binary snapshot in memory.
+   *
+   * @param definitionKeeper {@link IDefinitionKeeper} to dump.
+   * @return Snapshot.
+   */
+  public static byte[] toBytes(final IDefinitionKeeper definitionKeeper) {
+    return BinaryDefinitionWriter.toBytes(new BinaryDefinitionWriter(definitionKeeper));
+  }
+
+  /**
+   * Write only {@code definitions} to a binary snapshot in memory.
+   *
+   * @param definitions Definitions to dump.
+   * @return Snapshot.
+   */
+  public static byte[] toBytes(final Collection<? extends IDefinition> definitions) {
+    return BinaryDefinitionWriter.toBytes(new BinaryDefinitionWriter(definitions));
+  }
+
+  private static byte[] toBytes(final BinaryDefinitionWriter writer) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      writer.run(output);
+    } catch (final IOException exception) {
+      // Not thrown by a ByteArrayOutputStream.
+      throw new UncheckedIOException(exception);
+    }
+    return output.toByteArray();
+  }
+}
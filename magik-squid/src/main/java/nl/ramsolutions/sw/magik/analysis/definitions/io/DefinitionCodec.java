@@ -0,0 +1,121 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.BinaryDefinitionFormat.Section;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+
+/**
+ * Encodes single definitions to compact records, and decodes them again.
+ *
+ * <p>A record uses the encoding of {@link BinaryDefinitionFormat}, prefixed with the kind of the
+ * definition. Strings are referred to by their id in a {@link StringDictionary}. The location of
+ * the definition itself is not part of the record, it is given when decoding. Decoded definitions
+ * are equal to the encoded definitions, but do not have a node.
+ *
+ * <p>Safe for use by multiple threads.
+ */
+public final class DefinitionCodec {
+
+  private final DefinitionEncoder encoder;
+  private final Map<Section, BiFunction<ByteBuffer, Location, IDefinition>> readers =
+      new EnumMap<>(Section.class);
+
+  /**
+   * Constructor.
+   *
+   * @param stringDictionary Dictionary to store strings in.
+   */
+  public DefinitionCodec(final StringDictionary stringDictionary) {
+    this.encoder = new DefinitionEncoder(string -> stringDictionary.getId(string) + 1);
+    final DefinitionDecoder decoder =
+        new DefinitionDecoder(stringDictionary, BinaryDefinitionFormat.VERSION);
+    this.readers.put(Section.PRODUCT, decoder::readProduct);
+    this.readers.put(Section.MODULE, decoder::readModule);
+    this.readers.put(Section.MAGIK_FILE, decoder::readMagikFile);
+    this.readers.put(Section.PACKAGE, decoder::readPackage);
+    this.readers.put(Section.TYPE, decoder::readExemplar);
+    this.readers.put(Section.GLOBAL, decoder::readGlobal);
+    this.readers.put(Section.METHOD, decoder::readMethod);
+    this.readers.put(Section.PROCEDURE, decoder::readProcedure);
+    this.readers.put(Section.CONDITION, decoder::readCondition);
+    this.readers.put(Section.BINARY_OPERATOR, decoder::readBinaryOperator);
+  }
+
+  /**
+   * Encode a definition, without its location.
+   *
+   * @param definition Definition to encode.
+   * @return Record.
+   */
+  public byte[] encode(final IDefinition definition) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    if (definition instanceof final ProductDefinition productDefinition) {
+      output.write(Section.PRODUCT.ordinal());
+      this.encoder.writeProduct(output, productDefinition);
+    } else if (definition instanceof final ModuleDefinition moduleDefinition) {
+      output.write(Section.MODULE.ordinal());
+      this.encoder.writeModule(output, moduleDefinition);
+    } else if (definition instanceof final MagikFileDefinition magikFileDefinition) {
+      output.write(Section.MAGIK_FILE.ordinal());
+      this.encoder.writeMagikFile(output, magikFileDefinition);
+    } else if (definition instanceof final PackageDefinition packageDefinition) {
+      output.write(Section.PACKAGE.ordinal());
+      this.encoder.writePackage(output, packageDefinition);
+    } else if (definition instanceof final ExemplarDefinition exemplarDefinition) {
+      output.write(Section.TYPE.ordinal());
+      this.encoder.writeExemplar(output, exemplarDefinition);
+    } else if (definition instanceof final GlobalDefinition globalDefinition) {
+      output.write(Section.GLOBAL.ordinal());
+      this.encoder.writeGlobal(output, globalDefinition);
+    } else if (definition instanceof final MethodDefinition methodDefinition) {
+      output.write(Section.METHOD.ordinal());
+      this.encoder.writeMethod(output, methodDefinition);
+    } else if (definition instanceof final ProcedureDefinition procedureDefinition) {
+      output.write(Section.PROCEDURE.ordinal());
+      this.encoder.writeProcedure(output, procedureDefinition);
+    } else if (definition instanceof final ConditionDefinition conditionDefinition) {
+      output.write(Section.CONDITION.ordinal());
+      this.encoder.writeCondition(output, conditionDefinition);
+    } else if (definition instanceof final BinaryOperatorDefinition binaryOperatorDefinition) {
+      output.write(Section.BINARY_OPERATOR.ordinal());
+      this.encoder.writeBinaryOperator(output, binaryOperatorDefinition);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * Decode a record.
+   *
+   * @param record Record to decode.
+   * @param location Location of the definition.
+   * @return Decoded definition.
+   */
+  public IDefinition decode(final byte[] record, @Nullable final Location location) {
+    final ByteBuffer buffer = ByteBuffer.wrap(record);
+    final Section section = Section.values()[buffer.get()];
+    final BiFunction<ByteBuffer, Location, IDefinition> reader = this.readers.get(section);
+    if (reader == null) {
+      throw new IllegalArgumentException("Not a definition record");
+    }
+
+    return reader.apply(buffer, location);
+  }
+}
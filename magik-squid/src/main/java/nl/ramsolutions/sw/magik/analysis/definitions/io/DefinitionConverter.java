@@ -0,0 +1,57 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+
+/**
+ * Converter between the JSON-line type database, used for interchange, and the binary snapshot,
+ * used for fast loading.
+ */
+public final class DefinitionConverter {
+
+  private DefinitionConverter() {}
+
+  /**
+   * Convert a JSON-line type database to a binary snapshot.
+   *
+   * @param jsonPath Path to JSON-line file to read.
+   * @param binaryPath Path to binary snapshot to write.
+   * @throws IOException -
+   */
+  public static void jsonToBinary(final Path jsonPath, final Path binaryPath) throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    JsonDefinitionReader.readTypes(jsonPath, definitionKeeper);
+    BinaryDefinitionWriter.write(binaryPath, definitionKeeper);
+  }
+
+  /**
+   * Convert a binary snapshot to a JSON-line type database.
+   *
+   * @param binaryPath Path to binary snapshot to read.
+   * @param jsonPath Path to JSON-line file to write.
+   * @throws IOException -
+   */
+  public static void binaryToJson(final Path binaryPath, final Path jsonPath) throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    BinaryDefinitionReader.readTypes(binaryPath, definitionKeeper);
+    JsonDefinitionWriter.write(jsonPath, definitionKeeper);
+  }
+
+  /**
+   * Read types from a type database, either a JSON-line file or a binary snapshot.
+   *
+   * @param path Path to type database.
+   * @param definitionKeeper {@link IDefinitionKeeper} to fill.
+   * @throws IOException -
+   */
+  public static void readTypes(final Path path, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    if (BinaryDefinitionReader.isBinaryTypeDatabase(path)) {
+      BinaryDefinitionReader.readTypes(path, definitionKeeper);
+    } else {
+      JsonDefinitionReader.readTypes(path, definitionKeeper);
+    }
+  }
+}
@@ -0,0 +1,450 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.SlotUsage;
+import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.moduledef.ModuleUsage;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+import nl.ramsolutions.sw.productdef.ProductUsage;
+
+/**
+ * Definition decoder, shared by {@link BinaryDefinitionReader} and {@link DefinitionCodec}. See
+ * {@link BinaryDefinitionFormat} for the encoding.
+ *
+ * <p>The {@code readXxx} methods for definitions do not read the location of the definition itself,
+ * it is given instead. Use {@link #readLocation} to read it.
+ */
+final class DefinitionDecoder {
+
+  /** Strings referred to from encoded definitions, by index (reference - 1). */
+  interface Strings {
+
+    /**
+     * Get the string at {@code index}.
+     *
+     * @param index Index of string.
+     * @return String.
+     */
+    String getString(int index);
+
+    /**
+     * Get the string at {@code index}, parsed as a {@link TypeString}.
+     *
+     * @param index Index of string.
+     * @return Parsed type string.
+     */
+    TypeString getTypeString(int index);
+
+    /**
+     * Get the string at {@code index}, as a {@link URI}.
+     *
+     * @param index Index of string.
+     * @return URI.
+     */
+    URI getUri(int index);
+  }
+
+  private final Strings strings;
+  private final int version;
+
+  /**
+   * Constructor.
+   *
+   * @param strings Strings to resolve references with.
+   * @param version Version of the format to decode.
+   */
+  DefinitionDecoder(final Strings strings, final int version) {
+    this.strings = strings;
+    this.version = version;
+  }
+
+  ProductDefinition readProduct(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String name = Objects.requireNonNull(this.readString(buffer));
+    final String parent = this.readString(buffer);
+    final String version = this.readString(buffer);
+    final String versionComment = this.readString(buffer);
+    final String title = this.readString(buffer);
+    final String description = this.readString(buffer);
+    final int usageCount = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<ProductUsage> usages = new ArrayList<>(usageCount);
+    for (int i = 0; i < usageCount; ++i) {
+      final String usageName = Objects.requireNonNull(this.readString(buffer));
+      final Location usageLocation = this.readLocation(buffer);
+      usages.add(new ProductUsage(usageName, usageLocation));
+    }
+    return new ProductDefinition(
+        location, timestamp, name, parent, version, versionComment, title, description, usages);
+  }
+
+  ModuleDefinition readModule(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String name = Objects.requireNonNull(this.readString(buffer));
+    final String product = this.readString(buffer);
+    final String baseVersion = Objects.requireNonNull(this.readString(buffer));
+    final String currentVersion = this.readString(buffer);
+    final String description = this.readString(buffer);
+    final int usageCount = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<ModuleUsage> usages = new ArrayList<>(usageCount);
+    for (int i = 0; i < usageCount; ++i) {
+      final String usageName = Objects.requireNonNull(this.readString(buffer));
+      final Location usageLocation = this.readLocation(buffer);
+      usages.add(new ModuleUsage(usageName, usageLocation));
+    }
+    return new ModuleDefinition(
+        location, timestamp, name, product, baseVersion, currentVersion, description, usages);
+  }
+
+  MagikFileDefinition readMagikFile(final ByteBuffer buffer, @Nullable final Location location) {
+    // Older (JSON) type databases might not contain a timestamp, keep it as is.
+    final Instant timestamp = this.readInstant(buffer);
+    if (this.version < 2) {
+      return new MagikFileDefinition(location, timestamp);
+    }
+
+    final Long size = this.readLong(buffer);
+    final Long contentHash = this.readLong(buffer);
+    return new MagikFileDefinition(location, timestamp, size, contentHash);
+  }
+
+  PackageDefinition readPackage(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final String name = Objects.requireNonNull(this.readString(buffer));
+    final List<String> uses = this.readStrings(buffer);
+    return new PackageDefinition(location, timestamp, moduleName, doc, null, name, uses);
+  }
+
+  ExemplarDefinition readExemplar(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final ExemplarDefinition.Sort sort =
+        ExemplarDefinition.Sort.values()[BinaryDefinitionFormat.readVarInt(buffer)];
+    final TypeString typeString = this.readTypeString(buffer);
+    final int slotCount = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<SlotDefinition> slots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; ++i) {
+      final Location slotLocation = this.readLocation(buffer);
+      final Instant slotTimestamp = this.readInstant(buffer);
+      final String slotModuleName = this.readString(buffer);
+      final String slotDoc = this.readString(buffer);
+      final String slotName = Objects.requireNonNull(this.readString(buffer));
+      final TypeString slotTypeString = this.readTypeString(buffer);
+      slots.add(
+          new SlotDefinition(
+              slotLocation,
+              slotTimestamp,
+              slotModuleName,
+              slotDoc,
+              null,
+              slotName,
+              slotTypeString));
+    }
+    final List<TypeString> parents = this.readTypeStrings(buffer);
+    final Set<String> topics = new HashSet<>(this.readStrings(buffer));
+    return new ExemplarDefinition(
+        location, timestamp, moduleName, doc, null, sort, typeString, slots, parents, topics);
+  }
+
+  GlobalDefinition readGlobal(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final TypeString typeString = this.readTypeString(buffer);
+    final TypeString aliasedTypeString = this.readTypeString(buffer);
+    return new GlobalDefinition(
+        location, timestamp, moduleName, doc, null, typeString, aliasedTypeString);
+  }
+
+  MethodDefinition readMethod(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final TypeString typeString = this.readTypeString(buffer);
+    final String methodName = Objects.requireNonNull(this.readString(buffer));
+    final Set<MethodDefinition.Modifier> modifiers =
+        this.readEnums(buffer, MethodDefinition.Modifier.values());
+    final List<ParameterDefinition> parameters = this.readParameters(buffer);
+    final ParameterDefinition assignmentParameter =
+        buffer.get() != 0 ? this.readParameter(buffer) : null;
+    final Set<String> topics = new HashSet<>(this.readStrings(buffer));
+    final ExpressionResultString returnTypes = this.readExpressionResultString(buffer);
+    final ExpressionResultString loopTypes = this.readExpressionResultString(buffer);
+    final List<GlobalUsage> usedGlobals = this.readGlobalUsages(buffer);
+    final List<MethodUsage> usedMethods = this.readMethodUsages(buffer);
+    final int slotUsageCount = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<SlotUsage> usedSlots = new ArrayList<>(slotUsageCount);
+    for (int i = 0; i < slotUsageCount; ++i) {
+      final String slotName = Objects.requireNonNull(this.readString(buffer));
+      final Location usageLocation = this.readLocation(buffer);
+      usedSlots.add(new SlotUsage(slotName, usageLocation, null));
+    }
+    final List<ConditionUsage> usedConditions = this.readConditionUsages(buffer);
+    return new MethodDefinition(
+        location,
+        timestamp,
+        moduleName,
+        doc,
+        null,
+        typeString,
+        methodName,
+        modifiers,
+        parameters,
+        assignmentParameter,
+        topics,
+        returnTypes,
+        loopTypes,
+        usedGlobals,
+        usedMethods,
+        usedSlots,
+        usedConditions);
+  }
+
+  ProcedureDefinition readProcedure(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final Set<ProcedureDefinition.Modifier> modifiers =
+        this.readEnums(buffer, ProcedureDefinition.Modifier.values());
+    final TypeString typeString = this.readTypeString(buffer);
+    final String procedureName = this.readString(buffer);
+    final List<ParameterDefinition> parameters = this.readParameters(buffer);
+    final ExpressionResultString returnTypes = this.readExpressionResultString(buffer);
+    final ExpressionResultString loopTypes = this.readExpressionResultString(buffer);
+    final Set<GlobalUsage> usedGlobals = new HashSet<>(this.readGlobalUsages(buffer));
+    final Set<MethodUsage> usedMethods = new HashSet<>(this.readMethodUsages(buffer));
+    final Set<ConditionUsage> usedConditions = new HashSet<>(this.readConditionUsages(buffer));
+    return new ProcedureDefinition(
+        location,
+        timestamp,
+        moduleName,
+        doc,
+        null,
+        modifiers,
+        typeString,
+        procedureName,
+        parameters,
+        returnTypes,
+        loopTypes,
+        usedGlobals,
+        usedMethods,
+        usedConditions);
+  }
+
+  ConditionDefinition readCondition(final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final String name = Objects.requireNonNull(this.readString(buffer));
+    final String parent = this.readString(buffer);
+    final List<String> dataNames = this.readStrings(buffer);
+    return new ConditionDefinition(
+        location, timestamp, moduleName, doc, null, name, parent, dataNames);
+  }
+
+  BinaryOperatorDefinition readBinaryOperator(
+      final ByteBuffer buffer, @Nullable final Location location) {
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final String operator = Objects.requireNonNull(this.readString(buffer));
+    final TypeString lhsTypeString = this.readTypeString(buffer);
+    final TypeString rhsTypeString = this.readTypeString(buffer);
+    final TypeString resultTypeString = this.readTypeString(buffer);
+    return new BinaryOperatorDefinition(
+        location,
+        timestamp,
+        moduleName,
+        doc,
+        null,
+        operator,
+        lhsTypeString,
+        rhsTypeString,
+        resultTypeString);
+  }
+
+  private List<ParameterDefinition> readParameters(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<ParameterDefinition> parameters = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      parameters.add(this.readParameter(buffer));
+    }
+    return parameters;
+  }
+
+  private ParameterDefinition readParameter(final ByteBuffer buffer) {
+    final Location location = this.readLocation(buffer);
+    final Instant timestamp = this.readInstant(buffer);
+    final String moduleName = this.readString(buffer);
+    final String doc = this.readString(buffer);
+    final String name = Objects.requireNonNull(this.readString(buffer));
+    final ParameterDefinition.Modifier modifier =
+        ParameterDefinition.Modifier.values()[BinaryDefinitionFormat.readVarInt(buffer)];
+    final TypeString typeString = this.readTypeString(buffer);
+    return new ParameterDefinition(
+        location, timestamp, moduleName, doc, null, name, modifier, typeString);
+  }
+
+  private List<GlobalUsage> readGlobalUsages(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<GlobalUsage> usages = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final TypeString typeString = this.readTypeString(buffer);
+      final Location location = this.readLocation(buffer);
+      usages.add(new GlobalUsage(typeString, location, null));
+    }
+    return usages;
+  }
+
+  private List<MethodUsage> readMethodUsages(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<MethodUsage> usages = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final TypeString typeString = this.readTypeString(buffer);
+      final String methodName = Objects.requireNonNull(this.readString(buffer));
+      final Location location = this.readLocation(buffer);
+      usages.add(new MethodUsage(typeString, methodName, location, null));
+    }
+    return usages;
+  }
+
+  private List<ConditionUsage> readConditionUsages(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<ConditionUsage> usages = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final String conditionName = Objects.requireNonNull(this.readString(buffer));
+      final Location location = this.readLocation(buffer);
+      usages.add(new ConditionUsage(conditionName, location, null));
+    }
+    return usages;
+  }
+
+  private ExpressionResultString readExpressionResultString(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    if (count == 0) {
+      return ExpressionResultString.UNDEFINED;
+    }
+
+    final List<TypeString> types = new ArrayList<>(count - 1);
+    for (int i = 0; i < count - 1; ++i) {
+      types.add(this.readTypeString(buffer));
+    }
+    return new ExpressionResultString(types);
+  }
+
+  @CheckForNull
+  Location readLocation(final ByteBuffer buffer) {
+    final int reference = BinaryDefinitionFormat.readVarInt(buffer);
+    if (reference == BinaryDefinitionFormat.NULL_REFERENCE) {
+      return null;
+    }
+
+    final URI uri = this.strings.getUri(reference - 1);
+    if (buffer.get() == 0) {
+      return new Location(uri);
+    }
+
+    final int startLine = (int) BinaryDefinitionFormat.readSignedVarLong(buffer);
+    final int startColumn = (int) BinaryDefinitionFormat.readSignedVarLong(buffer);
+    final int endLine = startLine + (int) BinaryDefinitionFormat.readSignedVarLong(buffer);
+    final int endColumn = (int) BinaryDefinitionFormat.readSignedVarLong(buffer);
+    final Range range =
+        new Range(new Position(startLine, startColumn), new Position(endLine, endColumn));
+    return new Location(uri, range);
+  }
+
+  @CheckForNull
+  private Instant readInstant(final ByteBuffer buffer) {
+    if (buffer.get() == 0) {
+      return null;
+    }
+
+    final long seconds = BinaryDefinitionFormat.readSignedVarLong(buffer);
+    final long nanos = BinaryDefinitionFormat.readVarLong(buffer);
+    return Instant.ofEpochSecond(seconds, nanos);
+  }
+
+  @CheckForNull
+  private Long readLong(final ByteBuffer buffer) {
+    if (buffer.get() == 0) {
+      return null;
+    }
+
+    return BinaryDefinitionFormat.readVarLong(buffer);
+  }
+
+  private <E extends Enum<E>> Set<E> readEnums(final ByteBuffer buffer, final E[] values) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final Set<E> result = new HashSet<>();
+    for (int i = 0; i < count; ++i) {
+      result.add(values[BinaryDefinitionFormat.readVarInt(buffer)]);
+    }
+    return result;
+  }
+
+  private List<TypeString> readTypeStrings(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<TypeString> result = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      result.add(this.readTypeString(buffer));
+    }
+    return result;
+  }
+
+  private List<String> readStrings(final ByteBuffer buffer) {
+    final int count = BinaryDefinitionFormat.readVarInt(buffer);
+    final List<String> result = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      result.add(Objects.requireNonNull(this.readString(buffer)));
+    }
+    return result;
+  }
+
+  private TypeString readTypeString(final ByteBuffer buffer) {
+    final int reference = BinaryDefinitionFormat.readVarInt(buffer);
+    if (reference == BinaryDefinitionFormat.NULL_REFERENCE) {
+      return TypeString.UNDEFINED;
+    }
+
+    return this.strings.getTypeString(reference - 1);
+  }
+
+  @CheckForNull
+  private String readString(final ByteBuffer buffer) {
+    final int reference = BinaryDefinitionFormat.readVarInt(buffer);
+    if (reference == BinaryDefinitionFormat.NULL_REFERENCE) {
+      return null;
+    }
+
+    return this.strings.getString(reference - 1);
+  }
+}
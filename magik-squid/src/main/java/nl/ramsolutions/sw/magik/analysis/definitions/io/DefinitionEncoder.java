@@ -0,0 +1,302 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.SlotUsage;
+import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.moduledef.ModuleUsage;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+import nl.ramsolutions.sw.productdef.ProductUsage;
+
+/**
+ * Definition encoder, shared by {@link BinaryDefinitionWriter} and {@link DefinitionCodec}. See
+ * {@link BinaryDefinitionFormat} for the encoding.
+ *
+ * <p>The {@code writeXxx} methods for definitions do not write the location of the definition
+ * itself, use {@link #writeLocation} for that. Strings are written as references, as given by the
+ * string references function.
+ */
+final class DefinitionEncoder {
+
+  private final ToIntFunction<String> stringReferences;
+
+  /**
+   * Constructor.
+   *
+   * @param stringReferences Function to get the reference of a (non-null) string.
+   */
+  DefinitionEncoder(final ToIntFunction<String> stringReferences) {
+    this.stringReferences = stringReferences;
+  }
+
+  void writeProduct(final ByteArrayOutputStream output, final ProductDefinition definition) {
+    this.writeInstant(output, definition.getTimestamp());
+    this.writeString(output, definition.getName());
+    this.writeString(output, definition.getParent());
+    this.writeString(output, definition.getVersion());
+    this.writeString(output, definition.getVersionComment());
+    this.writeString(output, definition.getTitle());
+    this.writeString(output, definition.getDescription());
+    BinaryDefinitionFormat.writeVarLong(output, definition.getUsages().size());
+    for (final ProductUsage usage : definition.getUsages()) {
+      this.writeString(output, usage.getName());
+      this.writeLocation(output, usage.getLocation());
+    }
+  }
+
+  void writeModule(final ByteArrayOutputStream output, final ModuleDefinition definition) {
+    this.writeInstant(output, definition.getTimestamp());
+    this.writeString(output, definition.getName());
+    this.writeString(output, definition.getProduct());
+    this.writeString(output, definition.getBaseVersion());
+    this.writeString(output, definition.getCurrentVersion());
+    this.writeString(output, definition.getDescription());
+    BinaryDefinitionFormat.writeVarLong(output, definition.getUsages().size());
+    for (final ModuleUsage usage : definition.getUsages()) {
+      this.writeString(output, usage.getName());
+      this.writeLocation(output, usage.getLocation());
+    }
+  }
+
+  void writeMagikFile(final ByteArrayOutputStream output, final MagikFileDefinition definition) {
+    this.writeInstant(output, definition.getTimestamp());
+    this.writeLong(output, definition.getSize());
+    this.writeLong(output, definition.getContentHash());
+  }
+
+  void writePackage(final ByteArrayOutputStream output, final PackageDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeString(output, definition.getName());
+    this.writeStrings(output, definition.getUses());
+  }
+
+  void writeExemplar(final ByteArrayOutputStream output, final ExemplarDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    BinaryDefinitionFormat.writeVarLong(output, definition.getSort().ordinal());
+    this.writeTypeString(output, definition.getTypeString());
+    BinaryDefinitionFormat.writeVarLong(output, definition.getSlots().size());
+    for (final SlotDefinition slot : definition.getSlots()) {
+      this.writeMagikDefinition(output, slot);
+      this.writeString(output, slot.getName());
+      this.writeTypeString(output, slot.getTypeName());
+    }
+    BinaryDefinitionFormat.writeVarLong(output, definition.getParents().size());
+    definition.getParents().forEach(parent -> this.writeTypeString(output, parent));
+    this.writeStrings(output, definition.getTopics());
+  }
+
+  void writeGlobal(final ByteArrayOutputStream output, final GlobalDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeTypeString(output, definition.getTypeString());
+    this.writeTypeString(output, definition.getAliasedTypeName());
+  }
+
+  void writeMethod(final ByteArrayOutputStream output, final MethodDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeTypeString(output, definition.getTypeName());
+    this.writeString(output, definition.getMethodName());
+    this.writeEnums(output, definition.getModifiers());
+    this.writeParameters(output, definition.getParameters());
+    final ParameterDefinition assignmentParameter = definition.getAssignmentParameter();
+    output.write(assignmentParameter != null ? 1 : 0);
+    if (assignmentParameter != null) {
+      this.writeParameter(output, assignmentParameter);
+    }
+    this.writeStrings(output, definition.getTopics());
+    this.writeExpressionResultString(output, definition.getReturnTypes());
+    this.writeExpressionResultString(output, definition.getLoopTypes());
+    this.writeGlobalUsages(output, definition.getUsedGlobals());
+    this.writeMethodUsages(output, definition.getUsedMethods());
+    BinaryDefinitionFormat.writeVarLong(output, definition.getUsedSlots().size());
+    for (final SlotUsage usage : definition.getUsedSlots()) {
+      this.writeString(output, usage.getSlotName());
+      this.writeLocation(output, usage.getLocation());
+    }
+    this.writeConditionUsages(output, definition.getUsedConditions());
+  }
+
+  void writeProcedure(final ByteArrayOutputStream output, final ProcedureDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeEnums(output, definition.getModifiers());
+    this.writeTypeString(output, definition.getTypeString());
+    this.writeString(output, definition.getProcedureName());
+    this.writeParameters(output, definition.getParameters());
+    this.writeExpressionResultString(output, definition.getReturnTypes());
+    this.writeExpressionResultString(output, definition.getLoopTypes());
+    this.writeGlobalUsages(output, definition.getUsedGlobals());
+    this.writeMethodUsages(output, definition.getUsedMethods());
+    this.writeConditionUsages(output, definition.getUsedConditions());
+  }
+
+  void writeCondition(final ByteArrayOutputStream output, final ConditionDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeString(output, definition.getName());
+    this.writeString(output, definition.getParent());
+    this.writeStrings(output, definition.getDataNames());
+  }
+
+  void writeBinaryOperator(
+      final ByteArrayOutputStream output, final BinaryOperatorDefinition definition) {
+    this.writeMagikDefinitionFields(output, definition);
+    this.writeString(output, definition.getOperator());
+    this.writeTypeString(output, definition.getLhsTypeName());
+    this.writeTypeString(output, definition.getRhsTypeName());
+    this.writeTypeString(output, definition.getResultTypeName());
+  }
+
+  private void writeMagikDefinition(
+      final ByteArrayOutputStream output, final MagikDefinition definition) {
+    this.writeLocation(output, definition.getLocation());
+    this.writeMagikDefinitionFields(output, definition);
+  }
+
+  private void writeMagikDefinitionFields(
+      final ByteArrayOutputStream output, final MagikDefinition definition) {
+    this.writeInstant(output, definition.getTimestamp());
+    this.writeString(output, definition.getModuleName());
+    this.writeString(output, definition.getDoc());
+  }
+
+  private void writeParameters(
+      final ByteArrayOutputStream output, final List<ParameterDefinition> parameters) {
+    BinaryDefinitionFormat.writeVarLong(output, parameters.size());
+    parameters.forEach(parameter -> this.writeParameter(output, parameter));
+  }
+
+  private void writeParameter(
+      final ByteArrayOutputStream output, final ParameterDefinition parameter) {
+    this.writeMagikDefinition(output, parameter);
+    this.writeString(output, parameter.getName());
+    BinaryDefinitionFormat.writeVarLong(output, parameter.getModifier().ordinal());
+    this.writeTypeString(output, parameter.getTypeName());
+  }
+
+  private void writeGlobalUsages(
+      final ByteArrayOutputStream output, final Collection<GlobalUsage> usages) {
+    BinaryDefinitionFormat.writeVarLong(output, usages.size());
+    for (final GlobalUsage usage : usages) {
+      this.writeTypeString(output, usage.getTypeName());
+      this.writeLocation(output, usage.getLocation());
+    }
+  }
+
+  private void writeMethodUsages(
+      final ByteArrayOutputStream output, final Collection<MethodUsage> usages) {
+    BinaryDefinitionFormat.writeVarLong(output, usages.size());
+    for (final MethodUsage usage : usages) {
+      this.writeTypeString(output, usage.getTypeName());
+      this.writeString(output, usage.getMethodName());
+      this.writeLocation(output, usage.getLocation());
+    }
+  }
+
+  private void writeConditionUsages(
+      final ByteArrayOutputStream output, final Collection<ConditionUsage> usages) {
+    BinaryDefinitionFormat.writeVarLong(output, usages.size());
+    for (final ConditionUsage usage : usages) {
+      this.writeString(output, usage.getConditionName());
+      this.writeLocation(output, usage.getLocation());
+    }
+  }
+
+  private void writeExpressionResultString(
+      final ByteArrayOutputStream output, final ExpressionResultString expressionResultString) {
+    if (expressionResultString == ExpressionResultString.UNDEFINED) {
+      BinaryDefinitionFormat.writeVarLong(output, 0);
+      return;
+    }
+
+    final List<TypeString> types = expressionResultString.getTypes();
+    BinaryDefinitionFormat.writeVarLong(output, types.size() + 1L);
+    types.forEach(type -> this.writeTypeString(output, type));
+  }
+
+  void writeLocation(final ByteArrayOutputStream output, final @Nullable Location location) {
+    if (location == null) {
+      this.writeString(output, null);
+      return;
+    }
+
+    this.writeString(output, location.getUri().toString());
+    final Range range = location.getRange();
+    output.write(range != null ? 1 : 0);
+    if (range != null) {
+      final Position startPosition = range.getStartPosition();
+      final Position endPosition = range.getEndPosition();
+      BinaryDefinitionFormat.writeSignedVarLong(output, startPosition.getLine());
+      BinaryDefinitionFormat.writeSignedVarLong(output, startPosition.getColumn());
+      BinaryDefinitionFormat.writeSignedVarLong(
+          output, endPosition.getLine() - (long) startPosition.getLine());
+      BinaryDefinitionFormat.writeSignedVarLong(output, endPosition.getColumn());
+    }
+  }
+
+  private void writeInstant(final ByteArrayOutputStream output, final @Nullable Instant instant) {
+    output.write(instant != null ? 1 : 0);
+    if (instant != null) {
+      BinaryDefinitionFormat.writeSignedVarLong(output, instant.getEpochSecond());
+      BinaryDefinitionFormat.writeVarLong(output, instant.getNano());
+    }
+  }
+
+  private void writeLong(final ByteArrayOutputStream output, final @Nullable Long value) {
+    output.write(value != null ? 1 : 0);
+    if (value != null) {
+      BinaryDefinitionFormat.writeVarLong(output, value);
+    }
+  }
+
+  private void writeEnums(
+      final ByteArrayOutputStream output, final Collection<? extends Enum<?>> values) {
+    BinaryDefinitionFormat.writeVarLong(output, values.size());
+    values.stream()
+        .mapToInt(Enum::ordinal)
+        .sorted()
+        .forEach(ordinal -> BinaryDefinitionFormat.writeVarLong(output, ordinal));
+  }
+
+  private void writeStrings(final ByteArrayOutputStream output, final Collection<String> values) {
+    BinaryDefinitionFormat.writeVarLong(output, values.size());
+    // Lists are ordered (e.g., condition data names), other collections are sorted for stability.
+    final Stream<String> stream =
+        values instanceof List ? values.stream() : values.stream().sorted();
+    stream.forEach(value -> this.writeString(output, value));
+  }
+
+  private void writeTypeString(final ByteArrayOutputStream output, final TypeString typeString) {
+    this.writeString(output, typeString.getFullString());
+  }
+
+  private void writeString(final ByteArrayOutputStream output, final @Nullable String string) {
+    if (string == null) {
+      BinaryDefinitionFormat.writeVarLong(output, BinaryDefinitionFormat.NULL_REFERENCE);
+      return;
+    }
+
+    BinaryDefinitionFormat.writeVarLong(output, this.stringReferences.applyAsInt(string));
+  }
+}
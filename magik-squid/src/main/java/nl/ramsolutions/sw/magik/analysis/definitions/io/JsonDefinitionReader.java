@@ -11,6 +11,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
@@ -19,9 +20,14 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
@@ -208,96 +214,93 @@ public final class JsonDefinitionReader {
   }
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JsonDefinitionReader.class);
+  private static final int BATCH_SIZE = 1024;
+  private static final Map<Instruction, Class<? extends IDefinition>> INSTRUCTION_CLASSES =
+      Map.of(
+          Instruction.PRODUCT, ProductDefinition.class,
+          Instruction.MODULE, ModuleDefinition.class,
+          Instruction.MAGIK_FILE, MagikFileDefinition.class,
+          Instruction.PACKAGE, PackageDefinition.class,
+          Instruction.TYPE, ExemplarDefinition.class,
+          Instruction.METHOD, MethodDefinition.class,
+          Instruction.PROCEDURE, ProcedureDefinition.class,
+          Instruction.CONDITION, ConditionDefinition.class,
+          Instruction.BINARY_OPERATOR, BinaryOperatorDefinition.class,
+          Instruction.GLOBAL, GlobalDefinition.class);
 
   private final IDefinitionKeeper definitionKeeper;
+  private final Gson gson;
 
   private JsonDefinitionReader(final IDefinitionKeeper definitionKeeper) {
     this.definitionKeeper = definitionKeeper;
+    this.gson = this.buildGson();
   }
 
   private void run(final Path path) throws IOException {
     LOGGER.debug("Reading type database from path: {}", path);
 
+    // Lines are parsed in parallel, in batches. The parsed definitions are added in line order,
+    // as later lines can overwrite earlier definitions.
     final File file = path.toFile();
     int lineNo = 1;
+    final List<String> batch = new ArrayList<>(BATCH_SIZE);
     try (FileReader fileReader = new FileReader(file, StandardCharsets.ISO_8859_1);
         BufferedReader bufferedReader = new BufferedReader(fileReader)) {
       String line = bufferedReader.readLine();
       while (line != null) {
-        this.processLineSafe(lineNo, line);
+        batch.add(line);
+        if (batch.size() == BATCH_SIZE) {
+          this.processLines(lineNo, batch);
+          lineNo += batch.size();
+          batch.clear();
+        }
 
-        ++lineNo;
         line = bufferedReader.readLine();
       }
-    } catch (final JsonParseException exception) {
-      LOGGER.error("JSON Error reading line no: {}", lineNo);
-      throw new IllegalStateException(exception);
     }
+
+    this.processLines(lineNo, batch);
+  }
+
+  private void processLines(final int firstLineNo, final List<String> lines) {
+    IntStream.range(0, lines.size())
+        .parallel()
+        .mapToObj(i -> this.processLineSafe(firstLineNo + i, lines.get(i)))
+        .toList()
+        .stream()
+        .filter(Objects::nonNull)
+        .forEach(this::addDefinition);
   }
 
+  @CheckForNull
   @SuppressWarnings("checkstyle:IllegalCatch")
-  private void processLineSafe(final int lineNo, final String line) {
+  private IDefinition processLineSafe(final int lineNo, final String line) {
     try {
-      this.processLine(line);
+      return this.processLine(line);
     } catch (final RuntimeException exception) {
       LOGGER.error("Error parsing line {}, line data: {}", lineNo, line);
       LOGGER.error(exception.getMessage(), exception);
     }
+
+    return null;
   }
 
-  private void processLine(final String line) {
+  @CheckForNull
+  private IDefinition processLine(final String line) {
     if (line.trim().startsWith("//")) {
       // Ignore comments.
-      return;
+      return null;
     }
 
     final JsonObject obj = JsonParser.parseString(line).getAsJsonObject();
     final String instructionStr = obj.get(Instruction.INSTRUCTION.getValue()).getAsString();
     final Instruction instruction = Instruction.fromValue(instructionStr);
-    switch (instruction) {
-      case PRODUCT:
-        this.handleProduct(obj);
-        break;
-
-      case MODULE:
-        this.handleModule(obj);
-        break;
-
-      case MAGIK_FILE:
-        this.handleMagikFile(obj);
-        break;
-
-      case PACKAGE:
-        this.handlePackage(obj);
-        break;
-
-      case TYPE:
-        this.handleType(obj);
-        break;
-
-      case METHOD:
-        this.handleMethod(obj);
-        break;
-
-      case PROCEDURE:
-        this.handleProcedure(obj);
-        break;
-
-      case CONDITION:
-        this.handleCondition(obj);
-        break;
-
-      case BINARY_OPERATOR:
-        this.handleBinaryOperator(obj);
-        break;
-
-      case GLOBAL:
-        this.handleGlobal(obj);
-        break;
-
-      default:
-        break;
+    final Class<? extends IDefinition> definitionClass = INSTRUCTION_CLASSES.get(instruction);
+    if (definitionClass == null) {
+      return null;
     }
+
+    return this.gson.fromJson(obj, definitionClass);
   }
 
   private Gson buildGson() {
@@ -325,72 +328,16 @@ public final class JsonDefinitionReader {
         .create();
   }
 
-  private void handleProduct(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final ProductDefinition definition = gson.fromJson(instruction, ProductDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleModule(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final ModuleDefinition definition = gson.fromJson(instruction, ModuleDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleMagikFile(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final MagikFileDefinition definition = gson.fromJson(instruction, MagikFileDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handlePackage(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final PackageDefinition definition = gson.fromJson(instruction, PackageDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleType(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final ExemplarDefinition definition = gson.fromJson(instruction, ExemplarDefinition.class);
-
-    // We are allowed to overwrite definitions which have no location, as these will most likely
-    // be the default definitions from DefaultDefinitionsAdder.
-    final TypeString typeString = definition.getTypeString();
-    this.definitionKeeper.getExemplarDefinitions(typeString).stream()
-        .filter(def -> def.getLocation() == null)
-        .forEach(this.definitionKeeper::remove);
-
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleMethod(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final MethodDefinition definition = gson.fromJson(instruction, MethodDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleCondition(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final ConditionDefinition definition = gson.fromJson(instruction, ConditionDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleBinaryOperator(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final BinaryOperatorDefinition definition =
-        gson.fromJson(instruction, BinaryOperatorDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
-
-  private void handleProcedure(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final ProcedureDefinition definition = gson.fromJson(instruction, ProcedureDefinition.class);
-    this.definitionKeeper.add(definition);
-  }
+  private void addDefinition(final IDefinition definition) {
+    if (definition instanceof ExemplarDefinition exemplarDefinition) {
+      // We are allowed to overwrite definitions which have no location, as these will most likely
+      // be the default definitions from DefaultDefinitionsAdder.
+      final TypeString typeString = exemplarDefinition.getTypeString();
+      this.definitionKeeper.getExemplarDefinitions(typeString).stream()
+          .filter(def -> def.getLocation() == null)
+          .forEach(this.definitionKeeper::remove);
+    }
 
-  private void handleGlobal(final JsonObject instruction) {
-    final Gson gson = this.buildGson();
-    final GlobalDefinition definition = gson.fromJson(instruction, GlobalDefinition.class);
     this.definitionKeeper.add(definition);
   }
 
@@ -1,5 +1,7 @@
 package nl.ramsolutions.sw.magik.analysis.definitions.io;
 
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -9,6 +11,8 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
@@ -18,7 +22,9 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Set;
 import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
@@ -92,12 +98,36 @@ public final class JsonDefinitionWriter {
     }
   }
 
+  /** Excludes the fields which do not describe types, such as locations and usages. */
+  private static final class NonTypeFieldsExclusionStrategy implements ExclusionStrategy {
+
+    private static final Set<String> NON_TYPE_FIELDS =
+        Set.of(
+            "location", "timestamp", "usedGlobals", "usedMethods", "usedSlots", "usedConditions");
+
+    @Override
+    public boolean shouldSkipField(final FieldAttributes fieldAttributes) {
+      return NON_TYPE_FIELDS.contains(fieldAttributes.getName());
+    }
+
+    @Override
+    public boolean shouldSkipClass(final Class<?> clazz) {
+      return false;
+    }
+  }
+
   private static final Logger LOGGER = LoggerFactory.getLogger(JsonDefinitionWriter.class);
 
   private final IDefinitionKeeper definitionKeeper;
+  private final boolean typesOnly;
+  private final Gson gson;
+  private final TypeAdapter<JsonElement> elementAdapter;
 
-  private JsonDefinitionWriter(final IDefinitionKeeper definitionKeeper) {
+  private JsonDefinitionWriter(final IDefinitionKeeper definitionKeeper, final boolean typesOnly) {
     this.definitionKeeper = definitionKeeper;
+    this.typesOnly = typesOnly;
+    this.gson = this.buildGson();
+    this.elementAdapter = this.gson.getAdapter(JsonElement.class);
   }
 
   private void run(final Path path) throws IOException {
@@ -106,21 +136,37 @@ public final class JsonDefinitionWriter {
     final File file = path.toFile();
     try (FileWriter fileReader = new FileWriter(file, StandardCharsets.ISO_8859_1);
         BufferedWriter bufferedWriter = new BufferedWriter(fileReader)) {
-      this.writeProducts(bufferedWriter);
-      this.writeModules(bufferedWriter);
-      this.writeMagikFiles(bufferedWriter);
-      this.writePackages(bufferedWriter);
-      this.writeExemplars(bufferedWriter);
-      this.writeGlobals(bufferedWriter);
-      this.writeMethods(bufferedWriter);
-      this.writeProcedures(bufferedWriter);
-      this.writeConditions(bufferedWriter);
-      this.writeBinaryOperators(bufferedWriter);
+      this.run(bufferedWriter);
+    }
+  }
+
+  private void run(final Writer writer) throws IOException {
+    // Lenient, to allow one top-level value per line.
+    final JsonWriter jsonWriter = new JsonWriter(writer);
+    jsonWriter.setLenient(true);
+
+    if (!this.typesOnly) {
+      this.writeProducts(writer, jsonWriter);
+      this.writeModules(writer, jsonWriter);
+      this.writeMagikFiles(writer, jsonWriter);
     }
+    this.writePackages(writer, jsonWriter);
+    this.writeExemplars(writer, jsonWriter);
+    this.writeGlobals(writer, jsonWriter);
+    this.writeMethods(writer, jsonWriter);
+    this.writeProcedures(writer, jsonWriter);
+    this.writeConditions(writer, jsonWriter);
+    this.writeBinaryOperators(writer, jsonWriter);
+    jsonWriter.flush();
   }
 
   private Gson buildGson() {
-    return new GsonBuilder()
+    final GsonBuilder builder = new GsonBuilder();
+    if (this.typesOnly) {
+      builder.setExclusionStrategies(new NonTypeFieldsExclusionStrategy());
+    }
+
+    return builder
         .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
         .registerTypeAdapter(TypeString.class, new TypeStringSerializer())
         .registerTypeAdapter(ExpressionResultString.class, new ExpressionResultStringSerializer())
@@ -139,137 +185,123 @@ public final class JsonDefinitionWriter {
         .create();
   }
 
-  private void writeInstruction(final Writer writer, final JsonElement instruction) {
-    final String instructionStr = instruction.toString();
+  private <T> void writeDefinitions(
+      final Writer writer,
+      final JsonWriter jsonWriter,
+      final Collection<T> definitions,
+      final Comparator<T> sorter,
+      final Instruction instructionType) {
+    definitions.stream()
+        .sorted(sorter)
+        .forEach(
+            definition -> {
+              final JsonObject instruction = (JsonObject) this.gson.toJsonTree(definition);
+              instruction.addProperty(
+                  Instruction.INSTRUCTION.getValue(), instructionType.getValue());
+              this.writeInstruction(writer, jsonWriter, instruction);
+            });
+  }
+
+  private void writeInstruction(
+      final Writer writer, final JsonWriter jsonWriter, final JsonElement instruction) {
     try {
-      writer.write(instructionStr);
+      // The JsonWriter does not buffer, so the newline can be written directly to the writer.
+      this.elementAdapter.write(jsonWriter, instruction);
       writer.write("\n");
     } catch (final IOException exception) {
       LOGGER.error("Caught exception writing instruction", exception);
     }
   }
 
-  private void writeProducts(final Writer writer) {
+  private void writeProducts(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<ProductDefinition> sorter = Comparator.comparing(ProductDefinition::getName);
-    this.definitionKeeper.getProductDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.PRODUCT.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getProductDefinitions(),
+        sorter,
+        Instruction.PRODUCT);
   }
 
-  private void writeModules(final Writer writer) {
+  private void writeModules(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<ModuleDefinition> sorter = Comparator.comparing(ModuleDefinition::getName);
-    this.definitionKeeper.getModuleDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.MODULE.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getModuleDefinitions(),
+        sorter,
+        Instruction.MODULE);
   }
 
-  private void writeMagikFiles(final Writer writer) {
+  private void writeMagikFiles(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<MagikFileDefinition> sorter =
         Comparator.comparing(MagikFileDefinition::getUri);
-    this.definitionKeeper.getMagikFileDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.MAGIK_FILE.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getMagikFileDefinitions(),
+        sorter,
+        Instruction.MAGIK_FILE);
   }
 
-  private void writePackages(final Writer writer) {
+  private void writePackages(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<PackageDefinition> sorter = Comparator.comparing(PackageDefinition::getName);
-    this.definitionKeeper.getPackageDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.PACKAGE.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getPackageDefinitions(),
+        sorter,
+        Instruction.PACKAGE);
   }
 
-  private void writeExemplars(final Writer writer) {
+  private void writeExemplars(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<ExemplarDefinition> sorter =
         Comparator.comparing(ExemplarDefinition::getTypeString);
-    this.definitionKeeper.getExemplarDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.TYPE.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getExemplarDefinitions(),
+        sorter,
+        Instruction.TYPE);
   }
 
-  private void writeMethods(final Writer writer) {
+  private void writeMethods(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<MethodDefinition> typeNameComparer =
         Comparator.comparing(MethodDefinition::getTypeName);
     final Comparator<MethodDefinition> nameComparer =
         Comparator.comparing(MethodDefinition::getName);
     final Comparator<MethodDefinition> sorter = typeNameComparer.thenComparing(nameComparer);
-    this.definitionKeeper.getMethodDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.METHOD.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getMethodDefinitions(),
+        sorter,
+        Instruction.METHOD);
   }
 
-  private void writeProcedures(final Writer writer) {
+  private void writeProcedures(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<ProcedureDefinition> sorter =
         Comparator.comparing(ProcedureDefinition::getTypeString);
-    this.definitionKeeper.getProcedureDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.METHOD.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getProcedureDefinitions(),
+        sorter,
+        Instruction.PROCEDURE);
   }
 
-  private void writeConditions(final BufferedWriter writer) {
+  private void writeConditions(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<ConditionDefinition> sorter =
         Comparator.comparing(ConditionDefinition::getName);
-    this.definitionKeeper.getConditionDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.CONDITION.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getConditionDefinitions(),
+        sorter,
+        Instruction.CONDITION);
   }
 
-  private void writeBinaryOperators(final BufferedWriter writer) {
+  private void writeBinaryOperators(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<BinaryOperatorDefinition> lhsComparer =
         Comparator.comparing(BinaryOperatorDefinition::getLhsTypeName);
     final Comparator<BinaryOperatorDefinition> rhsComparer =
@@ -278,31 +310,23 @@ public final class JsonDefinitionWriter {
         Comparator.comparing(BinaryOperatorDefinition::getResultTypeName);
     final Comparator<BinaryOperatorDefinition> sorter =
         lhsComparer.thenComparing(rhsComparer).thenComparing(resultComparer);
-    this.definitionKeeper.getBinaryOperatorDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.BINARY_OPERATOR.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getBinaryOperatorDefinitions(),
+        sorter,
+        Instruction.BINARY_OPERATOR);
   }
 
-  private void writeGlobals(final Writer writer) {
+  private void writeGlobals(final Writer writer, final JsonWriter jsonWriter) {
     final Comparator<GlobalDefinition> sorter =
         Comparator.comparing(GlobalDefinition::getTypeString);
-    this.definitionKeeper.getGlobalDefinitions().stream()
-        .sorted(sorter)
-        .forEach(
-            definition -> {
-              final Gson gson = this.buildGson();
-              final JsonObject instruction = (JsonObject) gson.toJsonTree(definition);
-              instruction.addProperty(
-                  Instruction.INSTRUCTION.getValue(), Instruction.GLOBAL.getValue());
-              this.writeInstruction(writer, instruction);
-            });
+    this.writeDefinitions(
+        writer,
+        jsonWriter,
+        this.definitionKeeper.getGlobalDefinitions(),
+        sorter,
+        Instruction.GLOBAL);
   }
 
   /**
@@ -314,7 +338,34 @@ public final class JsonDefinitionWriter {
    */
   public static void write(final Path path, final IDefinitionKeeper definitionKeeper)
       throws IOException {
-    final JsonDefinitionWriter reader = new JsonDefinitionWriter(definitionKeeper);
-    reader.run(path);
+    final JsonDefinitionWriter writer = new JsonDefinitionWriter(definitionKeeper, false);
+    writer.run(path);
+  }
+
+  /**
+   * Write types as JSON-lines to a {@link Writer}.
+   *
+   * @param writer Writer to write to.
+   * @param definitionKeeper {@link IDefinitionKeeper} to dump.
+   * @throws IOException -
+   */
+  public static void write(final Writer writer, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    final JsonDefinitionWriter definitionWriter = new JsonDefinitionWriter(definitionKeeper, false);
+    definitionWriter.run(writer);
+  }
+
+  /**
+   * Write only the type information as JSON-lines to a {@link Writer}. Products, modules, files,
+   * locations, timestamps and usages are not written, the output only changes when types change.
+   *
+   * @param writer Writer to write to.
+   * @param definitionKeeper {@link IDefinitionKeeper} to dump.
+   * @throws IOException -
+   */
+  public static void writeTypes(final Writer writer, final IDefinitionKeeper definitionKeeper)
+      throws IOException {
+    final JsonDefinitionWriter definitionWriter = new JsonDefinitionWriter(definitionKeeper, true);
+    definitionWriter.run(writer);
   }
 }
@@ -0,0 +1,551 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, segmented, on-disk store of definitions, keyed by the URI of the file the
+ * definitions are defined in.
+ *
+ * <p>Each update of a file is appended as a record to the active segment: the URI and a binary
+ * snapshot (see {@link BinaryDefinitionFormat}) of all definitions of the file, or a tombstone when
+ * the file no longer has any definitions. A later record supersedes earlier records of the same
+ * URI. Records are written in the background, in order, on a single thread.
+ *
+ * <p>Layout of a segment ({@code segment-<id>.log}):
+ *
+ * <ul>
+ *   <li>Header: magic ({@code int}), version ({@code int}).
+ *   <li>Records: body length ({@code int}), CRC32C of the body ({@code int}), body. The body
+ *       consists of the record kind ({@code byte}), the URI (varint length and UTF-8 bytes) and,
+ *       for non-tombstones, the snapshot.
+ * </ul>
+ *
+ * <p>When opened, all segments are read in order to rebuild the index. A partially written or
+ * corrupt record, e.g., after a crash, is truncated along with anything following it. When more
+ * than half of the stored bytes are superseded, the live records are compacted into a new segment,
+ * which is moved in place atomically before the old segments are deleted.
+ */
+public final class SegmentedDefinitionStore implements Closeable {
+
+  /** Segment file. */
+  private record Segment(long id, Path path, FileChannel channel) {}
+
+  /**
+   * Location of the latest record of a URI.
+   *
+   * @param segmentId Id of segment containing the record.
+   * @param offset Offset of record in segment.
+   * @param length Length of record, including the record header.
+   */
+  private record RecordRef(long segmentId, long offset, int length) {}
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedDefinitionStore.class);
+
+  private static final int MAGIC = 0x4d545347; // "MTSG"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+  private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+  private static final byte KIND_PUT = 1;
+  private static final byte KIND_DELETE = 2;
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d+)\\.log");
+  private static final long MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+  private static final long MIN_COMPACTION_SIZE = 4L * 1024 * 1024;
+
+  private final Path directory;
+  private final ExecutorService executor;
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private final Map<URI, RecordRef> index = new HashMap<>();
+  private long storedBytes;
+  private long liveBytes;
+
+  private SegmentedDefinitionStore(final Path directory) {
+    this.directory = directory;
+    this.executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "definition-store-writer");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Open the store in {@code directory}, recovering the index from existing segments.
+   *
+   * @param directory Directory to store segments in, created if it does not exist.
+   * @return Opened store.
+   * @throws IOException -
+   */
+  public static SegmentedDefinitionStore open(final Path directory) throws IOException {
+    Files.createDirectories(directory);
+    final SegmentedDefinitionStore store = new SegmentedDefinitionStore(directory);
+    try {
+      store.await(
+          () -> {
+            store.recover();
+            return null;
+          });
+    } catch (final IOException exception) {
+      store.close();
+      throw exception;
+    }
+    return store;
+  }
+
+  /**
+   * Store the definitions of a file, replacing any previously stored definitions of the file. The
+   * definitions are written in the background.
+   *
+   * @param uri URI of file.
+   * @param definitions All definitions of the file, empty if the file has no definitions (anymore).
+   */
+  public void put(final URI uri, final Collection<? extends IDefinition> definitions) {
+    final List<IDefinition> definitionsCopy = List.copyOf(definitions);
+    try {
+      this.executor.execute(() -> this.write(uri, definitionsCopy));
+    } catch (final RejectedExecutionException exception) {
+      LOGGER.debug("Store is closed, not storing definitions of: {}", uri);
+    }
+  }
+
+  /**
+   * Read all stored definitions into {@code definitionKeeper}. Waits for pending writes first.
+   *
+   * @param definitionKeeper {@link IDefinitionKeeper} to fill.
+   * @throws IOException -
+   */
+  public void readTypes(final IDefinitionKeeper definitionKeeper) throws IOException {
+    this.await(
+        () -> {
+          this.readRecords(definitionKeeper);
+          return null;
+        });
+  }
+
+  /**
+   * Test if the store contains no definitions. Waits for pending writes first.
+   *
+   * @return True if empty, false otherwise.
+   * @throws IOException -
+   */
+  public boolean isEmpty() throws IOException {
+    return this.await(this.index::isEmpty);
+  }
+
+  /**
+   * Wait for pending writes and force them to disk.
+   *
+   * @throws IOException -
+   */
+  public void flush() throws IOException {
+    this.await(
+        () -> {
+          this.forceActiveSegment();
+          return null;
+        });
+  }
+
+  /**
+   * Compact the store, regardless of the amount of superseded records. Waits for pending writes
+   * first.
+   *
+   * @throws IOException -
+   */
+  public void compact() throws IOException {
+    this.await(
+        () -> {
+          this.compactSegments();
+          return null;
+        });
+  }
+
+  /**
+   * Wait for pending writes, force them to disk and close the store.
+   *
+   * @throws IOException -
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.executor.isShutdown()) {
+      return;
+    }
+
+    try {
+      this.await(
+          () -> {
+            this.forceActiveSegment();
+            this.closeSegments();
+            return null;
+          });
+    } finally {
+      this.executor.shutdown();
+    }
+  }
+
+  private void recover() throws IOException {
+    final List<Long> segmentIds = new ArrayList<>();
+    try (Stream<Path> paths = Files.list(this.directory)) {
+      for (final Path path : (Iterable<Path>) paths::iterator) {
+        final String fileName = path.getFileName().toString();
+        final Matcher matcher = SEGMENT_PATTERN.matcher(fileName);
+        if (fileName.endsWith(TEMPORARY_SUFFIX)) {
+          LOGGER.debug("Removing segment of interrupted compaction: {}", path);
+          Files.delete(path);
+        } else if (matcher.matches()) {
+          segmentIds.add(Long.parseLong(matcher.group(1)));
+        }
+      }
+    }
+
+    segmentIds.sort(Comparator.naturalOrder());
+    for (final long segmentId : segmentIds) {
+      final Path path = this.getSegmentPath(segmentId);
+      final FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      final Segment segment = new Segment(segmentId, path, channel);
+      this.segments.put(segmentId, segment);
+      this.recoverSegment(segment);
+    }
+
+    LOGGER.debug(
+        "Recovered definition store: {}, segments: {}, records: {}",
+        this.directory,
+        this.segments.size(),
+        this.index.size());
+  }
+
+  private void recoverSegment(final Segment segment) throws IOException {
+    final FileChannel channel = segment.channel();
+    final long size = channel.size();
+    if (!SegmentedDefinitionStore.hasValidHeader(channel)) {
+      LOGGER.warn("Invalid segment header, discarding segment: {}", segment.path());
+      channel.truncate(0);
+      SegmentedDefinitionStore.writeHeader(channel);
+      return;
+    }
+
+    long position = HEADER_SIZE;
+    while (position < size) {
+      final ByteBuffer body = SegmentedDefinitionStore.readRecordBody(channel, position, size);
+      if (body == null) {
+        LOGGER.warn(
+            "Torn or corrupt record, truncating segment: {}, at offset: {}",
+            segment.path(),
+            position);
+        channel.truncate(position);
+        break;
+      }
+
+      final int length = RECORD_HEADER_SIZE + body.remaining();
+      final byte kind = body.get();
+      final URI uri = SegmentedDefinitionStore.readUri(body);
+      final RecordRef recordRef =
+          kind == KIND_PUT ? new RecordRef(segment.id(), position, length) : null;
+      this.updateIndex(uri, recordRef, length);
+      position += length;
+    }
+  }
+
+  private void write(final URI uri, final List<IDefinition> definitions) {
+    if (definitions.isEmpty() && !this.index.containsKey(uri)) {
+      // Nothing to delete.
+      return;
+    }
+
+    try {
+      final ByteBuffer recordBuffer = SegmentedDefinitionStore.encodeRecord(uri, definitions);
+      final int length = recordBuffer.remaining();
+      final Segment segment = this.getActiveSegment();
+      final long position = segment.channel().size();
+      SegmentedDefinitionStore.writeFully(segment.channel(), recordBuffer, position);
+      final RecordRef recordRef =
+          definitions.isEmpty() ? null : new RecordRef(segment.id(), position, length);
+      this.updateIndex(uri, recordRef, length);
+
+      if (this.storedBytes >= MIN_COMPACTION_SIZE && this.liveBytes * 2 < this.storedBytes) {
+        this.compactSegments();
+      }
+    } catch (final IOException exception) {
+      LOGGER.error("Unable to store definitions of: " + uri, exception);
+    }
+  }
+
+  private void updateIndex(final URI uri, final @Nullable RecordRef recordRef, final int length) {
+    this.storedBytes += length;
+    final RecordRef previousRecordRef =
+        recordRef != null ? this.index.put(uri, recordRef) : this.index.remove(uri);
+    if (previousRecordRef != null) {
+      this.liveBytes -= previousRecordRef.length();
+    }
+    if (recordRef != null) {
+      this.liveBytes += length;
+    }
+  }
+
+  private void readRecords(final IDefinitionKeeper definitionKeeper) throws IOException {
+    // Read in segment order, to read sequentially.
+    final List<RecordRef> recordRefs =
+        this.index.values().stream()
+            .sorted(
+                Comparator.comparingLong(RecordRef::segmentId).thenComparingLong(RecordRef::offset))
+            .toList();
+    for (final RecordRef recordRef : recordRefs) {
+      final ByteBuffer recordBuffer = this.readRecord(recordRef);
+      recordBuffer.position(RECORD_HEADER_SIZE + 1);
+      final int uriLength = BinaryDefinitionFormat.readVarInt(recordBuffer);
+      recordBuffer.position(recordBuffer.position() + uriLength);
+      BinaryDefinitionReader.readTypes(recordBuffer, definitionKeeper);
+    }
+  }
+
+  private ByteBuffer readRecord(final RecordRef recordRef) throws IOException {
+    final Segment segment = this.segments.get(recordRef.segmentId());
+    final ByteBuffer recordBuffer = ByteBuffer.allocate(recordRef.length());
+    SegmentedDefinitionStore.readFully(segment.channel(), recordBuffer, recordRef.offset());
+    return recordBuffer.flip();
+  }
+
+  private Segment getActiveSegment() throws IOException {
+    final Map.Entry<Long, Segment> lastEntry = this.segments.lastEntry();
+    if (lastEntry != null && lastEntry.getValue().channel().size() < MAX_SEGMENT_SIZE) {
+      return lastEntry.getValue();
+    }
+
+    // Roll over to a new segment.
+    this.forceActiveSegment();
+    final long segmentId = lastEntry != null ? lastEntry.getKey() + 1 : 1;
+    final Path path = this.getSegmentPath(segmentId);
+    final FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    SegmentedDefinitionStore.writeHeader(channel);
+    final Segment segment = new Segment(segmentId, path, channel);
+    this.segments.put(segmentId, segment);
+    return segment;
+  }
+
+  private void forceActiveSegment() throws IOException {
+    final Map.Entry<Long, Segment> lastEntry = this.segments.lastEntry();
+    if (lastEntry != null) {
+      lastEntry.getValue().channel().force(false);
+    }
+  }
+
+  /**
+   * Copy all live records to a new segment, then remove the old segments. The new segment is
+   * written to a temporary file first, which is moved in place atomically. A crash before the move
+   * leaves the old segments intact, a crash after the move leaves the old segments next to the new
+   * segment, which supersedes them.
+   */
+  private void compactSegments() throws IOException {
+    final long segmentId = this.segments.isEmpty() ? 1 : this.segments.lastKey() + 1;
+    final Path path = this.getSegmentPath(segmentId);
+    final Path temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+    LOGGER.debug(
+        "Compacting definition store: {}, stored bytes: {}, live bytes: {}",
+        this.directory,
+        this.storedBytes,
+        this.liveBytes);
+
+    final Map<URI, RecordRef> compactedIndex = new HashMap<>();
+    try (FileChannel channel =
+        FileChannel.open(
+            temporaryPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      SegmentedDefinitionStore.writeHeader(channel);
+      long position = HEADER_SIZE;
+      for (final Map.Entry<URI, RecordRef> entry : this.index.entrySet()) {
+        final RecordRef recordRef = entry.getValue();
+        SegmentedDefinitionStore.writeFully(channel, this.readRecord(recordRef), position);
+        compactedIndex.put(entry.getKey(), new RecordRef(segmentId, position, recordRef.length()));
+        position += recordRef.length();
+      }
+      channel.force(true);
+    }
+    Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+
+    this.closeSegments();
+    for (final Segment segment : this.segments.values()) {
+      Files.delete(segment.path());
+    }
+    this.segments.clear();
+
+    final FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.segments.put(segmentId, new Segment(segmentId, path, channel));
+    this.index.clear();
+    this.index.putAll(compactedIndex);
+    this.storedBytes = this.liveBytes;
+  }
+
+  private void closeSegments() throws IOException {
+    for (final Segment segment : this.segments.values()) {
+      segment.channel().close();
+    }
+  }
+
+  private Path getSegmentPath(final long segmentId) {
+    return this.directory.resolve(String.format("segment-%08d.log", segmentId));
+  }
+
+  private <T> T await(final Callable<T> task) throws IOException {
+    final Future<T> future;
+    try {
+      future = this.executor.submit(task);
+    } catch (final RejectedExecutionException exception) {
+      throw new IOException("Store is closed: " + this.directory, exception);
+    }
+
+    try {
+      return future.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for store: " + this.directory);
+    } catch (final ExecutionException exception) {
+      final Throwable cause = exception.getCause();
+      if (cause instanceof final IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static ByteBuffer encodeRecord(final URI uri, final List<IDefinition> definitions) {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    body.write(definitions.isEmpty() ? KIND_DELETE : KIND_PUT);
+    final byte[] uriBytes = uri.toString().getBytes(StandardCharsets.UTF_8);
+    BinaryDefinitionFormat.writeVarLong(body, uriBytes.length);
+    body.writeBytes(uriBytes);
+    if (!definitions.isEmpty()) {
+      body.writeBytes(BinaryDefinitionWriter.toBytes(definitions));
+    }
+
+    final byte[] bodyBytes = body.toByteArray();
+    final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyBytes.length);
+    recordBuffer.putInt(bodyBytes.length);
+    recordBuffer.putInt(SegmentedDefinitionStore.checksum(ByteBuffer.wrap(bodyBytes)));
+    recordBuffer.put(bodyBytes);
+    return recordBuffer.flip();
+  }
+
+  /**
+   * Read the body of the record at {@code position}.
+   *
+   * @return Body of record, or {@code null} if the record is incomplete or corrupt.
+   */
+  @CheckForNull
+  private static ByteBuffer readRecordBody(
+      final FileChannel channel, final long position, final long size) throws IOException {
+    if (size - position < RECORD_HEADER_SIZE) {
+      return null;
+    }
+
+    final ByteBuffer headerBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    SegmentedDefinitionStore.readFully(channel, headerBuffer, position);
+    headerBuffer.flip();
+    final int length = headerBuffer.getInt();
+    final int checksum = headerBuffer.getInt();
+    if (length <= 0 || length > size - position - RECORD_HEADER_SIZE) {
+      return null;
+    }
+
+    final ByteBuffer body = ByteBuffer.allocate(length);
+    SegmentedDefinitionStore.readFully(channel, body, position + RECORD_HEADER_SIZE);
+    body.flip();
+    if (SegmentedDefinitionStore.checksum(body) != checksum) {
+      return null;
+    }
+
+    return body;
+  }
+
+  private static URI readUri(final ByteBuffer body) {
+    final int length = BinaryDefinitionFormat.readVarInt(body);
+    final byte[] bytes = new byte[length];
+    body.get(bytes);
+    return URI.create(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  private static int checksum(final ByteBuffer buffer) {
+    final CRC32C crc = new CRC32C();
+    crc.update(buffer.duplicate());
+    return (int) crc.getValue();
+  }
+
+  private static boolean hasValidHeader(final FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      return false;
+    }
+
+    final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+    SegmentedDefinitionStore.readFully(channel, headerBuffer, 0);
+    headerBuffer.flip();
+    return headerBuffer.getInt() == MAGIC && headerBuffer.getInt() == VERSION;
+  }
+
+  private static void writeHeader(final FileChannel channel) throws IOException {
+    final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+    headerBuffer.putInt(MAGIC);
+    headerBuffer.putInt(VERSION);
+    SegmentedDefinitionStore.writeFully(channel, headerBuffer.flip(), 0);
+  }
+
+  private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long from)
+      throws IOException {
+    long position = from;
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      position += read;
+    }
+  }
+
+  private static void writeFully(
+      final FileChannel channel, final ByteBuffer buffer, final long from) throws IOException {
+    long position = from;
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
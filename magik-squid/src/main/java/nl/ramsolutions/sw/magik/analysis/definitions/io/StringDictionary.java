@@ -0,0 +1,127 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.parser.TypeStringParser;
+
+/**
+ * Dictionary of strings, mapping each distinct string to an {@code int} id, and back.
+ *
+ * <p>Ids are handed out incrementally, starting at 0. Strings are stored in fixed size chunks, so
+ * the dictionary grows without copying its strings. Strings used as a {@link TypeString} or {@link
+ * URI} are parsed only once, the parsed value is kept with the string.
+ *
+ * <p>The dictionary is append only: strings are never removed. Safe for use by multiple threads.
+ */
+public final class StringDictionary implements DefinitionDecoder.Strings {
+
+  private static final int CHUNK_BITS = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /** Chunk of strings, with their parsed values. */
+  private static final class Chunk {
+
+    private final AtomicReferenceArray<String> strings = new AtomicReferenceArray<>(CHUNK_SIZE);
+    private final AtomicReferenceArray<TypeString> typeStrings =
+        new AtomicReferenceArray<>(CHUNK_SIZE);
+    private final AtomicReferenceArray<URI> uris = new AtomicReferenceArray<>(CHUNK_SIZE);
+  }
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile Chunk[] chunks = new Chunk[0];
+  private int size;
+
+  /**
+   * Get the id of {@code string}, adding it if it is not yet known.
+   *
+   * @param string String to get the id of.
+   * @return Id of string.
+   */
+  public int getId(final String string) {
+    final Integer id = this.ids.get(string);
+    if (id != null) {
+      return id;
+    }
+
+    return this.addString(string);
+  }
+
+  /**
+   * Find the id of {@code string}, without adding it.
+   *
+   * @param string String to find the id of.
+   * @return Id of string, or {@code -1} if the string is not known.
+   */
+  public int findId(final String string) {
+    return this.ids.getOrDefault(string, -1);
+  }
+
+  /**
+   * Get the number of strings.
+   *
+   * @return Number of strings.
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  @Override
+  public String getString(final int id) {
+    return this.getChunk(id).strings.get(id & CHUNK_MASK);
+  }
+
+  @Override
+  public TypeString getTypeString(final int id) {
+    final Chunk chunk = this.getChunk(id);
+    final int index = id & CHUNK_MASK;
+    TypeString typeString = chunk.typeStrings.get(index);
+    if (typeString == null) {
+      typeString = TypeStringParser.parseTypeString(chunk.strings.get(index));
+      chunk.typeStrings.set(index, typeString);
+    }
+    return typeString;
+  }
+
+  @Override
+  public URI getUri(final int id) {
+    final Chunk chunk = this.getChunk(id);
+    final int index = id & CHUNK_MASK;
+    URI uri = chunk.uris.get(index);
+    if (uri == null) {
+      uri = URI.create(chunk.strings.get(index));
+      chunk.uris.set(index, uri);
+    }
+    return uri;
+  }
+
+  private Chunk getChunk(final int id) {
+    return this.chunks[id >>> CHUNK_BITS];
+  }
+
+  private synchronized int addString(final String string) {
+    // Test again, another thread might have added it in the meantime.
+    final Integer existingId = this.ids.get(string);
+    if (existingId != null) {
+      return existingId;
+    }
+
+    final int id = this.size;
+    final int chunkIndex = id >>> CHUNK_BITS;
+    if (chunkIndex == this.chunks.length) {
+      final Chunk[] newChunks = Arrays.copyOf(this.chunks, chunkIndex + 1);
+      newChunks[chunkIndex] = new Chunk();
+      this.chunks = newChunks;
+    }
+    this.chunks[chunkIndex].strings.set(id & CHUNK_MASK, string);
+    this.size = id + 1;
+
+    // Publish the id only after the string is stored.
+    this.ids.put(string, id);
+    return id;
+  }
+}
@@ -0,0 +1,18 @@
+package nl.ramsolutions.sw.magik.analysis.indexer;
+
+import java.net.URI;
+import java.util.Collection;
+import nl.ramsolutions.sw.IDefinition;
+
+/** Listener of an indexer, notified when the definitions of a file have changed. */
+public interface IIndexerListener {
+
+  /**
+   * Called after the definitions of a file have been (re-)indexed or removed.
+   *
+   * @param uri URI of file.
+   * @param definitions All current definitions of the file, empty if the file no longer has any
+   *     definitions.
+   */
+  void onDefinitionsChanged(URI uri, Collection<IDefinition> definitions);
+}
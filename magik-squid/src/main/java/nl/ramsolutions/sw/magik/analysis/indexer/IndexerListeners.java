@@ -0,0 +1,67 @@
+package nl.ramsolutions.sw.magik.analysis.indexer;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+
+/** Registered {@link IIndexerListener}s of an indexer. */
+final class IndexerListeners {
+
+  private final List<IIndexerListener> listeners = new CopyOnWriteArrayList<>();
+
+  void add(final IIndexerListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Get the definitions of/below {@code path} from {@code definitionKeeper}.
+   *
+   * @param definitionKeeper {@link IDefinitionKeeper} to get definitions from.
+   * @param path Path to file or directory.
+   * @param changedUris URIs of files of the definitions are added to this.
+   * @return Definitions of/below {@code path}.
+   */
+  static Collection<IDefinition> getDefinitions(
+      final IDefinitionKeeper definitionKeeper,
+      final Path path,
+      final Collection<URI> changedUris) {
+    final Collection<IDefinition> definitions = definitionKeeper.getDefinitionsByPath(path);
+    for (final IDefinition definition : definitions) {
+      final Location location = definition.getLocation();
+      if (location != null) {
+        changedUris.add(location.getUri());
+      }
+    }
+    return definitions;
+  }
+
+  /**
+   * Notify the listeners of the current definitions of the files, as found in {@code
+   * definitionKeeper}.
+   *
+   * @param definitionKeeper {@link IDefinitionKeeper} to get definitions from.
+   * @param uris URIs of changed files.
+   */
+  void notify(final IDefinitionKeeper definitionKeeper, final Collection<URI> uris) {
+    if (this.listeners.isEmpty()) {
+      return;
+    }
+
+    for (final URI uri : uris) {
+      final List<IDefinition> definitions =
+          definitionKeeper.getDefinitionsByPath(Path.of(uri)).stream()
+              .filter(
+                  definition -> {
+                    final Location location = definition.getLocation();
+                    return location != null && location.getUri().equals(uri);
+                  })
+              .toList();
+      this.listeners.forEach(listener -> listener.onDefinitionsChanged(uri, definitions));
+    }
+  }
+}
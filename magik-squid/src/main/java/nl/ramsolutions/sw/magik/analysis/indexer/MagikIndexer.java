@@ -1,15 +1,36 @@
 package nl.ramsolutions.sw.magik.analysis.indexer;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.ContentHasher;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
+import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.MagikFileScanner;
+import nl.ramsolutions.sw.magik.analysis.MagikAnalysisSettings;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,10 +38,12 @@ import org.slf4j.LoggerFactory;
 public class MagikIndexer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikIndexer.class);
+  private static final int BATCH_SIZE = 256;
 
   private final IDefinitionKeeper definitionKeeper;
   private final MagikToolsProperties properties;
   private final IgnoreHandler ignoreHandler;
+  private final IndexerListeners listeners = new IndexerListeners();
 
   /**
    * Constructor.
@@ -45,51 +68,257 @@ public class MagikIndexer {
    * @throws IOException If an error occurs.
    */
   public synchronized void handleFileEvent(final FileEvent fileEvent) throws IOException {
-    LOGGER.debug("Handling file event: {}", fileEvent);
+    this.handleFileEvents(List.of(fileEvent));
+  }
+
+  /**
+   * Handle multiple file events at once.
+   *
+   * <p>Changed files of which only the timestamp changed, are not indexed again, see {@link
+   * #refreshUnchangedFiles(Collection)}. Definitions of deleted files are removed first. Then all
+   * created/changed files are read and parsed in parallel, in batches, on a bounded pool. The
+   * definitions of each file replace its old definitions in a single {@link
+   * IDefinitionKeeper#update(Collection, Collection)}, in path order, to keep the result
+   * deterministic. Readers never see a changed file with its old definitions removed but its new
+   * definitions not yet added. Listeners are notified of each refreshed/removed file, and of each
+   * indexed file after its batch has been added.
+   *
+   * @param fileEvents {@link FileEvent}s to handle.
+   * @throws IOException If an error occurs.
+   */
+  public synchronized void handleFileEvents(final Collection<FileEvent> fileEvents)
+      throws IOException {
+    LOGGER.debug("Handling file events, count: {}", fileEvents.size());
+
+    final Set<URI> unchangedUris = this.refreshUnchangedFiles(fileEvents);
+    final Set<URI> changedUris = new TreeSet<>(unchangedUris);
+    final SortedSet<Path> indexablePaths = new TreeSet<>();
+    final Map<URI, List<IDefinition>> oldDefinitions = new HashMap<>();
+    for (final FileEvent fileEvent : fileEvents) {
+      LOGGER.debug("Handling file event: {}", fileEvent);
+      if (unchangedUris.contains(fileEvent.getUri())) {
+        LOGGER.debug("Contents unchanged, skipping: {}", fileEvent);
+        continue;
+      }
 
-    final Path path = fileEvent.getPath();
-    final FileChangeType fileChangeType = fileEvent.getFileChangeType();
-    if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
-      this.definitionKeeper.getDefinitionsByPath(path).forEach(this.definitionKeeper::remove);
+      final Path path = fileEvent.getPath();
+      final FileChangeType fileChangeType = fileEvent.getFileChangeType();
+      if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
+        this.collectDefinitions(path, oldDefinitions);
+      }
+
+      if (fileChangeType == FileChangeType.CREATED || fileChangeType == FileChangeType.CHANGED) {
+        final MagikFileScanner scanner = new MagikFileScanner(this.ignoreHandler);
+        try (Stream<Path> paths = scanner.getFiles(path)) {
+          paths.forEach(indexablePaths::add);
+        }
+      }
     }
 
-    if (fileChangeType == FileChangeType.CREATED || fileChangeType == FileChangeType.CHANGED) {
-      final MagikFileScanner scanner = new MagikFileScanner(this.ignoreHandler);
-      scanner.getFiles(path).forEach(this::indexFile);
+    // Remove the definitions of files which are not indexed again, others are replaced when
+    // indexed. Indexed files are notified per batch.
+    final Set<URI> indexableUris = new HashSet<>();
+    indexablePaths.forEach(path -> indexableUris.add(path.toUri()));
+    for (final Map.Entry<URI, List<IDefinition>> entry : oldDefinitions.entrySet()) {
+      final URI uri = entry.getKey();
+      if (!indexableUris.contains(uri)) {
+        this.definitionKeeper.update(entry.getValue(), Collections.emptyList());
+        changedUris.add(uri);
+      }
     }
+    this.listeners.notify(this.definitionKeeper, changedUris);
+    this.indexFiles(List.copyOf(indexablePaths), oldDefinitions);
 
-    LOGGER.debug("Handled file event: {}", fileEvent);
+    LOGGER.debug("Handled file events, count: {}", fileEvents.size());
+  }
+
+  /**
+   * Add a listener, notified of the definitions of each file after it is (re-)indexed, refreshed or
+   * removed.
+   *
+   * @param listener Listener to add.
+   */
+  public void addListener(final IIndexerListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Refresh the {@link MagikFileDefinition}s of changed files of which the contents are unchanged,
+   * i.e., only the timestamp changed. The size of a file is checked first, the contents are only
+   * hashed when the size is unchanged. Files are hashed in parallel.
+   *
+   * <p>Only the {@link MagikFileDefinition} is refreshed. Changes of files are detected using the
+   * timestamps of the {@link MagikFileDefinition}s only. The other definitions of the file keep the
+   * timestamp of the file when they were indexed, their contents did not change since.
+   *
+   * @param fileEvents {@link FileEvent}s to check.
+   * @return URIs of files of which the contents are unchanged.
+   */
+  private Set<URI> refreshUnchangedFiles(final Collection<FileEvent> fileEvents) {
+    final List<MagikFileDefinition> candidates =
+        fileEvents.stream()
+            .filter(fileEvent -> fileEvent.getFileChangeType() == FileChangeType.CHANGED)
+            .flatMap(
+                fileEvent ->
+                    this.definitionKeeper.getMagikFileDefinitions(fileEvent.getUri()).stream())
+            .filter(definition -> definition.getContentHash() != null)
+            .toList();
+    if (candidates.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    final MagikAnalysisSettings settings = new MagikAnalysisSettings(this.properties);
+    final ForkJoinPool pool = new ForkJoinPool(settings.getTypingIndexerThreadCount());
+    final List<MagikFileDefinition> refreshedDefinitions;
+    try {
+      refreshedDefinitions =
+          pool.submit(
+                  () ->
+                      candidates.parallelStream()
+                          .map(MagikIndexer::refreshIfUnchanged)
+                          .filter(Objects::nonNull)
+                          .toList())
+              .join();
+    } finally {
+      pool.shutdown();
+    }
+
+    final Set<URI> unchangedUris = new HashSet<>();
+    for (final MagikFileDefinition refreshedDefinition : refreshedDefinitions) {
+      final URI uri = refreshedDefinition.getUri();
+      this.definitionKeeper.update(
+          List.copyOf(this.definitionKeeper.getMagikFileDefinitions(uri)),
+          List.of(refreshedDefinition));
+      unchangedUris.add(uri);
+    }
+
+    return unchangedUris;
+  }
+
+  /**
+   * Get the {@link MagikFileDefinition} with the current timestamp, if the contents of the file are
+   * unchanged.
+   *
+   * @param definition Current {@link MagikFileDefinition}.
+   * @return Refreshed {@link MagikFileDefinition}, or {@code null} if the contents have changed.
+   */
+  @CheckForNull
+  private static MagikFileDefinition refreshIfUnchanged(final MagikFileDefinition definition) {
+    final Path path = Path.of(definition.getUri());
+    try {
+      final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      if (!Objects.equals(definition.getSize(), attrs.size())
+          || !Objects.equals(definition.getContentHash(), ContentHasher.hash(path))) {
+        return null;
+      }
+
+      return new MagikFileDefinition(
+          definition.getLocation(),
+          attrs.lastModifiedTime().toInstant(),
+          definition.getSize(),
+          definition.getContentHash());
+    } catch (final IOException exception) {
+      LOGGER.debug("Unable to check contents of: {}", path, exception);
+      return null;
+    }
+  }
+
+  /**
+   * Collect the current definitions of/below {@code path}, per file.
+   *
+   * @param path Path to file or directory.
+   * @param definitions Map to collect definitions in.
+   */
+  private void collectDefinitions(final Path path, final Map<URI, List<IDefinition>> definitions) {
+    for (final IDefinition definition : this.definitionKeeper.getDefinitionsByPath(path)) {
+      final Location location = definition.getLocation();
+      if (location != null) {
+        definitions.computeIfAbsent(location.getUri(), k -> new ArrayList<>()).add(definition);
+      }
+    }
+  }
+
+  /**
+   * Index magik files when they are created (or first read), in parallel.
+   *
+   * @param paths Paths to magik files, in the order the definitions are to be added.
+   * @param oldDefinitions Old definitions of the files, replaced by the new definitions.
+   */
+  private void indexFiles(
+      final List<Path> paths, final Map<URI, List<IDefinition>> oldDefinitions) {
+    if (paths.isEmpty()) {
+      return;
+    } else if (paths.size() == 1) {
+      // Not worth the overhead of a pool.
+      this.replaceDefinitions(paths.get(0), this.indexFile(paths.get(0)), oldDefinitions);
+      this.notifyIndexed(paths);
+      return;
+    }
+
+    final MagikAnalysisSettings settings = new MagikAnalysisSettings(this.properties);
+    final int threadCount = settings.getTypingIndexerThreadCount();
+    final ForkJoinPool pool = new ForkJoinPool(threadCount);
+    try {
+      for (int start = 0; start < paths.size(); start += BATCH_SIZE) {
+        final List<Path> batch = paths.subList(start, Math.min(start + BATCH_SIZE, paths.size()));
+        final List<List<IDefinition>> batchDefinitions =
+            pool.submit(() -> batch.parallelStream().map(this::indexFile).toList()).join();
+        for (int index = 0; index < batch.size(); ++index) {
+          this.replaceDefinitions(batch.get(index), batchDefinitions.get(index), oldDefinitions);
+        }
+        this.notifyIndexed(batch);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void replaceDefinitions(
+      final Path path,
+      final List<IDefinition> definitions,
+      final Map<URI, List<IDefinition>> oldDefinitions) {
+    final List<IDefinition> removedDefinitions =
+        oldDefinitions.getOrDefault(path.toUri(), Collections.emptyList());
+    this.definitionKeeper.update(removedDefinitions, definitions);
+  }
+
+  private void notifyIndexed(final List<Path> paths) {
+    this.listeners.notify(this.definitionKeeper, paths.stream().map(Path::toUri).toList());
   }
 
   /**
    * Index a single magik file when it is created (or first read).
    *
    * @param path Path to magik file.
+   * @return Read definitions.
    */
   @SuppressWarnings("checkstyle:IllegalCatch")
-  private void indexFile(final Path path) {
+  private List<IDefinition> indexFile(final Path path) {
     LOGGER.debug("Indexing created/updated file: {}", path);
 
     try {
-      this.readDefinitions(path);
+      return this.readDefinitions(path);
     } catch (final Exception exception) {
       LOGGER.error("Error indexing created file: " + path, exception);
     }
+
+    return Collections.emptyList();
   }
 
   /**
    * Read definitions from path.
    *
    * @param path Path to magik file.
+   * @return Read definitions.
    */
-  private void readDefinitions(final Path path) {
+  private List<IDefinition> readDefinitions(final Path path) {
     try {
       final MagikFile magikFile = new MagikFile(this.properties, path);
-      magikFile.getDefinitions().stream()
-          .map(IDefinition::getBareDefinition)
-          .forEach(this.definitionKeeper::add);
+      return magikFile.getDefinitions().stream().map(IDefinition::getBareDefinition).toList();
     } catch (final IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
     }
+
+    return Collections.emptyList();
   }
 }
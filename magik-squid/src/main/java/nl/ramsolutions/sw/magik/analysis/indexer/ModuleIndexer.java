@@ -2,7 +2,14 @@ package nl.ramsolutions.sw.magik.analysis.indexer;
 
 import com.sonar.sslr.api.RecognitionException;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
@@ -22,6 +29,7 @@ public class ModuleIndexer {
 
   private final IDefinitionKeeper definitionKeeper;
   private final IgnoreHandler ignoreHandler;
+  private final IndexerListeners listeners = new IndexerListeners();
 
   public ModuleIndexer(
       final IDefinitionKeeper definitionKeeper, final IgnoreHandler ignoreHandler) {
@@ -40,36 +48,60 @@ public class ModuleIndexer {
 
     final FileChangeType fileChangeType = fileEvent.getFileChangeType();
     final Path path = fileEvent.getPath();
-    if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
-      this.definitionKeeper.getDefinitionsByPath(path).forEach(this.definitionKeeper::remove);
-    }
+    final Set<URI> changedUris = new TreeSet<>();
+    final Collection<IDefinition> removedDefinitions =
+        fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED
+            ? IndexerListeners.getDefinitions(this.definitionKeeper, path, changedUris)
+            : Collections.emptyList();
+    final List<IDefinition> addedDefinitions = new ArrayList<>();
 
     if (fileChangeType == FileChangeType.CREATED || fileChangeType == FileChangeType.CHANGED) {
       final ModuleDefFileScanner moduleDefFileScanner =
           new ModuleDefFileScanner(this.ignoreHandler);
-      moduleDefFileScanner.getModuleDefFiles(path).stream().forEach(this::indexFile);
+      moduleDefFileScanner.getModuleDefFiles(path).stream()
+          .forEach(
+              moduleDefPath -> {
+                this.indexFile(moduleDefPath, addedDefinitions);
+                changedUris.add(moduleDefPath.toUri());
+              });
     }
 
+    // Publish all changes at once, readers never see the definitions half replaced.
+    this.definitionKeeper.update(removedDefinitions, addedDefinitions);
+
+    this.listeners.notify(this.definitionKeeper, changedUris);
+
     LOGGER.debug("Handled file event: {}", fileEvent);
   }
 
+  /**
+   * Add a listener, notified of the definitions of each file after it is (re-)indexed or removed.
+   *
+   * @param listener Listener to add.
+   */
+  public void addListener(final IIndexerListener listener) {
+    this.listeners.add(listener);
+  }
+
   /**
    * Index a single magik file when it is created (or first read).
    *
    * @param path Path to magik file.
+   * @param addedDefinitions Read definitions are added to this.
    */
   @SuppressWarnings("checkstyle:IllegalCatch")
-  private void indexFile(final Path path) {
+  private void indexFile(final Path path, final List<IDefinition> addedDefinitions) {
     LOGGER.debug("Scanning created file: {}", path);
 
     try {
-      this.readDefinitions(path);
+      this.readDefinitions(path, addedDefinitions);
     } catch (final Exception exception) {
       LOGGER.error("Error indexing created file: " + path, exception);
     }
   }
 
-  private void readDefinitions(final Path path) throws IOException {
+  private void readDefinitions(final Path path, final List<IDefinition> addedDefinitions)
+      throws IOException {
     final Path productDefPath = ModuleDefFileScanner.getProductDefFileForPath(path);
     final ProductDefFile productDefFile;
     if (productDefPath != null) {
@@ -83,7 +115,7 @@ public class ModuleIndexer {
           new ModuleDefFile(path, this.definitionKeeper, productDefFile);
       final ModuleDefinition definition = moduleDefFile.getModuleDefinition();
       final IDefinition bareDefinition = definition.getBareDefinition();
-      this.definitionKeeper.add(bareDefinition);
+      addedDefinitions.add(bareDefinition);
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: " + path, exception);
     }
@@ -2,7 +2,14 @@ package nl.ramsolutions.sw.magik.analysis.indexer;
 
 import com.sonar.sslr.api.RecognitionException;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
@@ -22,6 +29,7 @@ public class ProductIndexer {
 
   private final IDefinitionKeeper definitionKeeper;
   private final IgnoreHandler ignoreHandler;
+  private final IndexerListeners listeners = new IndexerListeners();
 
   public ProductIndexer(
       final IDefinitionKeeper definitionKeeper, final IgnoreHandler ignoreHandler) {
@@ -40,37 +48,63 @@ public class ProductIndexer {
 
     final FileChangeType fileChangeType = fileEvent.getFileChangeType();
     final Path path = fileEvent.getPath();
-    if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
-      this.definitionKeeper.getDefinitionsByPath(path).forEach(this.definitionKeeper::remove);
-    }
+    final Set<URI> changedUris = new TreeSet<>();
+    final Collection<IDefinition> removedDefinitions =
+        fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED
+            ? IndexerListeners.getDefinitions(this.definitionKeeper, path, changedUris)
+            : Collections.emptyList();
+    final List<IDefinition> addedDefinitions = new ArrayList<>();
 
     if (fileChangeType == FileChangeType.CREATED || fileChangeType == FileChangeType.CHANGED) {
       final ProductDefFileScanner productDefFileScanner =
           new ProductDefFileScanner(this.ignoreHandler);
-      productDefFileScanner.getProductTrees(path).forEach(this::indexFile);
+      productDefFileScanner
+          .getProductTrees(path)
+          .forEach(
+              productDefTree -> {
+                this.indexFile(productDefTree, addedDefinitions);
+                changedUris.add(productDefTree.getPath().toUri());
+              });
     }
 
+    // Publish all changes at once, readers never see the definitions half replaced.
+    this.definitionKeeper.update(removedDefinitions, addedDefinitions);
+
+    this.listeners.notify(this.definitionKeeper, changedUris);
+
     LOGGER.debug("Handled file event: {}", fileEvent);
   }
 
+  /**
+   * Add a listener, notified of the definitions of each file after it is (re-)indexed or removed.
+   *
+   * @param listener Listener to add.
+   */
+  public void addListener(final IIndexerListener listener) {
+    this.listeners.add(listener);
+  }
+
   /**
    * Index a single magik file when it is created (or first read).
    *
-   * @param path Path to magik file.
+   * @param productDefTree Tree of product definition file.
+   * @param addedDefinitions Read definitions are added to this.
    */
   @SuppressWarnings("checkstyle:IllegalCatch")
-  private void indexFile(final ProductDefFileScanner.Tree productDefTree) {
+  private void indexFile(
+      final ProductDefFileScanner.Tree productDefTree, final List<IDefinition> addedDefinitions) {
     final Path path = productDefTree.getPath();
     LOGGER.debug("Scanning created file: {}", path);
 
     try {
-      this.readDefinitions(path);
+      this.readDefinitions(path, addedDefinitions);
     } catch (final Exception exception) {
       LOGGER.error("Error indexing created file: " + path, exception);
     }
   }
 
-  private void readDefinitions(final Path path) throws IOException {
+  private void readDefinitions(final Path path, final List<IDefinition> addedDefinitions)
+      throws IOException {
     final Path parentPath = path.resolve("..").resolve("..");
     final Path productDefPath = ModuleDefFileScanner.getProductDefFileForPath(parentPath);
     final ProductDefFile parentProductDefFile;
@@ -85,7 +119,7 @@ public class ProductIndexer {
           new ProductDefFile(path, this.definitionKeeper, parentProductDefFile);
       final ProductDefinition definition = productDefFile.getProductDefinition();
       final IDefinition bareDefinition = definition.getBareDefinition();
-      this.definitionKeeper.add(bareDefinition);
+      addedDefinitions.add(bareDefinition);
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: " + path, exception);
     }
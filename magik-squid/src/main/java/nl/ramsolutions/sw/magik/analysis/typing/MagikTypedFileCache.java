@@ -0,0 +1,103 @@
+package nl.ramsolutions.sw.magik.analysis.typing;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import nl.ramsolutions.sw.FileCharsetDeterminer;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+
+/**
+ * Small LRU cache of reasoned {@link MagikTypedFile}s, read from disk.
+ *
+ * <p>Entries are keyed by {@link URI}, last modified time and {@link IDefinitionKeeper}. The
+ * definition keeper is compared by identity, so a snapshot of the definition keeper acts as its
+ * version: once definitions change, a new snapshot is used and older entries are no longer hit.
+ * Meant to be long-lived, e.g., owned by a provider, and shared between requests.
+ */
+public class MagikTypedFileCache {
+
+  private static final int DEFAULT_CACHE_SIZE = 64;
+
+  /** Key for the {@link MagikTypedFile} cache. */
+  private record CacheKey(URI uri, FileTime lastModified, IDefinitionKeeper definitionKeeper) {
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof final CacheKey other
+          && this.uri.equals(other.uri)
+          && this.lastModified.equals(other.lastModified)
+          && this.definitionKeeper == other.definitionKeeper;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * this.uri.hashCode() + this.lastModified.hashCode())
+          + System.identityHashCode(this.definitionKeeper);
+    }
+  }
+
+  private final Map<CacheKey, MagikTypedFile> cache;
+
+  public MagikTypedFileCache() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param cacheSize Maximum number of reasoned files to keep.
+   */
+  public MagikTypedFileCache(final int cacheSize) {
+    this.cache =
+        new LinkedHashMap<>(cacheSize, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(final Map.Entry<CacheKey, MagikTypedFile> eldest) {
+            return this.size() > cacheSize;
+          }
+        };
+  }
+
+  /**
+   * Get the reasoned {@link MagikTypedFile} for {@code uri}, using {@code definitionKeeper}. The
+   * file is read and reasoned if it is not cached yet, or if it has been modified since.
+   *
+   * @param uri URI of the file.
+   * @param definitionKeeper Definition keeper to reason the file with.
+   * @return Reasoned file.
+   */
+  public MagikTypedFile get(final URI uri, final IDefinitionKeeper definitionKeeper) {
+    final Path path = Path.of(uri);
+    final CacheKey key;
+    try {
+      key = new CacheKey(uri, Files.getLastModifiedTime(path), definitionKeeper);
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+
+    synchronized (this.cache) {
+      final MagikTypedFile cachedMagikFile = this.cache.get(key);
+      if (cachedMagikFile != null) {
+        return cachedMagikFile;
+      }
+    }
+
+    final Charset charset = FileCharsetDeterminer.determineCharset(path);
+    final String text;
+    try {
+      text = Files.readString(path, charset);
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+    final MagikTypedFile magikFile = new MagikTypedFile(uri, text, definitionKeeper);
+    synchronized (this.cache) {
+      this.cache.put(key, magikFile);
+    }
+    return magikFile;
+  }
+}
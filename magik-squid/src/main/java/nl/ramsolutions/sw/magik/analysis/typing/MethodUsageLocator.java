@@ -1,15 +1,13 @@
 package nl.ramsolutions.sw.magik.analysis.typing;
 
 import com.sonar.sslr.api.AstNode;
-import java.io.IOException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.net.URI;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
+import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Position;
@@ -24,68 +22,93 @@ import nl.ramsolutions.sw.magik.api.MagikGrammar;
  * Method usage locator.
  *
  * <p>Uses typing to determine if any {@link MethodUsage} is is for this specific type.
+ *
+ * <p>Usages are grouped per file, and files are processed in parallel. Each file is read and
+ * reasoned only once. Reasoned files are taken from a {@link MagikTypedFileCache}, which can be
+ * shared between locators to reuse reasoned files between requests.
  */
 public class MethodUsageLocator {
 
   private final IDefinitionKeeper definitionKeeper;
+  private final MagikTypedFileCache fileCache;
 
   public MethodUsageLocator(final IDefinitionKeeper definitionKeeper) {
+    this(definitionKeeper, new MagikTypedFileCache());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param definitionKeeper Definition keeper to use, preferably a snapshot.
+   * @param fileCache Cache of reasoned files.
+   */
+  public MethodUsageLocator(
+      final IDefinitionKeeper definitionKeeper, final MagikTypedFileCache fileCache) {
     this.definitionKeeper = definitionKeeper;
+    this.fileCache = fileCache;
   }
 
+  /**
+   * Get the usages of {@code wantedMethodUsage}, i.e., usages of the method which are invoked on (a
+   * kind of) the wanted type.
+   *
+   * @param wantedMethodUsage Method usage to locate.
+   * @return Located method usages, with the {@link MagikTypedFile} they are located in.
+   */
   public List<Map.Entry<MethodUsage, MagikTypedFile>> getMethodUsages(
       final MethodUsage wantedMethodUsage) {
     final String methodName = wantedMethodUsage.getMethodName();
+    final Map<URI, List<MethodUsage>> usagesByUri =
+        this.definitionKeeper.getMethodUsages(methodName).stream()
+            .filter(usage -> usage.getLocation() != null)
+            .collect(
+                Collectors.groupingBy(
+                    usage -> usage.getLocation().getUri(),
+                    LinkedHashMap::new,
+                    Collectors.toList()));
 
-    return this.definitionKeeper.getMethodDefinitions().stream()
-        .flatMap(methodDef -> methodDef.getUsedMethods().stream())
-        .filter(usage -> usage.getMethodName().equals(methodName))
-        .map(
-            usage -> {
-              final Location location = usage.getLocation();
-              final MagikTypedFile magikFile = this.getMagikFile(location);
-
-              // Determine/reason the type the method is called on.
-              final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
-              final AstNode node = magikFile.getTopNode();
-              final Position invocationPosition = location.getRange().getStartPosition();
-              final AstNode invocationTokenNode = AstQuery.nodeAt(node, invocationPosition);
-              final AstNode invocationNode =
-                  invocationTokenNode.getFirstAncestor(MagikGrammar.METHOD_INVOCATION);
-              final MethodInvocationNodeHelper helper =
-                  new MethodInvocationNodeHelper(invocationNode);
-              final AstNode receiverNode = helper.getReceiverNode();
-              final ExpressionResultString result = reasonerState.getNodeType(receiverNode);
-              final TypeString resultTypeStr = result.get(0, TypeString.UNDEFINED);
-              final TypeString typeStr = SelfHelper.substituteSelf(resultTypeStr, invocationNode);
-              if (typeStr.isUndefined()) {
-                return null;
-              }
-
-              final TypeStringResolver resolver = magikFile.getTypeStringResolver();
-              final TypeString wantedMethodUsageTypeStr = wantedMethodUsage.getTypeName();
-              if (!resolver.isKindOf(wantedMethodUsageTypeStr, typeStr)) {
-                return null;
-              }
-
-              final MethodUsage methodUsageWithNode =
-                  new MethodUsage(wantedMethodUsageTypeStr, methodName, location, invocationNode);
-              return Map.entry(methodUsageWithNode, magikFile);
+    return usagesByUri.entrySet().parallelStream()
+        .flatMap(
+            entry -> {
+              final MagikTypedFile magikFile =
+                  this.fileCache.get(entry.getKey(), this.definitionKeeper);
+              return entry.getValue().stream()
+                  .map(usage -> this.locateMethodUsage(wantedMethodUsage, usage, magikFile));
             })
         .filter(Objects::nonNull)
         .toList();
   }
 
-  private MagikTypedFile getMagikFile(final Location location) {
-    final URI calledMethodUri = location.getUri();
-    final Path calledMethodPath = Path.of(calledMethodUri);
-    final Charset charset = FileCharsetDeterminer.determineCharset(calledMethodPath);
-    final String text;
-    try {
-      text = Files.readString(calledMethodPath, charset);
-    } catch (final IOException exception) {
-      throw new IllegalStateException(exception);
+  @CheckForNull
+  private Map.Entry<MethodUsage, MagikTypedFile> locateMethodUsage(
+      final MethodUsage wantedMethodUsage,
+      final MethodUsage usage,
+      final MagikTypedFile magikFile) {
+    // Determine/reason the type the method is called on.
+    final Location location = usage.getLocation();
+    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
+    final Position invocationPosition = location.getRange().getStartPosition();
+    final AstNode invocationTokenNode = AstQuery.nodeAt(magikFile, invocationPosition);
+    final AstNode invocationNode =
+        invocationTokenNode.getFirstAncestor(MagikGrammar.METHOD_INVOCATION);
+    final MethodInvocationNodeHelper helper = new MethodInvocationNodeHelper(invocationNode);
+    final AstNode receiverNode = helper.getReceiverNode();
+    final ExpressionResultString result = reasonerState.getNodeType(receiverNode);
+    final TypeString resultTypeStr = result.get(0, TypeString.UNDEFINED);
+    final TypeString typeStr = SelfHelper.substituteSelf(resultTypeStr, invocationNode);
+    if (typeStr.isUndefined()) {
+      return null;
+    }
+
+    final TypeStringResolver resolver = magikFile.getTypeStringResolver();
+    final TypeString wantedMethodUsageTypeStr = wantedMethodUsage.getTypeName();
+    if (!resolver.isKindOf(wantedMethodUsageTypeStr, typeStr)) {
+      return null;
     }
-    return new MagikTypedFile(calledMethodUri, text, this.definitionKeeper);
+
+    final MethodUsage methodUsageWithNode =
+        new MethodUsage(
+            wantedMethodUsageTypeStr, wantedMethodUsage.getMethodName(), location, invocationNode);
+    return Map.entry(methodUsageWithNode, magikFile);
   }
 }
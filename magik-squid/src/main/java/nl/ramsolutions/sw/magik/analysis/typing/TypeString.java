@@ -123,6 +123,7 @@ public final class TypeString implements Comparable<TypeString> {
   private final List<TypeString> combinedTypes;
   private final List<TypeString> generics;
   private final @Nullable TypeString genericType;
+  private int hash;
 
   /**
    * Constructor for generics.
@@ -506,11 +507,17 @@ public final class TypeString implements Comparable<TypeString> {
 
   @Override
   public int hashCode() {
-    // Hash the bare type, without a package.
-    final int index = this.string != null ? this.string.indexOf(':') : -1;
-    final String str =
-        this.string != null && index != -1 ? this.string.substring(index + 1) : this.string;
-    return Objects.hash(this.combinedTypes, str, this.generics, this.genericType);
+    // Instances are immutable and often used as map keys, so cache the hash.
+    int result = this.hash;
+    if (result == 0) {
+      // Hash the bare type, without a package.
+      final int index = this.string != null ? this.string.indexOf(':') : -1;
+      final String str =
+          this.string != null && index != -1 ? this.string.substring(index + 1) : this.string;
+      result = Objects.hash(this.combinedTypes, str, this.generics, this.genericType);
+      this.hash = result;
+    }
+    return result;
   }
 
   @Override
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.magik.analysis.typing;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -10,7 +11,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -24,18 +24,20 @@ import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
 
-/** {@link TypeString} resolver tools. */
+/**
+ * {@link TypeString} resolver tools.
+ *
+ * <p>Results are cached in the {@link TypeStringResolverCache} of the {@link IDefinitionKeeper},
+ * shared by all resolvers on the same keeper.
+ */
 public class TypeStringResolver {
 
-  private static final String ALL_METHODS = "_all_methods";
-
   private final IDefinitionKeeper definitionKeeper;
-  private final Map<TypeString, Set<ITypeStringDefinition>> typeCache = new HashMap<>();
-  private final Map<Map.Entry<TypeString, String>, Collection<MethodDefinition>> methodsCache =
-      new HashMap<>();
+  private final TypeStringResolverCache cache;
 
   public TypeStringResolver(final IDefinitionKeeper definitionKeeper) {
     this.definitionKeeper = definitionKeeper;
+    this.cache = definitionKeeper.getTypeStringResolverCache();
   }
 
   private List<PackageDefinition> getPackageHierarchy(final TypeString typeString) {
@@ -119,22 +121,23 @@ public class TypeStringResolver {
    * @param typeString Reference to look for.
    * @return A {@link ExemplarDefinition}/{@link ProcedureDefinition}/{@link GlobalDefinition}.
    */
-  public synchronized Collection<ITypeStringDefinition> resolve(final TypeString typeString) {
-    return this.typeCache.computeIfAbsent(
+  public Collection<ITypeStringDefinition> resolve(final TypeString typeString) {
+    return this.cache.getResolved(
         typeString,
-        typeStr -> {
+        () -> {
+          this.cache.dependOn(typeString);
           final Collection<ExemplarDefinition> exemplarDefinitions =
-              this.findExemplarDefinitions(typeStr);
+              this.findExemplarDefinitions(typeString);
           final Collection<ProcedureDefinition> procedureDefinitions =
-              this.findProcedureDefinitions(typeStr);
+              this.findProcedureDefinitions(typeString);
           final Collection<GlobalDefinition> globalDefinitions =
-              this.findGlobalDefinitions(typeStr);
+              this.findGlobalDefinitions(typeString);
           return Stream.of(
                   exemplarDefinitions.stream(),
                   procedureDefinitions.stream(),
                   globalDefinitions.stream())
               .flatMap(stream -> stream)
-              .collect(Collectors.toSet());
+              .collect(Collectors.toUnmodifiableSet());
         });
   }
 
@@ -190,6 +193,7 @@ public class TypeStringResolver {
         continue;
       }
 
+      final BitSet kinds1 = this.getKinds(definition1);
       final TypeString combinedTypeString2 = TypeString.combine(typeString2);
       Objects.requireNonNull(combinedTypeString2);
       for (final TypeString typeStr2 : combinedTypeString2.getCombinedTypes()) {
@@ -199,7 +203,7 @@ public class TypeStringResolver {
           continue;
         }
 
-        if (this.isKindOf(definition1, definition2)) {
+        if (kinds1.get(this.cache.getTypeId(definition2.getTypeString()))) {
           return true;
         }
       }
@@ -217,14 +221,36 @@ public class TypeStringResolver {
    */
   public boolean isKindOf(
       final ITypeStringDefinition definition1, final ITypeStringDefinition definition2) {
-    final TypeString typeString1 = definition1.getTypeString();
-    final TypeString typeString2 = definition2.getTypeString();
-    if (typeString1.equals(typeString2)) {
-      return true;
-    }
+    final int typeId2 = this.cache.getTypeId(definition2.getTypeString());
+    return this.getKinds(definition1).get(typeId2);
+  }
 
-    return this.getParents(definition1).stream()
-        .anyMatch(parentTypeString1 -> this.isKindOf(parentTypeString1, typeString2));
+  /**
+   * Get the types {@code definition} is kind of, i.e., its own type and the types of all its
+   * (resolved) ancestors, as a {@link BitSet} of type ids. The closure is built from the closures
+   * of the parents.
+   *
+   * @param definition Definition to get kinds for.
+   * @return Ids of types the definition is kind of, must not be modified.
+   */
+  private BitSet getKinds(final ITypeStringDefinition definition) {
+    final TypeString typeString = definition.getTypeString();
+    return this.cache.getKinds(
+        typeString,
+        () -> {
+          this.cache.dependOn(typeString);
+          final BitSet kinds = new BitSet();
+          kinds.set(this.cache.getTypeId(typeString));
+          for (final TypeString parentTypeString : this.getParents(definition)) {
+            for (final TypeString parentTypeStr :
+                TypeString.combine(parentTypeString).getCombinedTypes()) {
+              this.resolve(parentTypeStr).stream()
+                  .findAny()
+                  .ifPresent(parentDefinition -> kinds.or(this.getKinds(parentDefinition)));
+            }
+          }
+          return kinds;
+        });
   }
 
   /**
@@ -234,27 +260,10 @@ public class TypeStringResolver {
    * @param typeString {@link TypeString} to resolve.
    * @return {@link MethodDefinition}s the {@link TypeString} responds to.
    */
-  public synchronized Collection<MethodDefinition> getRespondingMethodDefinitions(
-      final TypeString typeString) {
+  public Collection<MethodDefinition> getRespondingMethodDefinitions(final TypeString typeString) {
     return typeString.getCombinedTypes().stream()
-        .map(
-            typeStr -> {
-              final Entry<TypeString, String> cacheKey = Map.entry(typeStr, ALL_METHODS);
-              return this.methodsCache.computeIfAbsent(
-                  cacheKey,
-                  entry -> {
-                    // Try to resolve the typeString to an actual type.
-                    final Collection<ITypeStringDefinition> resolvedTypes = this.resolve(typeStr);
-                    final TypeString actualTypeStr =
-                        resolvedTypes.isEmpty()
-                            ? typeStr
-                            : resolvedTypes.iterator().next().getTypeString();
-
-                    final Map<String, MethodDefinition> methodDefinitionsByName = new HashMap<>();
-                    this.fillRespondingMethodDefinitions(actualTypeStr, methodDefinitionsByName);
-                    return methodDefinitionsByName.values().stream().collect(Collectors.toSet());
-                  });
-            })
+        .map(this::getMethodTable)
+        .flatMap(methodTable -> methodTable.values().stream())
         .flatMap(Collection::stream)
         .collect(Collectors.toSet());
   }
@@ -267,60 +276,47 @@ public class TypeStringResolver {
    * @param methodName Method name to resolve.
    * @return {@link MethodDefinition} that are responding to the given type and method name.
    */
-  public synchronized Collection<MethodDefinition> getRespondingMethodDefinitions(
+  public Collection<MethodDefinition> getRespondingMethodDefinitions(
       final TypeString typeString, final String methodName) {
     return typeString.getCombinedTypes().stream()
-        .map(
-            typeStr -> {
-              // Resolve typeString.
-              final Collection<ITypeStringDefinition> resolvedTypes = this.resolve(typeStr);
-              final TypeString actualTypeStr =
-                  resolvedTypes.isEmpty()
-                      ? typeStr
-                      : resolvedTypes.iterator().next().getTypeString();
-
-              // Find first method to respond.
-              final Collection<MethodDefinition> methodDefinitions =
-                  this.definitionKeeper.getMethodDefinitions(actualTypeStr).stream()
-                      .filter(def -> def.getMethodName().equals(methodName))
-                      .collect(Collectors.toSet());
-              if (!methodDefinitions.isEmpty()) {
-                return methodDefinitions;
-              }
-
-              // Iterate through parents, breadth first search.
-              for (final TypeString parentTypeString : this.getParents(typeStr)) {
-                final Collection<MethodDefinition> parentDefinitions =
-                    this.getRespondingMethodDefinitions(parentTypeString, methodName);
-                if (!parentDefinitions.isEmpty()) {
-                  return parentDefinitions;
-                }
-              }
-
-              return methodDefinitions;
-            })
+        .map(this::getMethodTable)
+        .map(methodTable -> methodTable.getOrDefault(methodName, Collections.emptySet()))
         .flatMap(Collection::stream)
         .collect(Collectors.toSet());
   }
 
-  private void fillRespondingMethodDefinitions(
-      final TypeString typeString, final Map<String, MethodDefinition> methodDefinitions) {
-    // TODO: This doesn't handle any conflicts.
-    this.getSelfAndAncestors(typeString)
-        .forEach(
-            typeStr ->
-                this.definitionKeeper
-                    .getMethodDefinitions(typeStr)
-                    .forEach(
-                        methodDefinition -> {
-                          final String methodName = methodDefinition.getMethodName();
-                          if (methodDefinitions.containsKey(methodName)) {
-                            // Don't overwrite.
-                            return;
-                          }
-
-                          methodDefinitions.put(methodName, methodDefinition);
-                        }));
+  /**
+   * Get the method table of a single {@link TypeString}: method name to the responding {@link
+   * MethodDefinition}s. Methods are taken from the type itself first, then from its ancestors in
+   * linearized order. A method defined on a type overrides the methods with the same name on its
+   * ancestors.
+   *
+   * @param typeStr Single {@link TypeString}.
+   * @return Method table.
+   */
+  private Map<String, Collection<MethodDefinition>> getMethodTable(final TypeString typeStr) {
+    return this.cache.getMethodTable(
+        typeStr,
+        () -> {
+          // Try to resolve the typeString to an actual type.
+          final Collection<ITypeStringDefinition> resolvedTypes = this.resolve(typeStr);
+          final TypeString actualTypeStr =
+              resolvedTypes.isEmpty() ? typeStr : resolvedTypes.iterator().next().getTypeString();
+
+          final Map<String, Collection<MethodDefinition>> methodTable = new HashMap<>();
+          this.addMethodDefinitions(actualTypeStr, methodTable);
+          this.getAllAncestors(typeStr)
+              .forEach(ancestorTypeStr -> this.addMethodDefinitions(ancestorTypeStr, methodTable));
+          return Collections.unmodifiableMap(methodTable);
+        });
+  }
+
+  private void addMethodDefinitions(
+      final TypeString typeString, final Map<String, Collection<MethodDefinition>> methodTable) {
+    this.definitionKeeper.getMethodDefinitions(typeString).stream()
+        .collect(
+            Collectors.groupingBy(MethodDefinition::getMethodName, Collectors.toUnmodifiableSet()))
+        .forEach(methodTable::putIfAbsent);
   }
 
   /**
@@ -387,36 +383,52 @@ public class TypeStringResolver {
             typeStr ->
                 // Let all parents inherit generic definitions.
                 typeStr.withGenerics(thisGenDefs))
-        .collect(Collectors.toUnmodifiableSet());
+        .distinct()
+        .toList();
   }
 
   /**
    * Find all ancestors for a given {@link TypeString}.
    *
+   * <p>The ancestors are linearized: each type comes before its parents, and parents declared
+   * earlier come before parents declared later.
+   *
    * @param typeString {@link TypeString} to get ancestors from.
    * @return All ancestors this the given type.
    */
   public Collection<TypeString> getAllAncestors(final TypeString typeString) {
-    final List<TypeString> ancestors = new ArrayList<>();
-    this.getAllAncestors(typeString, ancestors);
-    return ancestors;
+    return this.cache.getAncestors(
+        typeString,
+        () -> {
+          // Reverse post-order, visiting parents right to left.
+          final List<TypeString> postOrder = new ArrayList<>();
+          this.visitAncestors(typeString, new HashSet<>(), postOrder);
+          Collections.reverse(postOrder);
+          return List.copyOf(postOrder.subList(1, postOrder.size()));
+        });
   }
 
-  private void getAllAncestors(final TypeString typeString, final List<TypeString> ancestors) {
-    // TODO: Does this skip one level at a time?
-    final Collection<TypeString> typeStringParents = this.getParents(typeString);
-    ancestors.addAll(typeStringParents);
-
-    // Recurse.
-    this.resolve(typeString).stream()
-        .filter(ExemplarDefinition.class::isInstance)
-        .map(ExemplarDefinition.class::cast)
-        .flatMap(def -> def.getParents().stream())
-        .forEach(parentTypeStr -> this.getAllAncestors(parentTypeStr, ancestors));
+  private void visitAncestors(
+      final TypeString typeString,
+      final Set<TypeString> visited,
+      final List<TypeString> postOrder) {
+    if (!visited.add(typeString)) {
+      return;
+    }
+
+    final List<TypeString> parents = new ArrayList<>(this.getParents(typeString));
+    Collections.reverse(parents);
+    parents.forEach(parentTypeStr -> this.visitAncestors(parentTypeStr, visited, postOrder));
+    postOrder.add(typeString);
   }
 
+  /**
+   * Get the {@link TypeString} and all its ancestors, see {@link #getAllAncestors(TypeString)}.
+   *
+   * @param typeString {@link TypeString} to get ancestors from.
+   * @return The given type, followed by all its ancestors.
+   */
   public Collection<TypeString> getSelfAndAncestors(final TypeString typeString) {
-    return Stream.concat(Stream.of(typeString), this.getAllAncestors(typeString).stream())
-        .collect(Collectors.toUnmodifiableSet());
+    return Stream.concat(Stream.of(typeString), this.getAllAncestors(typeString).stream()).toList();
   }
 }
@@ -0,0 +1,287 @@
+package nl.ramsolutions.sw.magik.analysis.typing;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import nl.ramsolutions.sw.magik.analysis.definitions.ITypeStringDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+
+/**
+ * Cache for {@link TypeStringResolver}s, shared by all resolvers of an {@link
+ * nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper}.
+ *
+ * <p>Each entry records the identifiers of the types it was derived from, e.g., the type itself and
+ * all its ancestors. When a definition for a type is added or removed, only the entries derived
+ * from that identifier are invalidated. Identifiers are used instead of full type names, as types
+ * are resolved through the package hierarchy.
+ *
+ * <p>Types are given a compact int id, which stays stable for the lifetime of the cache. The kinds
+ * of a type, i.e., the type and all its ancestors, are stored as a {@link BitSet} of these ids.
+ *
+ * <p>The cache is thread safe, and does not lock globally. Invalidations are numbered, and the last
+ * invalidation of each identifier is kept. An entry is stored unless one of the identifiers it was
+ * derived from was invalidated while computing it, so an invalidation only discards entries being
+ * computed which depend on it. Invalidating the types of a single change at once, see {@link
+ * #invalidate(Collection)}, costs a single invalidation.
+ *
+ * <p>A snapshot of the cache, see {@link #getSnapshot()}, shares all entries with the cache. It
+ * uses an entry only if none of the identifiers the entry was derived from were invalidated after
+ * the snapshot was taken. Entries it computes are stored in the cache if they are still valid.
+ */
+public final class TypeStringResolverCache {
+
+  /**
+   * Cache entry.
+   *
+   * @param <V> Type of value.
+   * @param value Cached value.
+   * @param dependencies Identifiers of the types the value was derived from.
+   */
+  private record CacheEntry<V>(V value, Set<String> dependencies) {}
+
+  /**
+   * Entry in one of the caches, depending on an identifier.
+   *
+   * @param cache Cache holding the entry.
+   * @param key Key of the entry.
+   */
+  private record Dependent(Map<?, ?> cache, Object key) {}
+
+  private static final long LIVE = Long.MAX_VALUE;
+
+  private final Map<TypeString, CacheEntry<Collection<ITypeStringDefinition>>> resolved;
+  private final Map<TypeString, CacheEntry<List<TypeString>>> ancestors;
+  private final Map<TypeString, CacheEntry<BitSet>> kinds;
+  private final Map<TypeString, CacheEntry<Map<String, Collection<MethodDefinition>>>> methodTables;
+  private final Map<TypeString, Integer> typeIds;
+  private final AtomicInteger nextTypeId;
+  private final Map<String, Set<Dependent>> dependents;
+  private final Map<String, Long> invalidations;
+  private final ThreadLocal<Deque<Set<String>>> recorders;
+  private final AtomicLong generation;
+  private final AtomicLong clearGeneration;
+  private final long snapshotGeneration;
+
+  /** Constructor. */
+  public TypeStringResolverCache() {
+    this.resolved = new ConcurrentHashMap<>();
+    this.ancestors = new ConcurrentHashMap<>();
+    this.kinds = new ConcurrentHashMap<>();
+    this.methodTables = new ConcurrentHashMap<>();
+    this.typeIds = new ConcurrentHashMap<>();
+    this.nextTypeId = new AtomicInteger();
+    this.dependents = new ConcurrentHashMap<>();
+    this.invalidations = new ConcurrentHashMap<>();
+    this.recorders = ThreadLocal.withInitial(ArrayDeque::new);
+    this.generation = new AtomicLong();
+    this.clearGeneration = new AtomicLong();
+    this.snapshotGeneration = LIVE;
+  }
+
+  /**
+   * Constructor for a snapshot of {@code cache}.
+   *
+   * @param cache Cache to take snapshot of.
+   */
+  private TypeStringResolverCache(final TypeStringResolverCache cache) {
+    this.resolved = cache.resolved;
+    this.ancestors = cache.ancestors;
+    this.kinds = cache.kinds;
+    this.methodTables = cache.methodTables;
+    this.typeIds = cache.typeIds;
+    this.nextTypeId = cache.nextTypeId;
+    this.dependents = cache.dependents;
+    this.invalidations = cache.invalidations;
+    this.recorders = cache.recorders;
+    this.generation = cache.generation;
+    this.clearGeneration = cache.clearGeneration;
+    this.snapshotGeneration = cache.generation.get();
+  }
+
+  /**
+   * Get a snapshot of the cache, for the definitions as of now. The snapshot must be taken when all
+   * changes to the definitions are invalidated.
+   *
+   * @return Snapshot.
+   */
+  public TypeStringResolverCache getSnapshot() {
+    return new TypeStringResolverCache(this);
+  }
+
+  /**
+   * Invalidate all entries derived from the identifier of {@code typeString}.
+   *
+   * @param typeString Type of added/removed definition.
+   */
+  public void invalidate(final TypeString typeString) {
+    this.invalidate(List.of(typeString));
+  }
+
+  /**
+   * Invalidate all entries derived from the identifiers of {@code typeStrings}, as a single
+   * invalidation.
+   *
+   * @param typeStrings Types of added/removed definitions.
+   */
+  public void invalidate(final Collection<TypeString> typeStrings) {
+    this.checkLive();
+    if (typeStrings.isEmpty()) {
+      return;
+    }
+
+    final long invalidationGeneration = this.generation.incrementAndGet();
+    for (final TypeString typeString : typeStrings) {
+      final String identifier = typeString.getIdentifier();
+      this.invalidations.put(identifier, invalidationGeneration);
+      final Set<Dependent> invalidated = this.dependents.remove(identifier);
+      if (invalidated != null) {
+        invalidated.forEach(dependent -> dependent.cache().remove(dependent.key()));
+      }
+    }
+  }
+
+  /** Invalidate all entries. */
+  public void clear() {
+    this.checkLive();
+    this.clearGeneration.set(this.generation.incrementAndGet());
+    this.dependents.clear();
+    this.resolved.clear();
+    this.ancestors.clear();
+    this.kinds.clear();
+    this.methodTables.clear();
+  }
+
+  /**
+   * Get the id of {@code typeString}.
+   *
+   * @param typeString Type to get id for.
+   * @return Id of type.
+   */
+  int getTypeId(final TypeString typeString) {
+    return this.typeIds.computeIfAbsent(typeString, k -> this.nextTypeId.getAndIncrement());
+  }
+
+  /**
+   * Record that the entry being computed depends on {@code typeString}.
+   *
+   * @param typeString Type depended on.
+   */
+  void dependOn(final TypeString typeString) {
+    final Set<String> recorder = this.recorders.get().peek();
+    if (recorder != null) {
+      recorder.add(typeString.getIdentifier());
+    }
+  }
+
+  Collection<ITypeStringDefinition> getResolved(
+      final TypeString typeString, final Supplier<Collection<ITypeStringDefinition>> computer) {
+    return this.get(this.resolved, typeString, computer);
+  }
+
+  List<TypeString> getAncestors(
+      final TypeString typeString, final Supplier<List<TypeString>> computer) {
+    return this.get(this.ancestors, typeString, computer);
+  }
+
+  /**
+   * Get the kinds of {@code typeString}, as a {@link BitSet} of type ids. The returned {@link
+   * BitSet} is shared and must not be modified.
+   */
+  BitSet getKinds(final TypeString typeString, final Supplier<BitSet> computer) {
+    return this.get(this.kinds, typeString, computer);
+  }
+
+  Map<String, Collection<MethodDefinition>> getMethodTable(
+      final TypeString typeString,
+      final Supplier<Map<String, Collection<MethodDefinition>>> computer) {
+    return this.get(this.methodTables, typeString, computer);
+  }
+
+  /**
+   * Get the cached value, or compute and cache it. Dependencies of the value are propagated to the
+   * entry being computed by the caller, if any.
+   */
+  private <K, V> V get(final Map<K, CacheEntry<V>> cache, final K key, final Supplier<V> computer) {
+    final CacheEntry<V> cachedEntry = cache.get(key);
+    if (cachedEntry != null && this.isUsable(cachedEntry)) {
+      this.recordAll(cachedEntry.dependencies());
+      return cachedEntry.value();
+    }
+
+    final long startGeneration =
+        this.snapshotGeneration != LIVE ? this.snapshotGeneration : this.generation.get();
+    final Deque<Set<String>> recorderStack = this.recorders.get();
+    final Set<String> dependencies = new HashSet<>();
+    recorderStack.push(dependencies);
+    final V value;
+    try {
+      value = computer.get();
+    } finally {
+      recorderStack.pop();
+    }
+    this.recordAll(dependencies);
+
+    final CacheEntry<V> entry = new CacheEntry<>(value, Set.copyOf(dependencies));
+    if (this.snapshotGeneration == LIVE) {
+      cache.put(key, entry);
+    } else if (cachedEntry != null || cache.putIfAbsent(key, entry) != null) {
+      // Keep the entry of the current definitions.
+      return value;
+    }
+
+    final Dependent dependent = new Dependent(cache, key);
+    dependencies.forEach(
+        identifier ->
+            this.dependents.compute(
+                identifier,
+                (k, identifierDependents) -> {
+                  final Set<Dependent> newDependents =
+                      identifierDependents != null ? identifierDependents : new HashSet<>();
+                  newDependents.add(dependent);
+                  return newDependents;
+                }));
+
+    // An invalidation since the start might have missed the entry, remove it again.
+    if (this.isInvalidatedSince(dependencies, startGeneration)) {
+      cache.remove(key, entry);
+    }
+
+    return value;
+  }
+
+  /** Test if {@code entry}, which is valid for the current definitions, is valid for this cache. */
+  private boolean isUsable(final CacheEntry<?> entry) {
+    return this.snapshotGeneration == LIVE
+        || this.generation.get() == this.snapshotGeneration
+        || !this.isInvalidatedSince(entry.dependencies(), this.snapshotGeneration);
+  }
+
+  private boolean isInvalidatedSince(final Set<String> identifiers, final long startGeneration) {
+    return this.clearGeneration.get() > startGeneration
+        || identifiers.stream()
+            .map(identifier -> this.invalidations.getOrDefault(identifier, 0L))
+            .anyMatch(invalidationGeneration -> invalidationGeneration > startGeneration);
+  }
+
+  private void checkLive() {
+    if (this.snapshotGeneration != LIVE) {
+      throw new UnsupportedOperationException("Snapshot is read only");
+    }
+  }
+
+  private void recordAll(final Set<String> identifiers) {
+    final Set<String> recorder = this.recorders.get().peek();
+    if (recorder != null) {
+      recorder.addAll(identifiers);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package nl.ramsolutions.sw.magik.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+
+/**
+ * Incremental Magik parser, for a document which is edited.
+ *
+ * <p>The source is split in sections, each ending at a line containing only a {@code $}, like the
+ * Magik compiler does. Sections which are unchanged since the previous parse are not parsed again.
+ * Their nodes are copied, with shifted positions when the section has moved. Only changed sections
+ * are parsed using {@link MagikParser}.
+ *
+ * <p>Nodes are never shared between parses, the tree from the previous parse is not modified and
+ * can still be used by other threads. Only parsing is incremental: the resulting tree is complete,
+ * scopes and type reasoning are determined for the whole tree again.
+ */
+public class IncrementalMagikParser {
+
+  private static final String TRANSMIT = "$";
+
+  /**
+   * Parsed section.
+   *
+   * @param source Source of section.
+   * @param start Start of the section in the source.
+   * @param nodes Top level nodes of section, without the EOF node.
+   * @param eofNode EOF node of section.
+   */
+  private record Section(String source, Start start, List<AstNode> nodes, AstNode eofNode) {}
+
+  /**
+   * Start of a section in the source.
+   *
+   * @param line Line of the first character of the section.
+   * @param column Column of the first character of the section.
+   * @param index Index of the first character of the section.
+   */
+  private record Start(int line, int column, int index) {
+
+    static final Start BEGIN = new Start(1, 0, 0);
+
+    /** Get the start of the section following a section starting here. */
+    Start after(final String sectionSource) {
+      final int length = sectionSource.length();
+      int lastLineStart = -1;
+      int lineBreaks = 0;
+      for (int i = 0; i < length; ++i) {
+        final char chr = sectionSource.charAt(i);
+        if (chr == '\n'
+            || chr == '\r' && (i + 1 == length || sectionSource.charAt(i + 1) != '\n')) {
+          lineBreaks += 1;
+          lastLineStart = i + 1;
+        }
+      }
+
+      final int nextColumn = lastLineStart == -1 ? this.column + length : length - lastLineStart;
+      return new Start(this.line + lineBreaks, nextColumn, this.index + length);
+    }
+  }
+
+  /**
+   * Shift of positions, from one start to another.
+   *
+   * @param from Original start.
+   * @param to New start.
+   */
+  private record Shift(Start from, Start to) {
+
+    Token shiftToken(final Token token) {
+      if (this.from.equals(this.to)) {
+        return token;
+      }
+
+      final int column =
+          token.getLine() == this.from.line()
+              ? token.getColumn() - this.from.column() + this.to.column()
+              : token.getColumn();
+      final List<Trivia> trivia = token.getTrivia().stream().map(this::shiftTrivia).toList();
+      return Token.builder(token)
+          .setLine(token.getLine() - this.from.line() + this.to.line())
+          .setColumn(column)
+          .setTrivia(trivia)
+          .build();
+    }
+
+    Trivia shiftTrivia(final Trivia trivia) {
+      if (trivia.isComment()) {
+        return Trivia.createComment(this.shiftToken(trivia.getToken()));
+      } else if (trivia.isSkippedText()) {
+        return Trivia.createSkippedText(trivia.getTokens().stream().map(this::shiftToken).toList());
+      }
+
+      return trivia;
+    }
+
+    int shiftIndex(final int index) {
+      return index - this.from.index() + this.to.index();
+    }
+  }
+
+  private final MagikParser parser = new MagikParser();
+  private final URI uri;
+  private List<Section> sections = List.of();
+  private int parsedSectionCount;
+
+  /**
+   * Constructor.
+   *
+   * @param uri URI of document.
+   */
+  public IncrementalMagikParser(final URI uri) {
+    this.uri = uri;
+  }
+
+  /**
+   * Parse the (new) source of the document, reusing the unchanged sections of the previous parse.
+   *
+   * @param source Source to parse.
+   * @return Top level {@link AstNode}.
+   */
+  public synchronized AstNode parse(final String source) {
+    final Map<String, Deque<Section>> previousSections = new HashMap<>();
+    this.sections.forEach(
+        section ->
+            previousSections
+                .computeIfAbsent(section.source(), key -> new ArrayDeque<>())
+                .add(section));
+
+    final List<Section> newSections = new ArrayList<>();
+    this.parsedSectionCount = 0;
+    Start start = Start.BEGIN;
+    for (final String sectionSource : IncrementalMagikParser.splitSections(source)) {
+      final Deque<Section> candidates = previousSections.get(sectionSource);
+      final Section previousSection = candidates != null ? candidates.pollFirst() : null;
+      final Section section;
+      if (previousSection == null) {
+        section = this.parseSection(sectionSource, start);
+      } else {
+        section = IncrementalMagikParser.moveSection(previousSection, start);
+      }
+      newSections.add(section);
+
+      start = start.after(sectionSource);
+    }
+    this.sections = newSections;
+
+    return IncrementalMagikParser.buildTopNode(newSections, source);
+  }
+
+  /**
+   * Get the number of sections which were parsed by the last {@link #parse(String)}, i.e., the
+   * sections which were not reused.
+   *
+   * @return Number of parsed sections.
+   */
+  public synchronized int getParsedSectionCount() {
+    return this.parsedSectionCount;
+  }
+
+  private Section parseSection(final String sectionSource, final Start start) {
+    this.parsedSectionCount += 1;
+    final AstNode sectionNode = this.parser.parseSafe(sectionSource, this.uri);
+    final Section section =
+        new Section(
+            sectionSource,
+            Start.BEGIN,
+            sectionNode.getChildren().stream()
+                .filter(node -> node.isNot(GenericTokenType.EOF))
+                .toList(),
+            sectionNode.getLastChild());
+    if (start.equals(Start.BEGIN)) {
+      return section;
+    }
+
+    return IncrementalMagikParser.moveSection(section, start);
+  }
+
+  private static AstNode buildTopNode(final List<Section> sections, final String source) {
+    final Section lastSection = sections.get(sections.size() - 1);
+    final Token firstToken =
+        sections.stream()
+            .flatMap(section -> section.nodes().stream())
+            .map(AstNode::getToken)
+            .findFirst()
+            .orElse(lastSection.eofNode().getToken());
+
+    final AstNode topNode =
+        new AstNode(MagikGrammar.MAGIK, MagikGrammar.MAGIK.toString(), firstToken);
+    topNode.setFromIndex(0);
+    topNode.setToIndex(source.length());
+    sections.forEach(section -> section.nodes().forEach(topNode::addChild));
+    topNode.addChild(lastSection.eofNode());
+    return topNode;
+  }
+
+  /**
+   * Split source in sections. Each section ends with the {@code $} of a line containing only {@code
+   * $}, except for the last section, which might be empty. The rest of the line belongs to the next
+   * section, as the parser attributes the spacing to the next node.
+   */
+  private static List<String> splitSections(final String source) {
+    final List<String> sectionSources = new ArrayList<>();
+    int sectionStart = 0;
+    int lineStart = 0;
+    final int length = source.length();
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && source.charAt(lineEnd) != '\n' && source.charAt(lineEnd) != '\r') {
+        lineEnd += 1;
+      }
+      int nextLineStart = lineEnd;
+      if (nextLineStart < length && source.charAt(nextLineStart) == '\r') {
+        nextLineStart += 1;
+      }
+      if (nextLineStart < length && source.charAt(nextLineStart) == '\n') {
+        nextLineStart += 1;
+      }
+
+      if (source.substring(lineStart, lineEnd).trim().equals(TRANSMIT)) {
+        final int sectionEnd = source.indexOf(TRANSMIT, lineStart) + 1;
+        sectionSources.add(source.substring(sectionStart, sectionEnd));
+        sectionStart = sectionEnd;
+      }
+      lineStart = nextLineStart;
+    }
+    sectionSources.add(source.substring(sectionStart));
+    return sectionSources;
+  }
+
+  /**
+   * Copy the nodes of a section, with positions shifted to the new start of the section. Tokens are
+   * immutable and are shared when the section has not moved.
+   */
+  private static Section moveSection(final Section section, final Start start) {
+    final Shift shift = new Shift(section.start(), start);
+    final Map<Token, Token> copiedTokens = new IdentityHashMap<>();
+    final List<AstNode> nodes =
+        section.nodes().stream()
+            .map(node -> IncrementalMagikParser.copyNode(node, shift, copiedTokens))
+            .toList();
+    final AstNode eofNode = IncrementalMagikParser.copyNode(section.eofNode(), shift, copiedTokens);
+    return new Section(section.source(), start, nodes, eofNode);
+  }
+
+  private static AstNode copyNode(
+      final AstNode node, final Shift shift, final Map<Token, Token> copiedTokens) {
+    final Token token = node.getToken();
+    final Token copiedToken =
+        token != null ? copiedTokens.computeIfAbsent(token, shift::shiftToken) : null;
+
+    final AstNode copiedNode = new AstNode(node.getType(), node.getName(), copiedToken);
+    copiedNode.setFromIndex(shift.shiftIndex(node.getFromIndex()));
+    copiedNode.setToIndex(shift.shiftIndex(node.getToIndex()));
+    node.getChildren()
+        .forEach(
+            child ->
+                copiedNode.addChild(IncrementalMagikParser.copyNode(child, shift, copiedTokens)));
+    return copiedNode;
+  }
+}
@@ -59,13 +59,13 @@ public class MagikParser {
     RULE_MAPPING.put(MagikGrammar.PARAMETERS_SQUARE, MagikGrammar.PARAMETERS);
   }
 
-  private final Parser<LexerlessGrammar> parser;
-
-  /** Constructor with default charset. */
-  public MagikParser() {
-    final LexerlessGrammar magikGrammar = MagikGrammar.create();
-    this.parser = new ParserAdapter<>(StandardCharsets.ISO_8859_1, magikGrammar);
-  }
+  /**
+   * Parser per thread. Building the grammar is expensive, while a {@link ParserAdapter} can be
+   * reused for subsequent parses, but not concurrently.
+   */
+  private static final ThreadLocal<Parser<LexerlessGrammar>> PARSER =
+      ThreadLocal.withInitial(
+          () -> new ParserAdapter<>(StandardCharsets.ISO_8859_1, MagikGrammar.create()));
 
   /**
    * Parse safe and set {@link MagikParser.DEFAULT_URI}.
@@ -113,7 +113,7 @@ public class MagikParser {
    * @return Tree
    */
   public AstNode parse(final String source) {
-    final AstNode magikNode = this.parser.parse(source);
+    final AstNode magikNode = MagikParser.PARSER.get().parse(source);
 
     // Update identifiers.
     this.updateIdentifiersSymbolsCasing(magikNode);
@@ -134,7 +134,7 @@ public class MagikParser {
   public AstNode parse(final Path path) throws IOException {
     final Charset charset = FileCharsetDeterminer.determineCharset(path);
     final String source = Files.readString(path, charset);
-    final AstNode node = this.parser.parse(source);
+    final AstNode node = MagikParser.PARSER.get().parse(source);
 
     final URI uri = path.toUri();
     AstNodeHelper.updateUri(node, uri);
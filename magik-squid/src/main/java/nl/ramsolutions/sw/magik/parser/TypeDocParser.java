@@ -58,8 +58,11 @@ public class TypeDocParser {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TypeDocParser.class);
 
-  private final Parser<LexerlessGrammar> parser =
-      new ParserAdapter<>(StandardCharsets.ISO_8859_1, TypeDocGrammar.create());
+  // Parser is cached per thread, building the grammar for each parser is expensive.
+  private static final ThreadLocal<Parser<LexerlessGrammar>> PARSER =
+      ThreadLocal.withInitial(
+          () -> new ParserAdapter<>(StandardCharsets.ISO_8859_1, TypeDocGrammar.create()));
+
   private final List<Token> tokens;
   private final String pakkage;
   private AstNode typeDocNode;
@@ -100,7 +103,7 @@ public class TypeDocParser {
         this.tokens.stream().map(Token::getValue).collect(Collectors.joining("\n"));
 
     // Parse TypeDoc.
-    final AstNode node = this.parser.parse(comments);
+    final AstNode node = TypeDocParser.PARSER.get().parse(comments);
 
     // Nothing parsed, nothing to fix.
     if (comments.isEmpty()) {
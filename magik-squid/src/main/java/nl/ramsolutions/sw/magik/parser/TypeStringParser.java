@@ -7,6 +7,8 @@ import com.sonar.sslr.impl.ast.AstWalker;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.magik.api.TypeStringGrammar;
@@ -20,6 +22,31 @@ public final class TypeStringParser {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TypeStringParser.class);
 
+  /** Key for the parsed {@link TypeString} cache. */
+  private record CacheKey(String typeStr, String pakkage) {}
+
+  /**
+   * Parsed {@link TypeString}s, to return canonical instances for often seen type strings, such as
+   * {@code sw:integer}. Bounded, the cache is cleared when it is full.
+   */
+  private static final Map<CacheKey, TypeString> TYPE_STRING_CACHE = new ConcurrentHashMap<>();
+
+  private static final int TYPE_STRING_CACHE_MAX_SIZE = 65_536;
+
+  // Parsers are cached per thread, building the grammar for each parse is expensive.
+  private static final ThreadLocal<Parser<LexerlessGrammar>> TYPE_STRING_PARSER =
+      ThreadLocal.withInitial(
+          () ->
+              new ParserAdapter<>(
+                  StandardCharsets.ISO_8859_1,
+                  TypeStringGrammar.create(TypeStringGrammar.TYPE_STRING)));
+  private static final ThreadLocal<Parser<LexerlessGrammar>> EXPRESSION_RESULT_STRING_PARSER =
+      ThreadLocal.withInitial(
+          () ->
+              new ParserAdapter<>(
+                  StandardCharsets.ISO_8859_1,
+                  TypeStringGrammar.create(TypeStringGrammar.EXPRESSION_RESULT_STRING)));
+
   private TypeStringParser() {}
 
   /**
@@ -45,11 +72,21 @@ public final class TypeStringParser {
       return TypeString.UNDEFINED;
     }
 
-    final Parser<LexerlessGrammar> parser =
-        new ParserAdapter<>(
-            StandardCharsets.ISO_8859_1, TypeStringGrammar.create(TypeStringGrammar.TYPE_STRING));
+    final CacheKey key = new CacheKey(typeStr, currentPakkage);
+    final TypeString cachedTypeString = TypeStringParser.TYPE_STRING_CACHE.get(key);
+    if (cachedTypeString != null) {
+      return cachedTypeString;
+    }
+
+    final Parser<LexerlessGrammar> parser = TypeStringParser.TYPE_STRING_PARSER.get();
     final AstNode node = parser.parse(typeStr);
-    return TypeStringParser.typeStringNodeToTypeString(node, currentPakkage);
+    final TypeString typeString = TypeStringParser.typeStringNodeToTypeString(node, currentPakkage);
+    if (TypeStringParser.TYPE_STRING_CACHE.size() >= TYPE_STRING_CACHE_MAX_SIZE) {
+      TypeStringParser.TYPE_STRING_CACHE.clear();
+    }
+    final TypeString existingTypeString =
+        TypeStringParser.TYPE_STRING_CACHE.putIfAbsent(key, typeString);
+    return existingTypeString != null ? existingTypeString : typeString;
   }
 
   /**
@@ -61,9 +98,7 @@ public final class TypeStringParser {
   public static AstNode getParsedNodeForTypeString(final AstNode typeDocNode) {
     final Token typeDocToken = typeDocNode.getToken();
     final String typeStr = typeDocToken.getOriginalValue();
-    final Parser<LexerlessGrammar> parser =
-        new ParserAdapter<>(
-            StandardCharsets.ISO_8859_1, TypeStringGrammar.create(TypeStringGrammar.TYPE_STRING));
+    final Parser<LexerlessGrammar> parser = TypeStringParser.TYPE_STRING_PARSER.get();
     final AstNode node = parser.parse(typeStr);
 
     // Update token location for easier handling in other parts.
@@ -107,10 +142,7 @@ public final class TypeStringParser {
       return ExpressionResultString.EMPTY;
     }
 
-    final Parser<LexerlessGrammar> parser =
-        new ParserAdapter<>(
-            StandardCharsets.ISO_8859_1,
-            TypeStringGrammar.create(TypeStringGrammar.EXPRESSION_RESULT_STRING));
+    final Parser<LexerlessGrammar> parser = TypeStringParser.EXPRESSION_RESULT_STRING_PARSER.get();
     final AstNode node = parser.parse(expressionResultStr);
     if (node.hasDescendant(TypeStringGrammar.EXPRESSION_RESULT_STRING_UNDEFINED)) {
       return ExpressionResultString.UNDEFINED;
@@ -7,6 +7,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.IgnoreHandler;
 
 /** Module.def file scanner. */
@@ -30,11 +31,17 @@ public final class ModuleDefFileScanner {
    */
   @CheckForNull
   public Set<Path> getModuleDefFiles(final Path fromPath) throws IOException {
-    return Files.walk(fromPath)
-        .filter(Files::isRegularFile)
-        .filter(this::isModuleDefFile)
-        .filter(this::notIgnored)
-        .collect(Collectors.toSet());
+    try (Stream<Path> paths =
+        Files.find(
+            fromPath,
+            Integer.MAX_VALUE,
+            (path, attrs) ->
+                ModuleDefFileScanner.isModuleDefFile(path)
+                    && (attrs.isRegularFile()
+                        || attrs.isSymbolicLink() && Files.isRegularFile(path))
+                    && !this.ignoreHandler.isFileIgnored(path))) {
+      return paths.collect(Collectors.toSet());
+    }
   }
 
   /**
@@ -85,11 +92,15 @@ public final class ModuleDefFileScanner {
     return null;
   }
 
-  private boolean notIgnored(final Path path) {
-    return !this.ignoreHandler.isIgnored(path);
-  }
-
-  private boolean isModuleDefFile(final Path path) {
-    return path.getFileName().toString().equalsIgnoreCase(ModuleDefFileScanner.SW_MODULE_DEF);
+  /**
+   * Test if {@code path} is a `module.def` file, by its name.
+   *
+   * @param path Path to test.
+   * @return true if `module.def` file, false otherwise.
+   */
+  public static boolean isModuleDefFile(final Path path) {
+    final Path fileName = path.getFileName();
+    return fileName != null
+        && fileName.toString().equalsIgnoreCase(ModuleDefFileScanner.SW_MODULE_DEF);
   }
 }
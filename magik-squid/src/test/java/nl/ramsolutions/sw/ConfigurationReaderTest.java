@@ -0,0 +1,83 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import nl.ramsolutions.sw.magik.FileEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test {@link ConfigurationReader}. */
+class ConfigurationReaderTest {
+
+  @Test
+  void testReadPropertiesCachedUntilFileEvent(@TempDir final Path tempDir) throws IOException {
+    Files.writeString(tempDir.resolve("product.def"), "test_product\n");
+    final Path propertiesPath = tempDir.resolve(ConfigurationLocator.MAGIK_LINT_RC_FILENAME);
+    Files.writeString(propertiesPath, "key=1\n");
+    final Path magikPath = Files.createDirectories(tempDir.resolve("source")).resolve("a.magik");
+    Files.writeString(magikPath, "$\n");
+
+    final MagikToolsProperties properties1 =
+        ConfigurationReader.readProperties(magikPath, MagikToolsProperties.DEFAULT_PROPERTIES);
+    assertThat(properties1.getPropertyString("key")).isEqualTo("1");
+
+    // Changed file is not seen, until the file event is handled.
+    Files.writeString(propertiesPath, "key=2\n");
+    final MagikToolsProperties properties2 =
+        ConfigurationReader.readProperties(magikPath, MagikToolsProperties.DEFAULT_PROPERTIES);
+    assertThat(properties2.getPropertyString("key")).isEqualTo("1");
+
+    ConfigurationReader.handleFileEvent(
+        new FileEvent(propertiesPath.toUri(), FileEvent.FileChangeType.CHANGED));
+    final MagikToolsProperties properties3 =
+        ConfigurationReader.readProperties(magikPath, MagikToolsProperties.DEFAULT_PROPERTIES);
+    assertThat(properties3.getPropertyString("key")).isEqualTo("2");
+  }
+
+  @Test
+  void testLocateCreatedConfiguration(@TempDir final Path tempDir) throws IOException {
+    final Path moduleDir = Files.createDirectories(tempDir.resolve("module"));
+    Files.writeString(moduleDir.resolve("module.def"), "test_module\n");
+    final Path magikPath = moduleDir.resolve("a.magik");
+    Files.writeString(magikPath, "$\n");
+    final Path propertiesPath = moduleDir.resolve(ConfigurationLocator.MAGIK_LINT_RC_FILENAME);
+
+    final Path locatedPath1 = ConfigurationReader.determinePath(magikPath, null);
+    assertThat(locatedPath1).isNotEqualTo(propertiesPath);
+
+    Files.writeString(propertiesPath, "key=1\n");
+    ConfigurationReader.handleFileEvent(
+        new FileEvent(propertiesPath.toUri(), FileEvent.FileChangeType.CREATED));
+    final Path locatedPath2 = ConfigurationReader.determinePath(magikPath, null);
+    assertThat(locatedPath2).isEqualTo(propertiesPath);
+  }
+
+  @Test
+  void testReadOverrideConfigurationModified(@TempDir final Path tempDir) throws IOException {
+    final Path propertiesPath = tempDir.resolve("override.properties");
+    Files.writeString(propertiesPath, "key=1\n");
+    final Path magikPath = tempDir.resolve("a.magik");
+    Files.writeString(magikPath, "$\n");
+    final MagikToolsProperties properties =
+        new MagikToolsProperties(
+            Map.of("magik.lint.overrideConfigFile", propertiesPath.toString()));
+
+    final MagikToolsProperties properties1 =
+        ConfigurationReader.readProperties(magikPath, properties);
+    assertThat(properties1.getPropertyString("key")).isEqualTo("1");
+
+    // No file event for files outside of the workspace, changed file is seen by its time.
+    Files.writeString(propertiesPath, "key=2\n");
+    Files.setLastModifiedTime(
+        propertiesPath,
+        FileTime.fromMillis(Files.getLastModifiedTime(propertiesPath).toMillis() + 1000));
+    final MagikToolsProperties properties2 =
+        ConfigurationReader.readProperties(magikPath, properties);
+    assertThat(properties2.getPropertyString("key")).isEqualTo("2");
+  }
+}
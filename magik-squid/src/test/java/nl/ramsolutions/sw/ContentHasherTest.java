@@ -0,0 +1,37 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link ContentHasher}. */
+class ContentHasherTest {
+
+  private static long hash(final String contents) {
+    return ContentHasher.hash(contents.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  void testKnownHashes() {
+    assertThat(ContentHasherTest.hash("")).isEqualTo(0xEF46DB3751D8E999L);
+    assertThat(ContentHasherTest.hash("a")).isEqualTo(0xD24EC4F1A98C6E5BL);
+    assertThat(ContentHasherTest.hash("abc")).isEqualTo(0x44BC2CF5AD770999L);
+    assertThat(ContentHasherTest.hash("Nobody inspects the spammish repetition"))
+        .isEqualTo(0xFBCEA83C8A378BF1L);
+  }
+
+  @Test
+  void testHashFile(@TempDir final Path tempDir) throws IOException {
+    final String contents = "_method a.b\n\t_return 1\n_endmethod\n$\n".repeat(100);
+    final Path path = tempDir.resolve("file.magik");
+    Files.writeString(path, contents, StandardCharsets.US_ASCII);
+
+    assertThat(ContentHasher.hash(path)).isEqualTo(ContentHasherTest.hash(contents));
+    assertThat(ContentHasher.hash(path)).isNotEqualTo(ContentHasherTest.hash(contents + " "));
+  }
+}
@@ -0,0 +1,45 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import nl.ramsolutions.sw.magik.FileEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test {@link IgnoreHandler}. */
+class IgnoreHandlerTest {
+
+  @Test
+  void testIsIgnored(@TempDir final Path tempDir) throws IOException {
+    Files.writeString(tempDir.resolve(".magik-tools-ignore"), "# Comment.\nsub/ignored.magik\n");
+    final Path subDir = Files.createDirectories(tempDir.resolve("sub"));
+    final Path ignoredPath = subDir.resolve("ignored.magik");
+    final Path otherPath = subDir.resolve("other.magik");
+    Files.writeString(ignoredPath, "$\n");
+    Files.writeString(otherPath, "$\n");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    assertThat(ignoreHandler.isIgnored(ignoredPath)).isTrue();
+    assertThat(ignoreHandler.isIgnored(otherPath)).isFalse();
+    assertThat(ignoreHandler.isIgnored(subDir)).isFalse();
+  }
+
+  @Test
+  void testHandleFileEvent(@TempDir final Path tempDir) throws IOException {
+    final Path subDir = Files.createDirectories(tempDir.resolve("sub"));
+    final Path magikPath = subDir.resolve("a.magik");
+    Files.writeString(magikPath, "$\n");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    assertThat(ignoreHandler.isIgnored(magikPath)).isFalse();
+
+    final Path ignorePath = subDir.resolve(".magik-tools-ignore");
+    Files.writeString(ignorePath, "*.magik\n");
+    ignoreHandler.handleFileEvent(
+        new FileEvent(ignorePath.toUri(), FileEvent.FileChangeType.CREATED));
+    assertThat(ignoreHandler.isIgnored(magikPath)).isTrue();
+  }
+}
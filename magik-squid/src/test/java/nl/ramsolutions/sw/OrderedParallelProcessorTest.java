@@ -0,0 +1,76 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link OrderedParallelProcessor}. */
+class OrderedParallelProcessorTest {
+
+  private static int slowSquare(final int value) {
+    try {
+      // Earlier items take longer, to complete out of order.
+      Thread.sleep((20 - value % 20) / 4);
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    return value * value;
+  }
+
+  @Test
+  void testResultsInOrder() {
+    final List<Integer> items = IntStream.range(0, 100).boxed().toList();
+    final List<Integer> results = new ArrayList<>();
+    OrderedParallelProcessor.process(
+        items, OrderedParallelProcessorTest::slowSquare, results::add, 4);
+
+    assertThat(results).isEqualTo(items.stream().map(value -> value * value).toList());
+  }
+
+  @Test
+  void testStopProcessing() {
+    final List<Integer> items = IntStream.range(0, 1000).boxed().toList();
+    final AtomicInteger processed = new AtomicInteger();
+    final List<Integer> results = new ArrayList<>();
+    OrderedParallelProcessor.process(
+        items,
+        value -> {
+          processed.incrementAndGet();
+          return value;
+        },
+        value -> {
+          results.add(value);
+          return results.size() < 5;
+        },
+        2);
+
+    assertThat(results).containsExactly(0, 1, 2, 3, 4);
+    assertThat(processed.get()).isLessThan(items.size());
+  }
+
+  @Test
+  void testExceptionPropagated() {
+    final List<Integer> items = List.of(0, 1, 2);
+    final List<Integer> results = new ArrayList<>();
+    assertThatThrownBy(
+            () ->
+                OrderedParallelProcessor.process(
+                    items,
+                    value -> {
+                      if (value == 1) {
+                        throw new IllegalArgumentException("Failed: " + value);
+                      }
+                      return value;
+                    },
+                    results::add,
+                    2))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Failed: 1");
+    assertThat(results).containsExactly(0);
+  }
+}
@@ -0,0 +1,78 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import nl.ramsolutions.sw.WorkspaceFileScanner.ScanResult;
+import nl.ramsolutions.sw.WorkspaceFileScanner.ScannedFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link WorkspaceFileScanner}. */
+class WorkspaceFileScannerTest {
+
+  private static Path createFile(final Path path) throws IOException {
+    Files.createDirectories(path.getParent());
+    return Files.writeString(path, "");
+  }
+
+  private static List<Path> paths(final List<ScannedFile> scannedFiles) {
+    return scannedFiles.stream().map(ScannedFile::path).toList();
+  }
+
+  @Test
+  void testScan(@TempDir final Path tempDir) throws IOException {
+    final Path productDefPath =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("product/product.def"));
+    final Path subProductDefPath =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("product/sub_product/product.def"));
+    final Path moduleDefPath =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("product/module/module.def"));
+    final Path magikPath1 =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("product/module/source/a.magik"));
+    final Path magikPath2 =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("product/module/source/b.magik"));
+    WorkspaceFileScannerTest.createFile(tempDir.resolve("product/module/source/.hidden.magik"));
+    WorkspaceFileScannerTest.createFile(tempDir.resolve("product/module/source/readme.txt"));
+    final Instant lastModified = Instant.parse("2020-01-01T00:00:00Z");
+    Files.setLastModifiedTime(magikPath1, FileTime.from(lastModified));
+
+    final WorkspaceFileScanner scanner = new WorkspaceFileScanner(new IgnoreHandler(), 2);
+    final ScanResult result = scanner.scan(tempDir);
+
+    assertThat(WorkspaceFileScannerTest.paths(result.productDefFiles()))
+        .containsExactly(productDefPath, subProductDefPath);
+    assertThat(WorkspaceFileScannerTest.paths(result.moduleDefFiles()))
+        .containsExactly(moduleDefPath);
+    assertThat(WorkspaceFileScannerTest.paths(result.magikFiles()))
+        .containsExactly(magikPath1, magikPath2);
+    assertThat(result.magikFiles().get(0).lastModified()).isEqualTo(lastModified);
+  }
+
+  @Test
+  void testScanIgnored(@TempDir final Path tempDir) throws IOException {
+    Files.writeString(
+        tempDir.resolve(".magik-tools-ignore"), "ignored/product.def\nignored/**/ignored.magik\n");
+    WorkspaceFileScannerTest.createFile(tempDir.resolve("ignored/product.def"));
+    WorkspaceFileScannerTest.createFile(tempDir.resolve("ignored/sub_product/product.def"));
+    final Path moduleDefPath =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("ignored/module/module.def"));
+    final Path magikPath =
+        WorkspaceFileScannerTest.createFile(tempDir.resolve("ignored/module/a.magik"));
+    WorkspaceFileScannerTest.createFile(tempDir.resolve("ignored/module/ignored.magik"));
+
+    final WorkspaceFileScanner scanner = new WorkspaceFileScanner(new IgnoreHandler(), 2);
+    final ScanResult result = scanner.scan(tempDir);
+
+    // Product definitions are ignored for the whole subtree.
+    assertThat(result.productDefFiles()).isEmpty();
+    assertThat(WorkspaceFileScannerTest.paths(result.moduleDefFiles()))
+        .containsExactly(moduleDefPath);
+    assertThat(WorkspaceFileScannerTest.paths(result.magikFiles())).containsExactly(magikPath);
+  }
+}
@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
+import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.parser.MagikParser;
 import org.junit.jupiter.api.Test;
 
@@ -124,4 +126,47 @@ class AstQueryTest {
 
     assertThat(nodeAt).isNull();
   }
+
+  @Test
+  void testNodeSurrounding() {
+    final String code =
+        """
+        _method a.b
+          _if x
+          _then
+            write(1)
+          _endif
+        _endmethod
+        """;
+    final AstNode node = this.parseCode(code);
+    final Position position = new Position(4, 10);
+
+    final AstNode surroundingNode = AstQuery.nodeSurrounding(node, position);
+    assertThat(surroundingNode).isNotNull();
+    assertThat(surroundingNode.is(MagikGrammar.METHOD_DEFINITION)).isTrue();
+
+    final AstNode surroundingIfNode = AstQuery.nodeSurrounding(node, position, MagikGrammar.IF);
+    assertThat(surroundingIfNode).isNotNull();
+    assertThat(surroundingIfNode.getTokenLine()).isEqualTo(2);
+
+    final AstNode surroundingLoopNode = AstQuery.nodeSurrounding(node, position, MagikGrammar.LOOP);
+    assertThat(surroundingLoopNode).isNull();
+  }
+
+  @Test
+  void testNodeAtMagikFile() {
+    final String code =
+        """
+        a << 10
+        b << 20""";
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, code);
+    final AstNode nodeAt = AstQuery.nodeAt(magikFile, new Position(2, 5));
+    assertThat(nodeAt).isNotNull();
+    assertThat(nodeAt.getTokenValue()).isEqualTo("20");
+    assertThat(AstQuery.nodeAt(magikFile, new Position(2, 5), MagikGrammar.NUMBER))
+        .isSameAs(nodeAt);
+    assertThat(AstQuery.nodeAt(magikFile, new Position(2, 5), MagikGrammar.IDENTIFIER)).isNull();
+    assertThat(AstQuery.nodeBefore(magikFile, new Position(2, 0)).getTokenValue()).isEqualTo("10");
+    assertThat(AstQuery.nodeAfter(magikFile, new Position(1, 7)).getTokenValue()).isEqualTo("b");
+  }
 }
@@ -0,0 +1,82 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import org.junit.jupiter.api.Test;
+
+/** Test AstTokenIndex. */
+class AstTokenIndexTest {
+
+  private static final int MAX_COLUMN = 80;
+
+  private static List<AstNode> tokenNodes(final AstNode topNode) {
+    return AstQuery.dfs(topNode).filter(AstQuery::isTokenNode).toList();
+  }
+
+  private static AstNode linearNodeAt(final List<AstNode> tokenNodes, final Position position) {
+    return tokenNodes.stream()
+        .filter(
+            node -> {
+              final Range range = new Range(node.getToken());
+              return !range.positionIsBeforeSelf(position)
+                  && !range.positionIsAfterSelf(position)
+                  && !position.equals(range.getEndPosition());
+            })
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static AstNode linearNodeBefore(final List<AstNode> tokenNodes, final Position position) {
+    final List<AstNode> nodes =
+        tokenNodes.stream()
+            .filter(node -> !Position.fromTokenEnd(node.getToken()).isAfter(position))
+            .toList();
+    return nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+  }
+
+  private static AstNode linearNodeAfter(final List<AstNode> tokenNodes, final Position position) {
+    return tokenNodes.stream()
+        .filter(
+            node -> {
+              final Token token = node.getToken();
+              return position.equals(Position.fromTokenStart(token))
+                  || position.isBefore(Position.fromTokenEnd(token));
+            })
+        .findFirst()
+        .orElse(null);
+  }
+
+  @Test
+  void testSameAsLinearSearch() throws IOException {
+    final Path path = Path.of("src/test/resources/test_magik_indexer_with_type_doc.magik");
+    final MagikFile magikFile = new MagikFile(MagikToolsProperties.DEFAULT_PROPERTIES, path);
+    final AstNode topNode = magikFile.getTopNode();
+    final List<AstNode> tokenNodes = AstTokenIndexTest.tokenNodes(topNode);
+    final AstTokenIndex tokenIndex = magikFile.getAstTokenIndex();
+
+    final int lineCount = magikFile.getSourceLines().length + 1;
+    for (int line = 1; line <= lineCount; ++line) {
+      for (int column = 0; column <= MAX_COLUMN; ++column) {
+        final Position position = new Position(line, column);
+        assertThat(tokenIndex.nodeAt(position))
+            .as("nodeAt %s", position)
+            .isSameAs(AstTokenIndexTest.linearNodeAt(tokenNodes, position));
+        assertThat(tokenIndex.nodeBefore(position))
+            .as("nodeBefore %s", position)
+            .isSameAs(AstTokenIndexTest.linearNodeBefore(tokenNodes, position));
+        assertThat(tokenIndex.nodeAfter(position))
+            .as("nodeAfter %s", position)
+            .isSameAs(AstTokenIndexTest.linearNodeAfter(tokenNodes, position));
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
+import java.util.List;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link MagikAstWalker}. */
+class MagikAstWalkerTest {
+
+  private static final String SOURCE =
+      """
+      # Comment.
+      _method a.b(p1)
+      \t_if p1 _is 1
+      \t_then _return 1
+      \t_elif p1 _is 2
+      \t_then _return {2, 3}
+      \t_endif
+      _endmethod
+      $
+      """;
+  private static final int DEPTH = 100_000;
+
+  /** Walker recording all events. */
+  private static class RecordingWalker extends MagikAstWalker {
+
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    protected void walkPreDefault(final AstNode node) {
+      this.events.add("pre: " + node.getName());
+    }
+
+    @Override
+    protected void walkPostDefault(final AstNode node) {
+      this.events.add("post: " + node.getName());
+    }
+
+    @Override
+    protected void walkPreIdentifier(final AstNode node) {
+      this.events.add("pre identifier: " + node.getTokenValue());
+    }
+
+    @Override
+    protected void walkToken(final Token token) {
+      this.events.add("token: " + token.getValue());
+    }
+
+    @Override
+    protected void walkTrivia(final Trivia trivia) {
+      this.events.add("trivia: " + trivia.getToken().getValue());
+    }
+  }
+
+  /** Walker overriding {@link MagikAstWalker#walkChildren(AstNode)}, walked recursively. */
+  private static class RecursiveWalker extends RecordingWalker {
+
+    @Override
+    protected void walkChildren(final AstNode node) {
+      super.walkChildren(node);
+    }
+  }
+
+  /** Walker skipping the children of parameters. */
+  private static class SkippingWalker extends RecordingWalker {
+
+    @Override
+    protected void walkChildren(final AstNode node) {
+      if (node.is(MagikGrammar.PARAMETERS)) {
+        return;
+      }
+
+      super.walkChildren(node);
+    }
+  }
+
+  /** Walker counting the block nodes. */
+  private static class CountingWalker extends MagikAstWalker {
+
+    private int preCount;
+    private int postCount;
+
+    @Override
+    protected void walkPreBlock(final AstNode node) {
+      this.preCount += 1;
+    }
+
+    @Override
+    protected void walkPostBlock(final AstNode node) {
+      this.postCount += 1;
+    }
+  }
+
+  @Test
+  void testEventOrder() {
+    final MagikParser parser = new MagikParser();
+    final AstNode topNode = parser.parseSafe(SOURCE);
+
+    final RecordingWalker walker = new RecordingWalker();
+    walker.walkAst(topNode);
+
+    assertThat(walker.events)
+        .startsWith("pre: MAGIK", "pre: METHOD_DEFINITION")
+        .containsSubsequence(
+            "trivia: # Comment.",
+            "token: _method",
+            "pre identifier: a",
+            "token: a",
+            "post: IDENTIFIER",
+            "pre: IF",
+            "pre: ELIF",
+            "token: 3",
+            "post: ELIF",
+            "post: IF",
+            "post: METHOD_DEFINITION",
+            "token: $")
+        .endsWith("post: MAGIK");
+  }
+
+  @Test
+  void testOverriddenWalkChildren() {
+    final MagikParser parser = new MagikParser();
+    final AstNode topNode = parser.parseSafe(SOURCE);
+
+    final RecordingWalker walker = new RecordingWalker();
+    walker.walkAst(topNode);
+    final RecursiveWalker recursiveWalker = new RecursiveWalker();
+    recursiveWalker.walkAst(topNode);
+    final SkippingWalker skippingWalker = new SkippingWalker();
+    skippingWalker.walkAst(topNode);
+
+    assertThat(recursiveWalker.events).isEqualTo(walker.events);
+    assertThat(walker.events).contains("pre: PARAMETER");
+    assertThat(skippingWalker.events)
+        .contains("pre: PARAMETERS", "post: PARAMETERS")
+        .doesNotContain("pre: PARAMETER", "token: (");
+  }
+
+  @Test
+  void testDeepTree() {
+    final AstNode topNode = new AstNode(MagikGrammar.BLOCK, "BLOCK", null);
+    AstNode node = topNode;
+    for (int i = 1; i < DEPTH; ++i) {
+      final AstNode childNode = new AstNode(MagikGrammar.BLOCK, "BLOCK", null);
+      node.addChild(childNode);
+      node = childNode;
+    }
+
+    final CountingWalker walker = new CountingWalker();
+    walker.walkAst(topNode);
+
+    assertThat(walker.preCount).isEqualTo(DEPTH);
+    assertThat(walker.postCount).isEqualTo(DEPTH);
+  }
+}
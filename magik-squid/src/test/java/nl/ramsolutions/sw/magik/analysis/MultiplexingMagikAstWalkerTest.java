@@ -0,0 +1,105 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
+import java.util.List;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import org.junit.jupiter.api.Test;
+
+/** Test MultiplexingMagikAstWalker. */
+class MultiplexingMagikAstWalkerTest {
+
+  private static final String SOURCE =
+      """
+      # Comment.
+      _method a.b(p1)
+      \t_return p1 + 1
+      _endmethod
+      $
+      """;
+
+  /** Walker recording method definitions and identifiers. */
+  private static class MethodWalker extends MagikAstWalker {
+
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    protected void walkPreMethodDefinition(final AstNode node) {
+      this.events.add("pre method: " + node.getTokenLine());
+    }
+
+    @Override
+    protected void walkPostMethodDefinition(final AstNode node) {
+      this.events.add("post method: " + node.getTokenLine());
+    }
+
+    @Override
+    protected void walkPreIdentifier(final AstNode node) {
+      this.events.add("pre identifier: " + node.getTokenValue());
+    }
+  }
+
+  /** Walker recording all events. */
+  private static class AllWalker extends MagikAstWalker {
+
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    protected void walkPreDefault(final AstNode node) {
+      this.events.add("pre: " + node.getName());
+    }
+
+    @Override
+    protected void walkPostDefault(final AstNode node) {
+      this.events.add("post: " + node.getName());
+    }
+
+    @Override
+    protected void walkToken(final Token token) {
+      this.events.add("token: " + token.getValue());
+    }
+
+    @Override
+    protected void walkTrivia(final Trivia trivia) {
+      this.events.add("trivia: " + trivia.getToken().getValue());
+    }
+  }
+
+  /** Walker recording nothing. */
+  private static class NothingWalker extends MagikAstWalker {}
+
+  @Test
+  void testDispatchSameEventsAsSeparateWalks() {
+    final MagikParser parser = new MagikParser();
+    final AstNode topNode = parser.parseSafe(SOURCE);
+
+    final MethodWalker methodWalker = new MethodWalker();
+    methodWalker.walkAst(topNode);
+    final AllWalker allWalker = new AllWalker();
+    allWalker.walkAst(topNode);
+
+    final MethodWalker multiplexedMethodWalker = new MethodWalker();
+    final AllWalker multiplexedAllWalker = new AllWalker();
+    final MultiplexingMagikAstWalker walker =
+        new MultiplexingMagikAstWalker(
+            List.of(multiplexedMethodWalker, new NothingWalker(), multiplexedAllWalker));
+    walker.walkAst(topNode);
+
+    assertThat(multiplexedMethodWalker.events)
+        .containsExactly(
+            "pre method: 2",
+            "pre identifier: a",
+            "pre identifier: b",
+            "pre identifier: p1",
+            "pre identifier: p1",
+            "post method: 2")
+        .isEqualTo(methodWalker.events);
+    assertThat(multiplexedAllWalker.events)
+        .contains("trivia: # Comment.", "token: _method")
+        .isEqualTo(allWalker.events);
+  }
+}
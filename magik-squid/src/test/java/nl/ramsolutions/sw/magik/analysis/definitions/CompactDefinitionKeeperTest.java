@@ -0,0 +1,214 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link CompactDefinitionKeeper}. */
+class CompactDefinitionKeeperTest {
+
+  private static final MagikToolsProperties PROPERTIES =
+      new MagikToolsProperties(Map.of("magik.typing.indexMethodUsages", "true"));
+  private static final Runnable NOT_CANCELLED = () -> {};
+
+  private static List<IDefinition> getDefinitions(final String uri, final String code) {
+    final MagikFile magikFile = new MagikFile(PROPERTIES, URI.create(uri), code);
+    return magikFile.getDefinitions().stream().map(IDefinition::getBareDefinition).toList();
+  }
+
+  private static void addDefinitions(
+      final IDefinitionKeeper definitionKeeper, final String uri, final String code) {
+    CompactDefinitionKeeperTest.getDefinitions(uri, code).forEach(definitionKeeper::add);
+  }
+
+  @Test
+  void testAddAndGet() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    final List<IDefinition> definitions =
+        CompactDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            def_slotted_exemplar(:a, {{:slot1, _unset}})
+            $
+            _pragma(classify_level=basic, topic={a})
+            _method a.m1(p1, _optional p2)
+              ## Doc.
+              _return _self.m2
+            _endmethod
+            $
+            condition.define_condition(:a_error, :error, {:data})
+            """);
+    definitions.forEach(definitionKeeper::add);
+
+    final TypeString typeString = TypeString.ofIdentifier("a", "user");
+    assertThat(definitionKeeper.getExemplarDefinitions(typeString))
+        .containsExactlyInAnyOrderElementsOf(
+            definitions.stream()
+                .filter(ExemplarDefinition.class::isInstance)
+                .map(ExemplarDefinition.class::cast)
+                .toList());
+    assertThat(definitionKeeper.getMethodDefinitions(typeString))
+        .containsExactlyInAnyOrderElementsOf(
+            definitions.stream()
+                .filter(MethodDefinition.class::isInstance)
+                .map(MethodDefinition.class::cast)
+                .toList());
+    assertThat(definitionKeeper.getConditionDefinitions("a_error")).hasSize(1);
+    assertThat(definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("b", "user")))
+        .isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik")))
+        .containsExactlyInAnyOrderElementsOf(definitions);
+    assertThat(definitionKeeper.searchSymbols("a.m1", 10, NOT_CANCELLED))
+        .containsExactlyElementsOf(
+            definitions.stream().filter(MethodDefinition.class::isInstance).toList());
+  }
+
+  @Test
+  void testDefaultDefinitions() {
+    final IDefinitionKeeper expectedKeeper = new DefinitionKeeper();
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper();
+
+    assertThat(definitionKeeper.getExemplarDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getExemplarDefinitions());
+    assertThat(definitionKeeper.getMethodDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getMethodDefinitions());
+    assertThat(definitionKeeper.getGlobalDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getGlobalDefinitions());
+  }
+
+  @Test
+  void testAddTwice() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    final int exemplarCount = definitionKeeper.getExemplarDefinitions().size();
+    final String code =
+        """
+        def_slotted_exemplar(:a, {})
+        $
+        """;
+    CompactDefinitionKeeperTest.addDefinitions(definitionKeeper, "file:///a.magik", code);
+    CompactDefinitionKeeperTest.addDefinitions(definitionKeeper, "file:///a.magik", code);
+
+    assertThat(definitionKeeper.getExemplarDefinitions()).hasSize(exemplarCount + 1);
+    assertThat(definitionKeeper.getExemplarDefinitions(TypeString.ofIdentifier("a", "user")))
+        .hasSize(1);
+  }
+
+  @Test
+  void testRemove() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+        _endmethod
+        _method a.m2
+        _endmethod
+        """);
+    final Collection<MethodDefinition> allDefinitions = definitionKeeper.getMethodDefinitions();
+    final TypeString typeString = TypeString.ofIdentifier("a", "user");
+    final MethodDefinition definition =
+        definitionKeeper.getMethodDefinitions(typeString).stream()
+            .filter(def -> def.getMethodName().equals("m1"))
+            .findAny()
+            .orElseThrow();
+
+    definitionKeeper.remove(definition);
+
+    assertThat(definitionKeeper.getMethodDefinitions(typeString))
+        .extracting(MethodDefinition::getMethodName)
+        .containsExactly("m2");
+    assertThat(definitionKeeper.searchSymbols("m1", 10, NOT_CANCELLED)).isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik")))
+        .filteredOn(MethodDefinition.class::isInstance)
+        .hasSize(1);
+    // Views on all definitions reflect changes.
+    assertThat(allDefinitions).extracting(MethodDefinition::getMethodName).containsExactly("m2");
+  }
+
+  @Test
+  void testClear() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+        _endmethod
+        """);
+
+    definitionKeeper.clear();
+
+    assertThat(definitionKeeper.getMethodDefinitions()).isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik"))).isEmpty();
+  }
+
+  @Test
+  void testUsageIndices() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+          _self.m2
+          _self.m2
+          condition.raise(:error)
+        _endmethod
+        """);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///b.magik",
+        """
+        _method b.m1
+          write(a.m2)
+        _endmethod
+        """);
+
+    assertThat(definitionKeeper.getMethodUsages("m2")).hasSize(3);
+    assertThat(definitionKeeper.getMethodUsages("m3")).isEmpty();
+    assertThat(definitionKeeper.getGlobalUsages(TypeString.ofIdentifier("a", "user"))).hasSize(1);
+    assertThat(definitionKeeper.getConditionUsages("error")).hasSize(1);
+  }
+
+  @Test
+  void testUsageIndicesRemove() {
+    final IDefinitionKeeper definitionKeeper = new CompactDefinitionKeeper(false);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+          _self.m2
+          condition.raise(:error)
+        _endmethod
+        """);
+    CompactDefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///b.magik",
+        """
+        _method b.m1
+          _self.m2
+        _endmethod
+        """);
+    assertThat(definitionKeeper.getMethodUsages("m2")).hasSize(2);
+
+    definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("a", "user")).stream()
+        .toList()
+        .forEach(definitionKeeper::remove);
+
+    assertThat(definitionKeeper.getMethodUsages("m2"))
+        .extracting(usage -> usage.getLocation().getUri())
+        .containsExactly(URI.create("file:///b.magik"));
+    assertThat(definitionKeeper.getConditionUsages("error")).isEmpty();
+  }
+}
@@ -0,0 +1,131 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.Map;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link DefinitionKeeper}. */
+class DefinitionKeeperTest {
+
+  private static final MagikToolsProperties PROPERTIES =
+      new MagikToolsProperties(Map.of("magik.typing.indexMethodUsages", "true"));
+
+  private static void addDefinitions(
+      final IDefinitionKeeper definitionKeeper, final String uri, final String code) {
+    final MagikFile magikFile = new MagikFile(PROPERTIES, URI.create(uri), code);
+    magikFile.getDefinitions().stream()
+        .map(IDefinition::getBareDefinition)
+        .forEach(definitionKeeper::add);
+  }
+
+  @Test
+  void testUsageIndices() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+          _self.m2
+          _self.m2
+          condition.raise(:error)
+        _endmethod
+        """);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///b.magik",
+        """
+        _method b.m1
+          write(a.m2)
+        _endmethod
+        """);
+
+    assertThat(definitionKeeper.getMethodUsages("m2")).hasSize(3);
+    assertThat(definitionKeeper.getMethodUsages("m3")).isEmpty();
+    assertThat(definitionKeeper.getGlobalUsages(TypeString.ofIdentifier("a", "user"))).hasSize(1);
+    assertThat(definitionKeeper.getConditionUsages("error")).hasSize(1);
+  }
+
+  @Test
+  void testUsageIndicesRemove() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.m1
+          _self.m2
+          condition.raise(:error)
+        _endmethod
+        """);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///b.magik",
+        """
+        _method b.m1
+          _self.m2
+        _endmethod
+        """);
+    assertThat(definitionKeeper.getMethodUsages("m2")).hasSize(2);
+
+    definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("a", "user")).stream()
+        .toList()
+        .forEach(definitionKeeper::remove);
+
+    assertThat(definitionKeeper.getMethodUsages("m2"))
+        .extracting(usage -> usage.getLocation().getUri())
+        .containsExactly(URI.create("file:///b.magik"));
+    assertThat(definitionKeeper.getConditionUsages("error")).isEmpty();
+  }
+
+  @Test
+  void testSearchSymbolsFiltered() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///a.magik",
+        """
+        _method a.search_me
+        _endmethod
+        """);
+    DefinitionKeeperTest.addDefinitions(
+        definitionKeeper,
+        "file:///b.magik",
+        """
+        _method b.search_me
+        _endmethod
+        $
+        _method c.search_me
+        _endmethod
+        """);
+    final URI uri = URI.create("file:///a.magik");
+    final IDefinitionKeeper filteredKeeper =
+        new FilterableDefinitionKeeperAdapter(
+            definitionKeeper,
+            def -> true,
+            def -> true,
+            def -> true,
+            def -> true,
+            def -> true,
+            def -> def.getLocation() != null && def.getLocation().getUri().equals(uri),
+            def -> true,
+            def -> true,
+            def -> true,
+            def -> true);
+
+    assertThat(definitionKeeper.searchSymbols("search_me", 10, () -> {})).hasSize(3);
+    assertThat(filteredKeeper.searchSymbols("search_me", 1, () -> {}))
+        .singleElement()
+        .isInstanceOfSatisfying(
+            MethodDefinition.class,
+            definition ->
+                assertThat(definition.getTypeName())
+                    .isEqualTo(TypeString.ofIdentifier("a", "user")));
+  }
+}
@@ -0,0 +1,74 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link HashTrie}. */
+class HashTrieTest {
+
+  /** Key with a given hash. */
+  private record Key(String name, int hash) {
+
+    @Override
+    public boolean equals(final Object object) {
+      return object instanceof final Key key && key.name.equals(this.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  @Test
+  void testWithAndWithout() {
+    HashTrie<Integer, String> trie = HashTrie.empty();
+    for (int i = 0; i < 10000; ++i) {
+      trie = trie.with(i, "v" + i);
+    }
+    final HashTrie<Integer, String> fullTrie = trie;
+    for (int i = 0; i < 10000; i += 2) {
+      trie = trie.without(i);
+    }
+
+    assertThat(fullTrie.size()).isEqualTo(10000);
+    assertThat(fullTrie.get(5000)).isEqualTo("v5000");
+    assertThat(trie.size()).isEqualTo(5000);
+    assertThat(trie.get(5000)).isNull();
+    assertThat(trie.get(5001)).isEqualTo("v5001");
+    assertThat(trie.keys()).hasSize(5000).allMatch(key -> key % 2 == 1);
+  }
+
+  @Test
+  void testWithEqualValue() {
+    final HashTrie<String, String> trie = HashTrie.<String, String>empty().with("a", "b");
+
+    assertThat(trie.with("a", "b")).isSameAs(trie);
+    assertThat(trie.with("a", "c").get("a")).isEqualTo("c");
+    assertThat(trie.with("a", "c").size()).isEqualTo(1);
+    assertThat(trie.without("b")).isSameAs(trie);
+  }
+
+  @Test
+  void testCollisions() {
+    HashTrie<Key, Integer> trie = HashTrie.empty();
+    for (int i = 0; i < 10; ++i) {
+      trie = trie.with(new Key("k" + i, i % 2 == 0 ? -1 : 1), i);
+    }
+    final HashTrie<Key, Integer> fullTrie = trie;
+    for (int i = 0; i < 10; i += 3) {
+      trie = trie.without(new Key("k" + i, i % 2 == 0 ? -1 : 1));
+    }
+    final HashTrie<Key, Integer> partialTrie = trie;
+
+    assertThat(fullTrie.size()).isEqualTo(10);
+    assertThat(fullTrie.values()).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    assertThat(partialTrie.size()).isEqualTo(6);
+    assertThat(partialTrie.values()).containsExactlyInAnyOrder(1, 2, 4, 5, 7, 8);
+    IntStream.of(1, 2, 4, 5, 7, 8)
+        .forEach(
+            i -> assertThat(partialTrie.get(new Key("k" + i, i % 2 == 0 ? -1 : 1))).isEqualTo(i));
+  }
+}
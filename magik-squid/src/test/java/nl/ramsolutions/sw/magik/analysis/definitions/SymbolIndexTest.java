@@ -0,0 +1,120 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.magik.MagikFile;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link SymbolIndex}. */
+class SymbolIndexTest {
+
+  private static final Runnable NOT_CANCELLED = () -> {};
+
+  private static final String CODE =
+      """
+      def_slotted_exemplar(:rope, {})
+      def_slotted_exemplar(:rope_builder, {})
+      def_slotted_exemplar(:my_rope, {})
+      _method rope.add(item)
+      _endmethod
+      _method rope.add_all(items)
+      _endmethod
+      _method rope_builder.add(item)
+      _endmethod
+      _method my_rope.remove(item)
+      _endmethod
+      condition.define_condition(:rope_error, :error, {})
+      """;
+
+  private static SymbolIndex<IDefinition> createIndex() {
+    final SymbolIndex<IDefinition> symbolIndex = new SymbolIndex<>();
+    final MagikFile magikFile = new MagikFile(URI.create("file:///rope.magik"), CODE);
+    magikFile.getDefinitions().stream()
+        .map(IDefinition::getBareDefinition)
+        .forEach(definition -> symbolIndex.add(definition, definition));
+    return symbolIndex;
+  }
+
+  private static List<String> names(final List<IDefinition> definitions) {
+    return definitions.stream()
+        .map(
+            definition ->
+                definition instanceof final ExemplarDefinition exemplarDefinition
+                    ? exemplarDefinition.getTypeString().getFullString()
+                    : ((MagikDefinition) definition).getName())
+        .toList();
+  }
+
+  @Test
+  void testSearchRanked() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+
+    final List<IDefinition> results = symbolIndex.search("rope", 10, NOT_CANCELLED);
+
+    // Exemplar names are full type strings, so all match on a word start.
+    assertThat(SymbolIndexTest.names(results))
+        .containsExactly("rope_error", "user:rope", "user:my_rope", "user:rope_builder");
+  }
+
+  @Test
+  void testSearchMethods() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+
+    final List<IDefinition> results = symbolIndex.search("add", 10, NOT_CANCELLED);
+    assertThat(SymbolIndexTest.names(results))
+        .containsExactly("user:rope.add()", "user:rope_builder.add()", "user:rope.add_all()");
+
+    final List<IDefinition> typedResults = symbolIndex.search("builder.ad", 10, NOT_CANCELLED);
+    assertThat(SymbolIndexTest.names(typedResults)).containsExactly("user:rope_builder.add()");
+  }
+
+  @Test
+  void testSearchShortQuery() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+
+    // Too short for trigrams, matches all symbols.
+    final List<IDefinition> results = symbolIndex.search("mo", 10, NOT_CANCELLED);
+
+    assertThat(SymbolIndexTest.names(results)).containsExactly("user:my_rope.remove()");
+  }
+
+  @Test
+  void testSearchLimit() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+
+    final List<IDefinition> results = symbolIndex.search("rope", 2, NOT_CANCELLED);
+
+    assertThat(SymbolIndexTest.names(results)).containsExactly("rope_error", "user:rope");
+  }
+
+  @Test
+  void testRemove() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+    final List<IDefinition> results = symbolIndex.search("remove", 10, NOT_CANCELLED);
+    assertThat(results).hasSize(1);
+
+    symbolIndex.remove(results.get(0));
+
+    assertThat(symbolIndex.search("remove", 10, NOT_CANCELLED)).isEmpty();
+  }
+
+  @Test
+  void testSearchCancelled() {
+    final SymbolIndex<IDefinition> symbolIndex = SymbolIndexTest.createIndex();
+
+    assertThatThrownBy(
+            () ->
+                symbolIndex.search(
+                    "rope",
+                    10,
+                    () -> {
+                      throw new CancellationException();
+                    }))
+        .isInstanceOf(CancellationException.class);
+  }
+}
@@ -0,0 +1,281 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link VersionedDefinitionKeeper}. */
+class VersionedDefinitionKeeperTest {
+
+  private static final MagikToolsProperties PROPERTIES =
+      new MagikToolsProperties(Map.of("magik.typing.indexMethodUsages", "true"));
+  private static final Runnable NOT_CANCELLED = () -> {};
+
+  private static List<IDefinition> getDefinitions(final String uri, final String code) {
+    final MagikFile magikFile = new MagikFile(PROPERTIES, URI.create(uri), code);
+    return magikFile.getDefinitions().stream().map(IDefinition::getBareDefinition).toList();
+  }
+
+  @Test
+  void testAddAndGet() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    final List<IDefinition> definitions =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            def_slotted_exemplar(:a, {{:slot1, _unset}})
+            $
+            _method a.m1(p1, _optional p2)
+              _return _self.m2
+            _endmethod
+            $
+            condition.define_condition(:a_error, :error, {:data})
+            """);
+    definitions.forEach(definitionKeeper::add);
+
+    final TypeString typeString = TypeString.ofIdentifier("a", "user");
+    assertThat(definitionKeeper.getExemplarDefinitions(typeString))
+        .containsExactlyInAnyOrderElementsOf(
+            definitions.stream()
+                .filter(ExemplarDefinition.class::isInstance)
+                .map(ExemplarDefinition.class::cast)
+                .toList());
+    assertThat(definitionKeeper.getMethodDefinitions(typeString))
+        .containsExactlyInAnyOrderElementsOf(
+            definitions.stream()
+                .filter(MethodDefinition.class::isInstance)
+                .map(MethodDefinition.class::cast)
+                .toList());
+    assertThat(definitionKeeper.getConditionDefinitions("a_error")).hasSize(1);
+    assertThat(definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("b", "user")))
+        .isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik")))
+        .containsExactlyInAnyOrderElementsOf(definitions);
+    assertThat(definitionKeeper.searchSymbols("a.m1", 10, NOT_CANCELLED))
+        .containsExactlyElementsOf(
+            definitions.stream().filter(MethodDefinition.class::isInstance).toList());
+  }
+
+  @Test
+  void testDefaultDefinitions() {
+    final IDefinitionKeeper expectedKeeper = new DefinitionKeeper();
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper();
+
+    assertThat(definitionKeeper.getExemplarDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getExemplarDefinitions());
+    assertThat(definitionKeeper.getMethodDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getMethodDefinitions());
+    assertThat(definitionKeeper.getGlobalDefinitions())
+        .containsExactlyInAnyOrderElementsOf(expectedKeeper.getGlobalDefinitions());
+  }
+
+  @Test
+  void testUpdate() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    final List<IDefinition> oldDefinitions =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            _method a.m1
+              _self.m3
+            _endmethod
+            """);
+    definitionKeeper.update(List.of(), oldDefinitions);
+    final Collection<MethodDefinition> oldMethodDefinitions =
+        definitionKeeper.getMethodDefinitions();
+    final List<IDefinition> newDefinitions =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            _method a.m2
+              # Comment.
+              _self.m3
+            _endmethod
+            """);
+
+    definitionKeeper.update(oldDefinitions, newDefinitions);
+
+    assertThat(definitionKeeper.getMethodDefinitions())
+        .extracting(MethodDefinition::getMethodName)
+        .containsExactly("m2");
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik")))
+        .containsExactlyInAnyOrderElementsOf(newDefinitions);
+    assertThat(definitionKeeper.getMethodUsages("m3"))
+        .singleElement()
+        .satisfies(
+            usage ->
+                assertThat(usage.getLocation().getRange().getStartPosition().getLine())
+                    .isEqualTo(3));
+    assertThat(definitionKeeper.searchSymbols("m1", 10, NOT_CANCELLED)).isEmpty();
+    assertThat(definitionKeeper.searchSymbols("m2", 10, NOT_CANCELLED)).hasSize(1);
+    // Returned collections are not affected by later versions.
+    assertThat(oldMethodDefinitions)
+        .extracting(MethodDefinition::getMethodName)
+        .containsExactly("m1");
+  }
+
+  @Test
+  void testSnapshot() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    final List<IDefinition> definitions =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            def_slotted_exemplar(:a, {})
+            $
+            _method a.m1
+            _endmethod
+            """);
+    definitionKeeper.update(List.of(), definitions);
+    final IDefinitionKeeper snapshot = definitionKeeper.getSnapshot();
+    assertThat(definitionKeeper.getSnapshot()).isSameAs(snapshot);
+
+    definitionKeeper.update(definitions, List.of());
+
+    assertThat(definitionKeeper.getSnapshot()).isNotSameAs(snapshot);
+
+    final TypeString typeString = TypeString.ofIdentifier("a", "user");
+    assertThat(definitionKeeper.getExemplarDefinitions(typeString)).isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik"))).isEmpty();
+    assertThat(snapshot.getExemplarDefinitions(typeString)).hasSize(1);
+    assertThat(snapshot.getMethodDefinitions(typeString)).hasSize(1);
+    assertThat(snapshot.getDefinitionsByPath(Path.of("/a.magik")))
+        .containsExactlyInAnyOrderElementsOf(definitions);
+    assertThat(snapshot.getTypeStringResolverCache())
+        .isNotSameAs(definitionKeeper.getTypeStringResolverCache());
+    assertThatThrownBy(() -> snapshot.add(definitions.get(0)))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testSnapshotSharesTypeStringResolverCache() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper();
+    final List<IDefinition> definitionsA =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik", "def_slotted_exemplar(:a, {})\n$\n");
+    definitionKeeper.update(List.of(), definitionsA);
+    definitionKeeper.update(
+        List.of(),
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///b.magik", "def_slotted_exemplar(:b, {}, {:a})\n$\n"));
+    final TypeString typeStringB = TypeString.ofIdentifier("b", "user");
+    final TypeString typeStringC = TypeString.ofIdentifier("c", "user");
+    final IDefinitionKeeper snapshot1 = definitionKeeper.getSnapshot();
+    final Collection<TypeString> ancestors1 =
+        new TypeStringResolver(snapshot1).getAllAncestors(typeStringB);
+
+    // Unrelated change, the entry is used by the next snapshot.
+    definitionKeeper.update(
+        List.of(),
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///c.magik", "def_slotted_exemplar(:c, {})\n$\n"));
+    final IDefinitionKeeper snapshot2 = definitionKeeper.getSnapshot();
+    assertThat(snapshot2).isNotSameAs(snapshot1);
+    assertThat(new TypeStringResolver(snapshot2).getAllAncestors(typeStringB)).isSameAs(ancestors1);
+
+    // Related change, the entry is not used by the next snapshot, nor the new entry by the old.
+    definitionKeeper.update(
+        definitionsA,
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik", "def_slotted_exemplar(:a, {}, {:c})\n$\n"));
+    final IDefinitionKeeper snapshot3 = definitionKeeper.getSnapshot();
+    final Collection<TypeString> ancestors3 =
+        new TypeStringResolver(snapshot3).getAllAncestors(typeStringB);
+    assertThat(ancestors3).contains(typeStringC);
+    assertThat(new TypeStringResolver(snapshot2).getAllAncestors(typeStringB))
+        .doesNotContain(typeStringC);
+    assertThat(new TypeStringResolver(snapshot3).getAllAncestors(typeStringB)).isSameAs(ancestors3);
+  }
+
+  @Test
+  void testAddTwice() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    final int exemplarCount = definitionKeeper.getExemplarDefinitions().size();
+    final List<IDefinition> definitions =
+        VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            def_slotted_exemplar(:a, {})
+            $
+            """);
+    definitions.forEach(definitionKeeper::add);
+    definitions.forEach(definitionKeeper::add);
+
+    assertThat(definitionKeeper.getExemplarDefinitions()).hasSize(exemplarCount + 1);
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/a.magik")))
+        .hasSize(definitions.size());
+  }
+
+  @Test
+  void testDefinitionsByPath() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    IntStream.range(0, 2000)
+        .forEach(
+            i ->
+                VersionedDefinitionKeeperTest.getDefinitions(
+                        "file:///" + (i % 2 == 0 ? "even" : "odd") + "/file" + i + ".magik",
+                        "_method a.m" + i + "\n_endmethod\n")
+                    .forEach(definitionKeeper::add));
+
+    assertThat(definitionKeeper.getMethodDefinitions()).hasSize(2000);
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/even/")))
+        .filteredOn(MethodDefinition.class::isInstance)
+        .hasSize(1000);
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/odd/file999.magik")))
+        .filteredOn(MethodDefinition.class::isInstance)
+        .hasSize(1);
+
+    definitionKeeper.getDefinitionsByPath(Path.of("/odd/")).forEach(definitionKeeper::remove);
+
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/odd/"))).isEmpty();
+    assertThat(definitionKeeper.getDefinitionsByPath(Path.of("/")))
+        .filteredOn(MethodDefinition.class::isInstance)
+        .hasSize(1000);
+    assertThat(definitionKeeper.getMethodDefinitions()).hasSize(1000);
+  }
+
+  @Test
+  void testUsageIndicesRemove() {
+    final IDefinitionKeeper definitionKeeper = new VersionedDefinitionKeeper(false);
+    VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///a.magik",
+            """
+            _method a.m1
+              _self.m2
+              condition.raise(:error)
+            _endmethod
+            """)
+        .forEach(definitionKeeper::add);
+    VersionedDefinitionKeeperTest.getDefinitions(
+            "file:///b.magik",
+            """
+            _method b.m1
+              write(a.m2)
+            _endmethod
+            """)
+        .forEach(definitionKeeper::add);
+    assertThat(definitionKeeper.getMethodUsages("m2")).hasSize(2);
+    assertThat(definitionKeeper.getGlobalUsages(TypeString.ofIdentifier("a", "user"))).hasSize(1);
+
+    definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("a", "user")).stream()
+        .toList()
+        .forEach(definitionKeeper::remove);
+
+    assertThat(definitionKeeper.getMethodUsages("m2"))
+        .extracting(usage -> usage.getLocation().getUri())
+        .containsExactly(URI.create("file:///b.magik"));
+    assertThat(definitionKeeper.getConditionUsages("error")).isEmpty();
+  }
+}
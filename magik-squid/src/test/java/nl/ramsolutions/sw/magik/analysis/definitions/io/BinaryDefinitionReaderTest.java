@@ -0,0 +1,181 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.ConditionUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.GlobalUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodUsage;
+import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.SlotUsage;
+import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for BinaryDefinitionReader/BinaryDefinitionWriter. */
+class BinaryDefinitionReaderTest {
+
+  private static final Path TYPE_DATABASE_PATH =
+      Path.of("src/test/resources/tests/type_database.jsonl");
+
+  private Path tempPath;
+
+  @BeforeEach
+  void createTempFile() throws IOException {
+    this.tempPath = Files.createTempFile("type_database", ".bin");
+  }
+
+  @AfterEach
+  void unlinkTempFile() throws IOException {
+    Files.deleteIfExists(this.tempPath);
+  }
+
+  @Test
+  void testRoundTripJsonDatabase() throws IOException {
+    final IDefinitionKeeper jsonDefinitionKeeper = new DefinitionKeeper();
+    JsonDefinitionReader.readTypes(TYPE_DATABASE_PATH, jsonDefinitionKeeper);
+
+    BinaryDefinitionWriter.write(this.tempPath, jsonDefinitionKeeper);
+    assertThat(BinaryDefinitionReader.isBinaryTypeDatabase(this.tempPath)).isTrue();
+    assertThat(BinaryDefinitionReader.isBinaryTypeDatabase(TYPE_DATABASE_PATH)).isFalse();
+
+    final IDefinitionKeeper binaryDefinitionKeeper = new DefinitionKeeper();
+    BinaryDefinitionReader.readTypes(this.tempPath, binaryDefinitionKeeper);
+
+    assertThat(binaryDefinitionKeeper.getProductDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getProductDefinitions());
+    assertThat(binaryDefinitionKeeper.getModuleDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getModuleDefinitions());
+    assertThat(binaryDefinitionKeeper.getPackageDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getPackageDefinitions());
+    assertThat(binaryDefinitionKeeper.getExemplarDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getExemplarDefinitions());
+    assertThat(binaryDefinitionKeeper.getMethodDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getMethodDefinitions());
+    assertThat(binaryDefinitionKeeper.getGlobalDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getGlobalDefinitions());
+    assertThat(binaryDefinitionKeeper.getConditionDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getConditionDefinitions());
+    assertThat(binaryDefinitionKeeper.getBinaryOperatorDefinitions())
+        .containsExactlyInAnyOrderElementsOf(jsonDefinitionKeeper.getBinaryOperatorDefinitions());
+  }
+
+  @Test
+  void testRoundTripMethodUsages() throws IOException {
+    final URI uri = URI.create("file:///file.magik");
+    final Location location = new Location(uri, new Range(new Position(2, 4), new Position(3, 1)));
+    final MethodDefinition methodDefinition =
+        new MethodDefinition(
+            location,
+            Instant.ofEpochSecond(1_700_000_000L, 123),
+            "test_module",
+            "Test method m1().",
+            null,
+            TypeString.SW_OBJECT,
+            "m1()<<",
+            Set.of(MethodDefinition.Modifier.PRIVATE, MethodDefinition.Modifier.ITER),
+            List.of(
+                new ParameterDefinition(
+                    location,
+                    null,
+                    null,
+                    null,
+                    null,
+                    "param1",
+                    ParameterDefinition.Modifier.OPTIONAL,
+                    TypeString.SW_INTEGER)),
+            new ParameterDefinition(
+                null,
+                null,
+                null,
+                null,
+                null,
+                "value",
+                ParameterDefinition.Modifier.NONE,
+                TypeString.UNDEFINED),
+            Set.of("topic"),
+            ExpressionResultString.UNDEFINED,
+            ExpressionResultString.EMPTY,
+            List.of(new GlobalUsage(TypeString.SW_UNSET, location, null)),
+            List.of(new MethodUsage(TypeString.SW_INTEGER, "+", new Location(uri), null)),
+            List.of(new SlotUsage("slot1", null, null)),
+            List.of(new ConditionUsage("error", location, null)));
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    definitionKeeper.add(methodDefinition);
+
+    BinaryDefinitionWriter.write(this.tempPath, definitionKeeper);
+    final IDefinitionKeeper readDefinitionKeeper = new DefinitionKeeper(false);
+    BinaryDefinitionReader.readTypes(this.tempPath, readDefinitionKeeper);
+
+    final MethodDefinition readDefinition =
+        readDefinitionKeeper.getMethodDefinitions(TypeString.SW_OBJECT).stream()
+            .findAny()
+            .orElseThrow();
+    assertThat(readDefinition).isEqualTo(methodDefinition);
+    assertThat(readDefinition.getTimestamp()).isEqualTo(methodDefinition.getTimestamp());
+    assertThat(readDefinition.getReturnTypes()).isSameAs(ExpressionResultString.UNDEFINED);
+    assertThat(readDefinition.getAssignmentParameter())
+        .isEqualTo(methodDefinition.getAssignmentParameter());
+    assertThat(readDefinition.getUsedGlobals()).isEqualTo(methodDefinition.getUsedGlobals());
+    assertThat(readDefinition.getUsedMethods()).isEqualTo(methodDefinition.getUsedMethods());
+    assertThat(readDefinition.getUsedSlots()).isEqualTo(methodDefinition.getUsedSlots());
+    assertThat(readDefinition.getUsedConditions()).isEqualTo(methodDefinition.getUsedConditions());
+  }
+
+  @Test
+  void testRoundTripMagikFile() throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final MagikFileDefinition hashedDefinition =
+        new MagikFileDefinition(
+            new Location(URI.create("file:///hashed.magik")),
+            Instant.ofEpochSecond(1_700_000_000L, 123),
+            1234L,
+            0xFBCEA83C8A378BF1L);
+    final MagikFileDefinition bareDefinition =
+        new MagikFileDefinition(new Location(URI.create("file:///bare.magik")), null);
+    definitionKeeper.add(hashedDefinition);
+    definitionKeeper.add(bareDefinition);
+
+    BinaryDefinitionWriter.write(this.tempPath, definitionKeeper);
+    final IDefinitionKeeper readDefinitionKeeper = new DefinitionKeeper();
+    BinaryDefinitionReader.readTypes(this.tempPath, readDefinitionKeeper);
+
+    assertThat(readDefinitionKeeper.getMagikFileDefinitions())
+        .containsExactlyInAnyOrder(hashedDefinition, bareDefinition);
+  }
+
+  @Test
+  void testConvertJsonToBinaryToJson() throws IOException {
+    final Path jsonPath = Files.createTempFile("type_database", ".jsonl");
+    try {
+      DefinitionConverter.jsonToBinary(TYPE_DATABASE_PATH, this.tempPath);
+      DefinitionConverter.binaryToJson(this.tempPath, jsonPath);
+
+      final IDefinitionKeeper expectedDefinitionKeeper = new DefinitionKeeper();
+      DefinitionConverter.readTypes(TYPE_DATABASE_PATH, expectedDefinitionKeeper);
+      final IDefinitionKeeper actualDefinitionKeeper = new DefinitionKeeper();
+      DefinitionConverter.readTypes(jsonPath, actualDefinitionKeeper);
+      assertThat(actualDefinitionKeeper.getMethodDefinitions())
+          .containsExactlyInAnyOrderElementsOf(expectedDefinitionKeeper.getMethodDefinitions());
+      assertThat(actualDefinitionKeeper.getExemplarDefinitions())
+          .containsExactlyInAnyOrderElementsOf(expectedDefinitionKeeper.getExemplarDefinitions());
+    } finally {
+      Files.deleteIfExists(jsonPath);
+    }
+  }
+}
@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -293,4 +295,37 @@ class JsonDefinitionReaderTest {
                 TypeString.SW_SYMBOL,
                 TypeString.SW_CHAR16_VECTOR));
   }
+
+  @Test
+  void testReadManyLines() throws IOException {
+    // Spans several parse batches, the type definition at the end must still replace the default.
+    final Path path = Files.createTempFile("type_database", ".jsonl");
+    try {
+      final List<String> lines = new ArrayList<>();
+      for (int i = 0; i < 2500; ++i) {
+        lines.add(
+            "{\"instruction\":\"method\",\"type_name\":\"user:b\",\"method_name\":\"m"
+                + i
+                + "()\",\"modifiers\":[],\"parameters\":[],\"return_types\":[],\"loop_types\":[]}");
+      }
+      lines.add("// comment");
+      lines.add(
+          "{\"instruction\":\"type\",\"type_name\":\"sw:object\",\"sort\":\"intrinsic\","
+              + "\"slots\":[],\"parents\":[],\"location\":{\"uri\":\"file:///object.magik\"}}");
+      Files.write(path, lines);
+
+      final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+      JsonDefinitionReader.readTypes(path, definitionKeeper);
+
+      assertThat(definitionKeeper.getMethodDefinitions(TypeString.ofIdentifier("b", "user")))
+          .hasSize(2500);
+      final Collection<ExemplarDefinition> objectDefs =
+          definitionKeeper.getExemplarDefinitions(TypeString.SW_OBJECT);
+      assertThat(objectDefs).hasSize(1);
+      assertThat(objectDefs.stream().findAny().orElseThrow().getLocation())
+          .isEqualTo(new Location(URI.create("file:///object.magik")));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
 }
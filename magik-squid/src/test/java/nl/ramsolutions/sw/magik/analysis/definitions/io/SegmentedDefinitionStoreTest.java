@@ -0,0 +1,126 @@
+package nl.ramsolutions.sw.magik.analysis.definitions.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link SegmentedDefinitionStore}. */
+class SegmentedDefinitionStoreTest {
+
+  private static final URI URI_A = URI.create("file:///a.magik");
+  private static final URI URI_B = URI.create("file:///b.magik");
+
+  private static MagikFileDefinition definition(final URI uri, final long timestamp) {
+    return new MagikFileDefinition(
+        new Location(uri), Instant.ofEpochSecond(timestamp), 10L, timestamp);
+  }
+
+  private static IDefinitionKeeper read(final Path directory) throws IOException {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(directory)) {
+      store.readTypes(definitionKeeper);
+    }
+    return definitionKeeper;
+  }
+
+  private static List<Path> segments(final Path directory) throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.sorted().toList();
+    }
+  }
+
+  @Test
+  void testPutAndRead(@TempDir final Path tempDir) throws IOException {
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      assertThat(store.isEmpty()).isTrue();
+      store.put(URI_A, List.of(SegmentedDefinitionStoreTest.definition(URI_A, 1)));
+      store.put(URI_B, List.of(SegmentedDefinitionStoreTest.definition(URI_B, 1)));
+      store.put(URI_A, List.of(SegmentedDefinitionStoreTest.definition(URI_A, 2)));
+      store.put(URI_B, Collections.emptyList());
+      assertThat(store.isEmpty()).isFalse();
+    }
+
+    final IDefinitionKeeper definitionKeeper = SegmentedDefinitionStoreTest.read(tempDir);
+    assertThat(definitionKeeper.getMagikFileDefinitions())
+        .containsExactly(SegmentedDefinitionStoreTest.definition(URI_A, 2));
+  }
+
+  @Test
+  void testRecordHoldsOnlyGivenDefinitions(@TempDir final Path tempDir) throws IOException {
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      store.put(URI_A, List.of(SegmentedDefinitionStoreTest.definition(URI_A, 1)));
+    }
+
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    definitionKeeper.getPackageDefinitions().forEach(definitionKeeper::remove);
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      store.readTypes(definitionKeeper);
+    }
+
+    assertThat(definitionKeeper.getPackageDefinitions()).isEmpty();
+    assertThat(definitionKeeper.getMagikFileDefinitions())
+        .containsExactly(SegmentedDefinitionStoreTest.definition(URI_A, 1));
+  }
+
+  @Test
+  void testRecoverTornRecord(@TempDir final Path tempDir) throws IOException {
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      store.put(URI_A, List.of(SegmentedDefinitionStoreTest.definition(URI_A, 1)));
+    }
+
+    // Simulate a crash while appending a record.
+    final Path segmentPath = SegmentedDefinitionStoreTest.segments(tempDir).get(0);
+    final long size = Files.size(segmentPath);
+    Files.write(segmentPath, new byte[] {0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      assertThat(Files.size(segmentPath)).isEqualTo(size);
+      store.put(URI_B, List.of(SegmentedDefinitionStoreTest.definition(URI_B, 1)));
+    }
+
+    final IDefinitionKeeper definitionKeeper = SegmentedDefinitionStoreTest.read(tempDir);
+    assertThat(definitionKeeper.getMagikFileDefinitions())
+        .containsExactlyInAnyOrder(
+            SegmentedDefinitionStoreTest.definition(URI_A, 1),
+            SegmentedDefinitionStoreTest.definition(URI_B, 1));
+  }
+
+  @Test
+  void testCompact(@TempDir final Path tempDir) throws IOException {
+    try (SegmentedDefinitionStore store = SegmentedDefinitionStore.open(tempDir)) {
+      for (int i = 0; i < 100; ++i) {
+        store.put(URI_A, List.of(SegmentedDefinitionStoreTest.definition(URI_A, i)));
+      }
+      store.put(URI_B, List.of(SegmentedDefinitionStoreTest.definition(URI_B, 1)));
+      store.flush();
+      final long size = Files.size(SegmentedDefinitionStoreTest.segments(tempDir).get(0));
+
+      store.compact();
+
+      final List<Path> segments = SegmentedDefinitionStoreTest.segments(tempDir);
+      assertThat(segments).hasSize(1);
+      assertThat(Files.size(segments.get(0))).isLessThan(size / 10);
+
+      // Appending after compaction.
+      store.put(URI_B, Collections.emptyList());
+    }
+
+    final IDefinitionKeeper definitionKeeper = SegmentedDefinitionStoreTest.read(tempDir);
+    assertThat(definitionKeeper.getMagikFileDefinitions())
+        .containsExactly(SegmentedDefinitionStoreTest.definition(URI_A, 99));
+  }
+}
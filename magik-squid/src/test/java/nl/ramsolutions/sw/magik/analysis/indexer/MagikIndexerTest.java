@@ -4,12 +4,19 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.FileEvent;
@@ -22,6 +29,7 @@ import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ProcedureDefinition;
@@ -29,6 +37,7 @@ import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /** Test MagikIndexer. */
 class MagikIndexerTest {
@@ -350,6 +359,102 @@ class MagikIndexerTest {
     assertThat(initMethodDefs).hasSize(1);
   }
 
+  @Test
+  void testFileTouched(@TempDir final Path tempDir) throws IOException {
+    final Path path = tempDir.resolve("touched.magik");
+    Files.writeString(path, "_method a.m1()\n_endmethod\n$\n");
+    Files.setLastModifiedTime(path, FileTime.from(Instant.parse("2020-01-01T00:00:00Z")));
+    final URI uri = path.toUri();
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final MagikIndexer magikIndexer =
+        new MagikIndexer(
+            definitionKeeper, MagikToolsProperties.DEFAULT_PROPERTIES, new IgnoreHandler());
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CREATED));
+    final MethodDefinition methodDefinition =
+        definitionKeeper.getMethodDefinitions().stream().findAny().orElseThrow();
+
+    // Only the timestamp changes, the file is not read again.
+    final Instant touchedTimestamp = Instant.parse("2021-01-01T00:00:00Z");
+    Files.setLastModifiedTime(path, FileTime.from(touchedTimestamp));
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CHANGED));
+
+    assertThat(definitionKeeper.getMethodDefinitions()).singleElement().isSameAs(methodDefinition);
+    assertThat(definitionKeeper.getMagikFileDefinitions(uri))
+        .singleElement()
+        .extracting(MagikFileDefinition::getTimestamp)
+        .isEqualTo(touchedTimestamp);
+
+    // Contents change, size stays the same, the file is read again.
+    Files.writeString(path, "_method a.m2()\n_endmethod\n$\n");
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CHANGED));
+
+    assertThat(definitionKeeper.getMethodDefinitions())
+        .extracting(MethodDefinition::getMethodName)
+        .containsExactly("m2()");
+  }
+
+  @Test
+  void testFileChangedSingleUpdate(@TempDir final Path tempDir) throws IOException {
+    final Path path = tempDir.resolve("changed.magik");
+    Files.writeString(path, "_method a.m1()\n_endmethod\n$\n");
+    final URI uri = path.toUri();
+    final List<Map.Entry<List<IDefinition>, List<IDefinition>>> updates = new ArrayList<>();
+    final IDefinitionKeeper definitionKeeper =
+        new DefinitionKeeper() {
+          @Override
+          public void update(
+              final Collection<? extends IDefinition> removedDefinitions,
+              final Collection<? extends IDefinition> addedDefinitions) {
+            updates.add(Map.entry(List.copyOf(removedDefinitions), List.copyOf(addedDefinitions)));
+            super.update(removedDefinitions, addedDefinitions);
+          }
+        };
+    final MagikIndexer magikIndexer =
+        new MagikIndexer(
+            definitionKeeper, MagikToolsProperties.DEFAULT_PROPERTIES, new IgnoreHandler());
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CREATED));
+    updates.clear();
+
+    // Old definitions are replaced by new definitions in a single update.
+    Files.writeString(path, "_method a.m22()\n_endmethod\n$\n");
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CHANGED));
+
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0).getKey())
+        .filteredOn(MethodDefinition.class::isInstance)
+        .extracting(definition -> ((MethodDefinition) definition).getMethodName())
+        .containsExactly("m1()");
+    assertThat(updates.get(0).getValue())
+        .filteredOn(MethodDefinition.class::isInstance)
+        .extracting(definition -> ((MethodDefinition) definition).getMethodName())
+        .containsExactly("m22()");
+    assertThat(definitionKeeper.getMethodDefinitions())
+        .extracting(MethodDefinition::getMethodName)
+        .containsExactly("m22()");
+  }
+
+  @Test
+  void testListener(@TempDir final Path tempDir) throws IOException {
+    final Path path = tempDir.resolve("listened.magik");
+    Files.writeString(path, "_method a.m1()\n_endmethod\n$\n");
+    final URI uri = path.toUri();
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final MagikIndexer magikIndexer =
+        new MagikIndexer(
+            definitionKeeper, MagikToolsProperties.DEFAULT_PROPERTIES, new IgnoreHandler());
+    final Map<URI, Collection<IDefinition>> changedDefinitions = new HashMap<>();
+    magikIndexer.addListener(changedDefinitions::put);
+
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.CREATED));
+    assertThat(changedDefinitions.get(uri))
+        .hasAtLeastOneElementOfType(MagikFileDefinition.class)
+        .hasAtLeastOneElementOfType(MethodDefinition.class);
+
+    Files.delete(path);
+    magikIndexer.handleFileEvent(new FileEvent(uri, FileChangeType.DELETED));
+    assertThat(changedDefinitions.get(uri)).isEmpty();
+  }
+
   @Test
   void testFileDeleted() throws IOException {
     // Read first.
@@ -379,4 +484,36 @@ class MagikIndexerTest {
         definitionKeeper.getExemplarDefinitions(typeString);
     assertThat(postExemplarDefs).isEmpty();
   }
+
+  @Test
+  void testFileEventsParallel() throws IOException {
+    final Path path = Path.of("magik-squid/src/test/resources/");
+    final URI uri = this.getPath(path).toUri();
+    final FileEvent fileEvent = new FileEvent(uri, FileChangeType.CREATED);
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+
+    // Index sequentially.
+    final IDefinitionKeeper sequentialDefinitionKeeper = new DefinitionKeeper();
+    final MagikToolsProperties sequentialProperties =
+        new MagikToolsProperties(Map.of("magik.typing.indexerThreadCount", "1"));
+    final MagikIndexer sequentialMagikIndexer =
+        new MagikIndexer(sequentialDefinitionKeeper, sequentialProperties, ignoreHandler);
+    sequentialMagikIndexer.handleFileEvents(List.of(fileEvent));
+
+    // Index in parallel.
+    final IDefinitionKeeper parallelDefinitionKeeper = new DefinitionKeeper();
+    final MagikToolsProperties parallelProperties =
+        new MagikToolsProperties(Map.of("magik.typing.indexerThreadCount", "4"));
+    final MagikIndexer parallelMagikIndexer =
+        new MagikIndexer(parallelDefinitionKeeper, parallelProperties, ignoreHandler);
+    parallelMagikIndexer.handleFileEvents(List.of(fileEvent));
+
+    assertThat(parallelDefinitionKeeper.getMagikFileDefinitions())
+        .hasSizeGreaterThan(1)
+        .containsExactlyInAnyOrderElementsOf(sequentialDefinitionKeeper.getMagikFileDefinitions());
+    assertThat(parallelDefinitionKeeper.getExemplarDefinitions())
+        .containsExactlyInAnyOrderElementsOf(sequentialDefinitionKeeper.getExemplarDefinitions());
+    assertThat(parallelDefinitionKeeper.getMethodDefinitions())
+        .containsExactlyInAnyOrderElementsOf(sequentialDefinitionKeeper.getMethodDefinitions());
+  }
 }
@@ -11,6 +11,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.SmallworldProjectExtension;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodUsage;
 import org.junit.jupiter.api.Test;
@@ -92,4 +93,56 @@ class MethodUsageLocatorTest {
             .collect(Collectors.toSet());
     assertThat(uris).isEqualTo(Set.of(magikFileA.getUri(), magikFileB.getUri()));
   }
+
+  @Test
+  void testLocateMethodUsagesSameFileReused() throws IOException {
+    final String code =
+        """
+        def_slotted_exemplar(:a, {})
+
+        _method a.method_name
+          _self.method_name
+          _self.method_name
+        _endmethod
+        """;
+    final Path path = this.smallworldProject.pathOf("/source.magik");
+    this.smallworldProject.addMagikFile(path, code);
+
+    final IDefinitionKeeper definitionKeeper = this.smallworldProject.getDefinitionKeeper();
+    final MagikTypedFileCache fileCache = new MagikTypedFileCache();
+    final MethodUsageLocator methodUsageLocator =
+        new MethodUsageLocator(definitionKeeper, fileCache);
+    final TypeString typeStr = TypeString.ofIdentifier("a", "user");
+    final MethodUsage wantedMethodUsage = new MethodUsage(typeStr, "method_name");
+    final List<Entry<MethodUsage, MagikTypedFile>> locatedMethodUsages =
+        methodUsageLocator.getMethodUsages(wantedMethodUsage);
+    assertThat(locatedMethodUsages).hasSize(2);
+    assertThat(locatedMethodUsages.get(0).getValue())
+        .isSameAs(locatedMethodUsages.get(1).getValue());
+
+    // Another locator sharing the cache reuses the reasoned file.
+    final MethodUsageLocator sharedMethodUsageLocator =
+        new MethodUsageLocator(definitionKeeper, fileCache);
+    final List<Entry<MethodUsage, MagikTypedFile>> sharedLocatedMethodUsages =
+        sharedMethodUsageLocator.getMethodUsages(wantedMethodUsage);
+    assertThat(sharedLocatedMethodUsages).hasSize(2);
+    assertThat(sharedLocatedMethodUsages.get(0).getValue())
+        .isSameAs(locatedMethodUsages.get(0).getValue());
+
+    // Another locator with its own cache does not share the reasoned file.
+    final MethodUsageLocator otherMethodUsageLocator = new MethodUsageLocator(definitionKeeper);
+    final List<Entry<MethodUsage, MagikTypedFile>> otherLocatedMethodUsages =
+        otherMethodUsageLocator.getMethodUsages(wantedMethodUsage);
+    assertThat(otherLocatedMethodUsages).hasSize(2);
+    assertThat(otherLocatedMethodUsages.get(0).getValue())
+        .isNotSameAs(locatedMethodUsages.get(0).getValue());
+
+    // Another definition keeper does not share the reasoned file.
+    final URI uri = path.toUri();
+    final IDefinitionKeeper otherDefinitionKeeper = new DefinitionKeeper();
+    assertThat(fileCache.get(uri, definitionKeeper))
+        .isSameAs(locatedMethodUsages.get(0).getValue());
+    assertThat(fileCache.get(uri, otherDefinitionKeeper))
+        .isNotSameAs(locatedMethodUsages.get(0).getValue());
+  }
 }
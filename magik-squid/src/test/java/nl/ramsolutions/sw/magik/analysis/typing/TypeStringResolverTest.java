@@ -0,0 +1,160 @@
+package nl.ramsolutions.sw.magik.analysis.typing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link TypeStringResolver}. */
+class TypeStringResolverTest {
+
+  private static final TypeString TYPE_A = TypeString.ofIdentifier("a", "user");
+  private static final TypeString TYPE_B = TypeString.ofIdentifier("b", "user");
+  private static final TypeString TYPE_C = TypeString.ofIdentifier("c", "user");
+  private static final TypeString TYPE_D = TypeString.ofIdentifier("d", "user");
+
+  private static ExemplarDefinition createExemplarDefinition(
+      final TypeString typeString, final TypeString... parentTypeStrings) {
+    return new ExemplarDefinition(
+        null,
+        null,
+        null,
+        null,
+        null,
+        ExemplarDefinition.Sort.SLOTTED,
+        typeString,
+        Collections.emptyList(),
+        List.of(parentTypeStrings),
+        Collections.emptySet());
+  }
+
+  private static MethodDefinition createMethodDefinition(
+      final TypeString typeString, final String methodName) {
+    return new MethodDefinition(
+        null,
+        null,
+        null,
+        null,
+        null,
+        typeString,
+        methodName,
+        EnumSet.noneOf(MethodDefinition.Modifier.class),
+        Collections.emptyList(),
+        null,
+        Collections.emptySet(),
+        ExpressionResultString.UNDEFINED,
+        ExpressionResultString.EMPTY);
+  }
+
+  @Test
+  void testCacheSharedByResolvers() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_A, TypeString.SW_OBJECT));
+
+    final TypeStringResolver resolver1 = new TypeStringResolver(definitionKeeper);
+    final TypeStringResolver resolver2 = new TypeStringResolver(definitionKeeper);
+    assertThat(resolver2.resolve(TYPE_A)).isSameAs(resolver1.resolve(TYPE_A));
+    assertThat(resolver2.getAllAncestors(TYPE_A)).isSameAs(resolver1.getAllAncestors(TYPE_A));
+  }
+
+  @Test
+  void testInvalidateKeepsUnrelatedEntries() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_A, TypeString.SW_OBJECT));
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_B, TYPE_A));
+    final TypeStringResolver resolver = new TypeStringResolver(definitionKeeper);
+    final Collection<TypeString> ancestorsA = resolver.getAllAncestors(TYPE_A);
+    final Collection<TypeString> ancestorsB = resolver.getAllAncestors(TYPE_B);
+
+    definitionKeeper.getTypeStringResolverCache().invalidate(List.of(TYPE_B, TYPE_C));
+
+    assertThat(resolver.getAllAncestors(TYPE_A)).isSameAs(ancestorsA);
+    assertThat(resolver.getAllAncestors(TYPE_B))
+        .isNotSameAs(ancestorsB)
+        .containsExactlyElementsOf(ancestorsB);
+  }
+
+  @Test
+  void testMethodAddedToAncestor() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_A, TypeString.SW_OBJECT));
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_B, TYPE_A));
+    final TypeStringResolver resolver = new TypeStringResolver(definitionKeeper);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B, "m()")).isEmpty();
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B))
+        .extracting(MethodDefinition::getMethodName)
+        .doesNotContain("m()");
+
+    final MethodDefinition methodDefinition =
+        TypeStringResolverTest.createMethodDefinition(TYPE_A, "m()");
+    definitionKeeper.add(methodDefinition);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B, "m()"))
+        .containsExactly(methodDefinition);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B)).contains(methodDefinition);
+
+    definitionKeeper.remove(methodDefinition);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B, "m()")).isEmpty();
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B)).doesNotContain(methodDefinition);
+  }
+
+  @Test
+  void testParentChanged() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_A, TypeString.SW_OBJECT));
+    final ExemplarDefinition definitionB =
+        TypeStringResolverTest.createExemplarDefinition(TYPE_B, TYPE_A);
+    definitionKeeper.add(definitionB);
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_C, TYPE_B));
+    final TypeStringResolver resolver = new TypeStringResolver(definitionKeeper);
+    assertThat(resolver.isKindOf(TYPE_C, TYPE_A)).isTrue();
+    assertThat(resolver.getAllAncestors(TYPE_C)).contains(TYPE_A);
+
+    // Re-parent b, c is no longer kind of a.
+    definitionKeeper.remove(definitionB);
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_B, TypeString.SW_OBJECT));
+    assertThat(resolver.isKindOf(TYPE_C, TYPE_B)).isTrue();
+    assertThat(resolver.isKindOf(TYPE_C, TYPE_A)).isFalse();
+    assertThat(resolver.getAllAncestors(TYPE_C)).doesNotContain(TYPE_A);
+  }
+
+  @Test
+  void testDiamondOverride() {
+    // d(b, c), b(a), c(a): c overrides a.
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    definitionKeeper.add(
+        TypeStringResolverTest.createExemplarDefinition(TYPE_A, TypeString.SW_OBJECT));
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_B, TYPE_A));
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_C, TYPE_A));
+    definitionKeeper.add(TypeStringResolverTest.createExemplarDefinition(TYPE_D, TYPE_B, TYPE_C));
+    final MethodDefinition methodDefinitionA =
+        TypeStringResolverTest.createMethodDefinition(TYPE_A, "m()");
+    definitionKeeper.add(methodDefinitionA);
+    final MethodDefinition methodDefinitionC =
+        TypeStringResolverTest.createMethodDefinition(TYPE_C, "m()");
+    definitionKeeper.add(methodDefinitionC);
+
+    final TypeStringResolver resolver = new TypeStringResolver(definitionKeeper);
+    assertThat(resolver.getAllAncestors(TYPE_D)).startsWith(TYPE_B, TYPE_C, TYPE_A);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_D, "m()"))
+        .containsExactly(methodDefinitionC);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_D))
+        .contains(methodDefinitionC)
+        .doesNotContain(methodDefinitionA);
+    assertThat(resolver.getRespondingMethodDefinitions(TYPE_B, "m()"))
+        .containsExactly(methodDefinitionA);
+    assertThat(resolver.isKindOf(TYPE_D, TYPE_A)).isTrue();
+    assertThat(resolver.isKindOf(TYPE_B, TYPE_C)).isFalse();
+  }
+}
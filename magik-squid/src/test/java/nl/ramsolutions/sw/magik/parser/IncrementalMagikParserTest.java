@@ -0,0 +1,181 @@
+package nl.ramsolutions.sw.magik.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Test IncrementalMagikParser. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class IncrementalMagikParserTest {
+
+  private static final URI DEFAULT_URI = URI.create("memory:///source.magik");
+
+  private static final String SOURCE =
+      """
+      _package sw
+      $
+
+      # Comment.
+      _method a.b(p1)
+      \t_return p1 + 1
+      _endmethod
+      $
+
+      _block
+      \twrite("a
+      b")
+      _endblock
+      $
+      # Trailing comment.
+      """;
+
+  private static void assertSameTree(final AstNode actual, final AstNode expected) {
+    assertThat(actual.getType()).isEqualTo(expected.getType());
+    assertThat(actual.getFromIndex()).isEqualTo(expected.getFromIndex());
+    assertThat(actual.getToIndex()).isEqualTo(expected.getToIndex());
+    IncrementalMagikParserTest.assertSameToken(actual.getToken(), expected.getToken());
+
+    final List<AstNode> actualChildren = actual.getChildren();
+    final List<AstNode> expectedChildren = expected.getChildren();
+    assertThat(actualChildren).hasSameSizeAs(expectedChildren);
+    for (int i = 0; i < actualChildren.size(); ++i) {
+      assertThat(actualChildren.get(i).getParent()).isSameAs(actual);
+      IncrementalMagikParserTest.assertSameTree(actualChildren.get(i), expectedChildren.get(i));
+    }
+  }
+
+  private static void assertSameToken(final Token actual, final Token expected) {
+    if (expected == null) {
+      assertThat(actual).isNull();
+      return;
+    }
+
+    assertThat(actual.getValue()).isEqualTo(expected.getValue());
+    assertThat(actual.getOriginalValue()).isEqualTo(expected.getOriginalValue());
+    assertThat(actual.getType()).isEqualTo(expected.getType());
+    assertThat(actual.getLine()).isEqualTo(expected.getLine());
+    assertThat(actual.getColumn()).isEqualTo(expected.getColumn());
+    assertThat(actual.getURI()).isEqualTo(expected.getURI());
+
+    final List<Trivia> actualTrivia = actual.getTrivia();
+    final List<Trivia> expectedTrivia = expected.getTrivia();
+    assertThat(actualTrivia).hasSameSizeAs(expectedTrivia);
+    for (int i = 0; i < actualTrivia.size(); ++i) {
+      final List<Token> actualTriviaTokens = actualTrivia.get(i).getTokens();
+      final List<Token> expectedTriviaTokens = expectedTrivia.get(i).getTokens();
+      assertThat(actualTriviaTokens).hasSameSizeAs(expectedTriviaTokens);
+      for (int j = 0; j < actualTriviaTokens.size(); ++j) {
+        IncrementalMagikParserTest.assertSameToken(
+            actualTriviaTokens.get(j), expectedTriviaTokens.get(j));
+      }
+    }
+  }
+
+  /**
+   * VSCode runs from module directory, mvn runs from project directory.
+   *
+   * @return Proper {@link Path} to file.
+   */
+  private static Path getPath(final Path relativePath) {
+    final Path path = Path.of(".").toAbsolutePath().getParent();
+    if (path.endsWith("magik-squid")) {
+      return Path.of("..").resolve(relativePath);
+    }
+
+    return Path.of(".").resolve(relativePath);
+  }
+
+  private static AstNode parseFull(final String source) {
+    final MagikParser parser = new MagikParser();
+    return parser.parseSafe(source, DEFAULT_URI);
+  }
+
+  @Test
+  void testParseEqualsFullParse() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    final AstNode node = parser.parse(SOURCE);
+
+    IncrementalMagikParserTest.assertSameTree(node, IncrementalMagikParserTest.parseFull(SOURCE));
+    assertThat(parser.getParsedSectionCount()).isEqualTo(4);
+  }
+
+  @Test
+  void testParseFileEqualsFullParse() throws IOException {
+    final Path path = Path.of("magik-squid/src/test/resources/test_magik_indexer.magik");
+    final String source =
+        Files.readString(IncrementalMagikParserTest.getPath(path)).replace("\n", "\r\n");
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    final AstNode node = parser.parse(source);
+
+    IncrementalMagikParserTest.assertSameTree(node, IncrementalMagikParserTest.parseFull(source));
+  }
+
+  @Test
+  void testParseEmpty() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    final AstNode node = parser.parse("");
+
+    IncrementalMagikParserTest.assertSameTree(node, IncrementalMagikParserTest.parseFull(""));
+  }
+
+  @Test
+  void testReparseChangedSectionOnly() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    final AstNode node = parser.parse(SOURCE);
+    final AstNode packageNode = node.getFirstChild();
+
+    final String newSource = SOURCE.replace("p1 + 1", "p1 + 2");
+    final AstNode newNode = parser.parse(newSource);
+
+    assertThat(parser.getParsedSectionCount()).isEqualTo(1);
+    assertThat(newNode.getFirstChild()).isNotSameAs(packageNode);
+    assertThat(newNode.getFirstChild().getToken()).isSameAs(packageNode.getToken());
+    IncrementalMagikParserTest.assertSameTree(
+        newNode, IncrementalMagikParserTest.parseFull(newSource));
+  }
+
+  @Test
+  void testReparseKeepsPreviousTree() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    final AstNode node = parser.parse(SOURCE);
+
+    parser.parse(SOURCE.replace("p1 + 1", "p1 + 2"));
+    parser.parse(SOURCE.replace("_package sw\n", "_package sw\n\n# Line added.\n"));
+
+    IncrementalMagikParserTest.assertSameTree(node, IncrementalMagikParserTest.parseFull(SOURCE));
+  }
+
+  @Test
+  void testReparseMovedSections() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    parser.parse(SOURCE);
+
+    final String newSource = SOURCE.replace("_package sw\n", "_package sw\n\n\n# Lines added.\n");
+    final AstNode newNode = parser.parse(newSource);
+
+    assertThat(parser.getParsedSectionCount()).isEqualTo(1);
+    IncrementalMagikParserTest.assertSameTree(
+        newNode, IncrementalMagikParserTest.parseFull(newSource));
+  }
+
+  @Test
+  void testReparseAddedSection() {
+    final IncrementalMagikParser parser = new IncrementalMagikParser(DEFAULT_URI);
+    parser.parse(SOURCE);
+
+    final String newSource = SOURCE.replace("$\n\n_block", "$\n\nwrite(1)\n$\n\n_block");
+    final AstNode newNode = parser.parse(newSource);
+
+    assertThat(parser.getParsedSectionCount()).isEqualTo(1);
+    IncrementalMagikParserTest.assertSameTree(
+        newNode, IncrementalMagikParserTest.parseFull(newSource));
+  }
+}
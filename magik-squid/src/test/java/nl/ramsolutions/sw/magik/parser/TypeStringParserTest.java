@@ -2,6 +2,8 @@ package nl.ramsolutions.sw.magik.parser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
+import java.util.stream.IntStream;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import org.junit.jupiter.api.Test;
@@ -133,4 +135,30 @@ class TypeStringParserTest {
         TypeStringParser.parseExpressionResultString(exprStr, SW_PACKAGE);
     assertThat(result).isEqualTo(ExpressionResultString.UNDEFINED);
   }
+
+  @Test
+  void testParseConcurrently() {
+    // Parsers are cached per thread, parsing from multiple threads should give the same results.
+    final List<TypeString> results =
+        IntStream.range(0, 1000)
+            .parallel()
+            .mapToObj(i -> TypeStringParser.parseTypeString("sw:rope<E=sw:symbol>", SW_PACKAGE))
+            .toList();
+
+    final TypeString expected =
+        TypeString.ofIdentifier(
+            "rope", SW_PACKAGE, TypeString.ofGenericDefinition("E", TypeString.SW_SYMBOL));
+    assertThat(results).containsOnly(expected);
+  }
+
+  @Test
+  void testParseTypeStringCanonical() {
+    final TypeString typeString1 = TypeStringParser.parseTypeString("sw:integer", SW_PACKAGE);
+    final TypeString typeString2 = TypeStringParser.parseTypeString("sw:integer", SW_PACKAGE);
+    assertThat(typeString1).isSameAs(typeString2);
+
+    final TypeString typeString3 = TypeStringParser.parseTypeString("integer", "user");
+    assertThat(typeString3).isNotSameAs(typeString1);
+    assertThat(typeString3.getFullString()).isEqualTo("user:integer");
+  }
 }
@@ -1,5 +1,7 @@
 package nl.ramsolutions.sw.magik.typedlint;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URI;
@@ -10,12 +12,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import nl.ramsolutions.sw.ConfigurationReader;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.OrderedParallelProcessor;
 import nl.ramsolutions.sw.magik.Location;
-import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
@@ -23,6 +27,7 @@ import nl.ramsolutions.sw.magik.checks.MagikCheckHolder;
 import nl.ramsolutions.sw.magik.checks.MagikCheckMetadata;
 import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
 import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import nl.ramsolutions.sw.magik.checks.MagikIssueCache;
 import nl.ramsolutions.sw.magik.checks.MagikIssueDisabledChecker;
 import nl.ramsolutions.sw.magik.typedchecks.CheckList;
 import nl.ramsolutions.sw.magik.typedlint.output.Reporter;
@@ -36,6 +41,7 @@ public class MagikTypedLint {
   public static final String KEY_COLUMN_OFFSET = "magik.lint.column-offset";
   public static final String KEY_MSG_TEMPLATE = "magik.lint.msg-template";
   public static final String KEY_OVERRIDE_CONFIG = "magik.lint.overrideConfigFile";
+  public static final String KEY_CACHE_FILE = "magik.lint.cache-file";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikTypedLint.class);
 
@@ -59,41 +65,6 @@ public class MagikTypedLint {
     this.reporter = reporter;
   }
 
-  /**
-   * Build context for a file.
-   *
-   * @param path Path to file
-   * @return Visitor context for file.
-   * @throws IOException -
-   */
-  private MagikTypedFile buildMagikFile(final Path path) {
-    try {
-      final MagikToolsProperties fileProperties =
-          ConfigurationReader.readProperties(path, this.properties);
-      final URI uri = path.toUri();
-      final Charset charset = FileCharsetDeterminer.determineCharset(path);
-      final String fileContents = Files.readString(path, charset);
-      return new MagikTypedFile(fileProperties, uri, fileContents, this.definitionKeeper);
-    } catch (final IOException exception) {
-      throw new IllegalStateException(exception);
-    }
-  }
-
-  /**
-   * Run a single check on context.
-   *
-   * @param magikFile File to run check on.
-   * @param holder MagikCheckHolder Check to run.
-   * @return Issues/infractions found.
-   * @throws ReflectiveOperationException -
-   */
-  private List<MagikIssue> runCheckOnFile(
-      final MagikTypedFile magikFile, final MagikCheckHolder holder)
-      throws ReflectiveOperationException {
-    final MagikCheck check = holder.createCheck();
-    return check.scanFileForIssues(magikFile);
-  }
-
   /**
    * Show checks active and inactive checks.
    *
@@ -157,7 +128,8 @@ public class MagikTypedLint {
   }
 
   /**
-   * Run the linter on {@code paths}.
+   * Run the linter on {@code paths}. Issues are reported per file, ordered by path, as soon as the
+   * file is linted. Linting stops when the maximum number of infractions is reported.
    *
    * @throws IOException -
    * @throws ReflectiveOperationException -
@@ -165,26 +137,108 @@ public class MagikTypedLint {
   public void run(final Collection<Path> paths) throws IOException, ReflectiveOperationException {
     final long maxInfractions =
         this.properties.getPropertyLong(MagikTypedLint.KEY_MAX_INFRACTIONS, Long.MAX_VALUE);
-    final Location.LocationRangeComparator locationCompare = new Location.LocationRangeComparator();
-    paths.stream()
-        .parallel()
-        .map(this::buildMagikFile)
-        .filter(magikFile -> !this.isFileIgnored(magikFile))
-        .map(this::runChecksOnFile)
-        .flatMap(List::stream)
-        .sorted((issue0, issue1) -> locationCompare.compare(issue0.location(), issue1.location()))
-        .sequential()
-        .limit(maxInfractions)
-        .forEach(this.reporter::reportIssue);
+    if (maxInfractions <= 0) {
+      return;
+    }
+
+    final MagikIssueCache cache = this.createCache();
+
+    // Lint files in parallel, report issues per file in path order, as soon as available.
+    final List<Path> sortedPaths =
+        paths.stream().sorted(Comparator.comparing(Path::toUri)).toList();
+    final AtomicLong infractions = new AtomicLong();
+    OrderedParallelProcessor.process(
+        sortedPaths,
+        path -> this.lintFile(path, cache),
+        issues -> {
+          for (final MagikIssue issue : issues) {
+            this.reporter.reportIssue(issue);
+            if (infractions.incrementAndGet() >= maxInfractions) {
+              return false;
+            }
+          }
+          return true;
+        },
+        Runtime.getRuntime().availableProcessors());
+
+    if (cache != null) {
+      cache.save();
+    }
   }
 
-  private boolean isFileIgnored(final MagikFile magikFile) {
-    // TODO: Is this still current?
-    final MagikToolsProperties fileProperties = magikFile.getProperties();
-    final MagikChecksConfiguration checksConfig =
-        new MagikChecksConfiguration(CheckList.getChecks(), fileProperties);
-    final URI uri = magikFile.getUri();
-    final Path path = Path.of(uri);
+  /**
+   * Create the {@link MagikIssueCache}, if a cache file is configured.
+   *
+   * @return Cache, or {@code null} if no cache file is configured.
+   * @throws IOException -
+   */
+  @CheckForNull
+  private MagikIssueCache createCache() throws IOException {
+    final Path cachePath = this.properties.getPropertyPath(MagikTypedLint.KEY_CACHE_FILE);
+    if (cachePath == null) {
+      return null;
+    }
+
+    final String version = MagikTypedLint.class.getPackage().getImplementationVersion();
+    if (version == null) {
+      // Not running from a release, checks might have changed without the version changing.
+      LOGGER.warn("Unknown tool version, not using cache: {}", cachePath);
+      return null;
+    }
+
+    final String toolFingerprint =
+        version + ":" + MagikIssueCache.fingerprint(this.definitionKeeper);
+    return new MagikIssueCache(cachePath, toolFingerprint);
+  }
+
+  /**
+   * Lint a single file. Uses the cached issues when the file is unchanged.
+   *
+   * @param path Path to file.
+   * @param cache Cache to use, if any.
+   * @return Issues for file, sorted by location.
+   */
+  private List<MagikIssue> lintFile(final Path path, final @Nullable MagikIssueCache cache) {
+    try {
+      final MagikToolsProperties fileProperties =
+          ConfigurationReader.readProperties(path, this.properties);
+      final MagikChecksConfiguration checksConfig =
+          new MagikChecksConfiguration(CheckList.getChecks(), fileProperties);
+      if (this.isFileIgnored(path, checksConfig)) {
+        return List.of();
+      }
+
+      final URI uri = path.toUri();
+      final byte[] contents = Files.readAllBytes(path);
+      final String key = cache != null ? cache.createKey(fileProperties, path, contents) : null;
+      final List<MagikIssue> cachedIssues =
+          cache != null ? cache.get(uri, key, checksConfig) : null;
+      if (cachedIssues != null) {
+        LOGGER.trace("Thread: {}, using cached issues: {}", Thread.currentThread().getName(), path);
+        return cachedIssues;
+      }
+
+      final Charset charset = FileCharsetDeterminer.determineCharset(path);
+      final String fileContents = new String(contents, charset);
+      final MagikTypedFile magikFile =
+          new MagikTypedFile(fileProperties, uri, fileContents, this.definitionKeeper);
+      final Location.LocationRangeComparator locationCompare =
+          new Location.LocationRangeComparator();
+      final List<MagikIssue> issues =
+          this.runChecksOnFile(magikFile, checksConfig).stream()
+              .sorted(
+                  (issue0, issue1) -> locationCompare.compare(issue0.location(), issue1.location()))
+              .toList();
+      if (cache != null) {
+        cache.put(uri, key, issues);
+      }
+      return issues;
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private boolean isFileIgnored(final Path path, final MagikChecksConfiguration checksConfig) {
     final FileSystem fs = FileSystems.getDefault();
     final boolean isIgnored =
         checksConfig.getIgnores().stream()
@@ -197,39 +251,34 @@ public class MagikTypedLint {
   }
 
   /**
-   * Run {@link MagikCheckHolder}s on {@link MagikTypedFile}.
+   * Run {@link MagikCheckHolder}s on {@link MagikTypedFile}. All enabled checks are run in a single
+   * walk over the tree.
    *
    * @param magikFile File to run on.
-   * @param holders {@link MagikCheckHolder}s to run.
+   * @param checksConfig Checks configuration for the file.
    * @return List of {@link MagikIssue}s for the given file.
    */
-  private List<MagikIssue> runChecksOnFile(final MagikTypedFile magikFile) {
+  private List<MagikIssue> runChecksOnFile(
+      final MagikTypedFile magikFile, final MagikChecksConfiguration checksConfig) {
     LOGGER.trace("Thread: {}, checking file: {}", Thread.currentThread().getName(), magikFile);
 
-    final List<MagikIssue> magikIssues = new ArrayList<>();
-
-    // Run checks on files.
-    final MagikToolsProperties fileProperties = magikFile.getProperties();
-    final MagikChecksConfiguration checksConfig =
-        new MagikChecksConfiguration(CheckList.getChecks(), fileProperties);
-    final Iterable<MagikCheckHolder> holders = checksConfig.getAllChecks();
-    for (final MagikCheckHolder holder : holders) {
+    // Create enabled checks.
+    final List<MagikCheck> checks = new ArrayList<>();
+    for (final MagikCheckHolder holder : checksConfig.getAllChecks()) {
       if (!holder.isEnabled()) {
         continue;
       }
 
       try {
-        final List<MagikIssue> issues =
-            this.runCheckOnFile(magikFile, holder).stream()
-                .filter(
-                    magikIssue -> !MagikIssueDisabledChecker.issueDisabled(magikFile, magikIssue))
-                .toList();
-        magikIssues.addAll(issues);
+        checks.add(holder.createCheck());
       } catch (final ReflectiveOperationException exception) {
         LOGGER.error(exception.getMessage(), exception);
       }
     }
 
-    return magikIssues;
+    // Run checks on file.
+    return MagikCheck.scanFileForIssues(magikFile, checks).stream()
+        .filter(magikIssue -> !MagikIssueDisabledChecker.issueDisabled(magikFile, magikIssue))
+        .toList();
   }
 }
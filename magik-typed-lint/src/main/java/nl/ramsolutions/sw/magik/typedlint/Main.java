@@ -21,7 +21,7 @@ import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.MagikFileScanner;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
-import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionReader;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.DefinitionConverter;
 import nl.ramsolutions.sw.magik.analysis.indexer.MagikIndexer;
 import nl.ramsolutions.sw.magik.typedlint.output.MessageFormatReporter;
 import nl.ramsolutions.sw.magik.typedlint.output.NullReporter;
@@ -84,6 +84,13 @@ public final class Main {
           .hasArg()
           .type(PatternOptionBuilder.FILE_VALUE)
           .build();
+  private static final Option OPTION_CACHE_FILE =
+      Option.builder()
+          .longOpt("cache-file")
+          .desc("Cache file to store issues of unchanged files")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
   private static final Option OPTION_DEBUG =
       Option.builder().longOpt("debug").desc("Enable showing of debug information").build();
   private static final Option OPTION_VERSION =
@@ -101,6 +108,7 @@ public final class Main {
     OPTIONS.addOption(OPTION_MAX_INFRACTIONS);
     OPTIONS.addOption(OPTION_TYPE_DATABASE);
     OPTIONS.addOption(OPTION_PRE_INDEX_DIR);
+    OPTIONS.addOption(OPTION_CACHE_FILE);
     OPTIONS.addOption(OPTION_DEBUG);
     OPTIONS.addOption(OPTION_VERSION);
   }
@@ -175,7 +183,7 @@ public final class Main {
       throws IOException {
     for (final String typeDatabasePath : typeDatabasePaths) {
       final Path path = Path.of(typeDatabasePath);
-      JsonDefinitionReader.readTypes(path, definitionKeeper);
+      DefinitionConverter.readTypes(path, definitionKeeper);
     }
   }
 
@@ -186,12 +194,14 @@ public final class Main {
       throws IOException {
     final IgnoreHandler ignoreHandler = new IgnoreHandler();
     final MagikIndexer magikIndexer = new MagikIndexer(definitionKeeper, properties, ignoreHandler);
+    final List<FileEvent> fileEvents = new ArrayList<>();
     for (final String indexDir : indexDirs) {
       final Path path = Path.of(indexDir).toAbsolutePath();
       final URI uri = path.toUri();
       final FileEvent fileEvent = new FileEvent(uri, FileEvent.FileChangeType.CREATED);
-      magikIndexer.handleFileEvent(fileEvent);
+      fileEvents.add(fileEvent);
     }
+    magikIndexer.handleFileEvents(fileEvents);
   }
 
   /**
@@ -321,5 +331,10 @@ public final class Main {
       final String value = commandLine.getOptionValue(OPTION_RCFILE);
       properties.setProperty(MagikTypedLint.KEY_OVERRIDE_CONFIG, value);
     }
+
+    if (commandLine.hasOption(OPTION_CACHE_FILE)) {
+      final String value = commandLine.getOptionValue(OPTION_CACHE_FILE);
+      properties.setProperty(MagikTypedLint.KEY_CACHE_FILE, value);
+    }
   }
 }
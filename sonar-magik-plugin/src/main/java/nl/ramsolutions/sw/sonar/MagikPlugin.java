@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.sonar;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.MagikSensor;
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 
@@ -23,6 +24,27 @@ public class MagikPlugin implements Plugin {
             .subCategory("General")
             .onQualifiers(Qualifiers.PROJECT)
             .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.THREADS_KEY)
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Threads")
+            .type(PropertyType.INTEGER)
+            .description(
+                "Number of threads to analyze files with. Defaults to the number of processors.")
+            .subCategory("General")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.TYPE_DATABASES_KEY)
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Type databases")
+            .multiValues(true)
+            .description(
+                "List of type databases (JSON-line or binary) to seed the type information with, "
+                    + "used by the typed rules. Relative paths are resolved against the project.")
+            .subCategory("Typing")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
     context.addExtension(MagikSonarWayProfile.class);
     context.addExtension(MagikRulesDefinition.class);
     context.addExtension(MagikSensor.class);
@@ -2,12 +2,13 @@ package nl.ramsolutions.sw.sonar;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonarsource.analyzer.commons.RuleMetadataLoader;
 
-/** Magik rules definition. */
+/** Magik rules definition, for both the untyped and typed checks. */
 public class MagikRulesDefinition implements RulesDefinition {
 
   private static final String REPOSITORY_NAME = "SonarAnalyzer";
@@ -27,7 +28,9 @@ public class MagikRulesDefinition implements RulesDefinition {
   }
 
   private static List<Class<?>> getCheckClasses() {
-    return CheckList.getChecks().stream()
+    return Stream.concat(
+            CheckList.getChecks().stream(),
+            nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks().stream())
         .map(clazz -> (Class<?>) clazz)
         .collect(Collectors.toUnmodifiableList()); // NOSONAR: Keep VSCode/Java plugin sane.
   }
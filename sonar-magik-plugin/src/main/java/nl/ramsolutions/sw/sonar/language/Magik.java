@@ -23,6 +23,12 @@ public class Magik extends AbstractLanguage {
   /** Default file suffixes. */
   public static final String DEFAULT_FILE_SUFFIXES = ".magik";
 
+  /** Number of threads to analyze with key. */
+  public static final String THREADS_KEY = "sonar.magik.threads";
+
+  /** Type databases to seed the type information with key. */
+  public static final String TYPE_DATABASES_KEY = "sonar.magik.typeDatabases";
+
   private final Configuration configuration;
 
   /**
@@ -1,15 +1,26 @@
 package nl.ramsolutions.sw.sonar.sensors;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import nl.ramsolutions.sw.IDefinition;
+import nl.ramsolutions.sw.OrderedParallelProcessor;
 import nl.ramsolutions.sw.magik.MagikFile;
-import nl.ramsolutions.sw.magik.MagikVisitor;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.DefinitionConverter;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import nl.ramsolutions.sw.magik.checks.MagikIssue;
 import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.magik.typedchecks.MagikTypedCheck;
+import nl.ramsolutions.sw.sonar.TokenLocation;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver;
 import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor;
@@ -34,12 +45,39 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.squidbridge.ProgressReport;
 
-/** Magik squid Sensor. */
+/**
+ * Magik squid Sensor.
+ *
+ * <p>When any typed check is active, the analysis is done in two phases. First, all files are
+ * indexed in parallel into a single {@link IDefinitionKeeper}, optionally seeded from type
+ * databases. Second, all files are analyzed as {@link MagikTypedFile}s against this index. When no
+ * typed check is active, the first phase is skipped.
+ *
+ * <p>Files are analyzed in parallel, each thread uses its own check instances. The results are
+ * saved to the {@link SensorContext} from the thread executing the sensor, in the order of the
+ * files.
+ */
 public class MagikSensor implements Sensor {
 
   private static final Logger LOGGER = Loggers.get(MagikSensor.class);
   private static final long SLEEP_PERIOD = 100;
 
+  /**
+   * Analysis results of a file.
+   *
+   * @param inputFile Analyzed file.
+   * @param metrics Metrics of the file.
+   * @param issues Issues of the file, per rule.
+   * @param highlighter Highlighter, holding the highlights of the file.
+   * @param cpdTokens Tokens for CPD.
+   */
+  private record FileResult(
+      InputFile inputFile,
+      FileMetrics metrics,
+      Map<RuleKey, List<MagikIssue>> issues,
+      MagikHighlighterVisitor highlighter,
+      List<TokenLocation> cpdTokens) {}
+
   private final CheckFactory checkFactory;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final NoSonarFilter noSonarFilter;
@@ -75,68 +113,168 @@ public class MagikSensor implements Sensor {
     final List<InputFile> inputFiles = new ArrayList<>();
     fileSystem.inputFiles(filePredicate).forEach(inputFiles::add);
 
+    final int threadCount =
+        context
+            .config()
+            .getInt(Magik.THREADS_KEY)
+            .filter(count -> count > 0)
+            .orElse(Runtime.getRuntime().availableProcessors());
+    LOGGER.debug("Analyzing with {} threads", threadCount);
+
+    // Index all files once, only when needed by typed checks.
+    final ThreadLocal<Checks<MagikCheck>> threadChecks =
+        ThreadLocal.withInitial(this::createChecks);
+    final boolean hasTypedChecks =
+        threadChecks.get().all().stream().anyMatch(MagikTypedCheck.class::isInstance);
+    final IDefinitionKeeper definitionKeeper =
+        hasTypedChecks ? this.buildDefinitionKeeper(context, inputFiles, threadCount) : null;
+
     final ProgressReport progressReport =
         new ProgressReport("Report about progress of Sonar Magik analyzer", SLEEP_PERIOD);
     final List<String> filenames = inputFiles.stream().map(InputFile::toString).toList();
     progressReport.start(filenames);
 
-    for (final InputFile inputFile : inputFiles) {
-      this.scanMagikFile(context, inputFile);
-      progressReport.nextFile();
-    }
+    // Analyze in parallel, with checks per thread. Save results from this thread only.
+    OrderedParallelProcessor.process(
+        inputFiles,
+        inputFile -> this.analyzeMagikFile(inputFile, definitionKeeper, threadChecks.get()),
+        fileResult -> {
+          this.saveFileResult(context, fileResult);
+          progressReport.nextFile();
+          return true;
+        },
+        threadCount);
 
     progressReport.stop();
   }
 
-  private void scanMagikFile(final SensorContext context, final InputFile inputFile) {
-    LOGGER.debug("Scanning magik file: {}", inputFile);
+  private Checks<MagikCheck> createChecks() {
+    synchronized (this.checkFactory) {
+      return this.checkFactory
+          .<MagikCheck>create(CheckList.REPOSITORY_KEY)
+          .addAnnotatedChecks(CheckList.getChecks())
+          .addAnnotatedChecks(nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks());
+    }
+  }
 
-    // Read contents.
-    final URI uri = inputFile.uri();
-    final String fileContent;
+  /**
+   * Build the {@link IDefinitionKeeper}, seeded from the configured type databases, and filled with
+   * the definitions of all {@code inputFiles}. The files are read in parallel, the definitions are
+   * added in the order of the files.
+   *
+   * @param context Sensor context.
+   * @param inputFiles Files to index.
+   * @param threadCount Number of threads to index with.
+   * @return Filled {@link IDefinitionKeeper}.
+   */
+  private IDefinitionKeeper buildDefinitionKeeper(
+      final SensorContext context, final List<InputFile> inputFiles, final int threadCount) {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+
+    final Path baseDir = context.fileSystem().baseDir().toPath();
+    for (final String typeDatabase : context.config().getStringArray(Magik.TYPE_DATABASES_KEY)) {
+      final Path path = baseDir.resolve(typeDatabase.trim());
+      LOGGER.info("Reading type database: {}", path);
+      try {
+        DefinitionConverter.readTypes(path, definitionKeeper);
+      } catch (final IOException exception) {
+        throw new IllegalStateException("Cannot read type database " + path, exception);
+      }
+    }
+
+    LOGGER.info("Indexing {} magik files", inputFiles.size());
+    OrderedParallelProcessor.process(
+        inputFiles,
+        MagikSensor::readDefinitions,
+        definitions -> {
+          definitions.forEach(definitionKeeper::add);
+          return true;
+        },
+        threadCount);
+
+    return definitionKeeper;
+  }
+
+  private static List<IDefinition> readDefinitions(final InputFile inputFile) {
+    LOGGER.debug("Indexing magik file: {}", inputFile);
+
+    final MagikFile magikFile = new MagikFile(inputFile.uri(), MagikSensor.readContents(inputFile));
+    return magikFile.getDefinitions().stream().map(IDefinition::getBareDefinition).toList();
+  }
+
+  private static String readContents(final InputFile inputFile) {
     try {
-      fileContent = inputFile.contents();
+      return inputFile.contents();
     } catch (IOException ex) {
       throw new IllegalStateException("Cannot read " + inputFile, ex);
     }
-    final MagikFile magikFile = new MagikFile(uri, fileContent);
+  }
 
-    // Save metrics.
-    LOGGER.debug("Save measures");
-    this.saveMetrics(context, inputFile, magikFile);
+  private FileResult analyzeMagikFile(
+      final InputFile inputFile,
+      final @Nullable IDefinitionKeeper definitionKeeper,
+      final Checks<MagikCheck> checks) {
+    LOGGER.debug("Scanning magik file: {}", inputFile);
 
-    // Save issues.
+    // Read contents, typed when the index is available.
+    final URI uri = inputFile.uri();
+    final String fileContent = MagikSensor.readContents(inputFile);
+    final MagikFile magikFile =
+        definitionKeeper != null
+            ? new MagikTypedFile(uri, fileContent, definitionKeeper)
+            : new MagikFile(uri, fileContent);
+
+    // Metrics.
+    final FileMetrics metrics = new FileMetrics(magikFile, true);
+
+    // Issues.
     LOGGER.debug("Running checks");
-    final Checks<MagikCheck> checks =
-        checkFactory
-            .<MagikCheck>create(CheckList.REPOSITORY_KEY)
-            .addAnnotatedChecks(CheckList.getChecks());
-    for (final MagikCheck check : checks.all()) {
-      LOGGER.debug("Running check: {}", check);
-      final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
-      final RuleKey ruleKey = checks.ruleKey(check);
+    final List<MagikCheck> checkList = List.copyOf(checks.all());
+    final Map<RuleKey, List<MagikIssue>> issues = new LinkedHashMap<>();
+    for (final MagikIssue issue : MagikCheck.scanFileForIssues(magikFile, checkList)) {
+      final RuleKey ruleKey = checks.ruleKey(issue.check());
       if (ruleKey == null) {
         continue;
       }
 
-      this.saveIssues(context, ruleKey, issues, inputFile);
+      issues.computeIfAbsent(ruleKey, key -> new ArrayList<>()).add(issue);
     }
 
+    // Highlighted tokens.
+    final MagikHighlighterVisitor highlighter = new MagikHighlighterVisitor();
+    highlighter.scanFile(magikFile);
+
+    // CPD tokens.
+    final List<TokenLocation> cpdTokens = CpdTokenSaver.getCpdTokens(magikFile);
+
+    return new FileResult(inputFile, metrics, issues, highlighter, cpdTokens);
+  }
+
+  private void saveFileResult(final SensorContext context, final FileResult fileResult) {
+    final InputFile inputFile = fileResult.inputFile();
+
+    // Save metrics.
+    LOGGER.debug("Save measures");
+    this.saveMetrics(context, inputFile, fileResult.metrics());
+
+    // Save issues.
+    LOGGER.debug("Saving issues");
+    fileResult
+        .issues()
+        .forEach((ruleKey, issues) -> this.saveIssues(context, ruleKey, issues, inputFile));
+
     // Save highlighted tokens.
     LOGGER.debug("Saving highlighted tokens");
-    final MagikVisitor tokensVisitor = new MagikHighlighterVisitor(context, inputFile);
-    tokensVisitor.scanFile(magikFile);
+    fileResult.highlighter().saveHighlighting(context, inputFile);
 
     // Save CPD tokens.
     LOGGER.debug("Saving CPD tokens");
     final CpdTokenSaver cpdTokenSaver = new CpdTokenSaver(context);
-    cpdTokenSaver.saveCpdTokens(inputFile, magikFile);
+    cpdTokenSaver.saveCpdTokens(inputFile, fileResult.cpdTokens());
   }
 
   private void saveMetrics(
-      final SensorContext context, final InputFile inputFile, final MagikFile magikFile) {
-    final FileMetrics metrics = new FileMetrics(magikFile, true);
-
+      final SensorContext context, final InputFile inputFile, final FileMetrics metrics) {
     // Metrics on file.
     this.saveMetric(context, inputFile, CoreMetrics.NCLOC, metrics.linesOfCode().size());
     this.saveMetric(context, inputFile, CoreMetrics.COMMENT_LINES, metrics.commentLineCount());
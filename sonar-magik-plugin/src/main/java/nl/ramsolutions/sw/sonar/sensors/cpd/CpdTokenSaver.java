@@ -34,27 +34,48 @@ public class CpdTokenSaver {
    * @param magikFile Magik file.
    */
   public void saveCpdTokens(final InputFile inputFile, final MagikFile magikFile) {
+    final List<TokenLocation> tokenLocations = CpdTokenSaver.getCpdTokens(magikFile);
+    this.saveCpdTokens(inputFile, tokenLocations);
+  }
+
+  /**
+   * Save tokens for CPD.
+   *
+   * @param inputFile Input file.
+   * @param tokenLocations Tokens, from {@link #getCpdTokens(MagikFile)}.
+   */
+  public void saveCpdTokens(final InputFile inputFile, final List<TokenLocation> tokenLocations) {
     LOGGER.debug("Saving CPD tokens, file: {}", inputFile);
 
     final NewCpdTokens newCpdTokens = this.context.newCpdTokens().onFile(inputFile);
+    tokenLocations.forEach(
+        tokenLocation ->
+            newCpdTokens.addToken(
+                tokenLocation.line(),
+                tokenLocation.column(),
+                tokenLocation.endLine(),
+                tokenLocation.endColumn(),
+                tokenLocation.getValue()));
+    newCpdTokens.save();
+  }
+
+  /**
+   * Get the tokens for CPD, in order.
+   *
+   * @param magikFile Magik file.
+   * @return Tokens for CPD.
+   */
+  public static List<TokenLocation> getCpdTokens(final MagikFile magikFile) {
     final List<Token> tokens = magikFile.getTopNode().getTokens();
 
     // Ensure order of tokens is preserved.
     final Comparator<TokenLocation> byLine = Comparator.comparing(TokenLocation::line);
     final Comparator<TokenLocation> byColumn = Comparator.comparing(TokenLocation::column);
 
-    tokens.stream()
+    return tokens.stream()
         .filter(token -> !token.getValue().trim().isEmpty())
         .map(TokenLocation::new)
         .sorted(byLine.thenComparing(byColumn))
-        .forEach(
-            tokenLocation ->
-                newCpdTokens.addToken(
-                    tokenLocation.line(),
-                    tokenLocation.column(),
-                    tokenLocation.endLine(),
-                    tokenLocation.endColumn(),
-                    tokenLocation.getValue()));
-    newCpdTokens.save();
+        .toList();
   }
 }
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.sonar.visitors;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
 import java.util.List;
 import nl.ramsolutions.sw.magik.MagikVisitor;
 import nl.ramsolutions.sw.magik.api.MagikKeyword;
@@ -12,21 +13,45 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 
-/** Magik highlighter visitor. */
+/**
+ * Magik highlighter visitor.
+ *
+ * <p>Highlights are collected while visiting, and saved via {@link #saveHighlighting(SensorContext,
+ * InputFile)}. This allows visiting on a different thread than saving.
+ */
 public class MagikHighlighterVisitor extends MagikVisitor {
 
   private static final List<String> KEYWORDS = List.of(MagikKeyword.keywordValues());
 
-  private final NewHighlighting newHighlighting;
+  /**
+   * Highlight of a token.
+   *
+   * @param tokenLocation Location of token.
+   * @param typeOfText Type of text.
+   */
+  private record Highlight(TokenLocation tokenLocation, TypeOfText typeOfText) {}
 
-  public MagikHighlighterVisitor(final SensorContext context, final InputFile inputFile) {
-    this.newHighlighting = context.newHighlighting();
-    this.newHighlighting.onFile(inputFile);
-  }
+  private final List<Highlight> highlights = new ArrayList<>();
 
-  @Override
-  protected void walkPostMagik(final AstNode node) {
-    this.newHighlighting.save();
+  /**
+   * Save the collected highlights.
+   *
+   * @param context Sensor context.
+   * @param inputFile Input file.
+   */
+  public void saveHighlighting(final SensorContext context, final InputFile inputFile) {
+    final NewHighlighting newHighlighting = context.newHighlighting();
+    newHighlighting.onFile(inputFile);
+    for (final Highlight highlight : this.highlights) {
+      final TokenLocation tokenLocation = highlight.tokenLocation();
+      newHighlighting.highlight(
+          tokenLocation.line(),
+          tokenLocation.column(),
+          tokenLocation.endLine(),
+          tokenLocation.endColumn(),
+          highlight.typeOfText());
+    }
+    newHighlighting.save();
   }
 
   @Override
@@ -60,11 +85,6 @@ public class MagikHighlighterVisitor extends MagikVisitor {
 
   private void highlight(final Token token, final TypeOfText typeOfText) {
     final TokenLocation tokenLocation = new TokenLocation(token);
-    this.newHighlighting.highlight(
-        tokenLocation.line(),
-        tokenLocation.column(),
-        tokenLocation.endLine(),
-        tokenLocation.endColumn(),
-        typeOfText);
+    this.highlights.add(new Highlight(tokenLocation, typeOfText));
   }
 }
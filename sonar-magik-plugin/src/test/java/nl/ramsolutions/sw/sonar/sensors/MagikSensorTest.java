@@ -0,0 +1,172 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.checks.LineLengthCheck;
+import nl.ramsolutions.sw.magik.checks.checks.TrailingWhitespaceCheck;
+import nl.ramsolutions.sw.magik.typedchecks.checks.MethodExistsTypedCheck;
+import nl.ramsolutions.sw.sonar.language.Magik;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.issue.NoSonarFilter;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+
+/** Tests for {@link MagikSensor}. */
+class MagikSensorTest {
+
+  private static final Path TEST_PRODUCT_PATH = Path.of("src/test/resources/test_product");
+  private static final int FILE_COUNT = 20;
+
+  /** {@link FileLinesContext} doing nothing. */
+  private static final class NullFileLinesContext implements FileLinesContext {
+
+    @Override
+    public void setIntValue(final String metricKey, final int line, final int value) {
+      // Nothing to do.
+    }
+
+    @Override
+    public void setStringValue(final String metricKey, final int line, final String value) {
+      // Nothing to do.
+    }
+
+    @Override
+    public void save() {
+      // Nothing to do.
+    }
+  }
+
+  /** {@link NoSonarFilter} doing nothing. */
+  private static final class NullNoSonarFilter extends NoSonarFilter {
+
+    @Override
+    public NoSonarFilter noSonarInFile(final InputFile inputFile, final Set<Integer> noSonarLines) {
+      return this;
+    }
+  }
+
+  private static InputFile createInputFile(final int index) {
+    // Each file has index + 1 lines with trailing whitespace.
+    final String contents = "_block\n" + "\twrite(1) \n".repeat(index + 1) + "_endblock\n$\n";
+    return MagikSensorTest.createInputFile("file" + index + ".magik", contents);
+  }
+
+  private static InputFile createInputFile(final String filename, final String contents) {
+    return TestInputFileBuilder.create("moduleKey", filename)
+        .setCharset(StandardCharsets.ISO_8859_1)
+        .setType(InputFile.Type.MAIN)
+        .setLanguage(Magik.KEY)
+        .setContents(contents)
+        .build();
+  }
+
+  private static CheckFactory createCheckFactory() {
+    return new CheckFactory(
+        new ActiveRulesBuilder()
+            .addRule(
+                new NewActiveRule.Builder()
+                    .setRuleKey(
+                        RuleKey.of(CheckList.REPOSITORY_KEY, TrailingWhitespaceCheck.CHECK_KEY))
+                    .build())
+            .addRule(
+                new NewActiveRule.Builder()
+                    .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, LineLengthCheck.CHECK_KEY))
+                    .build())
+            .build());
+  }
+
+  @Test
+  void testExecuteTyped(@TempDir final Path tempDir) throws IOException {
+    final Path typesPath = tempDir.resolve("types.jsonl");
+    Files.writeString(
+        typesPath,
+        """
+        {"instruction":"type","type_name":"user:a","sort":"slotted","doc":null,"parents":["sw:object"],"slots":[],"module_name":null}
+        {"instruction":"method","type_name":"user:a","method_name":"m1()","modifiers":[],"parameters":[],"return_types":[],"loop_types":[],"source_file":null,"doc":null,"module_name":null}
+        """);
+
+    final SensorContextTester context = SensorContextTester.create(TEST_PRODUCT_PATH);
+    context.setSettings(
+        new MapSettings()
+            .setProperty(Magik.THREADS_KEY, 2)
+            .setProperty(Magik.TYPE_DATABASES_KEY, typesPath.toString()));
+    context
+        .fileSystem()
+        .add(
+            MagikSensorTest.createInputFile(
+                "usage.magik", "_block\n\ta.m1()\n\ta.m3()\n\tb.m2()\n\tb.m4()\n_endblock\n$\n"));
+    context
+        .fileSystem()
+        .add(
+            MagikSensorTest.createInputFile(
+                "definition.magik",
+                "def_slotted_exemplar(:b, {})\n$\n_method b.m2()\n_endmethod\n$\n"));
+
+    final CheckFactory checkFactory =
+        new CheckFactory(
+            new ActiveRulesBuilder()
+                .addRule(
+                    new NewActiveRule.Builder()
+                        .setRuleKey(
+                            RuleKey.of(CheckList.REPOSITORY_KEY, MethodExistsTypedCheck.CHECK_KEY))
+                        .build())
+                .build());
+    final MagikSensor sensor =
+        new MagikSensor(
+            checkFactory, inputFile -> new NullFileLinesContext(), new NullNoSonarFilter());
+    sensor.execute(context);
+
+    // Methods from the type database and from the indexed files are known.
+    assertThat(context.allIssues())
+        .extracting(issue -> issue.primaryLocation().message())
+        .containsExactlyInAnyOrder("Unknown method: user:a.m3()", "Unknown method: user:b.m4()");
+  }
+
+  @Test
+  void testExecuteParallel() {
+    final SensorContextTester context = SensorContextTester.create(TEST_PRODUCT_PATH);
+    context.setSettings(new MapSettings().setProperty(Magik.THREADS_KEY, 4));
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      context.fileSystem().add(MagikSensorTest.createInputFile(i));
+    }
+
+    final FileLinesContextFactory fileLinesContextFactory = inputFile -> new NullFileLinesContext();
+    final MagikSensor sensor =
+        new MagikSensor(
+            MagikSensorTest.createCheckFactory(), fileLinesContextFactory, new NullNoSonarFilter());
+    sensor.execute(context);
+
+    final List<Issue> issues = List.copyOf(context.allIssues());
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      final String componentKey = "moduleKey:file" + i + ".magik";
+      final long fileIssueCount =
+          issues.stream()
+              .filter(issue -> issue.primaryLocation().inputComponent().key().equals(componentKey))
+              .filter(issue -> issue.ruleKey().rule().equals(TrailingWhitespaceCheck.CHECK_KEY))
+              .count();
+      assertThat(fileIssueCount).isEqualTo(i + 1L);
+      assertThat(context.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(i + 5);
+      assertThat(context.highlightingTypeAt(componentKey, 1, 0)).contains(TypeOfText.KEYWORD);
+      assertThat(context.cpdTokens(componentKey)).isNotEmpty();
+    }
+  }
+}